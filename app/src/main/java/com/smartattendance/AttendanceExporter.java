@@ -0,0 +1,231 @@
+package com.smartattendance;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Streams attendance records out of the log into CSV or XLSX for the
+// registrar. Records are written as the filtered log scan produces them, so
+// memory stays flat whatever the number of rows: CSV goes through a buffered
+// writer, and XLSX through POI's SXSSF, which keeps only a small window of
+// rows in memory and spills the rest to a temporary file.
+public class AttendanceExporter {
+    public enum Format {
+        CSV, XLSX;
+
+        public static Format of(Path file) {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".xlsx") ? XLSX : CSV;
+        }
+    }
+
+    public interface ProgressListener {
+        // scanned and total count log records examined; written counts exported rows
+        void onProgress(long scanned, long total, long written);
+    }
+
+    static final String[] HEADER = {"studentId", "courseCode", "timestamp", "epochMillis", "location"};
+    private static final int CSV_BUFFER_CHARS = 1 << 16;
+    private static final int XLSX_WINDOW_ROWS = 256;
+    // Excel's limit is 1,048,576 rows per sheet, one of which is the header
+    private static final int XLSX_ROWS_PER_SHEET = 1_048_575;
+
+    static {
+        // POI logs through the log4j API and nothing here ships a log4j
+        // backend; route it to the API's simple logger instead of having log4j
+        // complain on stderr the first time a workbook is created.
+        if (System.getProperty("log4j2.loggerContextFactory") == null) {
+            System.setProperty("log4j2.loggerContextFactory",
+                    "org.apache.logging.log4j.simple.SimpleLoggerContextFactory");
+        }
+    }
+
+    private final AttendanceLog log;
+
+    public AttendanceExporter(AttendanceLog log) {
+        this.log = log;
+    }
+
+    // Writes the matching records to the file, in the format given by its
+    // extension, and returns the number of rows written. A failed or
+    // interrupted export deletes the partial file.
+    public long export(RecordFilter filter, Path file, ProgressListener listener) throws IOException {
+        boolean done = false;
+        try {
+            long rows = Format.of(file) == Format.XLSX
+                    ? exportXlsx(filter, file, listener)
+                    : exportCsv(filter, file, listener);
+            done = true;
+            return rows;
+        } finally {
+            if (!done) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private long exportCsv(RecordFilter filter, Path file, ProgressListener listener) throws IOException {
+        long total = log.size();
+        long[] written = {0};
+        StringBuilder line = new StringBuilder(128);
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), CSV_BUFFER_CHARS)) {
+            out.write(String.join(",", HEADER));
+            out.write('\n');
+            scan(filter, record -> {
+                line.setLength(0);
+                appendCsv(line, record.getStudentId()).append(',');
+                appendCsv(line, record.getCourseCode()).append(',');
+                line.append(MarkMessages.formatTimestamp(record.getEpochMillis())).append(',');
+                line.append(record.getEpochMillis()).append(',');
+                appendCsv(line, record.getLocation()).append('\n');
+                try {
+                    out.append(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0]++;
+            }, scanned -> listener.onProgress(scanned, total, written[0]));
+        }
+        listener.onProgress(total, total, written[0]);
+        return written[0];
+    }
+
+    private long exportXlsx(RecordFilter filter, Path file, ProgressListener listener) throws IOException {
+        long total = log.size();
+        long[] written = {0};
+        SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW_ROWS);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+            SXSSFSheet[] sheet = {newSheet(workbook, 1)};
+            int[] sheetRow = {1};
+
+            scan(filter, record -> {
+                if (sheetRow[0] > XLSX_ROWS_PER_SHEET) {
+                    sheet[0] = newSheet(workbook, workbook.getNumberOfSheets() + 1);
+                    sheetRow[0] = 1;
+                }
+                Row row = sheet[0].createRow(sheetRow[0]++);
+                row.createCell(0).setCellValue(record.getStudentId());
+                row.createCell(1).setCellValue(record.getCourseCode());
+                Cell timestamp = row.createCell(2);
+                timestamp.setCellValue(record.getLocalDateTime());
+                timestamp.setCellStyle(dateStyle);
+                row.createCell(3).setCellValue(record.getEpochMillis());
+                row.createCell(4).setCellValue(record.getLocation());
+                written[0]++;
+            }, scanned -> listener.onProgress(scanned, total, written[0]));
+
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+        } finally {
+            // Also deletes the temporary sheet files
+            workbook.close();
+        }
+        listener.onProgress(total, total, written[0]);
+        return written[0];
+    }
+
+    private static SXSSFSheet newSheet(SXSSFWorkbook workbook, int number) {
+        SXSSFSheet sheet = workbook.createSheet(number == 1 ? "Attendance" : "Attendance " + number);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADER.length; i++) {
+            header.createCell(i).setCellValue(HEADER[i]);
+        }
+        sheet.setColumnWidth(0, 20 * 256);
+        sheet.setColumnWidth(1, 14 * 256);
+        sheet.setColumnWidth(2, 20 * 256);
+        sheet.setColumnWidth(3, 16 * 256);
+        sheet.setColumnWidth(4, 12 * 256);
+        return sheet;
+    }
+
+    // Runs the log scan, turning write failures inside the callback back into IOExceptions
+    private void scan(RecordFilter filter, Consumer<AttendanceRecord> consumer,
+                      LongConsumer progress) throws IOException {
+        try {
+            log.scan(filter, consumer, progress);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static StringBuilder appendCsv(StringBuilder out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    // Headless entry point: export <out.csv|out.xlsx> [--course C] [--from date] [--to date] [--data-dir dir]
+    public static void run(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: export <out.csv|out.xlsx> [--course CODE] [--from yyyy-mm-dd]"
+                    + " [--to yyyy-mm-dd] [--data-dir dir]   (while the app and server are not running)");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        String course = null;
+        LocalDate from = null;
+        LocalDate to = null;
+        Path dataDir = Paths.get("attendance-data");
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--course":
+                    course = args[i + 1];
+                    break;
+                case "--from":
+                    from = LocalDate.parse(args[i + 1]);
+                    break;
+                case "--to":
+                    to = LocalDate.parse(args[i + 1]);
+                    break;
+                case "--data-dir":
+                    dataDir = Paths.get(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        RecordFilter filter = RecordFilter.forDates(course, from, to, ZoneId.systemDefault());
+        long start = System.nanoTime();
+        long rows;
+        try (AttendanceLog log = AttendanceLog.open(dataDir)) {
+            rows = new AttendanceExporter(log).export(filter, file, (scanned, total, written) ->
+                    System.out.print("\rScanned " + scanned + " of " + total + " records, exported " + written));
+        }
+        System.out.println();
+        System.out.println("Exported " + rows + " records to " + file
+                + String.format(" in %.1f s", (System.nanoTime() - start) / 1e9));
+    }
+}
@@ -0,0 +1,568 @@
+package com.smartattendance;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+// Headless attendance ingestion over HTTP, built on the JDK's built-in server.
+//
+//   POST /api/login      {"username": "admin", "password": "..."}
+//                        Responds with a session token for the Authorization header.
+//   POST /api/logout     Ends the session in the Authorization header.
+//   POST /api/marks      (Authorization: Bearer <token>)
+//                        one mark object or an array of them:
+//                        {"studentId": "S1", "courseCode": "CS101", "latitude": 12.9716, "longitude": 77.5935}
+//                        A scanned "sessionToken" may be sent instead of courseCode, and the
+//                        connected access point's "bssid" instead of (or with) the coordinates.
+//                        A course code without a token is refused (TOKEN_REQUIRED) unless the
+//                        logged-in operator marks it "staffEntry": true.
+//                        Responds with one result per mark, in order.
+//   POST /api/sync       (Authorization: Bearer <token>, optionally Content-Encoding: gzip)
+//                        a batch of already-verified marks from a kiosk Outbox:
+//                        {"stream": "kiosk-1/5f0c...", "marks": [{"seq": 1, "studentId": "S1",
+//                        "courseCode": "CS101", "timestamp": 1700000000000, "location": "LIB"}, ...]}
+//                        (stream, seq) is the idempotency key; replays are counted as duplicates.
+//                        Marks that fail validation come back in "rejectedMarks" with their seq
+//                        and are not counted as applied, so a resend is checked again.
+//   GET  /api/headcount?course=CS101
+//   GET  /api/reports/... (Authorization: Bearer <token>)
+//   GET  /api/reports/course?course=CS101          per-student percentages and session headcounts
+//   GET  /api/reports/student?studentId=S1         the student's percentage in each course
+//   GET  /api/reports/absentees?threshold=75&minSessions=3
+//   GET  /api/metrics    latency percentiles and counters (see Metrics)
+//   GET  /api/health
+//
+// A batch is committed with a single group-commit fsync, so clients that
+// submit arrays get far higher throughput than one request per mark.
+// Passwords are only hashed on /api/login; marks are authorized by a session
+// table lookup.
+public class AttendanceHttpServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BATCH = 10_000;
+    private static final int MAX_BODY_BYTES = 4 * 1024 * 1024;
+
+    private final AttendanceService service;
+    private final LoginService loginService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Highest seq applied from each Outbox stream. A kiosk sends a stream in
+    // order and repeats a batch until it is acknowledged, so anything at or
+    // below this is a replay. Only kept in memory: after a restart the
+    // duplicate index still stops a replayed mark from counting twice.
+    private final Map<String, long[]> syncApplied = new ConcurrentHashMap<>();
+
+    public AttendanceHttpServer(AttendanceService service, LoginService loginService, int port) throws IOException {
+        this.service = service;
+        this.loginService = loginService;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = ServerExecutors.newRequestExecutor("attendance-http");
+        server.setExecutor(executor);
+        server.createContext("/api/login", this::handleLogin);
+        server.createContext("/api/logout", this::handleLogout);
+        server.createContext("/api/marks", this::handleMarks);
+        server.createContext("/api/sync", this::handleSync);
+        server.createContext("/api/headcount", this::handleHeadcount);
+        server.createContext("/api/reports/", this::handleReports);
+        server.createContext("/api/metrics",
+                exchange -> respond(exchange, 200, Metrics.getInstance().snapshot().toJson()));
+        server.createContext("/api/health", exchange -> respond(exchange, 200, "{\"status\":\"UP\"}"));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    private void handleLogin(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Use POST"));
+                return;
+            }
+
+            String username;
+            char[] password;
+            try {
+                Object body = Json.parse(readBody(exchange));
+                if (!(body instanceof Map)) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> fields = (Map<String, Object>) body;
+                username = string(fields, "username");
+                String text = string(fields, "password");
+                if (username == null || text == null) {
+                    throw new IllegalArgumentException("username and password are required");
+                }
+                password = text.toCharArray();
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+                return;
+            }
+
+            String client = exchange.getRemoteAddress().getAddress().getHostAddress();
+            LoginService.Result result = loginService.login(username, password, client);
+            switch (result.getStatus()) {
+                case OK:
+                    respond(exchange, 200, "{\"token\":" + Json.quote(result.getSessionToken())
+                            + ",\"username\":" + Json.quote(username) + "}");
+                    break;
+                case THROTTLED:
+                    exchange.getResponseHeaders().set("Retry-After", "5");
+                    respond(exchange, 429, error(result.getStatus().getDescription()));
+                    break;
+                default:
+                    respond(exchange, 401, error(result.getStatus().getDescription()));
+                    break;
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleLogout(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Use POST"));
+                return;
+            }
+            loginService.logout(bearerToken(exchange));
+            respond(exchange, 200, "{\"status\":\"LOGGED_OUT\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMarks(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Use POST"));
+                return;
+            }
+            if (loginService.authenticate(bearerToken(exchange)) == null) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                respond(exchange, 401, error("Log in first and send the session token as a Bearer token"));
+                return;
+            }
+
+            List<MarkRequest> requests;
+            boolean batch;
+            try {
+                Object body = Json.parse(readBody(exchange));
+                batch = body instanceof List;
+                requests = toRequests(body);
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+                return;
+            }
+
+            List<MarkResult> results = service.markBatch(requests);
+            StringBuilder out = new StringBuilder(results.size() * 128);
+            if (batch) {
+                out.append('[');
+                for (int i = 0; i < results.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    appendResult(out, results.get(i));
+                }
+                out.append(']');
+            } else {
+                appendResult(out, results.get(0));
+            }
+            respond(exchange, 200, out.toString());
+        } catch (RuntimeException e) {
+            internalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleSync(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Use POST"));
+                return;
+            }
+            if (loginService.authenticate(bearerToken(exchange)) == null) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                respond(exchange, 401, error("Log in first and send the session token as a Bearer token"));
+                return;
+            }
+
+            String stream;
+            long[] seqs;
+            List<AttendanceRecord> records;
+            try {
+                Object body = Json.parse(readBody(exchange));
+                if (!(body instanceof Map)) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> fields = (Map<String, Object>) body;
+                stream = string(fields, "stream");
+                if (stream == null || stream.isEmpty() || !(fields.get("marks") instanceof List)) {
+                    throw new IllegalArgumentException("stream and marks are required");
+                }
+                List<?> marks = (List<?>) fields.get("marks");
+                if (marks.size() > MAX_BATCH) {
+                    throw new IllegalArgumentException("Batch too large (max " + MAX_BATCH + ")");
+                }
+                seqs = new long[marks.size()];
+                records = new ArrayList<>(marks.size());
+                for (int i = 0; i < marks.size(); i++) {
+                    if (!(marks.get(i) instanceof Map)) {
+                        throw new IllegalArgumentException("Each mark must be a JSON object");
+                    }
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> mark = (Map<String, Object>) marks.get(i);
+                    if (!(mark.get("seq") instanceof Long) || !(mark.get("timestamp") instanceof Long)) {
+                        throw new IllegalArgumentException("Each mark needs an integer seq and timestamp");
+                    }
+                    seqs[i] = (Long) mark.get("seq");
+                    String studentId = string(mark, "studentId");
+                    String courseCode = string(mark, "courseCode");
+                    records.add(new AttendanceRecord(studentId == null ? "" : studentId,
+                            courseCode == null ? "" : courseCode, (Long) mark.get("timestamp"),
+                            string(mark, "location")));
+                }
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+                return;
+            }
+
+            long[] applied = syncApplied.computeIfAbsent(stream, key -> new long[1]);
+            int marked = 0;
+            int duplicates = 0;
+            StringBuilder rejected = new StringBuilder();
+            int rejectedCount = 0;
+            synchronized (applied) {
+                List<AttendanceRecord> fresh = new ArrayList<>(records.size());
+                List<Long> freshSeqs = new ArrayList<>(records.size());
+                long last = applied[0];
+                for (int i = 0; i < records.size(); i++) {
+                    if (seqs[i] <= applied[0]) {
+                        duplicates++;
+                    } else {
+                        fresh.add(records.get(i));
+                        freshSeqs.add(seqs[i]);
+                        last = Math.max(last, seqs[i]);
+                    }
+                }
+                List<MarkResult.Status> statuses = service.importRecords(fresh);
+                for (int i = 0; i < statuses.size(); i++) {
+                    MarkResult.Status status = statuses.get(i);
+                    if (status == MarkResult.Status.STORAGE_ERROR) {
+                        // Not acknowledged, so the kiosk sends the batch again
+                        respond(exchange, 503, error(status.getDescription()));
+                        return;
+                    }
+                    if (status == MarkResult.Status.MARKED) {
+                        marked++;
+                    } else if (status == MarkResult.Status.ALREADY_MARKED) {
+                        duplicates++;
+                    } else {
+                        // Handed back to the kiosk, and the stream is not marked applied past it, so a resend
+                        // is tried again instead of being skipped as a duplicate
+                        long seq = freshSeqs.get(i);
+                        last = Math.min(last, seq - 1);
+                        rejected.append(rejectedCount++ > 0 ? ",{\"seq\":" : "{\"seq\":").append(seq);
+                        rejected.append(",\"studentId\":");
+                        Json.appendQuoted(rejected, fresh.get(i).getStudentId());
+                        rejected.append(",\"status\":").append(Json.quote(status.name()));
+                        rejected.append(",\"error\":").append(Json.quote(status.getDescription())).append('}');
+                    }
+                }
+                applied[0] = Math.max(applied[0], last);
+            }
+            respond(exchange, 200, "{\"stream\":" + Json.quote(stream) + ",\"applied\":" + marked
+                    + ",\"duplicates\":" + duplicates + ",\"rejected\":" + rejectedCount
+                    + ",\"rejectedMarks\":[" + rejected + "]}");
+        } catch (RuntimeException e) {
+            internalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleHeadcount(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Use GET"));
+                return;
+            }
+            String course = queryParameter(exchange, "course");
+            if (course == null || course.isEmpty()) {
+                respond(exchange, 400, error("Missing course parameter"));
+                return;
+            }
+            int headcount = service.getIndex().headcount(course, System.currentTimeMillis());
+            respond(exchange, 200, "{\"courseCode\":" + Json.quote(course) + ",\"headcount\":" + headcount + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleReports(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Use GET"));
+                return;
+            }
+            // Reports name students and their attendance, so they need a session like marking does
+            if (loginService.authenticate(bearerToken(exchange)) == null) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                respond(exchange, 401, error("Log in first and send the session token as a Bearer token"));
+                return;
+            }
+
+            ReportStore reports = service.getReports();
+            String path = exchange.getRequestURI().getPath();
+            StringBuilder out = new StringBuilder(4096);
+            if (path.equals("/api/reports/course")) {
+                String course = queryParameter(exchange, "course");
+                if (course == null || course.isEmpty()) {
+                    respond(exchange, 400, error("Missing course parameter"));
+                    return;
+                }
+                out.append("{\"courseCode\":");
+                Json.appendQuoted(out, course);
+                out.append(",\"students\":");
+                appendAttendance(out, reports.courseAttendance(course));
+                out.append(",\"sessions\":[");
+                List<SessionHeadcount> sessions = reports.sessionHeadcounts(course);
+                for (int i = 0; i < sessions.size(); i++) {
+                    out.append(i > 0 ? "," : "").append("{\"date\":\"").append(sessions.get(i).getDate())
+                            .append("\",\"headcount\":").append(sessions.get(i).getHeadcount()).append('}');
+                }
+                out.append("]}");
+            } else if (path.equals("/api/reports/student")) {
+                String studentId = queryParameter(exchange, "studentId");
+                if (studentId == null || studentId.isEmpty()) {
+                    respond(exchange, 400, error("Missing studentId parameter"));
+                    return;
+                }
+                appendAttendance(out, reports.studentAttendance(studentId));
+            } else if (path.equals("/api/reports/absentees")) {
+                double threshold;
+                int minSessions;
+                try {
+                    String thresholdParameter = queryParameter(exchange, "threshold");
+                    String minSessionsParameter = queryParameter(exchange, "minSessions");
+                    threshold = thresholdParameter == null ? 75 : Double.parseDouble(thresholdParameter);
+                    minSessions = minSessionsParameter == null ? 3 : Integer.parseInt(minSessionsParameter);
+                } catch (NumberFormatException e) {
+                    respond(exchange, 400, error("threshold and minSessions must be numbers"));
+                    return;
+                }
+                appendAttendance(out, reports.chronicAbsentees(threshold, minSessions));
+            } else {
+                respond(exchange, 404, error("Unknown report"));
+                return;
+            }
+            respond(exchange, 200, out.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void appendAttendance(StringBuilder out, List<StudentAttendance> rows) {
+        out.append('[');
+        for (int i = 0; i < rows.size(); i++) {
+            StudentAttendance row = rows.get(i);
+            out.append(i > 0 ? ",{\"studentId\":" : "{\"studentId\":");
+            Json.appendQuoted(out, row.getStudentId());
+            out.append(",\"courseCode\":");
+            Json.appendQuoted(out, row.getCourseCode());
+            out.append(",\"attended\":").append(row.getAttended())
+                    .append(",\"sessions\":").append(row.getSessions())
+                    .append(",\"percent\":").append(Math.round(row.getPercent() * 10) / 10.0).append('}');
+        }
+        out.append(']');
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<MarkRequest> toRequests(Object body) {
+        List<Object> items = body instanceof List ? (List<Object>) body : Collections.singletonList(body);
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("No marks in request");
+        }
+        if (items.size() > MAX_BATCH) {
+            throw new IllegalArgumentException("Batch too large (max " + MAX_BATCH + ")");
+        }
+        List<MarkRequest> requests = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (!(item instanceof Map)) {
+                throw new IllegalArgumentException("Each mark must be a JSON object");
+            }
+            Map<String, Object> fields = (Map<String, Object>) item;
+            requests.add(new MarkRequest(string(fields, "studentId"), string(fields, "courseCode"),
+                    location(fields), string(fields, "sessionToken"),
+                    Boolean.TRUE.equals(fields.get("staffEntry"))));
+        }
+        return requests;
+    }
+
+    private static LocationFix location(Map<String, Object> fields) {
+        return LocationFix.of(number(fields, "latitude"), number(fields, "longitude"), string(fields, "bssid"));
+    }
+
+    // NaN when absent; numbers sent as strings are accepted too
+    private static double number(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value == null || value.toString().trim().isEmpty()) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\"" + name + "\" must be a number");
+        }
+    }
+
+    private static String string(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    private static void appendResult(StringBuilder out, MarkResult result) {
+        out.append("{\"status\":\"").append(result.getStatus().name()).append('"');
+        out.append(",\"studentId\":");
+        Json.appendQuoted(out, result.getStudentId());
+        out.append(",\"courseCode\":");
+        Json.appendQuoted(out, result.getCourseCode());
+        out.append(",\"timestamp\":").append(result.getEpochMillis());
+        out.append(",\"headcount\":").append(result.getHeadcount());
+        if (result.getLocation() != null) {
+            out.append(",\"location\":");
+            Json.appendQuoted(out, result.getLocation());
+        }
+        out.append(",\"message\":");
+        Json.appendQuoted(out, result.getMessage());
+        out.append('}');
+    }
+
+    // The size limit applies after decompression, so a small gzip body cannot expand without bound
+    private static String readBody(HttpExchange exchange) throws IOException {
+        boolean gzip = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+        try (InputStream raw = exchange.getRequestBody();
+             InputStream in = gzip ? new GZIPInputStream(raw) : raw) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        } catch (ZipException | EOFException e) {
+            throw new IllegalArgumentException("Request body is not valid gzip");
+        }
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            if (key.equals(name)) {
+                return equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message == null ? "error" : message) + "}";
+    }
+
+    // Answers 500 for a failure the handler did not expect, so the client is
+    // not left without a response, unless one is already under way
+    private static void internalError(HttpExchange exchange, RuntimeException e) throws IOException {
+        System.err.println("HTTP " + exchange.getRequestURI().getPath() + " failed: " + e);
+        if (exchange.getResponseCode() == -1) {
+            respond(exchange, 500, error("Internal error"));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Headless entry point: serve [port] [data-dir]
+    public static void run(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path dataDir = Paths.get(args.length > 1 ? args[1] : "attendance-data");
+
+        AttendanceLog log = AttendanceLog.open(dataDir);
+        SessionTokens tokens = SessionTokens.load(dataDir.resolve(SessionTokens.DEFAULT_KEY_FILE),
+                SessionTokens.DEFAULT_ROTATION_SECONDS);
+        AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+        service.setSessionTokens(tokens);
+        service.setReports(ReportStore.rebuild(log));
+        service.setGeofences(Geofences.loadDefault(dataDir));
+        service.setTimetable(Timetable.startFromConfig(dataDir));
+        LoginService logins = new LoginService(UserStore.load(dataDir.resolve(UserStore.DEFAULT_FILE)),
+                new SessionTable());
+        AuditTrail audit = AuditTrail.open(dataDir.resolve(AuditTrail.DEFAULT_DIRECTORY));
+        service.setAuditTrail(audit);
+        logins.setAuditTrail(audit);
+        AttendanceHttpServer server = new AttendanceHttpServer(service, logins, port);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                audit.close();
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Attendance log: failed to close cleanly: " + e.getMessage());
+            }
+        }, "attendance-http-shutdown"));
+
+        server.start();
+        System.out.println("Attendance server listening on port " + server.getPort()
+                + " (" + log.size() + " records loaded from " + dataDir.toAbsolutePath()
+                + (ServerExecutors.usesVirtualThreads() ? ", virtual threads)" : ")"));
+    }
+}
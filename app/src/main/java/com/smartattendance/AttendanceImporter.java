@@ -0,0 +1,232 @@
+package com.smartattendance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Streams attendance records from a CSV file into the store, e.g. a file
+// produced by AttendanceExporter or a registrar roster in the same layout.
+// The first line names the columns; studentId and courseCode are required,
+// plus epochMillis or timestamp (yyyy-MM-dd HH:mm:ss, local time). location
+// is optional and defaults to Campus. Rows are read with a buffered reader
+// and committed in fixed-size batches, so memory stays flat for any file size.
+public class AttendanceImporter {
+    public interface ProgressListener {
+        // bytesRead counts characters, which matches bytes for plain ASCII files
+        void onProgress(Summary summary, long bytesRead, long totalBytes);
+    }
+
+    public static final class Summary {
+        private long imported;
+        private long duplicates;
+        private long rejected;
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        @Override
+        public String toString() {
+            return imported + " imported, " + duplicates + " duplicates skipped, " + rejected + " rejected";
+        }
+    }
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Marks are taken from 1970 to the end of year 9999; anything outside is a bad row
+    private static final long MIN_EPOCH_MILLIS = 0;
+    private static final long MAX_EPOCH_MILLIS = 253_402_300_799_999L;
+
+    private final AttendanceService service;
+
+    public AttendanceImporter(AttendanceService service) {
+        this.service = service;
+    }
+
+    public Summary importCsv(Path file, ProgressListener listener) throws IOException {
+        long totalBytes = Files.size(file);
+        long bytesRead = 0;
+        Summary summary = new Summary();
+        List<AttendanceRecord> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return summary;
+            }
+            bytesRead += header.length() + 1;
+            Map<String, Integer> columns = columns(header);
+            int student = column(columns, "studentid");
+            int course = column(columns, "coursecode");
+            Integer epoch = columns.get("epochmillis");
+            Integer timestamp = columns.get("timestamp");
+            Integer location = columns.get("location");
+            if (student < 0 || course < 0 || (epoch == null && timestamp == null)) {
+                throw new IOException("CSV header must name studentId, courseCode and epochMillis or timestamp");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                bytesRead += line.length() + 1;
+                if (line.isBlank()) {
+                    continue;
+                }
+                AttendanceRecord record = parse(splitCsv(line), student, course, epoch, timestamp, location);
+                if (record == null) {
+                    summary.rejected++;
+                    continue;
+                }
+                batch.add(record);
+                if (batch.size() == BATCH_SIZE) {
+                    commit(batch, summary);
+                    listener.onProgress(summary, bytesRead, totalBytes);
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Import interrupted after " + summary);
+                    }
+                }
+            }
+        }
+        commit(batch, summary);
+        listener.onProgress(summary, totalBytes, totalBytes);
+        return summary;
+    }
+
+    private void commit(List<AttendanceRecord> batch, Summary summary) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (MarkResult.Status status : service.importRecords(batch)) {
+            if (status == MarkResult.Status.MARKED) {
+                summary.imported++;
+            } else if (status == MarkResult.Status.ALREADY_MARKED) {
+                summary.duplicates++;
+            } else {
+                summary.rejected++;
+            }
+        }
+        batch.clear();
+    }
+
+    private static Map<String, Integer> columns(String header) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            // Accept studentId, student_id, "Student ID" and so on
+            String name = names.get(i).replaceAll("[^A-Za-z]", "").toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(name, i);
+        }
+        return columns;
+    }
+
+    private static int column(Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null ? -1 : index;
+    }
+
+    // Returns null for rows that cannot be read
+    private static AttendanceRecord parse(List<String> fields, int student, int course, Integer epoch,
+                                          Integer timestamp, Integer location) {
+        String studentId = field(fields, student);
+        String courseCode = field(fields, course);
+        if (studentId.isEmpty() || courseCode.isEmpty()) {
+            return null;
+        }
+        long epochMillis;
+        try {
+            String millis = epoch == null ? "" : field(fields, epoch);
+            if (!millis.isEmpty()) {
+                epochMillis = Long.parseLong(millis);
+            } else if (timestamp != null && !field(fields, timestamp).isEmpty()) {
+                epochMillis = LocalDateTime.parse(field(fields, timestamp), TIMESTAMP_FORMAT)
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } else {
+                return null;
+            }
+        } catch (NumberFormatException | DateTimeParseException | ArithmeticException e) {
+            return null;
+        }
+        if (epochMillis < MIN_EPOCH_MILLIS || epochMillis > MAX_EPOCH_MILLIS) {
+            return null;
+        }
+        String place = location == null ? "" : field(fields, location);
+        return new AttendanceRecord(studentId, courseCode, epochMillis,
+                place.isEmpty() ? AttendanceService.LOCATION_CAMPUS : place);
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    // Splits one CSV line, honouring double-quoted fields with "" escapes
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Headless entry point: import <in.csv> [data-dir]
+    public static void run(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: import <in.csv> [data-dir]   (while the app and server are not running)");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        Path dataDir = Paths.get(args.length > 1 ? args[1] : "attendance-data");
+
+        long start = System.nanoTime();
+        Summary summary;
+        try (AttendanceLog log = AttendanceLog.open(dataDir)) {
+            AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+            summary = new AttendanceImporter(service).importCsv(file, (progress, read, total) ->
+                    System.out.print("\r" + (total == 0 ? 100 : read * 100 / total) + "% " + progress));
+        }
+        System.out.println();
+        System.out.println("Import of " + file + " finished: " + summary
+                + String.format(" in %.1f s", (System.nanoTime() - start) / 1e9));
+    }
+}
@@ -0,0 +1,122 @@
+package com.smartattendance;
+
+import java.io.IOException;
+import java.util.TimeZone;
+
+// In-memory view of who has already been marked, rebuilt from the attendance
+// log at startup. Student ids and course codes are interned to ints and packed
+// with the session day into a single long, so duplicate checks and headcounts
+// are constant-time and do not allocate once the strings have been seen.
+public class AttendanceIndex {
+    private static final int STUDENT_BITS = 24;
+    private static final int COURSE_BITS = 16;
+    private static final int DAY_BITS = 24;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    public enum Outcome {
+        MARKED,
+        ALREADY_MARKED,
+        // The day is before 1970 or too far ahead to pack, or the index has no
+        // room for another student or course id
+        OUT_OF_RANGE
+    }
+
+    private final StringDictionary students;
+    private final StringDictionary courses;
+    private final LongHashSet marks;
+    private final LongIntHashMap headcounts;
+    private final TimeZone zone;
+
+    public AttendanceIndex() {
+        this(1024, TimeZone.getDefault());
+    }
+
+    public AttendanceIndex(int expectedMarks, TimeZone zone) {
+        this.students = new StringDictionary(expectedMarks);
+        this.courses = new StringDictionary(64);
+        this.marks = new LongHashSet(expectedMarks);
+        this.headcounts = new LongIntHashMap(256);
+        this.zone = zone;
+    }
+
+    public static AttendanceIndex rebuild(AttendanceLog log) throws IOException {
+        AttendanceIndex index = new AttendanceIndex((int) Math.min(log.size(), Integer.MAX_VALUE / 4) + 1024,
+                TimeZone.getDefault());
+        log.forEach(record -> index.markIfAbsent(
+                record.getStudentId(), record.getCourseCode(), record.getEpochMillis()));
+        return index;
+    }
+
+    // Session day (days since the epoch in the local time zone) for a timestamp
+    public int dayOf(long epochMillis) {
+        return (int) Math.floorDiv(epochMillis + zone.getOffset(epochMillis), MILLIS_PER_DAY);
+    }
+
+    public synchronized boolean isMarked(String studentId, String courseCode, long epochMillis) {
+        int student = students.lookup(studentId);
+        int course = courses.lookup(courseCode);
+        int day = dayOf(epochMillis);
+        if (student < 0 || course < 0 || !fits(day, DAY_BITS)) {
+            return false;
+        }
+        return marks.contains(markKey(student, course, day));
+    }
+
+    // Records the mark, or reports that the student was already marked for
+    // this course on the same day, or that the mark cannot be indexed (in
+    // which case nothing is recorded)
+    public synchronized Outcome markIfAbsent(String studentId, String courseCode, long epochMillis) {
+        int day = dayOf(epochMillis);
+        if (!fits(day, DAY_BITS)
+                || (students.lookup(studentId) < 0 && !fits(students.size(), STUDENT_BITS))
+                || (courses.lookup(courseCode) < 0 && !fits(courses.size(), COURSE_BITS))) {
+            return Outcome.OUT_OF_RANGE;
+        }
+        int student = students.intern(studentId);
+        int course = courses.intern(courseCode);
+        if (!marks.add(markKey(student, course, day))) {
+            return Outcome.ALREADY_MARKED;
+        }
+        headcounts.addTo(headcountKey(course, day), 1);
+        return Outcome.MARKED;
+    }
+
+    // Undoes markIfAbsent, e.g. when the record could not be persisted
+    public synchronized void unmark(String studentId, String courseCode, long epochMillis) {
+        int student = students.lookup(studentId);
+        int course = courses.lookup(courseCode);
+        int day = dayOf(epochMillis);
+        if (student < 0 || course < 0 || !fits(day, DAY_BITS)) {
+            return;
+        }
+        if (marks.remove(markKey(student, course, day))) {
+            headcounts.addTo(headcountKey(course, day), -1);
+        }
+    }
+
+    public synchronized int headcount(String courseCode, long epochMillis) {
+        int course = courses.lookup(courseCode);
+        int day = dayOf(epochMillis);
+        if (course < 0 || !fits(day, DAY_BITS)) {
+            return 0;
+        }
+        return headcounts.get(headcountKey(course, day));
+    }
+
+    public synchronized int size() {
+        return marks.size();
+    }
+
+    // Callers check the parts with fits() first
+    private static long markKey(int student, int course, int day) {
+        return ((long) student << (COURSE_BITS + DAY_BITS)) | ((long) course << DAY_BITS) | day;
+    }
+
+    private static long headcountKey(int course, int day) {
+        return ((long) course << DAY_BITS) | day;
+    }
+
+    private static boolean fits(int value, int bits) {
+        return value >>> bits == 0;
+    }
+}
@@ -0,0 +1,526 @@
+package com.smartattendance;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+// Append-only attendance store made of memory-mapped segment files.
+//
+// Every record has the same width, so a segment is just an array of slots:
+//
+//   0   int   CRC32 of bytes 4..95
+//   4   long  epoch millis
+//   12  byte  student id length, then 31 bytes of student id
+//   44  byte  course code length, then 23 bytes of course code
+//   68  byte  location length, then 27 bytes of location
+//
+// Appends only copy bytes into the mapping. A single committer thread forces
+// the dirty range to disk every few milliseconds, so all writers that arrive
+// during one interval share one fsync (group commit).
+public class AttendanceLog implements Closeable {
+    public static final int RECORD_SIZE = 96;
+    public static final int RECORDS_PER_SEGMENT = 65536;
+    private static final long SEGMENT_BYTES = (long) RECORD_SIZE * RECORDS_PER_SEGMENT;
+
+    private static final int TIMESTAMP_OFFSET = 4;
+    private static final int STUDENT_OFFSET = 12;
+    private static final int STUDENT_MAX = 31;
+    private static final int COURSE_OFFSET = 44;
+    private static final int COURSE_MAX = 23;
+    private static final int LOCATION_OFFSET = 68;
+    private static final int LOCATION_MAX = 27;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 2;
+    private static final int SCAN_CHECK_MASK = 4095;
+
+    private final Path directory;
+    private final long commitIntervalMillis;
+
+    // Sealed segments, oldest first, with the number of records each holds
+    private final List<Path> sealedSegments = new ArrayList<>();
+    private final List<Integer> sealedCounts = new ArrayList<>();
+    // {min, max} timestamp of sealed segments that have been scanned in full;
+    // sealed segments never change, so filtered scans can skip them by time
+    private final Map<Path, long[]> sealedTimeRanges = new ConcurrentHashMap<>();
+
+    // Active segment, guarded by "this"
+    private Path activePath;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private int activeCount;
+    private int activeIndex;
+    private int durableCount;
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final CRC32 crc = new CRC32();
+
+    // Sequence numbers, guarded by commitLock
+    private final Object commitLock = new Object();
+    private long appendedSeq;
+    private long durableSeq;
+    private IOException commitFailure;
+    private boolean closed;
+
+    private final Thread committer;
+    private long recoveredTornRecords;
+
+    public static AttendanceLog open(Path directory) throws IOException {
+        return new AttendanceLog(directory, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    public AttendanceLog(Path directory, long commitIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.commitIntervalMillis = commitIntervalMillis;
+        Files.createDirectories(directory);
+        recover();
+
+        committer = new Thread(this::runCommitter, "attendance-log-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    // Number of torn records found and discarded when the log was opened
+    public long getRecoveredTornRecords() {
+        return recoveredTornRecords;
+    }
+
+    public synchronized long size() {
+        long total = activeCount;
+        for (int count : sealedCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Writes the record into the active segment and returns its sequence
+    // number. The record is not durable until awaitDurable returns for it.
+    public long append(AttendanceRecord record) throws IOException {
+        byte[] student = encodeField(record.getStudentId(), STUDENT_MAX, "Student ID");
+        byte[] course = encodeField(record.getCourseCode(), COURSE_MAX, "Course code");
+        byte[] location = encodeField(record.getLocation(), LOCATION_MAX, "Location");
+
+        long seq;
+        synchronized (this) {
+            ensureOpen();
+            if (activeCount == RECORDS_PER_SEGMENT) {
+                rollSegment();
+            }
+
+            ByteBuffer slot = ByteBuffer.wrap(scratch);
+            Arrays.fill(scratch, (byte) 0);
+            slot.putLong(TIMESTAMP_OFFSET, record.getEpochMillis());
+            putField(student, STUDENT_OFFSET);
+            putField(course, COURSE_OFFSET);
+            putField(location, LOCATION_OFFSET);
+            crc.reset();
+            crc.update(scratch, 4, RECORD_SIZE - 4);
+            slot.putInt(0, (int) crc.getValue());
+
+            active.put(activeCount * RECORD_SIZE, scratch);
+            activeCount++;
+
+            synchronized (commitLock) {
+                seq = ++appendedSeq;
+                commitLock.notifyAll();
+            }
+        }
+        return seq;
+    }
+
+    // Blocks until every record up to and including seq has been forced to disk.
+    // Throws only if the commit itself failed. An interrupt does not cut the
+    // wait short (the record is already appended and the committer forces it
+    // within milliseconds); the thread's interrupt status is restored on return.
+    public void awaitDurable(long seq) throws IOException {
+        boolean interrupted = false;
+        try {
+            synchronized (commitLock) {
+                while (durableSeq < seq) {
+                    if (commitFailure != null) {
+                        throw new IOException("Attendance log commit failed", commitFailure);
+                    }
+                    if (closed && !committer.isAlive()) {
+                        throw new IOException("Attendance log is closed");
+                    }
+                    try {
+                        commitLock.wait(100);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public void appendDurably(AttendanceRecord record) throws IOException {
+        awaitDurable(append(record));
+    }
+
+    // Replays every committed record, oldest first
+    public void forEach(Consumer<AttendanceRecord> consumer) throws IOException {
+        List<Path> segments;
+        List<Integer> counts;
+        synchronized (this) {
+            segments = new ArrayList<>(sealedSegments);
+            counts = new ArrayList<>(sealedCounts);
+            segments.add(activePath);
+            counts.add(durableCount);
+        }
+
+        for (int i = 0; i < segments.size(); i++) {
+            replaySegment(segments.get(i), counts.get(i), consumer);
+        }
+    }
+
+    // Streams the committed records that match the filter, oldest first. The
+    // course and time range are checked on the raw bytes and only matching
+    // records are decoded, so memory use does not depend on the log size.
+    // progress, if not null, receives the number of records examined so far
+    // every few thousand records. Stops with InterruptedIOException if the
+    // calling thread is interrupted.
+    public void scan(RecordFilter filter, Consumer<AttendanceRecord> consumer, LongConsumer progress)
+            throws IOException {
+        List<Path> segments;
+        List<Integer> counts;
+        int sealed;
+        synchronized (this) {
+            segments = new ArrayList<>(sealedSegments);
+            counts = new ArrayList<>(sealedCounts);
+            sealed = segments.size();
+            segments.add(activePath);
+            counts.add(durableCount);
+        }
+
+        byte[] course = filter.getCourseCode() == null ? null
+                : filter.getCourseCode().getBytes(StandardCharsets.UTF_8);
+        long scanned = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            int count = counts.get(i);
+            long[] range = sealedTimeRanges.get(segment);
+            if (range != null && !filter.overlaps(range[0], range[1])) {
+                scanned += count;
+                continue;
+            }
+            long[] seen = scanSegment(segment, count, filter, course, consumer, progress, scanned);
+            if (i < sealed && count > 0) {
+                sealedTimeRanges.put(segment, seen);
+            }
+            scanned += count;
+            if (progress != null) {
+                progress.accept(scanned);
+            }
+        }
+    }
+
+    // Returns the {min, max} timestamp found in the segment
+    private static long[] scanSegment(Path segment, int count, RecordFilter filter, byte[] course,
+                                      Consumer<AttendanceRecord> consumer, LongConsumer progress,
+                                      long scannedBefore) throws IOException {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        if (count == 0) {
+            return new long[]{min, max};
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * RECORD_SIZE);
+            byte[] slot = new byte[RECORD_SIZE];
+            for (int i = 0; i < count; i++) {
+                int base = i * RECORD_SIZE;
+                long timestamp = buffer.getLong(base + TIMESTAMP_OFFSET);
+                min = Math.min(min, timestamp);
+                max = Math.max(max, timestamp);
+                if (filter.includesTime(timestamp)
+                        && (course == null || fieldEquals(buffer, base + COURSE_OFFSET, course))) {
+                    buffer.get(base, slot);
+                    consumer.accept(decode(slot));
+                }
+                if ((i & SCAN_CHECK_MASK) == SCAN_CHECK_MASK) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Attendance log scan interrupted");
+                    }
+                    if (progress != null) {
+                        progress.accept(scannedBefore + i + 1);
+                    }
+                }
+            }
+        }
+        return new long[]{min, max};
+    }
+
+    private static boolean fieldEquals(ByteBuffer buffer, int offset, byte[] value) {
+        if ((buffer.get(offset) & 0xFF) != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(offset + 1 + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (commitLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            commitLock.notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            active.force();
+            activeChannel.close();
+        }
+    }
+
+    private void runCommitter() {
+        while (true) {
+            synchronized (commitLock) {
+                while (appendedSeq == durableSeq && !closed) {
+                    try {
+                        commitLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed && appendedSeq == durableSeq) {
+                    return;
+                }
+            }
+
+            // Let more writers join this commit before paying for the fsync
+            if (commitIntervalMillis > 0) {
+                try {
+                    Thread.sleep(commitIntervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+
+            long target;
+            MappedByteBuffer buffer;
+            int from;
+            int to;
+            synchronized (this) {
+                synchronized (commitLock) {
+                    target = appendedSeq;
+                }
+                buffer = active;
+                from = Math.min(durableCount, activeCount);
+                to = activeCount;
+                durableCount = activeCount;
+            }
+
+            try {
+                if (to > from) {
+                    buffer.force(from * RECORD_SIZE, (to - from) * RECORD_SIZE);
+                }
+            } catch (RuntimeException e) {
+                synchronized (commitLock) {
+                    commitFailure = new IOException(e);
+                    commitLock.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (commitLock) {
+                durableSeq = target;
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    // Called with "this" held. Sealed segments are forced here so the
+    // committer only ever has to look at the active segment.
+    private void rollSegment() throws IOException {
+        active.force();
+        activeChannel.close();
+        sealedSegments.add(activePath);
+        sealedCounts.add(activeCount);
+        openActive(activeIndex + 1, 0);
+    }
+
+    private void recover() throws IOException {
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            openActive(0, 0);
+            return;
+        }
+
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            int valid = countValidRecords(segment);
+            boolean last = i == segments.size() - 1;
+
+            if (valid < RECORDS_PER_SEGMENT || last) {
+                // First torn or empty slot ends the log. Anything after it
+                // (including later segments) came from an interrupted write.
+                recoveredTornRecords += truncateSegment(segment, valid);
+                for (int j = i + 1; j < segments.size(); j++) {
+                    recoveredTornRecords += countValidRecords(segments.get(j));
+                    Files.delete(segments.get(j));
+                }
+                openActive(segmentIndex(segment), valid);
+                return;
+            }
+
+            sealedSegments.add(segment);
+            sealedCounts.add(valid);
+        }
+    }
+
+    private void openActive(int index, int count) throws IOException {
+        activeIndex = index;
+        activePath = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(activePath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        activeCount = count;
+        durableCount = count;
+    }
+
+    private int countValidRecords(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long slots = Math.min(channel.size() / RECORD_SIZE, RECORDS_PER_SEGMENT);
+            if (slots == 0) {
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, slots * RECORD_SIZE);
+            byte[] slot = new byte[RECORD_SIZE];
+            CRC32 check = new CRC32();
+            for (int i = 0; i < slots; i++) {
+                buffer.get(i * RECORD_SIZE, slot);
+                check.reset();
+                check.update(slot, 4, RECORD_SIZE - 4);
+                if (ByteBuffer.wrap(slot).getInt(0) != (int) check.getValue()) {
+                    return i;
+                }
+            }
+            return (int) slots;
+        }
+    }
+
+    // Zeroes everything after the last valid record and returns how many
+    // non-empty slots were thrown away
+    private long truncateSegment(Path segment, int valid) throws IOException {
+        long torn = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long start = (long) valid * RECORD_SIZE;
+            if (size <= start) {
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, start, size - start);
+            for (int slot = 0; slot + RECORD_SIZE <= buffer.limit(); slot += RECORD_SIZE) {
+                boolean empty = true;
+                for (int i = 0; i < RECORD_SIZE; i++) {
+                    if (buffer.get(slot + i) != 0) {
+                        empty = false;
+                        buffer.put(slot + i, (byte) 0);
+                    }
+                }
+                if (!empty) {
+                    torn++;
+                }
+            }
+            for (int i = buffer.limit() - buffer.limit() % RECORD_SIZE; i < buffer.limit(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        return torn;
+    }
+
+    private void replaySegment(Path segment, int count, Consumer<AttendanceRecord> consumer) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * RECORD_SIZE);
+            byte[] slot = new byte[RECORD_SIZE];
+            for (int i = 0; i < count; i++) {
+                buffer.get(i * RECORD_SIZE, slot);
+                consumer.accept(decode(slot));
+            }
+        }
+    }
+
+    private static AttendanceRecord decode(byte[] slot) {
+        ByteBuffer buffer = ByteBuffer.wrap(slot);
+        return new AttendanceRecord(
+                getField(slot, STUDENT_OFFSET),
+                getField(slot, COURSE_OFFSET),
+                buffer.getLong(TIMESTAMP_OFFSET),
+                getField(slot, LOCATION_OFFSET));
+    }
+
+    private static String getField(byte[] slot, int offset) {
+        int length = slot[offset] & 0xFF;
+        return new String(slot, offset + 1, length, StandardCharsets.UTF_8);
+    }
+
+    private void putField(byte[] value, int offset) {
+        scratch[offset] = (byte) value.length;
+        System.arraycopy(value, 0, scratch, offset + 1, value.length);
+    }
+
+    private static byte[] encodeField(String value, int max, String name) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > max) {
+            throw new IllegalArgumentException(name + " is too long (max " + max + " bytes)");
+        }
+        return bytes;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static int segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void ensureOpen() throws IOException {
+        synchronized (commitLock) {
+            if (closed) {
+                throw new IOException("Attendance log is closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.smartattendance;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// One attendance mark as it is stored in the attendance log
+public final class AttendanceRecord {
+    private final String studentId;
+    private final String courseCode;
+    private final long epochMillis;
+    private final String location;
+
+    public AttendanceRecord(String studentId, String courseCode, long epochMillis, String location) {
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+        this.epochMillis = epochMillis;
+        this.location = location;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public LocalDateTime getLocalDateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    @Override
+    public String toString() {
+        return studentId + "," + courseCode + "," + epochMillis + "," + location;
+    }
+}
@@ -0,0 +1,453 @@
+package com.smartattendance;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Validation and recording of attendance marks, shared by the Swing form and
+// the headless HTTP server.
+public class AttendanceService {
+    // Recorded location when no geofences are configured (and for imported rows without one)
+    public static final String LOCATION_CAMPUS = "Campus";
+
+    // Told about every new mark once it is durable, on the thread that made it
+    public interface MarkListener {
+        void marked(AttendanceRecord record);
+    }
+
+    // Stands in for a geofence check when none is configured
+    private static final Geofences.Verification UNVERIFIED =
+            new Geofences.Verification(Geofences.Status.INSIDE, null, false);
+
+    private final AttendanceLog log;
+    private final AttendanceIndex index;
+    private final List<MarkListener> listeners = new CopyOnWriteArrayList<>();
+    // Optional parts, each set up before the service takes marks or left null
+    private volatile SessionTokens sessionTokens;
+    private volatile ReportStore reports;
+    private volatile Geofences geofences;
+    private volatile Timetable timetable;
+    private volatile AuditTrail audit;
+
+    public AttendanceService(AttendanceLog log, AttendanceIndex index) {
+        this.log = log;
+        this.index = index;
+    }
+
+    public AttendanceLog getLog() {
+        return log;
+    }
+
+    public AttendanceIndex getIndex() {
+        return index;
+    }
+
+    public SessionTokens getSessionTokens() {
+        return sessionTokens;
+    }
+
+    public ReportStore getReports() {
+        return reports;
+    }
+
+    public Geofences getGeofences() {
+        return geofences;
+    }
+
+    public Timetable getTimetable() {
+        return timetable;
+    }
+
+    // Without session tokens, requests carrying a token are rejected
+    public void setSessionTokens(SessionTokens sessionTokens) {
+        this.sessionTokens = sessionTokens;
+    }
+
+    // Every durable mark is added to the reports from now on
+    public void setReports(ReportStore reports) {
+        this.reports = reports;
+    }
+
+    // Without geofences, as for tools and benchmarks, any location fix is
+    // accepted unverified and recorded as LOCATION_CAMPUS
+    public void setGeofences(Geofences geofences) {
+        this.geofences = geofences;
+    }
+
+    // Without a timetable any course is accepted at any time
+    public void setTimetable(Timetable timetable) {
+        this.timetable = timetable;
+    }
+
+    // Every mark attempt and every imported mark is recorded in the trail from now on
+    public void setAuditTrail(AuditTrail audit) {
+        this.audit = audit;
+    }
+
+    // Listeners see marks from markBatch and importRecords, not those rebuilt from the log
+    public void addMarkListener(MarkListener listener) {
+        listeners.add(listener);
+    }
+
+    public MarkResult mark(MarkRequest request) {
+        return markBatch(List.of(request)).get(0);
+    }
+
+    // Marks every request, then waits for a single group commit covering all
+    // of them. Results are returned in request order.
+    public List<MarkResult> markBatch(List<MarkRequest> requests) {
+        MarkEvent event = new MarkEvent();
+        event.begin();
+        long start = System.nanoTime();
+        List<MarkResult> results = markAll(requests);
+        long nanos = System.nanoTime() - start;
+        event.end();
+
+        // Every mark in a batch waited for the same commit, so each is recorded with the batch latency
+        Metrics metrics = Metrics.getInstance();
+        AuditTrail audit = this.audit;
+        int marked = 0;
+        int duplicates = 0;
+        for (MarkResult result : results) {
+            metrics.recordMark(nanos, result.getStatus());
+            if (audit != null) {
+                audit.record(AuditTrail.Type.MARK, result.getStudentId(), result.getStatus().name(),
+                        auditDetail(result.getCourseCode(), result.getLocation(), result.getDetail()));
+            }
+            if (result.getStatus() == MarkResult.Status.MARKED) {
+                marked++;
+            } else if (result.getStatus() == MarkResult.Status.ALREADY_MARKED) {
+                duplicates++;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.batchSize = results.size();
+            event.marked = marked;
+            event.duplicates = duplicates;
+            event.status = results.isEmpty() ? null : results.get(0).getStatus().name();
+            event.commit();
+        }
+        return results;
+    }
+
+    private List<MarkResult> markAll(List<MarkRequest> requests) {
+        long now = System.currentTimeMillis();
+        List<MarkResult> results = new ArrayList<>(requests.size());
+        String[] courses = new String[requests.size()];
+        Geofence[] places = new Geofence[requests.size()];
+        AttendanceRecord[] appended = new AttendanceRecord[requests.size()];
+        long lastSeq = 0;
+
+        for (int i = 0; i < requests.size(); i++) {
+            MarkRequest request = requests.get(i);
+            MarkResult rejected = validate(request, now);
+            if (rejected != null) {
+                results.add(rejected);
+                continue;
+            }
+
+            String studentId = request.getStudentId().trim();
+            // Checked before the token is used up, so a rejected mark can scan it again
+            Geofences.Verification place = verifyLocation(request, studentId, now, results);
+            if (place == null) {
+                continue;
+            }
+            places[i] = place.getFence();
+
+            String courseCode = resolveCourse(request, studentId, now, results);
+            if (courseCode == null) {
+                continue;
+            }
+            courses[i] = courseCode;
+
+            if (!checkTimetable(studentId, courseCode, places[i], now, results)) {
+                continue;
+            }
+
+            // Only a mark that passed every other check uses up its token
+            String token = trimToEmpty(request.getSessionToken());
+            if (!token.isEmpty() && !sessionTokens.recordUse(token, studentId, now)) {
+                results.add(result(MarkResult.Status.REPLAYED_TOKEN, studentId, courseCode, now, null));
+                continue;
+            }
+
+            // Reject a second mark for the same course on the same day
+            AttendanceIndex.Outcome outcome = index.markIfAbsent(studentId, courseCode, now);
+            if (outcome != AttendanceIndex.Outcome.MARKED) {
+                results.add(outcome == AttendanceIndex.Outcome.ALREADY_MARKED
+                        ? result(MarkResult.Status.ALREADY_MARKED, studentId, courseCode, now, null)
+                        : result(MarkResult.Status.INVALID_INPUT, studentId, courseCode, now,
+                                "cannot be indexed"));
+                continue;
+            }
+
+            try {
+                String location = places[i] == null ? LOCATION_CAMPUS : places[i].getId();
+                appended[i] = new AttendanceRecord(studentId, courseCode, now, location);
+                lastSeq = log.append(appended[i]);
+                results.add(null);
+            } catch (IllegalArgumentException e) {
+                index.unmark(studentId, courseCode, now);
+                results.add(result(MarkResult.Status.INVALID_INPUT, studentId, courseCode, now, e.getMessage()));
+            } catch (IOException e) {
+                index.unmark(studentId, courseCode, now);
+                results.add(result(MarkResult.Status.STORAGE_ERROR, studentId, courseCode, now, e.getMessage()));
+            }
+        }
+
+        // Only report success once the records are on disk
+        String storageError = null;
+        if (lastSeq > 0) {
+            try {
+                log.awaitDurable(lastSeq);
+            } catch (IOException e) {
+                storageError = e.getMessage();
+            }
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                String studentId = requests.get(i).getStudentId().trim();
+                String courseCode = courses[i];
+                if (storageError != null) {
+                    // The record is in the log and may yet be replayed from it, so the mark stays in the index
+                    results.set(i, result(MarkResult.Status.STORAGE_ERROR, studentId, courseCode, now, storageError));
+                } else {
+                    ReportStore reports = this.reports;
+                    if (reports != null) {
+                        reports.record(studentId, courseCode, now, appended[i].getLocation());
+                    }
+                    notifyListeners(appended[i]);
+                    results.set(i, result(MarkResult.Status.MARKED, studentId, courseCode, now, null,
+                            places[i] == null ? null : places[i].getName(), appended[i]));
+                }
+            }
+        }
+        return results;
+    }
+
+    // Adds historical records (e.g. from an imported CSV) with their own
+    // timestamps. Duplicates of marks already present for the same student,
+    // course and day are skipped. Like markBatch, the whole list shares one
+    // group commit. Returns one status per record, in order.
+    public List<MarkResult.Status> importRecords(List<AttendanceRecord> records) {
+        MarkResult.Status[] statuses = new MarkResult.Status[records.size()];
+        long lastSeq = 0;
+        for (int i = 0; i < records.size(); i++) {
+            AttendanceRecord record = records.get(i);
+            String studentId = trimToEmpty(record.getStudentId());
+            String courseCode = trimToEmpty(record.getCourseCode());
+            if (studentId.isEmpty() || courseCode.isEmpty()) {
+                statuses[i] = MarkResult.Status.INVALID_INPUT;
+                continue;
+            }
+            AttendanceIndex.Outcome outcome = index.markIfAbsent(studentId, courseCode, record.getEpochMillis());
+            if (outcome != AttendanceIndex.Outcome.MARKED) {
+                // A timestamp before 1970 or millennia ahead is refused for this record only
+                statuses[i] = outcome == AttendanceIndex.Outcome.ALREADY_MARKED
+                        ? MarkResult.Status.ALREADY_MARKED : MarkResult.Status.INVALID_INPUT;
+                continue;
+            }
+            try {
+                lastSeq = log.append(new AttendanceRecord(studentId, courseCode, record.getEpochMillis(),
+                        record.getLocation()));
+                statuses[i] = MarkResult.Status.MARKED;
+            } catch (IllegalArgumentException e) {
+                index.unmark(studentId, courseCode, record.getEpochMillis());
+                statuses[i] = MarkResult.Status.INVALID_INPUT;
+            } catch (IOException e) {
+                index.unmark(studentId, courseCode, record.getEpochMillis());
+                statuses[i] = MarkResult.Status.STORAGE_ERROR;
+            }
+        }
+
+        boolean durable = true;
+        if (lastSeq > 0) {
+            try {
+                log.awaitDurable(lastSeq);
+            } catch (IOException e) {
+                durable = false;
+            }
+        }
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] != MarkResult.Status.MARKED) {
+                continue;
+            }
+            AttendanceRecord record = records.get(i);
+            String studentId = record.getStudentId().trim();
+            String courseCode = record.getCourseCode().trim();
+            if (!durable) {
+                // Left in the index like markBatch does; the record is already in the log
+                statuses[i] = MarkResult.Status.STORAGE_ERROR;
+                continue;
+            }
+            ReportStore reports = this.reports;
+            if (reports != null) {
+                reports.record(studentId, courseCode, record.getEpochMillis(), record.getLocation());
+            }
+            AuditTrail audit = this.audit;
+            if (audit != null) {
+                audit.record(AuditTrail.Type.IMPORT, studentId, statuses[i].name(), auditDetail(courseCode,
+                        record.getLocation(), "marked at " + Instant.ofEpochMilli(record.getEpochMillis())));
+            }
+            if (!listeners.isEmpty()) {
+                notifyListeners(new AttendanceRecord(studentId, courseCode, record.getEpochMillis(),
+                        record.getLocation()));
+            }
+        }
+        return Arrays.asList(statuses);
+    }
+
+    // "CS101 at B1-R0: detail", leaving out what is missing
+    private static String auditDetail(String courseCode, String location, String detail) {
+        StringBuilder text = new StringBuilder(64);
+        text.append(courseCode == null ? "" : courseCode);
+        if (location != null) {
+            text.append(" at ").append(location);
+        }
+        if (detail != null) {
+            text.append(": ").append(detail);
+        }
+        return text.toString();
+    }
+
+    private void notifyListeners(AttendanceRecord record) {
+        for (MarkListener listener : listeners) {
+            listener.marked(record);
+        }
+    }
+
+    private MarkResult validate(MarkRequest request, long now) {
+        String studentId = trimToEmpty(request.getStudentId());
+        String courseCode = trimToEmpty(request.getCourseCode());
+        LocationFix location = request.getLocation();
+        boolean hasToken = !trimToEmpty(request.getSessionToken()).isEmpty();
+
+        if (location == null || location.isEmpty()) {
+            return result(MarkResult.Status.MISSING_LOCATION, studentId, courseCode, now, null);
+        }
+        if (studentId.isEmpty()) {
+            return result(MarkResult.Status.MISSING_STUDENT_ID, studentId, courseCode, now, null);
+        }
+        if (courseCode.isEmpty() && !hasToken) {
+            return result(MarkResult.Status.MISSING_COURSE, studentId, courseCode, now, null);
+        }
+        return null;
+    }
+
+    // Checks the request's location fix against the campus geofences. Returns
+    // the verification (with a null fence when geofencing is off), or adds the
+    // rejection to results and returns null.
+    private Geofences.Verification verifyLocation(MarkRequest request, String studentId, long now,
+                                                  List<MarkResult> results) {
+        Geofences geofences = this.geofences;
+        if (geofences == null) {
+            return UNVERIFIED;
+        }
+        Geofences.Verification verification = geofences.verify(request.getLocation());
+        switch (verification.getStatus()) {
+            case INSIDE:
+                return verification;
+            case OUTSIDE:
+                results.add(result(MarkResult.Status.OUTSIDE_CAMPUS, studentId, trimToEmpty(request.getCourseCode()),
+                        now, request.getLocation().toString()));
+                return null;
+            case NO_FIX:
+                results.add(result(MarkResult.Status.MISSING_LOCATION, studentId,
+                        trimToEmpty(request.getCourseCode()), now, null));
+                return null;
+            default:
+                results.add(result(MarkResult.Status.INVALID_INPUT, studentId, trimToEmpty(request.getCourseCode()),
+                        now, verification.getStatus().getDescription()));
+                return null;
+        }
+    }
+
+    // Accepts the mark only while a session of the course is open, and in its
+    // room when the location resolved to a room on the timetable. On a
+    // rejection it is added to results and false returned.
+    private boolean checkTimetable(String studentId, String courseCode, Geofence place, long now,
+                                   List<MarkResult> results) {
+        Timetable timetable = this.timetable;
+        if (timetable == null) {
+            return true;
+        }
+        Timetable.Check check = timetable.check(courseCode, place == null ? null : place.getId(), now);
+        Timetable.Session session = check.getSession();
+        switch (check.getStatus()) {
+            case OPEN:
+                return true;
+            case WRONG_ROOM:
+                results.add(result(MarkResult.Status.WRONG_ROOM, studentId, courseCode, now,
+                        "go to " + session.getRoom()));
+                return false;
+            case NOT_RUNNING:
+                results.add(result(MarkResult.Status.NO_SESSION, studentId, courseCode, now, session == null
+                        ? "none left today" : "next at " + Timetable.formatMinute(session.getStartMinute())
+                        + " in " + session.getRoom()));
+                return false;
+            default:
+                results.add(result(MarkResult.Status.NO_SESSION, studentId, courseCode, now,
+                        check.getStatus().getDescription().toLowerCase(Locale.ROOT)));
+                return false;
+        }
+    }
+
+    // Returns the course for the request, taken from its session token when it
+    // has one. With tokens enabled only staff entries may go without one. On a
+    // bad or missing token the rejection is added to results and null returned.
+    private String resolveCourse(MarkRequest request, String studentId, long now, List<MarkResult> results) {
+        String courseCode = trimToEmpty(request.getCourseCode());
+        String token = trimToEmpty(request.getSessionToken());
+        SessionTokens sessionTokens = this.sessionTokens;
+        if (token.isEmpty()) {
+            if (sessionTokens != null && !request.isStaffEntry()) {
+                results.add(result(MarkResult.Status.TOKEN_REQUIRED, studentId, courseCode, now, null));
+                return null;
+            }
+            return courseCode;
+        }
+        if (sessionTokens == null) {
+            results.add(result(MarkResult.Status.INVALID_TOKEN, studentId, courseCode, now,
+                    "session tokens are not enabled"));
+            return null;
+        }
+
+        // The token is only used up once the mark passes the timetable check too
+        SessionTokens.Verification verification = sessionTokens.check(token, now);
+        String tokenCourse = verification.getCourseCode() == null ? courseCode : verification.getCourseCode();
+        switch (verification.getStatus()) {
+            case VALID:
+                if (!courseCode.isEmpty() && !courseCode.equals(tokenCourse)) {
+                    results.add(result(MarkResult.Status.INVALID_TOKEN, studentId, courseCode, now,
+                            "token is for " + tokenCourse));
+                    return null;
+                }
+                return tokenCourse;
+            case EXPIRED:
+                results.add(result(MarkResult.Status.EXPIRED_TOKEN, studentId, tokenCourse, now, null));
+                return null;
+            default:
+                results.add(result(MarkResult.Status.INVALID_TOKEN, studentId, tokenCourse, now, null));
+                return null;
+        }
+    }
+
+    private MarkResult result(MarkResult.Status status, String studentId, String courseCode, long now, String detail) {
+        return result(status, studentId, courseCode, now, detail, null, null);
+    }
+
+    private MarkResult result(MarkResult.Status status, String studentId, String courseCode, long now, String detail,
+                              String location, AttendanceRecord record) {
+        int headcount = courseCode.isEmpty() ? 0 : index.headcount(courseCode, now);
+        return new MarkResult(status, studentId, courseCode, now, headcount, detail, location, record);
+    }
+
+    private static String trimToEmpty(String value) {
+        return value == null ? "" : value.trim();
+    }
+}
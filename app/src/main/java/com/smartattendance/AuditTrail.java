@@ -0,0 +1,938 @@
+package com.smartattendance;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Tamper-evident record of every login attempt and every mark.
+//
+// Records are text lines in segment files of RECORDS_PER_SEGMENT records,
+// each line ending in the hex SHA-256 of the previous record's hash followed
+// by the line itself, so changing, inserting or deleting a record breaks every
+// hash after it:
+//
+//   # prev <hash of the last record of the previous segment, zeros at first>
+//   <seq> TAB <time> TAB <type> TAB <subject> TAB <outcome> TAB <detail> TAB <hash>
+//
+// Every CHECKPOINT_INTERVAL records a line goes to checkpoints.log with the
+// chain hash at that point, the Merkle root of the block's record hashes, the
+// time of its last record and a hash chaining the checkpoints themselves. The
+// newest checkpoint hash covers all history and can be kept elsewhere as an
+// anchor. Checkpoints also let verification start at any block instead of the
+// beginning of the semester, and let each segment be verified on its own core.
+//
+// record() only puts the entry on a lock-free queue; a background thread
+// hashes and writes everything queued every few milliseconds, so auditing
+// adds no lock or fsync to the marking path. The last few milliseconds of
+// records can be lost in a crash; the attendance log itself is unaffected.
+public final class AuditTrail implements Closeable {
+    public enum Type {
+        LOGIN("Login attempt"),
+        MARK("Mark attempt"),
+        IMPORT("Imported mark");
+
+        private final String description;
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    public static final String DEFAULT_DIRECTORY = "audit";
+    public static final int RECORDS_PER_SEGMENT = 65536;
+    public static final int CHECKPOINT_INTERVAL = 1024;
+
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int MAX_BATCH = 8192;
+    private static final int HASH_BYTES = 32;
+    private static final byte[] GENESIS = new byte[HASH_BYTES];
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoints.log";
+    private static final String HEADER = "# prev ";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final class Entry {
+        final long epochMillis;
+        final Type type;
+        final String subject;
+        final String outcome;
+        final String detail;
+
+        Entry(long epochMillis, Type type, String subject, String outcome, String detail) {
+            this.epochMillis = epochMillis;
+            this.type = type;
+            this.subject = subject;
+            this.outcome = outcome;
+            this.detail = detail;
+        }
+    }
+
+    // One line of checkpoints.log
+    static final class Checkpoint {
+        final long seq;
+        final long epochMillis;
+        final byte[] chain;
+        final byte[] root;
+        final byte[] hash;
+
+        Checkpoint(long seq, long epochMillis, byte[] chain, byte[] root, byte[] hash) {
+            this.seq = seq;
+            this.epochMillis = epochMillis;
+            this.chain = chain;
+            this.root = root;
+            this.hash = hash;
+        }
+
+        String toLine() {
+            return seq + "\t" + Instant.ofEpochMilli(epochMillis) + "\t" + hex(chain) + "\t" + hex(root) + "\t"
+                    + hex(hash) + "\n";
+        }
+    }
+
+    private final Path directory;
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final LongAdder queued = new LongAdder();
+    private final Object progress = new Object();
+    private final Thread writer;
+    private volatile long written;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    // Writer thread state
+    private final MessageDigest sha256 = sha256();
+    private final StringBuilder line = new StringBuilder(256);
+    private final List<byte[]> blockHashes = new ArrayList<>(CHECKPOINT_INTERVAL);
+    private FileChannel segment;
+    private int segmentIndex;
+    private FileChannel checkpoints;
+    private long nextSeq;
+    private byte[] lastHash = GENESIS;
+    private long lastMillis;
+    private byte[] lastCheckpointHash = GENESIS;
+
+    private AuditTrail(Path directory) {
+        this.directory = directory;
+        writer = new Thread(this::runWriter, "audit-writer");
+        writer.setDaemon(true);
+    }
+
+    // Opens the trail in directory, creating it if needed. Recovery of the
+    // newest segment happens on the writer thread, so this returns at once
+    // and records made meanwhile simply wait in the queue.
+    public static AuditTrail open(Path directory) {
+        AuditTrail trail = new AuditTrail(directory);
+        trail.writer.start();
+        return trail;
+    }
+
+    // Never blocks; fields may be null and must not identify a password
+    public void record(Type type, String subject, String outcome, String detail) {
+        if (closed) {
+            return;
+        }
+        queue.add(new Entry(System.currentTimeMillis(), type, subject, outcome, detail));
+        queued.increment();
+    }
+
+    // Waits until everything recorded before the call has been written and
+    // forced to disk
+    public void flush() throws IOException {
+        long target = queued.sum();
+        synchronized (progress) {
+            while (written < target) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (!writer.isAlive()) {
+                    throw new IOException("Audit trail writer has stopped");
+                }
+                try {
+                    progress.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while flushing the audit trail", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void runWriter() {
+        try {
+            recover();
+            while (true) {
+                boolean last = closed;
+                long count = writeQueued();
+                if (count > 0) {
+                    synchronized (progress) {
+                        written += count;
+                        progress.notifyAll();
+                    }
+                } else if (last) {
+                    break;
+                } else {
+                    LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e instanceof IOException ? (IOException) e : new IOException(e);
+            System.err.println("Audit trail: stopped writing: " + e.getMessage());
+        } finally {
+            closeQuietly(segment);
+            closeQuietly(checkpoints);
+            synchronized (progress) {
+                progress.notifyAll();
+            }
+        }
+    }
+
+    // Hashes and appends everything queued as one write per file, then forces it
+    private long writeQueued() throws IOException {
+        StringBuilder records = new StringBuilder();
+        StringBuilder checkpointLines = new StringBuilder();
+        long count = 0;
+        Entry entry;
+        // Bounded so a backlog is written in pieces rather than built up in memory
+        while (count < MAX_BATCH && (entry = queue.poll()) != null) {
+            if (segmentIndexOf(nextSeq) != segmentIndex) {
+                write(segment, records);
+                segment.force(false);
+                rollSegment();
+            }
+            appendRecord(records, entry);
+            count++;
+            if (nextSeq % CHECKPOINT_INTERVAL == 0) {
+                checkpointLines.append(checkpoint().toLine());
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        write(segment, records);
+        segment.force(false);
+        // Checkpoints only ever cover records already on disk
+        if (checkpointLines.length() > 0) {
+            write(checkpoints, checkpointLines);
+            checkpoints.force(false);
+        }
+        return count;
+    }
+
+    private void appendRecord(StringBuilder records, Entry entry) {
+        line.setLength(0);
+        line.append(nextSeq).append('\t').append(Instant.ofEpochMilli(entry.epochMillis)).append('\t')
+                .append(entry.type.name()).append('\t');
+        appendField(line, entry.subject).append('\t');
+        appendField(line, entry.outcome).append('\t');
+        appendField(line, entry.detail);
+        sha256.update(lastHash);
+        sha256.update(line.toString().getBytes(StandardCharsets.UTF_8));
+        lastHash = sha256.digest();
+        lastMillis = entry.epochMillis;
+        blockHashes.add(lastHash);
+        records.append(line).append('\t');
+        appendHex(records, lastHash).append('\n');
+        nextSeq++;
+    }
+
+    // Closes the block that ends with the record just appended
+    private Checkpoint checkpoint() {
+        byte[] root = merkleRoot(blockHashes, sha256);
+        blockHashes.clear();
+        Checkpoint checkpoint = newCheckpoint(nextSeq - 1, lastMillis, lastHash, root, lastCheckpointHash, sha256);
+        lastCheckpointHash = checkpoint.hash;
+        return checkpoint;
+    }
+
+    private static Checkpoint newCheckpoint(long seq, long epochMillis, byte[] chain, byte[] root, byte[] previous,
+                                            MessageDigest sha256) {
+        sha256.update(previous);
+        sha256.update(ByteBuffer.allocate(16).putLong(seq).putLong(epochMillis).array());
+        sha256.update(chain);
+        sha256.update(root);
+        return new Checkpoint(seq, epochMillis, chain, root, sha256.digest());
+    }
+
+    // Finds where the trail ends: the newest checkpoint, the last complete
+    // record and the record hashes of the unfinished block. Stored hashes are
+    // taken as they are; checking them is verify()'s job, and a tampered trail
+    // stays detectable because new records chain onto what is on disk.
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        checkpoints = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        List<Checkpoint> existing = readCheckpoints(checkpoints, true);
+        checkpoints.position(checkpoints.size());
+        long checkpointed = 0;
+        if (!existing.isEmpty()) {
+            Checkpoint newest = existing.get(existing.size() - 1);
+            lastCheckpointHash = newest.hash;
+            checkpointed = newest.seq + 1;
+        }
+
+        List<Path> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0, GENESIS);
+            return;
+        }
+        // The unfinished block starts in the segment holding the first unchecked record
+        int newest = segmentIndex(segments.get(segments.size() - 1));
+        int from = Math.min(newest, segmentIndexOf(checkpointed));
+        StringBuilder missing = new StringBuilder();
+        for (int index = from; index <= newest; index++) {
+            Path path = segmentPath(directory, index);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            Segment parsed = Segment.read(path, index == newest, index == newest);
+            if (index == from) {
+                lastHash = parsed.previous;
+            }
+            for (int i = 0; i < parsed.count; i++) {
+                long seq = parsed.firstSeq + i;
+                lastHash = parsed.hash(i);
+                if (seq >= checkpointed) {
+                    blockHashes.add(lastHash);
+                    nextSeq = seq + 1;
+                    if (nextSeq % CHECKPOINT_INTERVAL == 0 || i == parsed.count - 1) {
+                        lastMillis = parsed.millis(i);
+                    }
+                    if (nextSeq % CHECKPOINT_INTERVAL == 0) {
+                        // Written before a crash that beat the checkpoint to disk
+                        missing.append(checkpoint().toLine());
+                    }
+                }
+            }
+            nextSeq = Math.max(nextSeq, parsed.firstSeq + parsed.count);
+        }
+        if (missing.length() > 0) {
+            write(checkpoints, missing);
+            checkpoints.force(false);
+        }
+        // A full newest segment is rolled by the first write
+        segmentIndex = newest;
+        segment = FileChannel.open(segmentPath(directory, newest), StandardOpenOption.WRITE);
+        segment.position(segment.size());
+    }
+
+    private void rollSegment() throws IOException {
+        segment.close();
+        openSegment(segmentIndexOf(nextSeq), lastHash);
+    }
+
+    private void openSegment(int index, byte[] previous) throws IOException {
+        segmentIndex = index;
+        segment = FileChannel.open(segmentPath(directory, index), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+        StringBuilder header = new StringBuilder(HEADER.length() + 65).append(HEADER);
+        write(segment, appendHex(header, previous).append('\n'));
+        segment.force(false);
+    }
+
+    // Result of checking the trail, or part of it
+    public static final class Verification {
+        private final long firstSeq;
+        private final long records;
+        private final int segments;
+        private final int checkpoints;
+        private final int blocksChecked;
+        private final List<String> problems;
+        private final String anchor;
+        private final long nanos;
+
+        Verification(long firstSeq, long records, int segments, int checkpoints, int blocksChecked,
+                     List<String> problems, String anchor, long nanos) {
+            this.firstSeq = firstSeq;
+            this.records = records;
+            this.segments = segments;
+            this.checkpoints = checkpoints;
+            this.blocksChecked = blocksChecked;
+            this.problems = problems;
+            this.anchor = anchor;
+            this.nanos = nanos;
+        }
+
+        public boolean isIntact() {
+            return problems.isEmpty();
+        }
+
+        // First record checked; records before it are covered by the checkpoint chain only
+        public long getFirstSeq() {
+            return firstSeq;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public int getCheckpoints() {
+            return checkpoints;
+        }
+
+        public int getBlocksChecked() {
+            return blocksChecked;
+        }
+
+        public List<String> getProblems() {
+            return problems;
+        }
+
+        // Hash of the newest checkpoint, which covers all history up to it
+        public String getAnchor() {
+            return anchor;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    // Checks the trail in directory from the first record at or after
+    // fromSeq (0 for all of it). The checkpoint chain is always checked in
+    // full; records are rehashed from the checkpoint before fromSeq, one
+    // segment per thread, and every completed block is compared against its
+    // checkpoint. Can run while the trail is being written: an unterminated
+    // last line in the newest segment or in checkpoints.log is taken to be
+    // still on its way to disk and left out, not reported.
+    public static Verification verify(Path directory, long fromSeq, int threads) throws IOException {
+        long start = System.nanoTime();
+        List<String> problems = new ArrayList<>();
+        List<Checkpoint> checkpoints;
+        try (FileChannel channel = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.READ)) {
+            checkpoints = readCheckpoints(channel, false);
+        } catch (java.nio.file.NoSuchFileException e) {
+            checkpoints = new ArrayList<>();
+        }
+        MessageDigest sha256 = sha256();
+        byte[] previous = GENESIS;
+        for (int i = 0; i < checkpoints.size(); i++) {
+            Checkpoint checkpoint = checkpoints.get(i);
+            if (checkpoint.seq != (long) (i + 1) * CHECKPOINT_INTERVAL - 1) {
+                problems.add("checkpoint " + i + " is for record " + checkpoint.seq + ", expected "
+                        + ((long) (i + 1) * CHECKPOINT_INTERVAL - 1));
+            }
+            Checkpoint expected = newCheckpoint(checkpoint.seq, checkpoint.epochMillis, checkpoint.chain,
+                    checkpoint.root, previous, sha256);
+            if (!Arrays.equals(expected.hash, checkpoint.hash)) {
+                problems.add("checkpoint at record " + checkpoint.seq + " does not chain to the one before it");
+            }
+            previous = checkpoint.hash;
+        }
+
+        // Start at the checkpoint just before fromSeq, trusting its chain hash
+        int startBlock = (int) Math.min(Math.max(0, fromSeq) / CHECKPOINT_INTERVAL, checkpoints.size());
+        long startSeq = (long) startBlock * CHECKPOINT_INTERVAL;
+        byte[] startHash = startBlock == 0 ? null : checkpoints.get(startBlock - 1).chain;
+
+        List<Path> paths = listSegments(directory);
+        List<Path> selected = new ArrayList<>();
+        for (Path path : paths) {
+            int index = segmentIndex(path);
+            if ((long) (index + 1) * RECORDS_PER_SEGMENT > startSeq) {
+                selected.add(path);
+            }
+        }
+
+        List<Checkpoint> known = checkpoints;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, selected.size())),
+                daemonThreads("audit-verify"));
+        List<SegmentCheck> results = new ArrayList<>();
+        try {
+            List<Future<SegmentCheck>> futures = new ArrayList<>();
+            for (Path path : selected) {
+                boolean first = path == selected.get(0);
+                boolean newest = path == selected.get(selected.size() - 1);
+                futures.add(pool.submit(() -> SegmentCheck.run(path, newest, known, first ? startSeq : 0,
+                        first ? startHash : null)));
+            }
+            for (Future<SegmentCheck> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while verifying the audit trail", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Stitch the segments together: each one must start where the previous one ended
+        long records = 0;
+        int blocks = 0;
+        SegmentCheck before = null;
+        for (SegmentCheck result : results) {
+            problems.addAll(result.problems);
+            records += result.checked;
+            blocks += result.blocks;
+            if (before != null) {
+                if (result.index != before.index + 1) {
+                    problems.add("segment " + (before.index + 1) + " is missing");
+                } else if (!before.complete) {
+                    problems.add("segment " + before.index + " ends early at record " + before.lastSeq);
+                } else if (!result.started) {
+                    // Only the newest segment may still be waiting for its header
+                    if (result != results.get(results.size() - 1)) {
+                        problems.add("segment " + result.index + " has no header");
+                    }
+                } else if (!Arrays.equals(result.previous, before.lastHash)) {
+                    problems.add("segment " + result.index + " does not chain to the end of segment "
+                            + before.index);
+                }
+            } else if (startSeq == 0 && result.index != 0) {
+                problems.add("segment 0 is missing");
+            }
+            before = result;
+        }
+        long end = before == null ? startSeq : before.lastSeq + 1;
+        if (!checkpoints.isEmpty() && checkpoints.get(checkpoints.size() - 1).seq >= end) {
+            problems.add("records after " + (end - 1) + " are missing but covered by checkpoint "
+                    + checkpoints.get(checkpoints.size() - 1).seq);
+        }
+        return new Verification(startSeq, records, results.size(), checkpoints.size(), blocks, problems,
+                checkpoints.isEmpty() ? hex(GENESIS) : hex(previous), System.nanoTime() - start);
+    }
+
+    // The verification of one segment file
+    private static final class SegmentCheck {
+        final int index;
+        final List<String> problems = new ArrayList<>();
+        byte[] previous;
+        byte[] lastHash;
+        long lastSeq;
+        long checked;
+        int blocks;
+        boolean complete;
+        boolean started;
+
+        SegmentCheck(int index) {
+            this.index = index;
+        }
+
+        static SegmentCheck run(Path path, boolean newest, List<Checkpoint> checkpoints, long fromSeq,
+                                byte[] fromHash) throws IOException {
+            int index = segmentIndex(path);
+            SegmentCheck check = new SegmentCheck(index);
+            Segment segment = Segment.read(path, newest, false);
+            check.previous = segment.previous;
+            check.started = segment.started;
+            check.problems.addAll(segment.problems);
+            MessageDigest sha256 = sha256();
+            List<byte[]> block = new ArrayList<>(CHECKPOINT_INTERVAL);
+            byte[] chain = segment.previous;
+            long expectedSeq = (long) index * RECORDS_PER_SEGMENT;
+            int skip = (int) Math.max(0, fromSeq - expectedSeq);
+            if (skip > 0) {
+                chain = fromHash;
+            }
+            check.lastHash = segment.previous;
+            check.lastSeq = expectedSeq - 1;
+            if (segment.count > 0 && segment.firstSeq != expectedSeq) {
+                check.problems.add(path.getFileName() + " starts at record " + segment.firstSeq + ", expected "
+                        + expectedSeq);
+            }
+            check.complete = segment.count == RECORDS_PER_SEGMENT;
+            if (segment.count > 0) {
+                check.lastSeq = expectedSeq + segment.count - 1;
+                check.lastHash = segment.hash(segment.count - 1);
+            }
+            for (int i = skip; i < segment.count; i++) {
+                long seq = expectedSeq + i;
+                sha256.update(chain);
+                sha256.update(segment.data, segment.starts[i], segment.ends[i] - segment.starts[i]);
+                chain = sha256.digest();
+                if (!segment.hashEquals(i, chain)) {
+                    check.problems.add("record " + seq + " has been altered, or one before it in this segment");
+                    // Report the first break only; everything after it follows from it
+                    check.checked = i - skip + 1;
+                    return check;
+                }
+                block.add(chain);
+                if ((seq + 1) % CHECKPOINT_INTERVAL == 0) {
+                    int number = (int) (seq / CHECKPOINT_INTERVAL);
+                    if (number < checkpoints.size()) {
+                        Checkpoint checkpoint = checkpoints.get(number);
+                        if (!Arrays.equals(checkpoint.chain, chain)
+                                || !Arrays.equals(checkpoint.root, merkleRoot(block, sha256))) {
+                            check.problems.add("block ending at record " + seq + " does not match its checkpoint");
+                        }
+                        check.blocks++;
+                    }
+                    block.clear();
+                }
+            }
+            check.checked = Math.max(0, segment.count - skip);
+            return check;
+        }
+    }
+
+    // A segment file split into records: the hashed bytes of each line
+    // (data[starts[i]..ends[i]) and its stored hash
+    private static final class Segment {
+        final List<String> problems = new ArrayList<>();
+        byte[] data;
+        byte[] previous = GENESIS;
+        long firstSeq;
+        int count;
+        boolean started;
+        int[] starts = new int[1024];
+        int[] ends = new int[1024];
+
+        // A last line with no newline is either torn by a crash or, in the
+        // newest segment, still being written. With repair it is cut off;
+        // otherwise it is skipped in the newest segment and reported elsewhere.
+        static Segment read(Path path, boolean newest, boolean repair) throws IOException {
+            Segment segment = new Segment();
+            byte[] bytes = Files.readAllBytes(path);
+            segment.data = bytes;
+            segment.firstSeq = (long) segmentIndex(path) * RECORDS_PER_SEGMENT;
+            int position = 0;
+            boolean header = true;
+            while (position < bytes.length) {
+                int end = position;
+                while (end < bytes.length && bytes[end] != '\n') {
+                    end++;
+                }
+                if (end == bytes.length) {
+                    if (repair) {
+                        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                            channel.truncate(position);
+                        }
+                    } else if (!newest) {
+                        segment.problems.add(path.getFileName() + " ends in a partial line");
+                    }
+                    break;
+                }
+                if (header) {
+                    String text = new String(bytes, position, end - position, StandardCharsets.UTF_8);
+                    if (!text.startsWith(HEADER)) {
+                        throw new IOException(path.getFileName() + " has no header line");
+                    }
+                    segment.previous = unhex(text.substring(HEADER.length()));
+                    segment.started = true;
+                    header = false;
+                } else {
+                    // The hash is always the last 64 characters
+                    int hashTab = end - HASH_BYTES * 2 - 1;
+                    int seqTab = indexOf(bytes, position, hashTab, (byte) '\t');
+                    if (hashTab <= position || bytes[hashTab] != '\t' || seqTab < 0) {
+                        throw new IOException(path.getFileName() + ": unreadable record " + (segment.count + 1));
+                    }
+                    if (segment.count == segment.starts.length) {
+                        int capacity = segment.count * 2;
+                        segment.starts = Arrays.copyOf(segment.starts, capacity);
+                        segment.ends = Arrays.copyOf(segment.ends, capacity);
+                    }
+                    if (segment.count == 0) {
+                        segment.firstSeq = Long.parseLong(new String(bytes, position, seqTab - position,
+                                StandardCharsets.US_ASCII));
+                    }
+                    segment.starts[segment.count] = position;
+                    segment.ends[segment.count] = hashTab;
+                    segment.count++;
+                }
+                position = end + 1;
+            }
+            return segment;
+        }
+
+        // The stored hash of record i follows its hashed bytes after a tab
+        byte[] hash(int i) throws IOException {
+            return unhex(new String(data, ends[i] + 1, HASH_BYTES * 2, StandardCharsets.US_ASCII));
+        }
+
+        boolean hashEquals(int i, byte[] digest) {
+            int offset = ends[i] + 1;
+            for (int b = 0; b < HASH_BYTES; b++) {
+                if (data[offset + 2 * b] != HEX[(digest[b] >> 4) & 0xF]
+                        || data[offset + 2 * b + 1] != HEX[digest[b] & 0xF]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long millis(int i) {
+            int seqTab = indexOf(data, starts[i], ends[i], (byte) '\t');
+            int timeTab = indexOf(data, seqTab + 1, ends[i], (byte) '\t');
+            return Instant.parse(new String(data, seqTab + 1, timeTab - seqTab - 1, StandardCharsets.US_ASCII))
+                    .toEpochMilli();
+        }
+
+        private static int indexOf(byte[] bytes, int from, int to, byte value) {
+            for (int i = from; i < to; i++) {
+                if (bytes[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // Merkle root over the record hashes of a block; an odd node is carried
+    // up unchanged and inner nodes are domain-separated from leaves
+    static byte[] merkleRoot(List<byte[]> leaves, MessageDigest sha256) {
+        if (leaves.isEmpty()) {
+            return GENESIS;
+        }
+        List<byte[]> level = new ArrayList<>(leaves);
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                if (i + 1 == level.size()) {
+                    next.add(level.get(i));
+                } else {
+                    sha256.update((byte) 1);
+                    sha256.update(level.get(i));
+                    sha256.update(level.get(i + 1));
+                    next.add(sha256.digest());
+                }
+            }
+            level = next;
+        }
+        return level.get(0);
+    }
+
+    // A last line with no newline is torn by a crash or still being written.
+    // With repair it is cut off so new checkpoints append cleanly; otherwise
+    // it is left out.
+    private static List<Checkpoint> readCheckpoints(FileChannel channel, boolean repair) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        channel.read(buffer, 0);
+        String text = new String(buffer.array(), StandardCharsets.UTF_8);
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        int position = 0;
+        while (position < text.length()) {
+            int end = text.indexOf('\n', position);
+            if (end < 0) {
+                if (repair) {
+                    channel.truncate(text.substring(0, position).getBytes(StandardCharsets.UTF_8).length);
+                }
+                break;
+            }
+            String[] fields = text.substring(position, end).split("\t");
+            if (fields.length != 5) {
+                throw new IOException("checkpoints.log: unreadable line " + (checkpoints.size() + 1));
+            }
+            checkpoints.add(new Checkpoint(Long.parseLong(fields[0]), Instant.parse(fields[1]).toEpochMilli(),
+                    unhex(fields[2]), unhex(fields[3]), unhex(fields[4])));
+            position = end + 1;
+        }
+        return checkpoints;
+    }
+
+    // Sequence number of the first record of the last block finished before
+    // the given time, so verification from there covers everything after it
+    static long seqBefore(Path directory, long epochMillis) throws IOException {
+        List<Checkpoint> checkpoints;
+        try (FileChannel channel = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.READ)) {
+            checkpoints = readCheckpoints(channel, false);
+        }
+        long seq = 0;
+        for (Checkpoint checkpoint : checkpoints) {
+            if (checkpoint.epochMillis >= epochMillis) {
+                break;
+            }
+            seq = checkpoint.seq + 1;
+        }
+        return seq;
+    }
+
+    private static StringBuilder appendField(StringBuilder out, String value) {
+        if (value == null) {
+            return out;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            // Tabs and line breaks would forge fields or records
+            out.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+        return out;
+    }
+
+    private static void write(FileChannel channel, CharSequence text) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        if (text instanceof StringBuilder) {
+            ((StringBuilder) text).setLength(0);
+        }
+    }
+
+    private static int segmentIndexOf(long seq) {
+        return (int) (seq / RECORDS_PER_SEGMENT);
+    }
+
+    private static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static int segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing more to write
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        return appendHex(new StringBuilder(bytes.length * 2), bytes).toString();
+    }
+
+    private static StringBuilder appendHex(StringBuilder out, byte[] bytes) {
+        for (byte b : bytes) {
+            out.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+        return out;
+    }
+
+    private static byte[] unhex(String text) throws IOException {
+        if (text.length() != HASH_BYTES * 2) {
+            throw new IOException("bad hash: " + text);
+        }
+        byte[] bytes = new byte[HASH_BYTES];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(text.charAt(2 * i), 16);
+            int low = Character.digit(text.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IOException("bad hash: " + text);
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    // CLI: audit [data-dir] [--since yyyy-mm-dd | --from seq] [--threads n]
+    public static void run(String[] args) throws IOException {
+        Path dataDir = Paths.get("attendance-data");
+        long fromSeq = 0;
+        LocalDate since = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--since":
+                    since = LocalDate.parse(args[++i]);
+                    break;
+                case "--from":
+                    fromSeq = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    dataDir = Paths.get(args[i]);
+            }
+        }
+        Path directory = dataDir.resolve(DEFAULT_DIRECTORY);
+        if (!Files.isDirectory(directory)) {
+            System.out.println("No audit trail in " + directory.toAbsolutePath());
+            return;
+        }
+        if (since != null) {
+            fromSeq = seqBefore(directory, since.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+
+        Verification result = verify(directory, fromSeq, threads);
+        System.out.println(String.format("Audit trail %s: %d records from #%d in %d segment(s) rehashed, %d of %d "
+                        + "checkpoint(s) matched, %.0f ms on %d thread(s)", directory.toAbsolutePath(),
+                result.getRecords(), result.getFirstSeq(), result.getSegments(), result.getBlocksChecked(),
+                result.getCheckpoints(), result.getNanos() / 1e6,
+                Math.max(1, Math.min(threads, result.getSegments()))));
+        System.out.println("Anchor (newest checkpoint hash): " + result.getAnchor());
+        if (result.isIntact()) {
+            System.out.println("Intact");
+            return;
+        }
+        for (String problem : result.getProblems()) {
+            System.out.println("TAMPERED: " + problem);
+        }
+        System.exit(1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.smartattendance;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+// The check-in behind the "Scan QR & Mark Attendance" button, shared by the
+// form and the load generator: take the session code (decoding the scanned
+// image when there is no text yet), insist on a signed session token, mark,
+// and queue the mark for the central server when an outbox is configured.
+// A manually entered course code skips the scan, but it is a student's own
+// entry, so the service refuses it while session tokens are enabled.
+public final class CheckIn {
+    public enum Status {
+        MARK_ATTEMPTED("Sent to the marking service"),
+        NO_CODE("No QR code to scan"),
+        SCAN_FAILED("The QR code could not be read"),
+        NOT_SESSION_CODE("Not a session QR code");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    public static final class Outcome {
+        private final Status status;
+        private final QrScanResult scan;
+        private final MarkResult mark;
+
+        Outcome(Status status, QrScanResult scan, MarkResult mark) {
+            this.status = status;
+            this.scan = scan;
+            this.mark = mark;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        // The decode of the image, null when none was needed
+        public QrScanResult getScan() {
+            return scan;
+        }
+
+        // The marking service's answer, null unless MARK_ATTEMPTED
+        public MarkResult getMark() {
+            return mark;
+        }
+
+        public boolean isMarked() {
+            return mark != null && mark.isMarked();
+        }
+    }
+
+    private static final Outcome NO_CODE = new Outcome(Status.NO_CODE, null, null);
+
+    private final AttendanceService service;
+    private final Outbox outbox;
+
+    // outbox may be null when marks are not uploaded anywhere
+    public CheckIn(AttendanceService service, Outbox outbox) {
+        this.service = service;
+        this.outbox = outbox;
+    }
+
+    // scannedText is the code already read (e.g. from the live camera), or
+    // null to decode image; image may be null when there is nothing to scan
+    public Outcome submit(String studentId, String courseCode, LocationFix location, String scannedText,
+                          BufferedImage image) {
+        String sessionToken = null;
+        QrScanResult scan = null;
+        if (courseCode.isEmpty()) {
+            if (scannedText == null) {
+                if (image == null) {
+                    return NO_CODE;
+                }
+                scan = QrCodec.getInstance().decodeTiered(image);
+                if (!scan.isSuccess()) {
+                    return new Outcome(Status.SCAN_FAILED, scan, null);
+                }
+                scannedText = scan.getText();
+            }
+
+            // Only signed session QR codes are accepted; the service checks the token
+            if (!SessionTokens.isToken(scannedText)) {
+                return new Outcome(Status.NOT_SESSION_CODE, scan, null);
+            }
+            sessionToken = scannedText;
+        }
+
+        MarkResult result = service.mark(new MarkRequest(studentId, courseCode, location, sessionToken));
+        if (result.getStatus() == MarkResult.Status.MARKED && outbox != null) {
+            // The mark is already durable here; the outbox uploads it whenever the network allows.
+            // The record as logged carries the fence id, not the display name in the result.
+            try {
+                outbox.enqueue(result.getRecord());
+            } catch (IOException e) {
+                System.err.println("Upload: could not queue mark for " + result.getStudentId() + ": "
+                        + e.getMessage());
+            }
+        }
+        return new Outcome(Status.MARK_ATTEMPTED, scan, result);
+    }
+}
@@ -0,0 +1,1771 @@
+package com.smartattendance;
+
+import com.google.zxing.common.BitMatrix;
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import javax.swing.border.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class DarkSmartAttendanceSystem {
+    private static final String QR_CODE_IMAGE_PATH = "MyQRCode.png";
+    private static final Path ATTENDANCE_DATA_DIR = Paths.get("attendance-data");
+    private static final double LIVE_SCAN_FPS = 30;
+    // Absentee lists ignore courses that have only just started
+    private static final int CHRONIC_MIN_SESSIONS = 3;
+
+    // Dark theme colors
+    private static final Color DARK_BG = new Color(18, 18, 18);
+    private static final Color DARK_SECONDARY = new Color(30, 30, 30);
+    private static final Color ACCENT_COLOR = new Color(75, 0, 130);  // Deep purple
+    private static final Color TEXT_COLOR = new Color(220, 220, 220);
+    private static final Color HIGHLIGHT_COLOR = new Color(128, 128, 255);
+
+    // Main frame
+    private static JFrame mainFrame;
+    private static CardLayout cardLayout;
+    private static JPanel mainPanel;
+    // Screens not built yet, by card name; touched only on the event dispatch thread
+    private static final Map<String, Runnable> lazyScreens = new HashMap<>();
+
+    // Status bar shared by all screens, and the runner for background work
+    private static JPanel statusPanel;
+    private static JLabel statusLabel;
+    private static UiTaskRunner.StatusView statusView;
+    private static UiTaskRunner taskRunner;
+
+    // Logged in user info
+    private static LoginService loginService;
+    private static AuditTrail auditTrail;
+    private static String currentUser = "";
+    private static String currentSession;
+
+    // Render cache key of the logo
+    private static final String APP_LOGO = "app-logo";
+
+    // Most recently generated QR code, kept in memory for display, scanning and export
+    private static volatile BitMatrix currentQRMatrix;
+    private static volatile BufferedImage currentQRImage;
+
+    // Durable attendance storage and the marking service on top of it, opened
+    // in the background while the login screen is up (see service())
+    private static AttendanceLog attendanceLog;
+    private static volatile AttendanceService attendanceService;
+    private static final CountDownLatch servicesReady = new CountDownLatch(1);
+    // Rotating session token key, loaded before the window so codes can be issued at once
+    private static SessionTokens sessionTokens;
+    // Upload queue to the central server, null unless outbox.properties is present
+    private static Outbox outbox;
+    // What the scan button runs, set up with the services
+    private static volatile CheckIn checkIn;
+
+    public static void main(String[] args) {
+        // Headless modes, no GUI
+        if (args.length > 0 && args[0].equals("batch")) {
+            try {
+                QrBatchGenerator.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException e) {
+                System.err.println("Batch generation failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && (args[0].equals("export") || args[0].equals("import"))) {
+            try {
+                if (args[0].equals("export")) {
+                    AttendanceExporter.run(Arrays.copyOfRange(args, 1, args.length));
+                } else {
+                    AttendanceImporter.run(Arrays.copyOfRange(args, 1, args.length));
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Attendance " + args[0] + " failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("scan")) {
+            try {
+                QrCodec.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException e) {
+                System.err.println("Scan failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("bench-login")) {
+            LoginBenchmark.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            try {
+                AttendanceHttpServer.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException e) {
+                System.err.println("Server failed to start: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("outbox")) {
+            try {
+                Outbox.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException e) {
+                System.err.println("Could not read the outbox: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("timetable")) {
+            try {
+                Timetable.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Timetable check failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("audit")) {
+            try {
+                AuditTrail.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Audit verification failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("load")) {
+            try {
+                LoadGenerator.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Load test failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("replicate")) {
+            try {
+                Replicator.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Replication failed to start: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("cds-training")) {
+            try {
+                trainClassArchive();
+            } catch (Exception e) {
+                System.err.println("CDS training run failed: " + e);
+                System.exit(1);
+            }
+            System.exit(0);
+        }
+
+        StartupTimer.mark(StartupTimer.MAIN);
+        try {
+            // Set system look and feel
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+
+            // Customize UI elements for dark theme
+            setDarkLookAndFeel();
+
+            // Signing in and issuing session codes need only the user store and
+            // the token key, so the window comes up before the log is replayed
+            sessionTokens = SessionTokens.load(
+                    ATTENDANCE_DATA_DIR.resolve(SessionTokens.DEFAULT_KEY_FILE), SessionTokens.DEFAULT_ROTATION_SECONDS);
+            loginService = new LoginService(UserStore.load(ATTENDANCE_DATA_DIR.resolve(UserStore.DEFAULT_FILE)),
+                    new SessionTable());
+            // Logins and marks go to the tamper-evident audit trail; it recovers on its own thread
+            auditTrail = AuditTrail.open(ATTENDANCE_DATA_DIR.resolve(AuditTrail.DEFAULT_DIRECTORY));
+            loginService.setAuditTrail(auditTrail);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    auditTrail.close();
+                } catch (IOException e) {
+                    System.err.println("Audit trail: failed to close cleanly: " + e.getMessage());
+                }
+            }, "audit-trail-shutdown"));
+
+            // Create and show main frame
+            SwingUtilities.invokeLater(DarkSmartAttendanceSystem::createAndShowGUI);
+
+            // Meanwhile open the log and the services on this thread
+            startServices();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void setDarkLookAndFeel() {
+        UIManager.put("Panel.background", DARK_BG);
+        UIManager.put("OptionPane.background", DARK_BG);
+        UIManager.put("OptionPane.messageForeground", TEXT_COLOR);
+        UIManager.put("TextField.background", DARK_SECONDARY);
+        UIManager.put("TextField.foreground", TEXT_COLOR);
+        UIManager.put("TextField.caretForeground", TEXT_COLOR);
+        UIManager.put("PasswordField.background", DARK_SECONDARY);
+        UIManager.put("PasswordField.foreground", TEXT_COLOR);
+        UIManager.put("Button.background", ACCENT_COLOR);
+        UIManager.put("Button.foreground", TEXT_COLOR);
+        UIManager.put("Label.foreground", TEXT_COLOR);
+        UIManager.put("ComboBox.background", DARK_SECONDARY);
+        UIManager.put("ComboBox.foreground", TEXT_COLOR);
+        UIManager.put("ComboBox.selectionBackground", ACCENT_COLOR);
+        UIManager.put("ComboBox.selectionForeground", TEXT_COLOR);
+    }
+
+    // Opens the attendance log (recovers from any interrupted write), rebuilds
+    // the duplicate index and reports from it and starts syncing. Screens that
+    // need the log wait in service() until this is done.
+    private static void startServices() {
+        try {
+            openAttendanceLog();
+            // Both rebuilds replay the whole log; on a multi-core kiosk they overlap
+            FutureTask<ReportStore> reports = new FutureTask<>(() -> ReportStore.rebuild(attendanceLog));
+            Thread reportRebuild = new Thread(reports, "report-rebuild");
+            reportRebuild.setDaemon(true);
+            reportRebuild.start();
+            AttendanceIndex index = AttendanceIndex.rebuild(attendanceLog);
+            Geofences geofences = Geofences.loadDefault(ATTENDANCE_DATA_DIR);
+            // Marks are checked against the course timetable when timetable.csv is present
+            Timetable timetable = Timetable.startFromConfig(ATTENDANCE_DATA_DIR);
+            ReportStore reportStore;
+            try {
+                reportStore = reports.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+            attendanceService = new AttendanceService(attendanceLog, index);
+            attendanceService.setSessionTokens(sessionTokens);
+            attendanceService.setReports(reportStore);
+            attendanceService.setGeofences(geofences);
+            attendanceService.setTimetable(timetable);
+            attendanceService.setAuditTrail(auditTrail);
+            // Kiosks sharing a course join replication when replication.properties is present
+            startReplication();
+            // Marks made here are queued for the central server when outbox.properties is present
+            startOutbox();
+            checkIn = new CheckIn(attendanceService, outbox);
+        } catch (Exception e) {
+            e.printStackTrace();
+            String message = e.getMessage() == null ? e.toString() : e.getMessage();
+            SwingUtilities.invokeLater(() -> {
+                JOptionPane.showMessageDialog(mainFrame,
+                        "Could not open the attendance data: " + message,
+                        "Startup Failed",
+                        JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+            });
+            return;
+        } finally {
+            servicesReady.countDown();
+        }
+        StartupTimer.mark(StartupTimer.SERVICES_READY);
+    }
+
+    // The marking service, waiting for startServices() if a screen gets there
+    // first. Call from background tasks, not the event dispatch thread.
+    private static AttendanceService service() {
+        try {
+            servicesReady.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while opening the attendance data");
+        }
+        if (attendanceService == null) {
+            throw new IllegalStateException("The attendance data could not be opened");
+        }
+        return attendanceService;
+    }
+
+    // The scan-and-mark flow, once service() is ready
+    private static CheckIn checkIn() {
+        service();
+        return checkIn;
+    }
+
+    private static void startReplication() {
+        try {
+            Replicator replicator = Replicator.startFromConfig(attendanceService, attendanceLog, ATTENDANCE_DATA_DIR);
+            if (replicator != null) {
+                System.err.println("Replication: " + replicator.getStatus());
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        replicator.close();
+                    } catch (IOException e) {
+                        System.err.println("Replication: failed to close cleanly: " + e.getMessage());
+                    }
+                }, "replication-shutdown"));
+            }
+        } catch (IOException | RuntimeException e) {
+            // The kiosk still works on its own; it catches up once replication runs again
+            System.err.println("Replication disabled: " + e.getMessage());
+        }
+    }
+
+    private static void startOutbox() {
+        try {
+            outbox = Outbox.startFromConfig(ATTENDANCE_DATA_DIR);
+            if (outbox != null) {
+                System.err.println("Upload: " + outbox.getStatus());
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        outbox.close();
+                    } catch (IOException e) {
+                        System.err.println("Upload: failed to close cleanly: " + e.getMessage());
+                    }
+                }, "outbox-shutdown"));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Marks are still recorded locally; they are not uploaded until the outbox starts
+            System.err.println("Upload disabled: " + e.getMessage());
+        }
+    }
+
+    private static void openAttendanceLog() throws IOException {
+        attendanceLog = AttendanceLog.open(ATTENDANCE_DATA_DIR);
+        if (attendanceLog.getRecoveredTornRecords() > 0) {
+            System.err.println("Attendance log: discarded " + attendanceLog.getRecoveredTornRecords()
+                    + " incomplete record(s) left by an interrupted write");
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                attendanceLog.close();
+            } catch (IOException e) {
+                System.err.println("Attendance log: failed to close cleanly: " + e.getMessage());
+            }
+        }, "attendance-log-shutdown"));
+    }
+
+    private static void createAndShowGUI() {
+        // Create main frame
+        mainFrame = new JFrame("Smart Attendance System");
+        mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        mainFrame.setSize(600, 530);
+        mainFrame.setLocationRelativeTo(null);
+
+        // Status bar and the background task runner that reports into it
+        createStatusPanel();
+        taskRunner = new UiTaskRunner(statusView);
+
+        // Use CardLayout for switching between screens
+        cardLayout = new CardLayout();
+        mainPanel = new JPanel(cardLayout) {
+            private boolean painted;
+
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                if (!painted) {
+                    painted = true;
+                    firstFramePainted();
+                }
+            }
+        };
+        mainPanel.setBackground(DARK_BG);
+
+        // Create different screens; only login is needed for the first frame
+        createScreens();
+
+        // Add main panel to frame, with the status bar below every screen
+        mainFrame.add(mainPanel, BorderLayout.CENTER);
+        mainFrame.add(statusPanel, BorderLayout.SOUTH);
+
+        // Show the login screen first
+        showCard("login");
+        mainFrame.setVisible(true);
+    }
+
+    private static void createScreens() {
+        createLoginPanel();
+        lazyScreens.put("mainMenu", DarkSmartAttendanceSystem::createMainMenuPanel);
+        lazyScreens.put("generateQR", DarkSmartAttendanceSystem::createGenerateQRPanel);
+        lazyScreens.put("markAttendance", DarkSmartAttendanceSystem::createMarkAttendancePanel);
+        lazyScreens.put("dashboard", DarkSmartAttendanceSystem::createDashboardPanel);
+        lazyScreens.put("reports", DarkSmartAttendanceSystem::createReportsPanel);
+        lazyScreens.put("exportImport", DarkSmartAttendanceSystem::createExportImportPanel);
+    }
+
+    // Switches screens, building the screen the first time it is shown
+    private static void showCard(String name) {
+        Runnable create = lazyScreens.remove(name);
+        if (create != null) {
+            create.run();
+        }
+        cardLayout.show(mainPanel, name);
+    }
+
+    // Runs once the login screen has painted. Warming the QR codec waits until
+    // now so it does not compete with building and painting the window.
+    private static void firstFramePainted() {
+        StartupTimer.mark(StartupTimer.FIRST_FRAME);
+        Thread preload = new Thread(() -> {
+            QrCodec.getInstance().warmUp();
+            StartupTimer.mark(StartupTimer.CODEC_WARM);
+        }, "codec-preload");
+        preload.setDaemon(true);
+        preload.start();
+    }
+
+    // Headless run behind "mvn -Pcds package": loads the classes a normal
+    // launch loads (services on a scratch data directory, the QR codec, every
+    // screen) so the JVM can dump them into the application CDS archive
+    private static void trainClassArchive() throws Exception {
+        Path dir = Files.createTempDirectory("cds-training");
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            setDarkLookAndFeel();
+
+            SessionTokens tokens = SessionTokens.load(dir.resolve(SessionTokens.DEFAULT_KEY_FILE),
+                    SessionTokens.DEFAULT_ROTATION_SECONDS);
+            LoginService login = new LoginService(UserStore.load(dir.resolve(UserStore.DEFAULT_FILE), 1),
+                    new SessionTable());
+            login.logout(login.login("admin", "1234".toCharArray(), "local").getSessionToken());
+            try (AttendanceLog log = AttendanceLog.open(dir)) {
+                AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+                service.setSessionTokens(tokens);
+                service.setReports(ReportStore.rebuild(log));
+                service.setGeofences(Geofences.loadDefault(dir));
+                String token = tokens.issue("CS101", "20260101", System.currentTimeMillis());
+                service.mark(new MarkRequest("S1", "CS101", LocationFix.gps(0, 0), token));
+                service.getReports().courseAttendance("CS101");
+                new Timetable(Timetable.parse("course,room,days,start,end\nCS101,B1,MON-FRI,09:00,10:00\n"))
+                        .check("CS101", "B1", System.currentTimeMillis());
+            }
+
+            QrCodec codec = QrCodec.getInstance();
+            codec.warmUp();
+            BitMatrix modules = generateQRCode("cds-training");
+            showQRCode(modules);
+            RenderCache cache = RenderCache.getInstance();
+            cache.image(APP_LOGO, 100, 100, 1, null, DarkSmartAttendanceSystem::paintAppLogo);
+            cache.image(modules, QrCodec.DEFAULT_SIZE, QrCodec.DEFAULT_SIZE, 1, null,
+                    (g, width, height) -> RenderCache.paintModules(g, modules, width, height));
+
+            SwingUtilities.invokeAndWait(() -> {
+                createStatusPanel();
+                taskRunner = new UiTaskRunner(statusView);
+                cardLayout = new CardLayout();
+                mainPanel = new JPanel(cardLayout);
+                createScreens();
+                for (String name : new ArrayList<>(lazyScreens.keySet())) {
+                    showCard(name);
+                }
+            });
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void createStatusPanel() {
+        statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusPanel.setBackground(DARK_SECONDARY);
+        statusPanel.setPreferredSize(new Dimension(600, 30));
+
+        statusLabel = new JLabel("  Ready");
+        statusLabel.setForeground(TEXT_COLOR);
+        statusLabel.setPreferredSize(new Dimension(330, 20));
+
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setPreferredSize(new Dimension(140, 14));
+        progressBar.setForeground(HIGHLIGHT_COLOR);
+        progressBar.setBackground(DARK_BG);
+        progressBar.setBorderPainted(false);
+        progressBar.setVisible(false);
+
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setBackground(DARK_SECONDARY);
+        cancelButton.setForeground(TEXT_COLOR);
+        cancelButton.setFocusPainted(false);
+        cancelButton.setBorder(new RoundedBorder(5));
+        cancelButton.setVisible(false);
+
+        statusPanel.add(statusLabel);
+        statusPanel.add(progressBar);
+        statusPanel.add(cancelButton);
+
+        // Cancel applies to the most recently started task
+        Runnable[] currentCancel = new Runnable[1];
+        cancelButton.addActionListener(e -> {
+            if (currentCancel[0] != null) {
+                currentCancel[0].run();
+            }
+        });
+
+        statusView = new UiTaskRunner.StatusView() {
+            private int active;
+
+            @Override
+            public void taskStarted(String title, Runnable cancel) {
+                active++;
+                currentCancel[0] = cancel;
+                statusLabel.setText("  " + title + "...");
+                progressBar.setIndeterminate(true);
+                progressBar.setVisible(true);
+                cancelButton.setVisible(true);
+            }
+
+            @Override
+            public void taskProgress(String title, String message, int percent) {
+                statusLabel.setText("  " + title + ": " + message);
+                progressBar.setIndeterminate(percent < 0);
+                if (percent >= 0) {
+                    progressBar.setValue(percent);
+                }
+            }
+
+            @Override
+            public void taskFinished(String title, String message) {
+                active = Math.max(0, active - 1);
+                statusLabel.setText("  " + message);
+                if (active == 0) {
+                    currentCancel[0] = null;
+                    progressBar.setVisible(false);
+                    cancelButton.setVisible(false);
+                }
+            }
+        };
+    }
+
+    private static void showTaskError(Throwable error) {
+        if (error instanceof CancellationException) {
+            return;
+        }
+        Metrics.getInstance().recordTaskFailure();
+        JOptionPane.showMessageDialog(mainFrame,
+                error.getMessage() == null ? error.toString() : error.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+    }
+
+    private static void createLoginPanel() {
+        JPanel loginPanel = new JPanel(null);
+        loginPanel.setBackground(DARK_BG);
+
+        // Title label
+        JLabel titleLabel = new JLabel("SMART ATTENDANCE SYSTEM", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 22));
+        titleLabel.setForeground(HIGHLIGHT_COLOR);
+        titleLabel.setBounds(100, 40, 400, 40);
+
+        // Logo/image
+        JLabel logoLabel = new JLabel(RenderCache.getInstance().icon(APP_LOGO, 100, 100,
+                DarkSmartAttendanceSystem::paintAppLogo));
+        logoLabel.setBounds(250, 90, 100, 100);
+
+        // Username field
+        JLabel userLabel = new JLabel("Username:");
+        userLabel.setForeground(TEXT_COLOR);
+        userLabel.setBounds(150, 210, 100, 25);
+
+        JTextField userField = new JTextField();
+        userField.setBounds(250, 210, 200, 25);
+        userField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        // Password field
+        JLabel passLabel = new JLabel("Password:");
+        passLabel.setForeground(TEXT_COLOR);
+        passLabel.setBounds(150, 250, 100, 25);
+
+        JPasswordField passField = new JPasswordField();
+        passField.setBounds(250, 250, 200, 25);
+        passField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        // Login button
+        JButton loginButton = new JButton("Login");
+        loginButton.setBounds(250, 300, 100, 35);
+        loginButton.setBackground(ACCENT_COLOR);
+        loginButton.setForeground(TEXT_COLOR);
+        loginButton.setFocusPainted(false);
+        loginButton.setBorder(new RoundedBorder(10));
+
+        loginButton.addActionListener(e -> {
+            String username = userField.getText();
+            char[] password = passField.getPassword();
+            taskRunner.submit("login", "Signing in", UiTaskRunner.Policy.IGNORE_WHILE_RUNNING,
+                    progress -> validateLogin(username, password),
+                    result -> {
+                        if (result.isSuccess()) {
+                            currentUser = username;
+                            currentSession = result.getSessionToken();
+                            passField.setText("");
+                            showCard("mainMenu");
+                        } else {
+                            JOptionPane.showMessageDialog(mainFrame,
+                                    result.getStatus().getDescription() + "!",
+                                    "Login Failed",
+                                    JOptionPane.ERROR_MESSAGE);
+                        }
+                    },
+                    DarkSmartAttendanceSystem::showTaskError);
+        });
+
+        // Add components to panel
+        loginPanel.add(titleLabel);
+        loginPanel.add(logoLabel);
+        loginPanel.add(userLabel);
+        loginPanel.add(userField);
+        loginPanel.add(passLabel);
+        loginPanel.add(passField);
+        loginPanel.add(loginButton);
+
+        // Add panel to main panel
+        mainPanel.add(loginPanel, "login");
+    }
+
+    private static void createMainMenuPanel() {
+        JPanel menuPanel = new JPanel(null);
+        menuPanel.setBackground(DARK_BG);
+
+        // Title at top
+        JLabel titleLabel = new JLabel("SMART ATTENDANCE SYSTEM", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 22));
+        titleLabel.setForeground(HIGHLIGHT_COLOR);
+        titleLabel.setBounds(100, 30, 400, 30);
+
+        // Welcome label
+        JLabel welcomeLabel = new JLabel("Welcome to the system", SwingConstants.CENTER);
+        welcomeLabel.setForeground(TEXT_COLOR);
+        welcomeLabel.setFont(new Font("Arial", Font.ITALIC, 14));
+        welcomeLabel.setBounds(150, 70, 300, 20);
+
+        // Create option buttons
+        JButton generateQRButton = createMenuButton("Generate QR Code", 100, 36);
+        generateQRButton.addActionListener(e -> showCard("generateQR"));
+
+        JButton markAttendanceButton = createMenuButton("Mark Attendance", 146, 36);
+        markAttendanceButton.addActionListener(e -> showCard("markAttendance"));
+
+        JButton dashboardButton = createMenuButton("Live Metrics", 192, 36);
+        dashboardButton.addActionListener(e -> showCard("dashboard"));
+
+        JButton reportsButton = createMenuButton("Attendance Reports", 238, 36);
+        reportsButton.addActionListener(e -> showCard("reports"));
+
+        JButton dataButton = createMenuButton("Export / Import", 284, 36);
+        dataButton.addActionListener(e -> showCard("exportImport"));
+
+        JButton logoutButton = createMenuButton("Logout", 330, 36);
+        logoutButton.addActionListener(e -> {
+            loginService.logout(currentSession);
+            currentSession = null;
+            currentUser = "";
+            showCard("login");
+        });
+
+        JButton exitButton = createMenuButton("Exit System", 376, 36);
+        exitButton.addActionListener(e -> {
+            int result = JOptionPane.showConfirmDialog(mainFrame,
+                    "Are you sure you want to exit?",
+                    "Confirm Exit",
+                    JOptionPane.YES_NO_OPTION);
+            if (result == JOptionPane.YES_OPTION) {
+                System.exit(0);
+            }
+        });
+
+        // Add components
+        menuPanel.add(titleLabel);
+        menuPanel.add(welcomeLabel);
+        menuPanel.add(generateQRButton);
+        menuPanel.add(markAttendanceButton);
+        menuPanel.add(dashboardButton);
+        menuPanel.add(reportsButton);
+        menuPanel.add(dataButton);
+        menuPanel.add(logoutButton);
+        menuPanel.add(exitButton);
+
+        // Add panel to main panel
+        mainPanel.add(menuPanel, "mainMenu");
+    }
+
+    private static void createGenerateQRPanel() {
+        JPanel qrPanel = new JPanel(null);
+        qrPanel.setBackground(DARK_BG);
+
+        // Title
+        JLabel titleLabel = new JLabel("Generate QR Code", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(HIGHLIGHT_COLOR);
+        titleLabel.setBounds(150, 30, 300, 30);
+
+        // Input field for QR content
+        JLabel contentLabel = new JLabel("Content for QR Code:");
+        contentLabel.setForeground(TEXT_COLOR);
+        contentLabel.setBounds(100, 80, 150, 25);
+
+        JTextField contentField = new JTextField();
+        contentField.setBounds(250, 80, 150, 25);
+        contentField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        // Add placeholder for QR code display
+        JPanel qrDisplayPanel = new JPanel();
+        qrDisplayPanel.setBackground(DARK_SECONDARY);
+        qrDisplayPanel.setBorder(BorderFactory.createLineBorder(ACCENT_COLOR));
+        qrDisplayPanel.setBounds(175, 120, 250, 250);
+
+        JLabel qrImageLabel = new JLabel("QR code will appear here", SwingConstants.CENTER);
+        qrImageLabel.setForeground(TEXT_COLOR);
+        qrImageLabel.setHorizontalTextPosition(SwingConstants.CENTER);
+        qrImageLabel.setVerticalTextPosition(SwingConstants.BOTTOM);
+        qrDisplayPanel.add(qrImageLabel);
+
+        // Session token mode: content is "COURSE" or "COURSE:SESSION" and the
+        // QR shows a signed token that rotates, so screenshots soon stop working
+        JCheckBox tokenCheckBox = new JCheckBox("Session token");
+        tokenCheckBox.setBounds(405, 80, 120, 25);
+        tokenCheckBox.setBackground(DARK_BG);
+        tokenCheckBox.setForeground(TEXT_COLOR);
+        tokenCheckBox.setFocusPainted(false);
+        tokenCheckBox.setSelected(true);
+
+        String[] tokenSession = new String[2];
+        long[] tokenWindow = {Long.MIN_VALUE};
+
+        Consumer<String> renderQR = text ->
+                // Latest content wins if a new request arrives before this finishes
+                taskRunner.submit("generateQR", "Generating QR code", UiTaskRunner.Policy.REPLACE_RUNNING,
+                        progress -> generateQRCode(text),
+                        matrix -> {
+                            // Show the in-memory image directly, no file round trip
+                            qrImageLabel.setText(tokenSession[0] == null ? null : " ");
+                            qrImageLabel.setIcon(showQRCode(matrix));
+                            qrDisplayPanel.revalidate();
+                            qrDisplayPanel.repaint();
+                        },
+                        DarkSmartAttendanceSystem::showTaskError);
+
+        Timer rotationTimer = new Timer(1000, e -> {
+            if (tokenSession[0] == null) {
+                return;
+            }
+            SessionTokens tokens = sessionTokens;
+            long now = System.currentTimeMillis();
+            long window = tokens.windowAt(now);
+            if (window != tokenWindow[0]) {
+                tokenWindow[0] = window;
+                renderQR.accept(tokens.issue(tokenSession[0], tokenSession[1], now));
+            }
+            qrImageLabel.setText("Rotates in " + (tokens.millisUntilRotation(now) + 999) / 1000 + " s");
+        });
+        // Only rotate while the screen is up; a session QR picks up where it left off on return
+        qrPanel.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0) {
+                return;
+            }
+            if (!qrPanel.isShowing()) {
+                rotationTimer.stop();
+            } else if (tokenSession[0] != null) {
+                rotationTimer.start();
+            }
+        });
+
+        // Buttons
+        JButton generateButton = new JButton("Generate QR");
+        generateButton.setBounds(60, 390, 110, 35);
+        generateButton.setBackground(ACCENT_COLOR);
+        generateButton.setForeground(TEXT_COLOR);
+        generateButton.setFocusPainted(false);
+        generateButton.setBorder(new RoundedBorder(10));
+
+        generateButton.addActionListener(e -> {
+            String content = contentField.getText().trim();
+            if (content.isEmpty()) {
+                statusLabel.setText("  Please enter content for the QR Code");
+                contentField.requestFocusInWindow();
+                return;
+            }
+
+            if (!tokenCheckBox.isSelected()) {
+                tokenSession[0] = null;
+                rotationTimer.stop();
+                renderQR.accept(content);
+                statusLabel.setText("  QR Code generated for \"" + content + "\"");
+                return;
+            }
+
+            int colon = content.indexOf(':');
+            String course = colon < 0 ? content : content.substring(0, colon).trim();
+            String session = colon < 0
+                    ? LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE)
+                    : content.substring(colon + 1).trim();
+            SessionTokens tokens = sessionTokens;
+            long now = System.currentTimeMillis();
+            String token;
+            try {
+                token = tokens.issue(course, session, now);
+            } catch (IllegalArgumentException ex) {
+                statusLabel.setText("  " + ex.getMessage());
+                return;
+            }
+
+            tokenSession[0] = course;
+            tokenSession[1] = session;
+            tokenWindow[0] = tokens.windowAt(now);
+            renderQR.accept(token);
+            rotationTimer.start();
+            statusLabel.setText("  Session QR for " + course + " (" + session + "), rotates every "
+                    + tokens.getRotationSeconds() + " s");
+        });
+
+        JButton exportButton = new JButton("Export PNG");
+        exportButton.setBounds(175, 390, 110, 35);
+        exportButton.setBackground(DARK_SECONDARY);
+        exportButton.setForeground(TEXT_COLOR);
+        exportButton.setFocusPainted(false);
+        exportButton.setBorder(new RoundedBorder(10));
+
+        exportButton.addActionListener(e -> {
+            BitMatrix matrix = currentQRMatrix;
+            if (matrix == null) {
+                JOptionPane.showMessageDialog(mainFrame,
+                        "Generate a QR Code first",
+                        "Nothing to Export",
+                        JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new File(QR_CODE_IMAGE_PATH));
+            if (chooser.showSaveDialog(mainFrame) == JFileChooser.APPROVE_OPTION) {
+                Path target = chooser.getSelectedFile().toPath();
+                taskRunner.submit("exportQR", "Exporting PNG", UiTaskRunner.Policy.IGNORE_WHILE_RUNNING,
+                        progress -> {
+                            QrCodec codec = QrCodec.getInstance();
+                            codec.writePng(codec.enlarge(matrix, QrCodec.DEFAULT_SIZE), target);
+                            return target;
+                        },
+                        path -> statusLabel.setText("  Saved " + path.getFileName()),
+                        DarkSmartAttendanceSystem::showTaskError);
+            }
+        });
+
+        JButton batchButton = new JButton("Batch CSV...");
+        batchButton.setBounds(290, 390, 110, 35);
+        batchButton.setBackground(DARK_SECONDARY);
+        batchButton.setForeground(TEXT_COLOR);
+        batchButton.setFocusPainted(false);
+        batchButton.setBorder(new RoundedBorder(10));
+
+        batchButton.addActionListener(e -> {
+            tokenSession[0] = null;
+            rotationTimer.stop();
+            JFileChooser rosterChooser = new JFileChooser();
+            rosterChooser.setDialogTitle("Select roster CSV (name,content per line)");
+            if (rosterChooser.showOpenDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            JFileChooser zipChooser = new JFileChooser();
+            zipChooser.setDialogTitle("Save QR codes as ZIP");
+            zipChooser.setSelectedFile(new File("qr-codes.zip"));
+            if (zipChooser.showSaveDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+
+            Path roster = rosterChooser.getSelectedFile().toPath();
+            Path zip = zipChooser.getSelectedFile().toPath();
+            qrImageLabel.setIcon(null);
+            qrImageLabel.setText("Batch running, see status bar");
+
+            taskRunner.submit("batchQR", "Batch QR", UiTaskRunner.Policy.IGNORE_WHILE_RUNNING,
+                    progress -> new QrBatchGenerator(QrCodec.DEFAULT_SIZE).generate(roster, zip,
+                            p -> progress.update(p.toString(), p.getTotal() == 0 ? -1
+                                    : (int) ((p.getCompleted() + p.getFailed()) * 100 / p.getTotal()))),
+                    result -> qrImageLabel.setText("<html><center>Batch complete<br>" + result + "</center></html>"),
+                    error -> {
+                        qrImageLabel.setText("Batch failed");
+                        showTaskError(error);
+                    });
+        });
+
+        JButton backButton = new JButton("Back to Menu");
+        backButton.setBounds(405, 390, 110, 35);
+        backButton.setBackground(DARK_SECONDARY);
+        backButton.setForeground(TEXT_COLOR);
+        backButton.setFocusPainted(false);
+        backButton.setBorder(new RoundedBorder(10));
+
+        backButton.addActionListener(e -> showCard("mainMenu"));
+
+        // Add components
+        qrPanel.add(titleLabel);
+        qrPanel.add(contentLabel);
+        qrPanel.add(contentField);
+        qrPanel.add(tokenCheckBox);
+        qrPanel.add(qrDisplayPanel);
+        qrPanel.add(generateButton);
+        qrPanel.add(exportButton);
+        qrPanel.add(batchButton);
+        qrPanel.add(backButton);
+
+        // Add panel to main panel
+        mainPanel.add(qrPanel, "generateQR");
+    }
+
+    private static void createMarkAttendancePanel() {
+        JPanel attendancePanel = new JPanel(null);
+        attendancePanel.setBackground(DARK_BG);
+
+        // Title
+        JLabel titleLabel = new JLabel("Mark Attendance", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(HIGHLIGHT_COLOR);
+        titleLabel.setBounds(150, 30, 300, 30);
+
+        // Location field: "latitude, longitude" or the BSSID of the connected
+        // Wi-Fi access point, checked against the campus geofences
+        JLabel locationLabel = new JLabel("Your Location:");
+        locationLabel.setForeground(TEXT_COLOR);
+        locationLabel.setBounds(100, 80, 120, 25);
+
+        JTextField locationField = new JTextField();
+        locationField.setBounds(220, 80, 200, 25);
+        locationField.setToolTipText("Latitude, longitude (e.g. 12.9716, 77.5935) or Wi-Fi BSSID");
+        locationField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        JButton detectButton = new JButton("Wi-Fi");
+        detectButton.setBounds(425, 80, 75, 25);
+        detectButton.setToolTipText("Use the Wi-Fi access point this computer is connected to");
+        detectButton.setBackground(DARK_SECONDARY);
+        detectButton.setForeground(TEXT_COLOR);
+        detectButton.setFocusPainted(false);
+        detectButton.setBorder(new RoundedBorder(10));
+
+        // Student ID field
+        JLabel studentIdLabel = new JLabel("Student ID:");
+        studentIdLabel.setForeground(TEXT_COLOR);
+        studentIdLabel.setBounds(100, 120, 120, 25);
+
+        JTextField studentIdField = new JTextField();
+        studentIdField.setBounds(220, 120, 280, 25);
+        studentIdField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        // Course field
+        JLabel courseLabel = new JLabel("Course Code:");
+        courseLabel.setForeground(TEXT_COLOR);
+        courseLabel.setBounds(100, 160, 120, 25);
+
+        JTextField courseField = new JTextField();
+        courseField.setBounds(220, 160, 280, 25);
+        courseField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        // Status area
+        JPanel statusArea = new JPanel();
+        statusArea.setLayout(new BorderLayout());
+        statusArea.setBackground(DARK_SECONDARY);
+        statusArea.setBorder(BorderFactory.createLineBorder(ACCENT_COLOR));
+        statusArea.setBounds(100, 200, 400, 150);
+
+        JTextArea statusTextArea = new JTextArea();
+        statusTextArea.setEditable(false);
+        statusTextArea.setBackground(DARK_SECONDARY);
+        statusTextArea.setForeground(TEXT_COLOR);
+        statusTextArea.setLineWrap(true);
+        statusTextArea.setWrapStyleWord(true);
+        statusTextArea.setMargin(new Insets(10, 10, 10, 10));
+        statusTextArea.setText("Status: Ready to mark attendance.\nPlease fill in the details above and click 'Scan QR & Mark Attendance'.");
+
+        JScrollPane scrollPane = new JScrollPane(statusTextArea);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.setBackground(DARK_SECONDARY);
+        statusArea.add(scrollPane, BorderLayout.CENTER);
+
+        // Buttons
+        JButton scanButton = new JButton("Scan QR & Mark Attendance");
+        scanButton.setBounds(100, 370, 260, 35);
+        scanButton.setBackground(ACCENT_COLOR);
+        scanButton.setForeground(TEXT_COLOR);
+        scanButton.setFocusPainted(false);
+        scanButton.setBorder(new RoundedBorder(10));
+
+        detectButton.addActionListener(e -> taskRunner.submit("detectWifi", "Detecting Wi-Fi",
+                UiTaskRunner.Policy.IGNORE_WHILE_RUNNING,
+                progress -> WifiLocator.detectBssid(),
+                bssid -> {
+                    if (bssid == null) {
+                        statusTextArea.setText("No Wi-Fi connection found.\n"
+                                + "Enter your latitude and longitude instead, e.g. 12.9716, 77.5935.");
+                    } else {
+                        locationField.setText(bssid);
+                        statusTextArea.setText("Connected to access point " + bssid + ".");
+                    }
+                },
+                error -> statusTextArea.setText("Wi-Fi detection failed: " + error.getMessage())));
+
+        scanButton.addActionListener(e -> submitMark(locationField, studentIdField,
+                courseField.getText().trim(), null, statusTextArea, 0));
+
+        // Live scan: decode a stream of frames and mark on each new code
+        JButton liveScanButton = new JButton("Live Scan...");
+        liveScanButton.setBounds(370, 370, 130, 35);
+        liveScanButton.setBackground(DARK_SECONDARY);
+        liveScanButton.setForeground(TEXT_COLOR);
+        liveScanButton.setFocusPainted(false);
+        liveScanButton.setBorder(new RoundedBorder(10));
+
+        LiveScanner[] liveScanner = new LiveScanner[1];
+        liveScanButton.addActionListener(e -> {
+            if (liveScanner[0] != null && liveScanner[0].isRunning()) {
+                liveScanner[0].stop();
+                return;
+            }
+
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Select a folder of frames or an MJPEG file");
+            chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+            if (chooser.showOpenDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+
+            FrameSource source;
+            try {
+                source = FrameSource.open(chooser.getSelectedFile().toPath());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(mainFrame,
+                        ex.getMessage(),
+                        "Live Scan Failed",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            liveScanner[0] = new LiveScanner(source, LIVE_SCAN_FPS, new LiveScanner.Listener() {
+                @Override
+                public void onDetected(String text, long captureNanos, long latencyNanos) {
+                    SwingUtilities.invokeLater(() -> {
+                        // Reuse the normal marking path with the scanned code
+                        courseField.setText("");
+                        submitMark(locationField, studentIdField, "", text, statusTextArea, captureNanos);
+                    });
+                }
+
+                @Override
+                public void onStopped(LiveScanner.Stats stats, IOException failure) {
+                    SwingUtilities.invokeLater(() -> {
+                        liveScanButton.setText("Live Scan...");
+                        statusTextArea.append("\n\nLive scan stopped: " + stats
+                                + (failure == null ? "" : "\nError: " + failure.getMessage()));
+                    });
+                }
+            });
+            liveScanButton.setText("Stop Live Scan");
+            statusTextArea.setText("Live scan running. Enter the Student ID and select the location;\n" +
+                    "each new QR code in view is marked automatically.");
+            liveScanner[0].start();
+        });
+
+        // Photo scan: a picture of the projected code, which may be skewed,
+        // glary or show several codes, goes through the tiered decoder
+        JButton photoButton = new JButton("Scan Photo...");
+        photoButton.setBounds(100, 420, 115, 35);
+        photoButton.setBackground(DARK_SECONDARY);
+        photoButton.setForeground(TEXT_COLOR);
+        photoButton.setFocusPainted(false);
+        photoButton.setBorder(new RoundedBorder(10));
+
+        photoButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Select a photo of the session QR code");
+            if (chooser.showOpenDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            Path photo = chooser.getSelectedFile().toPath();
+            taskRunner.submit("scanPhoto", "Scanning photo", UiTaskRunner.Policy.IGNORE_WHILE_RUNNING,
+                    progress -> scanPhoto(photo),
+                    tokens -> {
+                        if (tokens.isEmpty()) {
+                            statusTextArea.setText("❌ SCAN FAILED\n\n" +
+                                    "No session QR code found in the photo.\n" +
+                                    "Try a sharper, closer photo or enter course code manually.");
+                        } else if (tokens.size() > 1) {
+                            statusTextArea.setText("❌ SCAN FAILED\n\n" +
+                                    "The photo shows " + tokens.size() + " different session QR codes.\n" +
+                                    "Take a photo of the code for your class only.");
+                        } else {
+                            courseField.setText("");
+                            submitMark(locationField, studentIdField, "", tokens.get(0), statusTextArea, 0);
+                        }
+                    },
+                    error -> statusTextArea.setText("❌ SCAN FAILED\n\n" + error.getMessage()));
+        });
+
+        JButton backButton = new JButton("Back to Menu");
+        backButton.setBounds(225, 420, 150, 35);
+        backButton.setBackground(DARK_SECONDARY);
+        backButton.setForeground(TEXT_COLOR);
+        backButton.setFocusPainted(false);
+        backButton.setBorder(new RoundedBorder(10));
+
+        backButton.addActionListener(e -> showCard("mainMenu"));
+
+        // Add components
+        attendancePanel.add(titleLabel);
+        attendancePanel.add(locationLabel);
+        attendancePanel.add(locationField);
+        attendancePanel.add(detectButton);
+        attendancePanel.add(studentIdLabel);
+        attendancePanel.add(studentIdField);
+        attendancePanel.add(courseLabel);
+        attendancePanel.add(courseField);
+        attendancePanel.add(statusArea);
+        attendancePanel.add(scanButton);
+        attendancePanel.add(liveScanButton);
+        attendancePanel.add(photoButton);
+        attendancePanel.add(backButton);
+
+        // Add to main panel
+        mainPanel.add(attendancePanel, "markAttendance");
+    }
+
+    // Latency percentiles and counters from Metrics, refreshed every second
+    // while the card is visible
+    private static void createDashboardPanel() {
+        JPanel dashboardPanel = new JPanel(null);
+        dashboardPanel.setBackground(DARK_BG);
+
+        // Title
+        JLabel titleLabel = new JLabel("Live Metrics", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(HIGHLIGHT_COLOR);
+        titleLabel.setBounds(150, 30, 300, 30);
+
+        JPanel metricsArea = new JPanel();
+        metricsArea.setLayout(new BorderLayout());
+        metricsArea.setBackground(DARK_SECONDARY);
+        metricsArea.setBorder(BorderFactory.createLineBorder(ACCENT_COLOR));
+        metricsArea.setBounds(30, 75, 540, 330);
+
+        JTextArea metricsTextArea = new JTextArea();
+        metricsTextArea.setEditable(false);
+        metricsTextArea.setBackground(DARK_SECONDARY);
+        metricsTextArea.setForeground(TEXT_COLOR);
+        metricsTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        metricsTextArea.setMargin(new Insets(10, 10, 10, 10));
+
+        JScrollPane scrollPane = new JScrollPane(metricsTextArea);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.setBackground(DARK_SECONDARY);
+        metricsArea.add(scrollPane, BorderLayout.CENTER);
+
+        Timer refreshTimer = new Timer(1000, e -> {
+            int caret = metricsTextArea.getCaretPosition();
+            metricsTextArea.setText(formatMetrics(Metrics.getInstance().snapshot()));
+            metricsTextArea.setCaretPosition(Math.min(caret, metricsTextArea.getDocument().getLength()));
+        });
+        refreshTimer.setInitialDelay(0);
+        dashboardPanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentShown(ComponentEvent e) {
+                refreshTimer.start();
+            }
+
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                refreshTimer.stop();
+            }
+        });
+
+        JButton backButton = new JButton("Back to Menu");
+        backButton.setBounds(225, 420, 150, 35);
+        backButton.setBackground(DARK_SECONDARY);
+        backButton.setForeground(TEXT_COLOR);
+        backButton.setFocusPainted(false);
+        backButton.setBorder(new RoundedBorder(10));
+
+        backButton.addActionListener(e -> showCard("mainMenu"));
+
+        // Add components
+        dashboardPanel.add(titleLabel);
+        dashboardPanel.add(metricsArea);
+        dashboardPanel.add(backButton);
+
+        // Add to main panel
+        mainPanel.add(dashboardPanel, "dashboard");
+    }
+
+    private static String formatMetrics(MetricsSnapshot snapshot) {
+        StringBuilder text = new StringBuilder(2048);
+        text.append("Latency (ms), last 10-20 s\n");
+        text.append(String.format("%-10s %8s %9s %9s %9s%n", "stage", "count", "p50", "p99", "max"));
+        for (LatencyStats stats : snapshot.getLatencies()) {
+            text.append(String.format("%-10s %8d %9.2f %9.2f %9.2f%n", stats.getName(), stats.getRecentCount(),
+                    stats.getRecentP50() / 1000.0, stats.getRecentP99() / 1000.0, stats.getRecentMax() / 1000.0));
+        }
+
+        text.append("\nLatency (ms), since start\n");
+        text.append(String.format("%-10s %8s %9s %9s %9s %9s%n", "stage", "count", "p50", "p99", "p99.9", "max"));
+        for (LatencyStats stats : snapshot.getLatencies()) {
+            text.append(String.format("%-10s %8d %9.2f %9.2f %9.2f %9.2f%n", stats.getName(), stats.getTotalCount(),
+                    stats.getTotalP50() / 1000.0, stats.getTotalP99() / 1000.0,
+                    stats.getTotalP999() / 1000.0, stats.getTotalMax() / 1000.0));
+        }
+
+        text.append("\nCounters\n");
+        int column = 0;
+        for (Map.Entry<String, Long> counter : snapshot.getCounters().entrySet()) {
+            text.append(String.format("%-26s %7d", counter.getKey(), counter.getValue()));
+            text.append(++column % 2 == 0 ? "\n" : "   ");
+        }
+        return text.toString();
+    }
+
+    // Attendance percentages, session headcounts and absentee lists from the
+    // incrementally maintained ReportStore
+    private static void createReportsPanel() {
+        JPanel reportsPanel = new JPanel(null);
+        reportsPanel.setBackground(DARK_BG);
+
+        // Title
+        JLabel titleLabel = new JLabel("Attendance Reports", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(HIGHLIGHT_COLOR);
+        titleLabel.setBounds(150, 30, 300, 30);
+
+        // Filter fields
+        JLabel courseLabel = new JLabel("Course:");
+        courseLabel.setForeground(TEXT_COLOR);
+        courseLabel.setBounds(30, 75, 55, 25);
+
+        JTextField courseField = new JTextField();
+        courseField.setBounds(85, 75, 110, 25);
+        courseField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        JLabel studentIdLabel = new JLabel("Student ID:");
+        studentIdLabel.setForeground(TEXT_COLOR);
+        studentIdLabel.setBounds(210, 75, 75, 25);
+
+        JTextField studentIdField = new JTextField();
+        studentIdField.setBounds(285, 75, 110, 25);
+        studentIdField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        JLabel thresholdLabel = new JLabel("Below %:");
+        thresholdLabel.setForeground(TEXT_COLOR);
+        thresholdLabel.setBounds(410, 75, 65, 25);
+
+        JTextField thresholdField = new JTextField("75");
+        thresholdField.setBounds(475, 75, 95, 25);
+        thresholdField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ACCENT_COLOR),
+                BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+
+        // Report output
+        JPanel reportArea = new JPanel();
+        reportArea.setLayout(new BorderLayout());
+        reportArea.setBackground(DARK_SECONDARY);
+        reportArea.setBorder(BorderFactory.createLineBorder(ACCENT_COLOR));
+        reportArea.setBounds(30, 155, 540, 250);
+
+        JTextArea reportTextArea = new JTextArea();
+        reportTextArea.setEditable(false);
+        reportTextArea.setBackground(DARK_SECONDARY);
+        reportTextArea.setForeground(TEXT_COLOR);
+        reportTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        reportTextArea.setMargin(new Insets(10, 10, 10, 10));
+        reportTextArea.setText("Enter a course or student ID and choose a report.");
+
+        JScrollPane scrollPane = new JScrollPane(reportTextArea);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.setBackground(DARK_SECONDARY);
+        reportArea.add(scrollPane, BorderLayout.CENTER);
+
+        // Report buttons
+        JButton courseButton = new JButton("Course Report");
+        courseButton.setBounds(30, 112, 170, 32);
+        JButton studentButton = new JButton("Student Report");
+        studentButton.setBounds(215, 112, 170, 32);
+        JButton absenteesButton = new JButton("Chronic Absentees");
+        absenteesButton.setBounds(400, 112, 170, 32);
+        for (JButton button : new JButton[]{courseButton, studentButton, absenteesButton}) {
+            button.setBackground(ACCENT_COLOR);
+            button.setForeground(TEXT_COLOR);
+            button.setFocusPainted(false);
+            button.setBorder(new RoundedBorder(10));
+        }
+
+        Consumer<UiTaskRunner.Task<String>> runReport = report -> taskRunner.submit("report", "Building report",
+                UiTaskRunner.Policy.REPLACE_RUNNING, report,
+                text -> {
+                    reportTextArea.setText(text);
+                    reportTextArea.setCaretPosition(0);
+                },
+                DarkSmartAttendanceSystem::showTaskError);
+
+        courseButton.addActionListener(e -> {
+            String course = courseField.getText().trim();
+            if (course.isEmpty()) {
+                reportTextArea.setText("Input required: please enter a course code.");
+                return;
+            }
+            runReport.accept(progress -> formatCourseReport(course));
+        });
+
+        studentButton.addActionListener(e -> {
+            String studentId = studentIdField.getText().trim();
+            if (studentId.isEmpty()) {
+                reportTextArea.setText("Input required: please enter a Student ID.");
+                return;
+            }
+            runReport.accept(progress -> formatStudentReport(studentId));
+        });
+
+        absenteesButton.addActionListener(e -> {
+            double threshold;
+            try {
+                threshold = Double.parseDouble(thresholdField.getText().trim());
+            } catch (NumberFormatException ex) {
+                reportTextArea.setText("Input required: the threshold must be a percentage, e.g. 75.");
+                return;
+            }
+            String course = courseField.getText().trim();
+            runReport.accept(progress -> formatAbsentees(threshold, course));
+        });
+
+        JButton backButton = new JButton("Back to Menu");
+        backButton.setBounds(225, 420, 150, 35);
+        backButton.setBackground(DARK_SECONDARY);
+        backButton.setForeground(TEXT_COLOR);
+        backButton.setFocusPainted(false);
+        backButton.setBorder(new RoundedBorder(10));
+
+        backButton.addActionListener(e -> showCard("mainMenu"));
+
+        // Add components
+        reportsPanel.add(titleLabel);
+        reportsPanel.add(courseLabel);
+        reportsPanel.add(courseField);
+        reportsPanel.add(studentIdLabel);
+        reportsPanel.add(studentIdField);
+        reportsPanel.add(thresholdLabel);
+        reportsPanel.add(thresholdField);
+        reportsPanel.add(courseButton);
+        reportsPanel.add(studentButton);
+        reportsPanel.add(absenteesButton);
+        reportsPanel.add(reportArea);
+        reportsPanel.add(backButton);
+
+        // Add to main panel
+        mainPanel.add(reportsPanel, "reports");
+    }
+
+    private static String formatCourseReport(String course) {
+        ReportStore reports = service().getReports();
+        List<StudentAttendance> students = reports.courseAttendance(course);
+        if (students.isEmpty()) {
+            return "No attendance recorded for " + course + ".";
+        }
+        List<SessionHeadcount> sessions = reports.sessionHeadcounts(course);
+        StringBuilder text = new StringBuilder(64 * (students.size() + sessions.size()));
+        text.append(course).append(": ").append(sessions.size()).append(" sessions, ")
+                .append(students.size()).append(" students\n\n");
+        text.append(String.format("%-12s %10s%n", "date", "headcount"));
+        for (SessionHeadcount session : sessions) {
+            text.append(String.format("%-12s %10d%n", session.getDate(), session.getHeadcount()));
+        }
+        text.append(String.format("%n%-20s %9s %8s%n", "student", "attended", "percent"));
+        for (StudentAttendance student : students) {
+            text.append(String.format("%-20s %4d/%-4d %7.1f%%%n", student.getStudentId(), student.getAttended(),
+                    student.getSessions(), student.getPercent()));
+        }
+        return text.toString();
+    }
+
+    private static String formatStudentReport(String studentId) {
+        ReportStore reports = service().getReports();
+        List<StudentAttendance> courses = reports.studentAttendance(studentId);
+        if (courses.isEmpty()) {
+            return "No attendance recorded for " + studentId + ".";
+        }
+        StringBuilder text = new StringBuilder(1024);
+        text.append(String.format("%-14s %9s %8s%n", "course", "attended", "percent"));
+        for (StudentAttendance course : courses) {
+            text.append(String.format("%-14s %4d/%-4d %7.1f%%%n", course.getCourseCode(), course.getAttended(),
+                    course.getSessions(), course.getPercent()));
+        }
+        text.append("\nHistory\n");
+        for (AttendanceRecord record : reports.studentHistory(studentId)) {
+            text.append(MarkMessages.formatTimestamp(record.getEpochMillis())).append("  ")
+                    .append(record.getCourseCode());
+            if (record.getLocation() != null) {
+                text.append("  ").append(record.getLocation());
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    // Absentees in every course, or only the given one when course is not empty
+    private static String formatAbsentees(double threshold, String course) {
+        StringBuilder text = new StringBuilder(4096);
+        text.append(String.format("Below %.0f%% attendance (courses with at least %d sessions)%n%n",
+                threshold, CHRONIC_MIN_SESSIONS));
+        text.append(String.format("%-20s %-14s %9s %8s%n", "student", "course", "attended", "percent"));
+        int count = 0;
+        for (StudentAttendance row : service().getReports().chronicAbsentees(threshold, CHRONIC_MIN_SESSIONS)) {
+            if (!course.isEmpty() && !course.equals(row.getCourseCode())) {
+                continue;
+            }
+            text.append(String.format("%-20s %-14s %4d/%-4d %7.1f%%%n", row.getStudentId(), row.getCourseCode(),
+                    row.getAttended(), row.getSessions(), row.getPercent()));
+            count++;
+        }
+        if (count == 0) {
+            text.append("None.\n");
+        }
+        return text.toString();
+    }
+
+    // Streams records to CSV/XLSX for the registrar and imports CSV files,
+    // filtered by course and date range, with progress in the status bar
+    private static void createExportImportPanel() {
+        JPanel dataPanel = new JPanel(null);
+        dataPanel.setBackground(DARK_BG);
+
+        // Title
+        JLabel titleLabel = new JLabel("Export / Import", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(HIGHLIGHT_COLOR);
+        titleLabel.setBounds(150, 30, 300, 30);
+
+        // Filter fields
+        JLabel courseLabel = new JLabel("Course Code:");
+        courseLabel.setForeground(TEXT_COLOR);
+        courseLabel.setBounds(100, 80, 120, 25);
+
+        JTextField courseField = new JTextField();
+        courseField.setBounds(220, 80, 280, 25);
+        courseField.setToolTipText("Leave empty for every course");
+
+        JLabel fromLabel = new JLabel("From (yyyy-mm-dd):");
+        fromLabel.setForeground(TEXT_COLOR);
+        fromLabel.setBounds(100, 120, 120, 25);
+
+        JTextField fromField = new JTextField();
+        fromField.setBounds(220, 120, 280, 25);
+
+        JLabel toLabel = new JLabel("To (yyyy-mm-dd):");
+        toLabel.setForeground(TEXT_COLOR);
+        toLabel.setBounds(100, 160, 120, 25);
+
+        JTextField toField = new JTextField();
+        toField.setBounds(220, 160, 280, 25);
+
+        for (JTextField field : new JTextField[]{courseField, fromField, toField}) {
+            field.setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(ACCENT_COLOR),
+                    BorderFactory.createEmptyBorder(2, 5, 2, 5)));
+        }
+
+        // Result of the last export or import
+        JTextArea resultTextArea = new JTextArea();
+        resultTextArea.setEditable(false);
+        resultTextArea.setBackground(DARK_SECONDARY);
+        resultTextArea.setForeground(TEXT_COLOR);
+        resultTextArea.setLineWrap(true);
+        resultTextArea.setWrapStyleWord(true);
+        resultTextArea.setMargin(new Insets(10, 10, 10, 10));
+        resultTextArea.setBorder(BorderFactory.createLineBorder(ACCENT_COLOR));
+        resultTextArea.setBounds(100, 305, 400, 100);
+        resultTextArea.setText("Leave the filters empty to export everything.\n"
+                + "Imported CSV files need studentId, courseCode and timestamp or epochMillis columns.");
+
+        JButton exportCsvButton = new JButton("Export CSV...");
+        exportCsvButton.setBounds(100, 205, 190, 35);
+        JButton exportXlsxButton = new JButton("Export Excel...");
+        exportXlsxButton.setBounds(310, 205, 190, 35);
+        JButton importButton = new JButton("Import CSV...");
+        importButton.setBounds(100, 255, 400, 35);
+        for (JButton button : new JButton[]{exportCsvButton, exportXlsxButton, importButton}) {
+            button.setBackground(ACCENT_COLOR);
+            button.setForeground(TEXT_COLOR);
+            button.setFocusPainted(false);
+            button.setBorder(new RoundedBorder(10));
+        }
+
+        Consumer<String> export = extension -> {
+            RecordFilter filter;
+            try {
+                filter = RecordFilter.forDates(courseField.getText().trim(), parseDate(fromField.getText()),
+                        parseDate(toField.getText()), ZoneId.systemDefault());
+            } catch (DateTimeParseException ex) {
+                resultTextArea.setText("Input required: dates must look like 2025-06-16.");
+                return;
+            }
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Export attendance");
+            chooser.setSelectedFile(new File("attendance." + extension));
+            if (chooser.showSaveDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            Path file = chooser.getSelectedFile().toPath();
+            resultTextArea.setText("Exporting to " + file + "...");
+
+            taskRunner.submit("exportData", "Export", UiTaskRunner.Policy.IGNORE_WHILE_RUNNING,
+                    progress -> new AttendanceExporter(service().getLog()).export(filter, file,
+                            (scanned, total, written) -> progress.update(
+                                    written + " rows exported", total == 0 ? -1 : (int) (scanned * 100 / total))),
+                    rows -> resultTextArea.setText("Exported " + rows + " records to " + file),
+                    error -> {
+                        resultTextArea.setText("Export failed: " + error.getMessage());
+                        showTaskError(error);
+                    });
+        };
+        exportCsvButton.addActionListener(e -> export.accept("csv"));
+        exportXlsxButton.addActionListener(e -> export.accept("xlsx"));
+
+        importButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Import attendance CSV");
+            if (chooser.showOpenDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            Path file = chooser.getSelectedFile().toPath();
+            resultTextArea.setText("Importing " + file + "...");
+
+            taskRunner.submit("importData", "Import", UiTaskRunner.Policy.IGNORE_WHILE_RUNNING,
+                    progress -> new AttendanceImporter(service()).importCsv(file,
+                            (summary, read, total) -> progress.update(summary.toString(),
+                                    total == 0 ? -1 : (int) Math.min(100, read * 100 / total))),
+                    summary -> resultTextArea.setText("Import of " + file.getFileName() + " finished:\n" + summary),
+                    error -> {
+                        resultTextArea.setText("Import failed: " + error.getMessage());
+                        showTaskError(error);
+                    });
+        });
+
+        JButton backButton = new JButton("Back to Menu");
+        backButton.setBounds(225, 420, 150, 35);
+        backButton.setBackground(DARK_SECONDARY);
+        backButton.setForeground(TEXT_COLOR);
+        backButton.setFocusPainted(false);
+        backButton.setBorder(new RoundedBorder(10));
+
+        backButton.addActionListener(e -> showCard("mainMenu"));
+
+        // Add components
+        dataPanel.add(titleLabel);
+        dataPanel.add(courseLabel);
+        dataPanel.add(courseField);
+        dataPanel.add(fromLabel);
+        dataPanel.add(fromField);
+        dataPanel.add(toLabel);
+        dataPanel.add(toField);
+        dataPanel.add(exportCsvButton);
+        dataPanel.add(exportXlsxButton);
+        dataPanel.add(importButton);
+        dataPanel.add(resultTextArea);
+        dataPanel.add(backButton);
+
+        // Add to main panel
+        mainPanel.add(dataPanel, "exportImport");
+    }
+
+    // Empty text means no limit
+    private static LocalDate parseDate(String text) {
+        return text.trim().isEmpty() ? null : LocalDate.parse(text.trim());
+    }
+
+    // Validates the form on the EDT, then scans and marks in the background.
+    // scannedText is a code already decoded by live scan (null to scan the
+    // current QR code), and captureNanos its frame capture time (0 otherwise).
+    private static void submitMark(JTextField locationField, JTextField studentIdField,
+                                   String courseCode, String scannedText, JTextArea statusTextArea,
+                                   long captureNanos) {
+        String studentId = studentIdField.getText().trim();
+        LocationFix location;
+        try {
+            location = LocationFix.parse(locationField.getText());
+        } catch (IllegalArgumentException ex) {
+            statusTextArea.setText("Invalid location: " + ex.getMessage() + ".");
+            locationField.requestFocusInWindow();
+            return;
+        }
+
+        if (location == null) {
+            statusTextArea.setText("Input required: please enter your location or click \"Wi-Fi\".");
+            locationField.requestFocusInWindow();
+            return;
+        }
+
+        if (studentId.isEmpty()) {
+            statusTextArea.setText("Input required: please enter your Student ID.");
+            studentIdField.requestFocusInWindow();
+            return;
+        }
+
+        // Repeated clicks while a mark is in flight are dropped, not queued
+        taskRunner.submit("markAttendance", "Marking attendance", UiTaskRunner.Policy.IGNORE_WHILE_RUNNING,
+                progress -> markAttendance(location, studentId, courseCode, scannedText),
+                message -> {
+                    if (captureNanos != 0) {
+                        message += "\n\nLive scan: marked " + (System.nanoTime() - captureNanos) / 1_000_000
+                                + " ms after capture";
+                    }
+                    statusTextArea.setText(message);
+                },
+                error -> statusTextArea.setText("❌ ATTENDANCE MARKING FAILED\n\n" + error.getMessage()));
+    }
+
+    // Scans (when no course code was entered) and records the mark through the
+    // attendance service. Runs off the EDT and returns the text for the status area.
+    private static String markAttendance(LocationFix location, String studentId, String courseCode,
+                                         String scannedText) {
+        // Try to scan QR code (in real app, this would use camera)
+        CheckIn.Outcome outcome = checkIn().submit(studentId, courseCode, location, scannedText, currentQRImage);
+        switch (outcome.getStatus()) {
+            case NO_CODE:
+                return "❌ SCAN FAILED\n\n" +
+                        "No QR Code has been generated in this session.\n" +
+                        "Please generate one or enter course code manually.";
+            case SCAN_FAILED:
+                return "❌ SCAN FAILED\n\n" +
+                        "Failed to scan QR Code: " + outcome.getScan().getMessage() + "\n" +
+                        "Please try again or enter course code manually.";
+            case NOT_SESSION_CODE:
+                return "❌ SCAN FAILED\n\n" +
+                        "This is not a session QR code.\n" +
+                        "Please scan the code shown in class or enter course code manually.";
+            default:
+                return MarkMessages.describe(outcome.getMark());
+        }
+    }
+
+    private static JButton createMenuButton(String text, int y, int height) {
+        JButton button = new JButton(text);
+        button.setBounds(150, y, 300, height);
+        button.setBackground(ACCENT_COLOR);
+        button.setForeground(TEXT_COLOR);
+        button.setFont(new Font("Arial", Font.BOLD, 14));
+        button.setFocusPainted(false);
+        button.setBorder(new RoundedBorder(15));
+
+        return button;
+    }
+
+    // Checks the password against the hashed user store (throttled, runs off the EDT)
+    private static LoginService.Result validateLogin(String username, char[] password) {
+        return loginService.login(username, password, "local");
+    }
+
+    // The bare module grid; it is scaled up for display, scanning and export
+    private static BitMatrix generateQRCode(String text) throws QrCodecException {
+        return QrCodec.getInstance().encode(text, 0, 0);
+    }
+
+    // Makes the module grid the current QR code for display, scanning and
+    // export. The icon is rasterized at the display's scale when painted.
+    private static Icon showQRCode(BitMatrix modules) {
+        QrCodec codec = QrCodec.getInstance();
+        currentQRImage = codec.toImage(codec.enlarge(modules, QrCodec.DEFAULT_SIZE));
+        currentQRMatrix = modules;
+        return RenderCache.getInstance().qrIcon(modules, QrCodec.DEFAULT_SIZE);
+    }
+
+    // Distinct session codes in a photo; other QR codes in view are ignored
+    private static List<String> scanPhoto(Path photo) throws IOException {
+        BufferedImage image = ImageIO.read(photo.toFile());
+        if (image == null) {
+            Metrics.getInstance().recordScanFailure(QrScanResult.Failure.UNREADABLE_IMAGE);
+            throw new IOException("Not a supported image: " + photo.getFileName());
+        }
+        List<String> tokens = new ArrayList<>();
+        for (QrScanResult code : QrCodec.getInstance().decodeAll(image)) {
+            if (SessionTokens.isToken(code.getText())) {
+                tokens.add(code.getText());
+            }
+        }
+        return tokens;
+    }
+
+    // Painted once per display scale through the render cache, already antialiased
+    private static void paintAppLogo(Graphics2D g2d, int width, int height) {
+        // Draw background circle
+        g2d.setColor(ACCENT_COLOR);
+        g2d.fillOval(0, 0, width, height);
+
+        // Draw QR code icon
+        g2d.setColor(TEXT_COLOR);
+        int padding = width / 4;
+        g2d.fillRect(padding, padding, width - (2 * padding), height - (2 * padding));
+
+        // Draw QR code-like squares
+        int sqSize = width / 10;
+        g2d.setColor(ACCENT_COLOR);
+
+        // Draw some squares to make it look like a QR code
+        g2d.fillRect(padding + sqSize, padding + sqSize, sqSize, sqSize);
+        g2d.fillRect(width - padding - (2 * sqSize), padding + sqSize, sqSize, sqSize);
+        g2d.fillRect(padding + sqSize, height - padding - (2 * sqSize), sqSize, sqSize);
+        g2d.fillRect(width - padding - (2 * sqSize), height - padding - (2 * sqSize), sqSize, sqSize);
+    }
+
+    // Custom rounded border
+    private static class RoundedBorder implements Border {
+        private int radius;
+
+        RoundedBorder(int radius) {
+            this.radius = radius;
+        }
+
+        @Override
+        public Insets getBorderInsets(Component c) {
+            return new Insets(this.radius+1, this.radius+1, this.radius+2, this.radius);
+        }
+
+        @Override
+        public boolean isBorderOpaque() {
+            return true;
+        }
+
+        // One cached tile per size, colour and radius; buttons mostly share a few sizes
+        @Override
+        public void paintBorder(Component c, Graphics g, int x, int y, int width, int height) {
+            Color background = c.getBackground();
+            RenderCache.getInstance().draw(g, Arrays.asList("rounded", radius, background.getRGB()),
+                    x, y, width, height, (g2d, w, h) -> {
+                        g2d.setColor(background);
+                        g2d.fillRoundRect(0, 0, w - 1, h - 1, radius, radius);
+                    });
+        }
+    }
+}
\ No newline at end of file
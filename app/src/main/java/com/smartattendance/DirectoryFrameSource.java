@@ -0,0 +1,49 @@
+package com.smartattendance;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Plays the images in a directory, in file name order, as camera frames
+public class DirectoryFrameSource implements FrameSource {
+    private final List<Path> frames = new ArrayList<>();
+    private int next;
+
+    public DirectoryFrameSource(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+                if (name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg")
+                        || name.endsWith(".bmp") || name.endsWith(".gif")) {
+                    frames.add(path);
+                }
+            }
+        }
+        frames.sort(null);
+        if (frames.isEmpty()) {
+            throw new IOException("No images found in " + directory);
+        }
+    }
+
+    @Override
+    public BufferedImage nextFrame() throws IOException {
+        while (next < frames.size()) {
+            BufferedImage image = ImageIO.read(frames.get(next++).toFile());
+            if (image != null) {
+                return image;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        next = frames.size();
+    }
+}
@@ -0,0 +1,21 @@
+package com.smartattendance;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// A stream of camera-like frames for the live scanner
+public interface FrameSource extends Closeable {
+    // Returns the next frame, or null once the source is exhausted
+    BufferedImage nextFrame() throws IOException;
+
+    // A directory of still images or an MJPEG file (concatenated JPEG frames)
+    static FrameSource open(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            return new DirectoryFrameSource(path);
+        }
+        return new MjpegFrameSource(path);
+    }
+}
@@ -0,0 +1,137 @@
+package com.smartattendance;
+
+import java.util.List;
+
+// One fenced area from the campus GeoJSON: the campus boundary, a building or
+// a single room. Rings (outer boundaries and holes) are flattened into one
+// lon/lat array and tested with the even-odd rule, so a point in a hole or
+// in none of the parts is outside.
+public final class Geofence {
+    private final String id;
+    private final String name;
+    private final String kind;
+    // x0, y0, x1, y1, ... for every ring, back to back
+    private final double[] coords;
+    // End (exclusive, in points) of each ring in coords
+    private final int[] ringEnds;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final double area;
+
+    // polygons holds one list of rings per polygon part, outer ring first and
+    // holes after it; each ring is lon, lat pairs without the closing point
+    Geofence(String id, String name, String kind, List<List<double[]>> polygons) {
+        this.id = id;
+        this.name = name;
+        this.kind = kind;
+
+        int points = 0;
+        int ringCount = 0;
+        for (List<double[]> polygon : polygons) {
+            for (double[] ring : polygon) {
+                points += ring.length / 2;
+                ringCount++;
+            }
+        }
+        coords = new double[points * 2];
+        ringEnds = new int[ringCount];
+        double lowX = Double.POSITIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY;
+        double highY = Double.NEGATIVE_INFINITY;
+        double total = 0;
+        int at = 0;
+        int r = 0;
+        for (List<double[]> polygon : polygons) {
+            for (int k = 0; k < polygon.size(); k++) {
+                double[] ring = polygon.get(k);
+                System.arraycopy(ring, 0, coords, at * 2, ring.length);
+                at += ring.length / 2;
+                ringEnds[r++] = at;
+
+                double twiceArea = 0;
+                for (int i = 0; i < ring.length; i += 2) {
+                    int j = (i + 2) % ring.length;
+                    twiceArea += ring[i] * ring[j + 1] - ring[j] * ring[i + 1];
+                    lowX = Math.min(lowX, ring[i]);
+                    lowY = Math.min(lowY, ring[i + 1]);
+                    highX = Math.max(highX, ring[i]);
+                    highY = Math.max(highY, ring[i + 1]);
+                }
+                // Winding order is not trusted: the outer ring adds, holes subtract
+                total += k == 0 ? Math.abs(twiceArea) / 2 : -Math.abs(twiceArea) / 2;
+            }
+        }
+        this.minX = lowX;
+        this.minY = lowY;
+        this.maxX = highX;
+        this.maxY = highY;
+        this.area = total;
+    }
+
+    // Short label stored with each mark made inside this fence
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // "campus", "building", "room" or whatever the GeoJSON says
+    public String getKind() {
+        return kind;
+    }
+
+    // In square degrees; only used to rank nested fences
+    double getArea() {
+        return area;
+    }
+
+    double getMinX() {
+        return minX;
+    }
+
+    double getMinY() {
+        return minY;
+    }
+
+    double getMaxX() {
+        return maxX;
+    }
+
+    double getMaxY() {
+        return maxY;
+    }
+
+    public boolean contains(double lon, double lat) {
+        if (lon < minX || lon > maxX || lat < minY || lat > maxY) {
+            return false;
+        }
+        boolean inside = false;
+        int start = 0;
+        for (int end : ringEnds) {
+            // Crossing test over the ring's edges (j is the previous vertex)
+            for (int i = start, j = end - 1; i < end; j = i++) {
+                double yi = coords[i * 2 + 1];
+                double yj = coords[j * 2 + 1];
+                if ((yi > lat) != (yj > lat)) {
+                    double xi = coords[i * 2];
+                    double xj = coords[j * 2];
+                    if (lon < xi + (lat - yi) * (xj - xi) / (yj - yi)) {
+                        inside = !inside;
+                    }
+                }
+            }
+            start = end;
+        }
+        return inside;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,132 @@
+package com.smartattendance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Uniform grid over the fences' bounding boxes, built once when the GeoJSON is
+// loaded. Each cell lists the fences whose box overlaps it, so a lookup hashes
+// the point to one cell and runs the polygon test on a handful of candidates
+// instead of every building and room on campus.
+//
+// Fences are numbered smallest area first and cell lists are kept in that
+// order, so the first fence that contains the point is the most specific one
+// (a room before its building, a building before the campus boundary).
+public final class GeofenceIndex {
+    // Cap on cells per axis; 512 x 512 cells is about 1 MB of offsets
+    private static final int MAX_CELLS_PER_AXIS = 512;
+
+    private final List<Geofence> fences;
+    private final int cellsPerAxis;
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    // CSR layout: fences of cell c are cellFences[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellStart;
+    private final int[] cellFences;
+
+    public GeofenceIndex(List<Geofence> fences) {
+        this(fences, defaultCellsPerAxis(fences.size()));
+    }
+
+    // A single cell per axis degrades to testing every fence in turn
+    public GeofenceIndex(List<Geofence> fences, int cellsPerAxis) {
+        List<Geofence> sorted = new ArrayList<>(fences);
+        sorted.sort(Comparator.comparingDouble(Geofence::getArea));
+        this.fences = Collections.unmodifiableList(sorted);
+        this.cellsPerAxis = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, cellsPerAxis));
+
+        double lowX = Double.POSITIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY;
+        double highY = Double.NEGATIVE_INFINITY;
+        for (Geofence fence : sorted) {
+            lowX = Math.min(lowX, fence.getMinX());
+            lowY = Math.min(lowY, fence.getMinY());
+            highX = Math.max(highX, fence.getMaxX());
+            highY = Math.max(highY, fence.getMaxY());
+        }
+        if (sorted.isEmpty()) {
+            lowX = lowY = 0;
+            highX = highY = 1;
+        }
+        this.minX = lowX;
+        this.minY = lowY;
+        // Degenerate extents still get a non-zero cell so the arithmetic holds
+        this.cellWidth = Math.max((highX - lowX) / this.cellsPerAxis, 1e-12);
+        this.cellHeight = Math.max((highY - lowY) / this.cellsPerAxis, 1e-12);
+
+        // Two passes: count entries per cell, then fill them in fence order
+        int cells = this.cellsPerAxis * this.cellsPerAxis;
+        cellStart = new int[cells + 1];
+        for (Geofence fence : sorted) {
+            forEachCell(fence, cell -> cellStart[cell + 1]++);
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellFences = new int[cellStart[cells]];
+        int[] fill = new int[cells];
+        for (int f = 0; f < sorted.size(); f++) {
+            int id = f;
+            forEachCell(sorted.get(f), cell -> cellFences[cellStart[cell] + fill[cell]++] = id);
+        }
+    }
+
+    // About four fences per cell when they are spread evenly
+    private static int defaultCellsPerAxis(int fenceCount) {
+        return (int) Math.ceil(Math.sqrt(fenceCount / 4.0));
+    }
+
+    private interface CellVisitor {
+        void visit(int cell);
+    }
+
+    private void forEachCell(Geofence fence, CellVisitor visitor) {
+        int x0 = column(fence.getMinX());
+        int x1 = column(fence.getMaxX());
+        int y0 = row(fence.getMinY());
+        int y1 = row(fence.getMaxY());
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                visitor.visit(y * cellsPerAxis + x);
+            }
+        }
+    }
+
+    private int column(double lon) {
+        return Math.max(0, Math.min(cellsPerAxis - 1, (int) ((lon - minX) / cellWidth)));
+    }
+
+    private int row(double lat) {
+        return Math.max(0, Math.min(cellsPerAxis - 1, (int) ((lat - minY) / cellHeight)));
+    }
+
+    // Most specific fence containing the point, or null when it is in none
+    public Geofence locate(double lon, double lat) {
+        double dx = lon - minX;
+        double dy = lat - minY;
+        if (!(dx >= 0 && dy >= 0 && dx <= cellWidth * cellsPerAxis && dy <= cellHeight * cellsPerAxis)) {
+            return null;
+        }
+        int cell = row(lat) * cellsPerAxis + column(lon);
+        for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+            Geofence fence = fences.get(cellFences[i]);
+            if (fence.contains(lon, lat)) {
+                return fence;
+            }
+        }
+        return null;
+    }
+
+    // Smallest area first
+    public List<Geofence> getFences() {
+        return fences;
+    }
+
+    public int getCellsPerAxis() {
+        return cellsPerAxis;
+    }
+}
@@ -0,0 +1,328 @@
+package com.smartattendance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Campus geofence engine. Loads building and room polygons from a GeoJSON
+// FeatureCollection, indexes them in a uniform grid and decides whether a
+// client's location fix is on campus, either because its GPS point falls in a
+// fence or because it is connected to an access point listed for one.
+//
+// Each Feature is a Polygon or MultiPolygon with these properties:
+//   name    display name (required)
+//   id      short label stored with each mark, at most 27 bytes (defaults to name)
+//   kind    "campus", "building", "room", ... (informational)
+//   bssids  Wi-Fi access point MAC addresses inside the fence (optional)
+//
+// Instances are immutable and safe to share between threads.
+public final class Geofences {
+    public static final String DEFAULT_FILE = "campus.geojson";
+    // Must match the location field of an attendance record
+    public static final int MAX_ID_BYTES = 27;
+
+    private static final String SAMPLE_RESOURCE = "campus.geojson";
+
+    public enum Status {
+        INSIDE("Location verified"),
+        OUTSIDE("Not inside any campus geofence"),
+        NO_FIX("No GPS position or Wi-Fi access point supplied"),
+        INVALID("Coordinates are out of range");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    public static final class Verification {
+        private final Status status;
+        private final Geofence fence;
+        private final boolean viaWifi;
+
+        Verification(Status status, Geofence fence, boolean viaWifi) {
+            this.status = status;
+            this.fence = fence;
+            this.viaWifi = viaWifi;
+        }
+
+        public boolean isInside() {
+            return status == Status.INSIDE;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        // The most specific fence the fix fell in, null unless inside
+        public Geofence getFence() {
+            return fence;
+        }
+
+        // True when the match came from the access point rather than GPS
+        public boolean isViaWifi() {
+            return viaWifi;
+        }
+    }
+
+    private static final Verification NO_FIX = new Verification(Status.NO_FIX, null, false);
+    private static final Verification INVALID = new Verification(Status.INVALID, null, false);
+    private static final Verification OUTSIDE = new Verification(Status.OUTSIDE, null, false);
+
+    private final GeofenceIndex index;
+    // BSSID (48-bit MAC as a long) -> position in index.getFences() + 1
+    private final LongIntHashMap bssids;
+
+    private Geofences(GeofenceIndex index, LongIntHashMap bssids) {
+        this.index = index;
+        this.bssids = bssids;
+    }
+
+    // Loads the campus fences from the data directory, copying in the bundled
+    // sample campus on first run so there is a file to edit
+    public static Geofences loadDefault(Path dataDir) throws IOException {
+        Path file = dataDir.resolve(DEFAULT_FILE);
+        if (!Files.exists(file)) {
+            try (InputStream sample = Geofences.class.getResourceAsStream(SAMPLE_RESOURCE)) {
+                if (sample == null) {
+                    throw new IOException("No " + file + " and no bundled sample campus");
+                }
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                Path temp = file.resolveSibling(DEFAULT_FILE + ".tmp");
+                Files.copy(sample, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        return load(file);
+    }
+
+    public static Geofences load(Path file) throws IOException {
+        try {
+            return parse(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Parses a GeoJSON FeatureCollection (or a single Feature)
+    public static Geofences parse(String geoJson) {
+        return parse(geoJson, 0);
+    }
+
+    // cellsPerAxis sizes the grid index; 0 picks it from the number of fences
+    // and 1 makes every lookup test all fences (the baseline in benchmarks)
+    @SuppressWarnings("unchecked")
+    public static Geofences parse(String geoJson, int cellsPerAxis) {
+        Object root = Json.parse(geoJson);
+        if (!(root instanceof Map)) {
+            throw new IllegalArgumentException("GeoJSON must be an object");
+        }
+        Map<String, Object> object = (Map<String, Object>) root;
+        List<Object> features;
+        if ("FeatureCollection".equals(object.get("type"))) {
+            features = (List<Object>) expect(object.get("features"), List.class, "features");
+        } else if ("Feature".equals(object.get("type"))) {
+            features = Collections.singletonList(object);
+        } else {
+            throw new IllegalArgumentException("Expected a FeatureCollection or Feature");
+        }
+
+        List<Geofence> fences = new ArrayList<>(features.size());
+        List<List<String>> accessPoints = new ArrayList<>(features.size());
+        for (int i = 0; i < features.size(); i++) {
+            Map<String, Object> feature = (Map<String, Object>) expect(features.get(i), Map.class, "feature " + i);
+            Object props = feature.get("properties");
+            Map<String, Object> properties = props instanceof Map
+                    ? (Map<String, Object>) props : Collections.emptyMap();
+            String name = properties.get("name") == null ? null : properties.get("name").toString().trim();
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("Feature " + i + " has no name");
+            }
+            Object idValue = feature.get("id") != null ? feature.get("id") : properties.get("id");
+            String id = idValue == null ? name : idValue.toString().trim();
+            if (id.getBytes(StandardCharsets.UTF_8).length > MAX_ID_BYTES) {
+                throw new IllegalArgumentException("\"" + id + "\" is too long for a record label (max "
+                        + MAX_ID_BYTES + " bytes); give the feature a shorter \"id\"");
+            }
+            String kind = properties.get("kind") == null ? "area" : properties.get("kind").toString();
+
+            Map<String, Object> geometry = (Map<String, Object>) expect(feature.get("geometry"), Map.class,
+                    name + " geometry");
+            List<List<double[]>> polygons = new ArrayList<>();
+            Object coordinates = geometry.get("coordinates");
+            if ("Polygon".equals(geometry.get("type"))) {
+                polygons.add(polygon(coordinates, name));
+            } else if ("MultiPolygon".equals(geometry.get("type"))) {
+                for (Object part : (List<Object>) expect(coordinates, List.class, name + " coordinates")) {
+                    polygons.add(polygon(part, name));
+                }
+            } else {
+                throw new IllegalArgumentException(name + ": only Polygon and MultiPolygon geometries are supported");
+            }
+            fences.add(new Geofence(id, name, kind, polygons));
+
+            List<String> macs = new ArrayList<>();
+            if (properties.get("bssids") instanceof List) {
+                for (Object mac : (List<Object>) properties.get("bssids")) {
+                    macs.add(String.valueOf(mac));
+                }
+            }
+            accessPoints.add(macs);
+        }
+
+        GeofenceIndex index = cellsPerAxis > 0 ? new GeofenceIndex(fences, cellsPerAxis) : new GeofenceIndex(fences);
+        LongIntHashMap bssids = new LongIntHashMap();
+        Map<Geofence, Integer> positions = new IdentityHashMap<>();
+        List<Geofence> ordered = index.getFences();
+        for (int i = 0; i < ordered.size(); i++) {
+            positions.put(ordered.get(i), i + 1);
+        }
+        for (int i = 0; i < fences.size(); i++) {
+            int position = positions.get(fences.get(i));
+            for (String mac : accessPoints.get(i)) {
+                long key = parseBssid(mac);
+                if (key < 0) {
+                    throw new IllegalArgumentException(fences.get(i).getName() + ": bad BSSID \"" + mac + "\"");
+                }
+                if (bssids.get(key) != 0) {
+                    throw new IllegalArgumentException("BSSID " + mac + " is listed for more than one fence");
+                }
+                bssids.addTo(key, position);
+            }
+        }
+        return new Geofences(index, bssids);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<double[]> polygon(Object value, String name) {
+        List<Object> rings = (List<Object>) expect(value, List.class, name + " polygon");
+        if (rings.isEmpty()) {
+            throw new IllegalArgumentException(name + ": polygon has no rings");
+        }
+        List<double[]> result = new ArrayList<>(rings.size());
+        for (Object ringValue : rings) {
+            List<Object> positions = (List<Object>) expect(ringValue, List.class, name + " ring");
+            int count = positions.size();
+            // GeoJSON rings repeat the first position at the end
+            if (count > 1 && positions.get(0).equals(positions.get(count - 1))) {
+                count--;
+            }
+            if (count < 3) {
+                throw new IllegalArgumentException(name + ": a ring needs at least 3 positions");
+            }
+            double[] ring = new double[count * 2];
+            for (int i = 0; i < count; i++) {
+                List<Object> position = (List<Object>) expect(positions.get(i), List.class, name + " position");
+                if (position.size() < 2) {
+                    throw new IllegalArgumentException(name + ": position needs longitude and latitude");
+                }
+                ring[i * 2] = ((Number) expect(position.get(0), Number.class, name + " longitude")).doubleValue();
+                ring[i * 2 + 1] = ((Number) expect(position.get(1), Number.class, name + " latitude")).doubleValue();
+            }
+            result.add(ring);
+        }
+        return result;
+    }
+
+    private static Object expect(Object value, Class<?> type, String what) {
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException("Bad or missing " + what);
+        }
+        return value;
+    }
+
+    // Parses a MAC address into a 48-bit value, or returns -1 if the text is
+    // not one. Accepts 12 hex digits, or six groups joined by ':' or by '-'
+    // where a group may drop its leading zero ("a4:5e:60:12:0:1", as macOS
+    // prints it).
+    public static long parseBssid(String text) {
+        int length = text.length();
+        if (length == 12) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                int digit = Character.digit(text.charAt(i), 16);
+                if (digit < 0) {
+                    return -1;
+                }
+                value = (value << 4) | digit;
+            }
+            return value;
+        }
+        char separator = text.indexOf(':') >= 0 ? ':' : '-';
+        long value = 0;
+        int groups = 0;
+        int position = 0;
+        while (position <= length) {
+            int end = text.indexOf(separator, position);
+            if (end < 0) {
+                end = length;
+            }
+            if (end == position || end - position > 2 || ++groups > 6) {
+                return -1;
+            }
+            int group = 0;
+            for (int i = position; i < end; i++) {
+                int digit = Character.digit(text.charAt(i), 16);
+                if (digit < 0) {
+                    return -1;
+                }
+                group = (group << 4) | digit;
+            }
+            value = (value << 8) | group;
+            position = end + 1;
+        }
+        return groups == 6 ? value : -1;
+    }
+
+    public Verification verify(LocationFix fix) {
+        if (fix == null || fix.isEmpty()) {
+            return NO_FIX;
+        }
+
+        Geofence byGps = null;
+        if (fix.hasCoordinates()) {
+            double lat = fix.getLatitude();
+            double lon = fix.getLongitude();
+            if (!(lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180)) {
+                return INVALID;
+            }
+            byGps = index.locate(lon, lat);
+        }
+
+        Geofence byWifi = null;
+        if (fix.hasBssid()) {
+            long key = parseBssid(fix.getBssid());
+            int position = key < 0 ? 0 : bssids.get(key);
+            if (position > 0) {
+                byWifi = index.getFences().get(position - 1);
+            }
+        }
+
+        // Either signal is enough; when both match, report the more specific fence
+        if (byWifi != null && (byGps == null || byWifi.getArea() < byGps.getArea())) {
+            return new Verification(Status.INSIDE, byWifi, true);
+        }
+        return byGps != null ? new Verification(Status.INSIDE, byGps, false) : OUTSIDE;
+    }
+
+    public List<Geofence> getFences() {
+        return index.getFences();
+    }
+
+    public int getAccessPointCount() {
+        return bssids.size();
+    }
+}
@@ -0,0 +1,56 @@
+package com.smartattendance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Append-only int column stored in fixed-size chunks, so growing to tens of
+// millions of values never copies what is already there
+public class IntColumn {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final List<int[]> chunks = new ArrayList<>();
+    private int[] tail;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void add(int value) {
+        int offset = size & CHUNK_MASK;
+        if (offset == 0) {
+            tail = new int[CHUNK_SIZE];
+            chunks.add(tail);
+        }
+        tail[offset] = value;
+        size++;
+    }
+
+    public int get(int row) {
+        return chunks.get(row >>> CHUNK_BITS)[row & CHUNK_MASK];
+    }
+
+    // Rows holding the value, in order. A tight loop over each chunk, which is
+    // what makes column scans cheap.
+    public int[] rowsEqualTo(int value) {
+        int[] rows = new int[16];
+        int found = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            int[] chunk = chunks.get(c);
+            int length = c == chunks.size() - 1 ? size - (c << CHUNK_BITS) : CHUNK_SIZE;
+            int base = c << CHUNK_BITS;
+            for (int i = 0; i < length; i++) {
+                if (chunk[i] == value) {
+                    if (found == rows.length) {
+                        rows = Arrays.copyOf(rows, found * 2);
+                    }
+                    rows[found++] = base + i;
+                }
+            }
+        }
+        return Arrays.copyOf(rows, found);
+    }
+}
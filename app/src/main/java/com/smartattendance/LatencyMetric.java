@@ -0,0 +1,74 @@
+package com.smartattendance;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+// Latency histogram for one stage of the system. Recording is wait-free
+// (HdrHistogram Recorder), so it is cheap enough for every scan and mark.
+// Snapshots report the whole run and a recent window: the samples from the
+// current and previous tumbling window, 10 to 20 seconds of history, which
+// is what shows the tail during a check-in rush.
+public class LatencyMetric {
+    static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // Values are kept in microseconds; by default anything slower than a minute is clamped
+    private static final long DEFAULT_MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+    // Two digits (1% resolution) keeps each histogram small enough to snapshot on the EDT
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String name;
+    private final long maxMicros;
+    private final Recorder recorder;
+    private final Histogram total;
+    private Histogram current;
+    private Histogram previous;
+    private Histogram interval;
+    private long windowStart = System.nanoTime();
+
+    public LatencyMetric(String name) {
+        this(name, DEFAULT_MAX_MICROS);
+    }
+
+    // maxMicros raises the clamp for stages measured in seconds or hours
+    public LatencyMetric(String name, long maxMicros) {
+        this.name = name;
+        this.maxMicros = maxMicros;
+        recorder = new Recorder(1, maxMicros, SIGNIFICANT_DIGITS);
+        total = new Histogram(1, maxMicros, SIGNIFICANT_DIGITS);
+        current = new Histogram(1, maxMicros, SIGNIFICANT_DIGITS);
+        previous = new Histogram(1, maxMicros, SIGNIFICANT_DIGITS);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordNanos(long nanos) {
+        recorder.recordValue(Math.max(1, Math.min(maxMicros, nanos / 1000)));
+    }
+
+    public synchronized LatencyStats snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+
+        long now = System.nanoTime();
+        if (now - windowStart >= 2 * WINDOW_NANOS) {
+            // Idle for more than a whole window, both windows are stale
+            previous.reset();
+            current.reset();
+            windowStart = now;
+        } else if (now - windowStart >= WINDOW_NANOS) {
+            Histogram recycled = previous;
+            previous = current;
+            current = recycled;
+            current.reset();
+            windowStart = now;
+        }
+        current.add(interval);
+
+        Histogram recent = current.copy();
+        recent.add(previous);
+        return new LatencyStats(name, recent, total);
+    }
+}
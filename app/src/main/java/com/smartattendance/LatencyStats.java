@@ -0,0 +1,100 @@
+package com.smartattendance;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+// Point-in-time percentiles for one latency metric, in microseconds
+public final class LatencyStats {
+    private final String name;
+    private final long recentCount;
+    private final long recentP50;
+    private final long recentP99;
+    private final long recentMax;
+    private final long totalCount;
+    private final double totalMean;
+    private final long totalP50;
+    private final long totalP90;
+    private final long totalP99;
+    private final long totalP999;
+    private final long totalMax;
+
+    LatencyStats(String name, Histogram recent, Histogram total) {
+        this.name = name;
+        this.recentCount = recent.getTotalCount();
+        this.recentP50 = recent.getValueAtPercentile(50);
+        this.recentP99 = recent.getValueAtPercentile(99);
+        this.recentMax = recent.getMaxValue();
+        this.totalCount = total.getTotalCount();
+        this.totalMean = totalCount == 0 ? 0 : total.getMean();
+        this.totalP50 = total.getValueAtPercentile(50);
+        this.totalP90 = total.getValueAtPercentile(90);
+        this.totalP99 = total.getValueAtPercentile(99);
+        this.totalP999 = total.getValueAtPercentile(99.9);
+        this.totalMax = total.getMaxValue();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRecentCount() {
+        return recentCount;
+    }
+
+    public long getRecentP50() {
+        return recentP50;
+    }
+
+    public long getRecentP99() {
+        return recentP99;
+    }
+
+    public long getRecentMax() {
+        return recentMax;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public double getTotalMean() {
+        return totalMean;
+    }
+
+    public long getTotalP50() {
+        return totalP50;
+    }
+
+    public long getTotalP90() {
+        return totalP90;
+    }
+
+    public long getTotalP99() {
+        return totalP99;
+    }
+
+    public long getTotalP999() {
+        return totalP999;
+    }
+
+    public long getTotalMax() {
+        return totalMax;
+    }
+
+    void appendJson(StringBuilder out) {
+        out.append("{\"name\":");
+        Json.appendQuoted(out, name);
+        out.append(",\"recent\":{\"count\":").append(recentCount)
+                .append(",\"p50\":").append(recentP50)
+                .append(",\"p99\":").append(recentP99)
+                .append(",\"max\":").append(recentMax).append('}');
+        out.append(",\"total\":{\"count\":").append(totalCount)
+                .append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", totalMean))
+                .append(",\"p50\":").append(totalP50)
+                .append(",\"p90\":").append(totalP90)
+                .append(",\"p99\":").append(totalP99)
+                .append(",\"p999\":").append(totalP999)
+                .append(",\"max\":").append(totalMax).append("}}");
+    }
+}
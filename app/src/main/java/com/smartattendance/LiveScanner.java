@@ -0,0 +1,227 @@
+package com.smartattendance;
+
+import com.google.zxing.ResultPoint;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Continuous QR scanning over a FrameSource.
+//
+// A capture thread paces the source at the target frame rate and publishes
+// each frame into a single slot. A decoder thread always takes the newest
+// frame, so when decoding falls behind, stale frames are overwritten (and
+// counted as dropped) rather than queued. After a hit, the next decode only
+// looks at a region around the last code and falls back to the full frame on
+// a miss.
+public class LiveScanner {
+    public interface Listener {
+        // Called on the decoder thread. latencyNanos is capture-to-decode time.
+        void onDetected(String text, long captureNanos, long latencyNanos);
+
+        // Called once when the source is exhausted or fails
+        void onStopped(Stats stats, IOException failure);
+    }
+
+    public static final class Stats {
+        public final long captured;
+        public final long decoded;
+        public final long dropped;
+        public final long hits;
+        public final long regionHits;
+
+        Stats(long captured, long decoded, long dropped, long hits, long regionHits) {
+            this.captured = captured;
+            this.decoded = decoded;
+            this.dropped = dropped;
+            this.hits = hits;
+            this.regionHits = regionHits;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d frames captured, %d decoded, %d dropped, %d hits (%d in region)",
+                    captured, decoded, dropped, hits, regionHits);
+        }
+    }
+
+    // How far beyond the finder pattern centers the region extends, relative to their spread
+    private static final double REGION_MARGIN = 0.6;
+    private static final long DEFAULT_REPEAT_SUPPRESS_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    private static final class Frame {
+        final BufferedImage image;
+        final long captureNanos;
+
+        Frame(BufferedImage image, long captureNanos) {
+            this.image = image;
+            this.captureNanos = captureNanos;
+        }
+    }
+
+    private final FrameSource source;
+    private final long frameIntervalNanos;
+    private final Listener listener;
+    private final QrCodec codec = QrCodec.getInstance();
+
+    private final AtomicReference<Frame> latest = new AtomicReference<>();
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong decoded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong regionHits = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean sourceDone;
+    private volatile IOException failure;
+    private Thread captureThread;
+    private Thread decoderThread;
+
+    // Decoder thread state
+    private Rectangle region;
+    private String lastText;
+    private long lastTextNanos;
+
+    public LiveScanner(FrameSource source, double framesPerSecond, Listener listener) {
+        this.source = source;
+        this.frameIntervalNanos = (long) (1e9 / framesPerSecond);
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        decoderThread = new Thread(this::decodeLoop, "live-scan-decoder");
+        decoderThread.setDaemon(true);
+        captureThread = new Thread(this::captureLoop, "live-scan-capture");
+        captureThread.setDaemon(true);
+        decoderThread.start();
+        captureThread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (decoderThread != null) {
+            LockSupport.unpark(decoderThread);
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public Stats getStats() {
+        return new Stats(captured.get(), decoded.get(), dropped.get(), hits.get(), regionHits.get());
+    }
+
+    private void captureLoop() {
+        long nextFrame = System.nanoTime();
+        try {
+            while (running) {
+                BufferedImage image = source.nextFrame();
+                if (image == null) {
+                    break;
+                }
+
+                long wait = nextFrame - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextFrame += frameIntervalNanos;
+
+                captured.incrementAndGet();
+                if (latest.getAndSet(new Frame(image, System.nanoTime())) != null) {
+                    dropped.incrementAndGet();
+                }
+                LockSupport.unpark(decoderThread);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            try {
+                source.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            sourceDone = true;
+            LockSupport.unpark(decoderThread);
+        }
+    }
+
+    private void decodeLoop() {
+        while (running) {
+            Frame frame = latest.getAndSet(null);
+            if (frame == null) {
+                if (sourceDone) {
+                    break;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            decode(frame);
+        }
+        running = false;
+        listener.onStopped(getStats(), failure);
+    }
+
+    private void decode(Frame frame) {
+        QrScanResult result = null;
+        boolean inRegion = false;
+        if (region != null) {
+            result = codec.decode(frame.image, region);
+            inRegion = result.isSuccess();
+        }
+        if (result == null || !result.isSuccess()) {
+            result = codec.decode(frame.image);
+        }
+        decoded.incrementAndGet();
+
+        if (!result.isSuccess()) {
+            region = null;
+            return;
+        }
+
+        hits.incrementAndGet();
+        if (inRegion) {
+            regionHits.incrementAndGet();
+        }
+        region = regionAround(result.getPoints(), frame.image.getWidth(), frame.image.getHeight());
+
+        // The same code stays in view for many frames; report it once
+        long now = System.nanoTime();
+        if (result.getText().equals(lastText) && now - lastTextNanos < DEFAULT_REPEAT_SUPPRESS_NANOS) {
+            return;
+        }
+        lastText = result.getText();
+        lastTextNanos = now;
+        listener.onDetected(result.getText(), frame.captureNanos, now - frame.captureNanos);
+    }
+
+    private static Rectangle regionAround(ResultPoint[] points, int width, int height) {
+        if (points.length == 0) {
+            return null;
+        }
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (ResultPoint point : points) {
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+        }
+        int margin = (int) (Math.max(maxX - minX, maxY - minY) * REGION_MARGIN) + 16;
+        Rectangle box = new Rectangle((int) minX - margin, (int) minY - margin,
+                (int) (maxX - minX) + 2 * margin, (int) (maxY - minY) + 2 * margin);
+        return box.intersection(new Rectangle(0, 0, width, height));
+    }
+}
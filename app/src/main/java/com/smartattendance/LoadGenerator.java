@@ -0,0 +1,718 @@
+package com.smartattendance;
+
+import com.google.zxing.common.BitMatrix;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Replays a lecture-start check-in storm against the marking path: a few
+// thousand students each scanning the projected session code within a minute
+// or so, and reports what they would have seen.
+//
+// Arrivals follow a Poisson process whose rate jumps in bursts (a class
+// letting out, a bus arriving): each student arrives with probability
+// burst-share in one of the bursts, an exponential spread after it, and
+// otherwise uniformly over the window. The first burst is at the start of the
+// window. Every course shows a rotating session code; each student "scans"
+// a slightly noisy photo of the current one.
+//
+// In-process (default) each check-in runs the scan button's flow (CheckIn:
+// decode, token check, mark, durable write, audit record) against a scratch
+// data directory, or --data-dir. With --url it decodes the photo here, as a
+// kiosk would, and posts the mark to a "serve" instance; session codes are
+// then signed with that server's key from --data-dir, or plain course codes
+// are sent as staff entries (the load generator is logged in as an operator)
+// when the key is not readable.
+//
+// Check-ins run one per thread on virtual threads where the runtime has them
+// (Java 21+), else on the servers' fallback pool. Latency is measured from
+// the scheduled arrival, so time spent queueing behind a slow check-in counts.
+// The report gives throughput, latency percentiles, GC pauses, allocation rate
+// and, with --soak, storms back to back for hours with a line every
+// --report-every seconds and the trend of heap still in use after GC.
+//
+//   load [--students 2000] [--window 60] [--courses 4] [--bursts 3] [--burst-share 0.7]
+//        [--burst-spread 4] [--data-dir dir] [--url http://host:8080 --user admin --password 1234]
+//        [--soak 2h] [--gap 0] [--report-every 60] [--seed n]
+public final class LoadGenerator {
+    // GPS fix inside the bundled sample campus
+    private static final LocationFix ON_CAMPUS = LocationFix.gps(12.9716, 77.5935);
+    private static final int CODE_SIZE = 300;
+    private static final int PHOTO_VARIANTS = 4;
+    private static final Duration HTTP_TIMEOUT = Duration.ofSeconds(30);
+
+    // One way of checking a student in; returns the outcome label to count
+    interface Target {
+        String checkIn(String studentId, String course, BufferedImage photo) throws IOException;
+    }
+
+    private LoadGenerator() {
+    }
+
+    // Arrival offsets in seconds within the window, ascending
+    static double[] arrivals(int students, double window, int bursts, double burstShare, double burstSpread,
+                             Random random) {
+        double[] at = new double[students];
+        double[] centers = new double[Math.max(1, bursts)];
+        for (int b = 1; b < centers.length; b++) {
+            centers[b] = random.nextDouble() * window * 0.75;
+        }
+        for (int i = 0; i < students; i++) {
+            double t = random.nextDouble() < burstShare
+                    ? centers[random.nextInt(centers.length)] - burstSpread * Math.log(1 - random.nextDouble())
+                    : random.nextDouble() * window;
+            at[i] = Math.min(t, window);
+        }
+        Arrays.sort(at);
+        return at;
+    }
+
+    // The session code each course is projecting: re-rendered whenever the
+    // token rotates, with a few noisy "photos" of it to scan
+    static final class CodeDisplay {
+        private final SessionTokens tokens;
+        private final String course;
+        private final String session;
+        private long window = Long.MIN_VALUE;
+        private BufferedImage[] photos;
+
+        CodeDisplay(SessionTokens tokens, String course, String session) {
+            this.tokens = tokens;
+            this.course = course;
+            this.session = session;
+        }
+
+        synchronized BufferedImage photo(long now, Random random) throws QrCodecException {
+            long current = tokens.windowAt(now);
+            if (current != window) {
+                BitMatrix matrix = QrCodec.getInstance().encode(tokens.issue(course, session, now),
+                        CODE_SIZE, CODE_SIZE);
+                BufferedImage clean = QrCodec.getInstance().toImage(matrix);
+                photos = new BufferedImage[PHOTO_VARIANTS];
+                for (int v = 0; v < PHOTO_VARIANTS; v++) {
+                    photos[v] = noisy(clean, random);
+                }
+                window = current;
+            }
+            return photos[random.nextInt(PHOTO_VARIANTS)];
+        }
+
+        // Sensor noise and uneven exposure, enough to exercise the binarizer
+        private static BufferedImage noisy(BufferedImage clean, Random random) {
+            BufferedImage photo = new BufferedImage(clean.getWidth(), clean.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            byte[] in = ((DataBufferByte) clean.getRaster().getDataBuffer()).getData();
+            byte[] out = ((DataBufferByte) photo.getRaster().getDataBuffer()).getData();
+            int width = clean.getWidth();
+            for (int i = 0; i < in.length; i++) {
+                int shade = (in[i] & 0xFF) == 0 ? 40 : 210;
+                int gradient = (i % width) * 30 / width;
+                int value = shade - gradient + (int) (random.nextGaussian() * 18);
+                out[i] = (byte) Math.max(0, Math.min(255, value));
+            }
+            return photo;
+        }
+    }
+
+    // Runs the scan button's flow in this JVM
+    static final class InProcessTarget implements Target {
+        private final CheckIn checkIn;
+
+        InProcessTarget(CheckIn checkIn) {
+            this.checkIn = checkIn;
+        }
+
+        @Override
+        public String checkIn(String studentId, String course, BufferedImage photo) {
+            CheckIn.Outcome outcome = checkIn.submit(studentId, photo == null ? course : "", ON_CAMPUS, null, photo);
+            return outcome.getMark() != null ? outcome.getMark().getStatus().name() : outcome.getStatus().name();
+        }
+    }
+
+    // Decodes here and posts the mark to a headless server
+    static final class HttpTarget implements Target {
+        private final HttpClient http = HttpClient.newBuilder().connectTimeout(HTTP_TIMEOUT).build();
+        private final URI server;
+        private final String username;
+        private final String password;
+        private volatile String sessionToken;
+
+        HttpTarget(URI server, String username, String password) {
+            this.server = server;
+            this.username = username;
+            this.password = password;
+        }
+
+        void login() throws IOException {
+            StringBuilder json = new StringBuilder(64).append("{\"username\":");
+            Json.appendQuoted(json, username);
+            json.append(",\"password\":");
+            Json.appendQuoted(json, password);
+            HttpResponse<String> response = post("/api/login", json.append('}').toString(), null);
+            Object reply = Json.parse(response.body());
+            if (response.statusCode() != 200 || !(reply instanceof Map) || ((Map<?, ?>) reply).get("token") == null) {
+                throw new IOException("login to " + server + " failed: " + response.statusCode() + " "
+                        + response.body());
+            }
+            sessionToken = ((Map<?, ?>) reply).get("token").toString();
+        }
+
+        @Override
+        public String checkIn(String studentId, String course, BufferedImage photo) throws IOException {
+            StringBuilder json = new StringBuilder(256).append("{\"studentId\":");
+            Json.appendQuoted(json, studentId);
+            if (photo == null) {
+                json.append(",\"courseCode\":");
+                Json.appendQuoted(json, course);
+                json.append(",\"staffEntry\":true");
+            } else {
+                QrScanResult scan = QrCodec.getInstance().decodeTiered(photo);
+                if (!scan.isSuccess()) {
+                    return CheckIn.Status.SCAN_FAILED.name();
+                }
+                json.append(",\"sessionToken\":");
+                Json.appendQuoted(json, scan.getText());
+            }
+            json.append(",\"latitude\":").append(ON_CAMPUS.getLatitude())
+                    .append(",\"longitude\":").append(ON_CAMPUS.getLongitude()).append('}');
+
+            String body = json.toString();
+            HttpResponse<String> response = post("/api/marks", body, sessionToken);
+            if (response.statusCode() == 401) {
+                login();
+                response = post("/api/marks", body, sessionToken);
+            }
+            if (response.statusCode() != 200) {
+                return "HTTP_" + response.statusCode();
+            }
+            Object reply = Json.parse(response.body());
+            Object status = reply instanceof Map ? ((Map<?, ?>) reply).get("status") : null;
+            return status == null ? "UNREADABLE_REPLY" : status.toString();
+        }
+
+        private HttpResponse<String> post(String path, String body, String bearer) throws IOException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(server.resolve(path))
+                    .timeout(HTTP_TIMEOUT)
+                    .header("Content-Type", "application/json; charset=utf-8")
+                    .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+            if (bearer != null) {
+                request.header("Authorization", "Bearer " + bearer);
+            }
+            try {
+                return http.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while posting to " + server, e);
+            }
+        }
+    }
+
+    // GC pauses (from the collectors' notifications) and the heap still in
+    // use after each collection, the figure that keeps rising when something leaks
+    static final class GcMonitor implements NotificationListener {
+        private final Recorder pauses = new Recorder(3);
+        private final Set<String> heapPools = new HashSet<>();
+        private final LongAdder pauseCount = new LongAdder();
+        private final LongAdder pauseMillis = new LongAdder();
+        private volatile long minHeapAfterGc = Long.MAX_VALUE;
+        private volatile long lastHeapAfterGc = -1;
+
+        GcMonitor() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPools.add(pool.getName());
+                }
+            }
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+                }
+            }
+        }
+
+        @Override
+        public void handleNotification(javax.management.Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            String name = info.getGcName();
+            // ZGC and Shenandoah cycles and G1's concurrent marking run beside the application
+            if (!name.contains("Cycles") && !name.contains("Concurrent")) {
+                long millis = info.getGcInfo().getDuration();
+                pauses.recordValue(Math.max(1, millis * 1000));
+                pauseCount.increment();
+                pauseMillis.add(millis);
+            }
+            long used = 0;
+            for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+                if (heapPools.contains(pool.getKey())) {
+                    used += pool.getValue().getUsed();
+                }
+            }
+            lastHeapAfterGc = used;
+            synchronized (this) {
+                minHeapAfterGc = Math.min(minHeapAfterGc, used);
+            }
+        }
+
+        // Lowest heap-after-GC since the last call, or the latest value when
+        // there was no collection in between; -1 before the first
+        synchronized long takeMinHeapAfterGc() {
+            long min = minHeapAfterGc == Long.MAX_VALUE ? lastHeapAfterGc : minHeapAfterGc;
+            minHeapAfterGc = Long.MAX_VALUE;
+            return min;
+        }
+    }
+
+    // Everything measured over one reporting period (and, accumulated, the run)
+    static final class Period {
+        final Histogram response = new Histogram(3);
+        final Histogram service = new Histogram(3);
+        final Histogram pauses = new Histogram(3);
+        final Map<String, Long> outcomes = new TreeMap<>();
+        long offered;
+        long completed;
+        long gcCount;
+        long gcMillis;
+        long allocatedBytes;
+        long nanos;
+
+        void add(Period other) {
+            response.add(other.response);
+            service.add(other.service);
+            pauses.add(other.pauses);
+            other.outcomes.forEach((outcome, count) -> outcomes.merge(outcome, count, Long::sum));
+            offered += other.offered;
+            completed += other.completed;
+            gcCount += other.gcCount;
+            gcMillis += other.gcMillis;
+            allocatedBytes += other.allocatedBytes;
+            nanos += other.nanos;
+        }
+    }
+
+    // Collects the samples from the check-in threads
+    static final class Meter {
+        private final Recorder response = new Recorder(3);
+        private final Recorder service = new Recorder(3);
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        private final LongAdder offered = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final GcMonitor gc = new GcMonitor();
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final Method totalAllocated = totalAllocatedMethod();
+        private Histogram responseInterval;
+        private Histogram serviceInterval;
+        private Histogram pauseInterval;
+        private long lastGcCount;
+        private long lastGcMillis;
+        private long lastAllocated = allocatedBytes();
+        private long lastNanos = System.nanoTime();
+
+        private static Method totalAllocatedMethod() {
+            try {
+                return com.sun.management.ThreadMXBean.class.getMethod("getTotalThreadAllocatedBytes");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        void record(long scheduledNanos, long startNanos, long endNanos, String outcome) {
+            response.recordValue(Math.max(1, (endNanos - scheduledNanos) / 1000));
+            service.recordValue(Math.max(1, (endNanos - startNanos) / 1000));
+            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+            completed.increment();
+        }
+
+        // Bytes allocated by the whole process where the runtime can say (Java
+        // 21+, which also counts virtual threads); otherwise by the platform
+        // threads alive now, which misses threads that have since exited. The
+        // fallback check-in pool and the server's workers live for the whole run.
+        private long allocatedBytes() {
+            if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+                return -1;
+            }
+            if (totalAllocated != null) {
+                try {
+                    return (long) totalAllocated.invoke(threads);
+                } catch (ReflectiveOperationException e) {
+                    // fall through to the per-thread sum
+                }
+            }
+            long total = 0;
+            for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                total += Math.max(0, allocated);
+            }
+            return total;
+        }
+
+        // Samples since the previous call
+        synchronized Period take() {
+            Period period = new Period();
+            responseInterval = response.getIntervalHistogram(responseInterval);
+            serviceInterval = service.getIntervalHistogram(serviceInterval);
+            pauseInterval = gc.pauses.getIntervalHistogram(pauseInterval);
+            period.response.add(responseInterval);
+            period.service.add(serviceInterval);
+            period.pauses.add(pauseInterval);
+            outcomes.forEach((outcome, count) -> {
+                long n = count.sumThenReset();
+                if (n > 0) {
+                    period.outcomes.put(outcome, n);
+                }
+            });
+            period.offered = offered.sumThenReset();
+            period.completed = completed.sumThenReset();
+            long gcCount = gc.pauseCount.sum();
+            long gcMillis = gc.pauseMillis.sum();
+            period.gcCount = gcCount - lastGcCount;
+            period.gcMillis = gcMillis - lastGcMillis;
+            lastGcCount = gcCount;
+            lastGcMillis = gcMillis;
+            long allocated = allocatedBytes();
+            period.allocatedBytes = allocated < 0 || lastAllocated < 0 ? -1 : Math.max(0, allocated - lastAllocated);
+            lastAllocated = allocated;
+            long now = System.nanoTime();
+            period.nanos = now - lastNanos;
+            lastNanos = now;
+            return period;
+        }
+    }
+
+    private static final class Options {
+        int students = 2000;
+        double window = 60;
+        int courses = 4;
+        int bursts = 3;
+        double burstShare = 0.7;
+        double burstSpread = 4;
+        Path dataDir;
+        URI url;
+        String user = "admin";
+        String password = "1234";
+        long soakNanos;
+        double gap;
+        double reportEvery = 60;
+        long seed = System.nanoTime();
+    }
+
+    public static void run(String[] args) throws IOException {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (value == null) {
+                usage("Missing value for " + args[i]);
+            }
+            switch (args[i]) {
+                case "--students": options.students = Integer.parseInt(value); break;
+                case "--window": options.window = Double.parseDouble(value); break;
+                case "--courses": options.courses = Integer.parseInt(value); break;
+                case "--bursts": options.bursts = Integer.parseInt(value); break;
+                case "--burst-share": options.burstShare = Double.parseDouble(value); break;
+                case "--burst-spread": options.burstSpread = Double.parseDouble(value); break;
+                case "--data-dir": options.dataDir = Paths.get(value); break;
+                case "--url": options.url = URI.create(value); break;
+                case "--user": options.user = value; break;
+                case "--password": options.password = value; break;
+                case "--soak": options.soakNanos = parseDuration(value); break;
+                case "--gap": options.gap = Double.parseDouble(value); break;
+                case "--report-every": options.reportEvery = Double.parseDouble(value); break;
+                case "--seed": options.seed = Long.parseLong(value); break;
+                default: usage("Unknown option " + args[i]);
+            }
+            i++;
+        }
+        if (options.students < 1 || options.courses < 1 || options.window <= 0) {
+            usage("students, courses and window must be positive");
+        }
+
+        Path scratch = null;
+        AttendanceLog log = null;
+        AuditTrail audit = null;
+        Target target;
+        SessionTokens tokens;
+        try {
+            if (options.url == null) {
+                Path dataDir = options.dataDir;
+                if (dataDir == null) {
+                    scratch = Files.createTempDirectory("load-test");
+                    dataDir = scratch;
+                }
+                log = AttendanceLog.open(dataDir);
+                tokens = SessionTokens.load(dataDir.resolve(SessionTokens.DEFAULT_KEY_FILE),
+                        SessionTokens.DEFAULT_ROTATION_SECONDS);
+                AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+                service.setSessionTokens(tokens);
+                service.setReports(ReportStore.rebuild(log));
+                service.setGeofences(Geofences.loadDefault(dataDir));
+                service.setTimetable(Timetable.loadDefault(dataDir));
+                audit = AuditTrail.open(dataDir.resolve(AuditTrail.DEFAULT_DIRECTORY));
+                service.setAuditTrail(audit);
+                target = new InProcessTarget(new CheckIn(service, null));
+                System.out.println("In-process check-ins against " + dataDir.toAbsolutePath()
+                        + " (" + log.size() + " records already there)");
+            } else {
+                HttpTarget http = new HttpTarget(options.url, options.user, options.password);
+                http.login();
+                target = http;
+                Path keyFile = (options.dataDir == null ? Paths.get("attendance-data") : options.dataDir)
+                        .resolve(SessionTokens.DEFAULT_KEY_FILE);
+                tokens = Files.isReadable(keyFile)
+                        ? SessionTokens.load(keyFile, SessionTokens.DEFAULT_ROTATION_SECONDS) : null;
+                System.out.println("Check-ins posted to " + options.url + (tokens == null
+                        ? " with course codes as staff entries (no " + keyFile + " to sign session codes)"
+                        : ", session codes signed with " + keyFile));
+            }
+            drive(options, target, tokens);
+        } finally {
+            if (audit != null) {
+                audit.close();
+            }
+            if (log != null) {
+                log.close();
+            }
+            if (scratch != null) {
+                try (Stream<Path> files = Files.walk(scratch)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+                }
+            }
+        }
+    }
+
+    private static void drive(Options options, Target target, SessionTokens tokens) {
+        Random random = new Random(options.seed);
+        String session = LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
+        String run = Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36).toUpperCase();
+        String[] courses = new String[options.courses];
+        CodeDisplay[] displays = new CodeDisplay[options.courses];
+        for (int c = 0; c < courses.length; c++) {
+            courses[c] = "LOAD" + (101 + c);
+            displays[c] = tokens == null ? null : new CodeDisplay(tokens, courses[c], session);
+        }
+
+        Meter meter = new Meter();
+        ExecutorService executor = ServerExecutors.newRequestExecutor("load");
+        System.out.println(options.students + " students over " + options.window + " s in " + options.courses
+                + " courses, " + options.bursts + " bursts, " + (ServerExecutors.usesVirtualThreads()
+                ? "virtual threads" : "platform thread pool") + ", " + Runtime.getRuntime().availableProcessors()
+                + " cores, max heap " + Runtime.getRuntime().maxMemory() / (1 << 20) + " MB");
+        boolean soak = options.soakNanos > 0;
+        if (soak) {
+            System.out.println(String.format("%8s %8s %9s %8s %8s %8s %9s %9s %10s %10s", "elapsed", "marks",
+                    "marks/s", "p50 ms", "p99 ms", "max ms", "gc pauses", "gc max ms", "alloc MB/s", "heap MB"));
+        }
+
+        Period total = new Period();
+        List<long[]> heapSamples = new ArrayList<>();
+        long begin = System.nanoTime();
+        long reportNanos = (long) (options.reportEvery * 1e9);
+        long nextReport = begin + reportNanos;
+        int round = 0;
+        do {
+            double[] arrivals = arrivals(options.students, options.window, options.bursts, options.burstShare,
+                    options.burstSpread, random);
+            CountDownLatch done = new CountDownLatch(arrivals.length);
+            long start = System.nanoTime();
+            for (int i = 0; i < arrivals.length; i++) {
+                long scheduled = start + (long) (arrivals[i] * 1e9);
+                sleepUntil(scheduled);
+                String studentId = run + "-" + round + "-" + i;
+                int course = random.nextInt(courses.length);
+                BufferedImage photo;
+                try {
+                    photo = displays[course] == null ? null
+                            : displays[course].photo(System.currentTimeMillis(), random);
+                } catch (QrCodecException e) {
+                    throw new IllegalStateException(e);
+                }
+                meter.offered.increment();
+                executor.execute(() -> {
+                    long began = System.nanoTime();
+                    String outcome;
+                    try {
+                        outcome = target.checkIn(studentId, courses[course], photo);
+                    } catch (IOException | RuntimeException e) {
+                        outcome = e.getClass().getSimpleName();
+                    }
+                    meter.record(scheduled, began, System.nanoTime(), outcome);
+                    done.countDown();
+                });
+                if (soak && System.nanoTime() >= nextReport) {
+                    nextReport += reportNanos;
+                    reportLine(meter, total, heapSamples, begin);
+                }
+            }
+            awaitRound(done, soak, meter, total, heapSamples, begin, reportNanos);
+            round++;
+            if (!soak) {
+                break;
+            }
+            sleepUntil(System.nanoTime() + (long) (options.gap * 1e9));
+        } while (System.nanoTime() - begin < options.soakNanos);
+        executor.shutdown();
+
+        Period last = meter.take();
+        total.add(last);
+        if (soak) {
+            heapSamples.add(new long[]{System.nanoTime() - begin, meter.gc.takeMinHeapAfterGc()});
+        }
+        summary(total, round, heapSamples);
+    }
+
+    private static void awaitRound(CountDownLatch done, boolean soak, Meter meter, Period total,
+                                   List<long[]> heapSamples, long begin, long reportNanos) {
+        try {
+            while (!done.await(soak ? reportNanos : Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                reportLine(meter, total, heapSamples, begin);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reportLine(Meter meter, Period total, List<long[]> heapSamples, long begin) {
+        Period period = meter.take();
+        total.add(period);
+        long elapsed = System.nanoTime() - begin;
+        long heap = meter.gc.takeMinHeapAfterGc();
+        if (heap >= 0) {
+            heapSamples.add(new long[]{elapsed, heap});
+        }
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(elapsed);
+        System.out.println(String.format("%02d:%02d:%02d %8d %9.1f %8.1f %8.1f %8.1f %9d %9d %10s %10s",
+                seconds / 3600, seconds / 60 % 60, seconds % 60, period.completed,
+                period.completed * 1e9 / period.nanos,
+                millis(period.response, 50), millis(period.response, 99), period.response.getMaxValue() / 1000.0,
+                period.gcCount, period.pauses.getMaxValue() / 1000, allocationRate(period),
+                heap < 0 ? "-" : Long.toString(heap >> 20)));
+    }
+
+    private static void summary(Period total, int rounds, List<long[]> heapSamples) {
+        System.out.println();
+        System.out.println(String.format("%d check-ins in %d storm(s) over %.1f s: %.1f/s", total.completed, rounds,
+                total.nanos / 1e9, total.completed * 1e9 / total.nanos));
+        System.out.println("Outcomes: " + total.outcomes);
+        System.out.println(String.format("%-22s %8s %8s %8s %8s %8s", "latency ms", "p50", "p90", "p99", "p99.9",
+                "max"));
+        printLatency("response (queue+work)", total.response);
+        printLatency("service (work)", total.service);
+        System.out.println(String.format("GC: %d pauses, %d ms total (%.2f%% of the run), p99 %.0f ms, max %d ms",
+                total.gcCount, total.gcMillis, total.gcMillis * 1e8 / total.nanos, millis(total.pauses, 99),
+                total.pauses.getMaxValue() / 1000));
+        System.out.println("Allocation: " + allocationRate(total) + " MB/s"
+                + (total.completed > 0 && total.allocatedBytes > 0
+                ? String.format(" (%.0f KB per check-in)", total.allocatedBytes / 1024.0 / total.completed) : ""));
+        if (heapSamples.size() >= 3) {
+            // Least-squares slope of the lowest heap-after-GC per report
+            double n = heapSamples.size();
+            double sx = 0, sy = 0, sxx = 0, sxy = 0;
+            for (long[] sample : heapSamples) {
+                double x = sample[0] / 3.6e12;
+                double y = sample[1] / 1048576.0;
+                sx += x;
+                sy += y;
+                sxx += x * x;
+                sxy += x * y;
+            }
+            double slope = (n * sxy - sx * sy) / (n * sxx - sx * sx);
+            long first = heapSamples.get(0)[1];
+            long lastHeap = heapSamples.get(heapSamples.size() - 1)[1];
+            System.out.println(String.format("Heap after GC: %d MB -> %d MB, trend %+.1f MB/hour (%+.0f bytes per "
+                            + "check-in; the attendance index legitimately keeps a few bytes per new mark)",
+                    first >> 20, lastHeap >> 20, slope,
+                    total.completed == 0 ? 0 : (lastHeap - first) / (double) total.completed));
+        }
+    }
+
+    private static void printLatency(String name, Histogram histogram) {
+        System.out.println(String.format("%-22s %8.1f %8.1f %8.1f %8.1f %8.1f", name, millis(histogram, 50),
+                millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static String allocationRate(Period period) {
+        return period.allocatedBytes < 0 ? "n/a"
+                : String.format("%.1f", period.allocatedBytes / 1048576.0 / (period.nanos / 1e9));
+    }
+
+    private static void sleepUntil(long deadline) {
+        long wait;
+        while ((wait = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // "90" (seconds), "45s", "30m", "4h"
+    private static long parseDuration(String text) {
+        char unit = text.charAt(text.length() - 1);
+        if (Character.isDigit(unit)) {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(text));
+        }
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        switch (unit) {
+            case 's': return TimeUnit.SECONDS.toNanos(amount);
+            case 'm': return TimeUnit.MINUTES.toNanos(amount);
+            case 'h': return TimeUnit.HOURS.toNanos(amount);
+            default: throw new IllegalArgumentException("Bad duration " + text);
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: load [--students n] [--window seconds] [--courses n] [--bursts n]"
+                + " [--burst-share 0..1] [--burst-spread seconds] [--data-dir dir]"
+                + " [--url http://host:port --user name --password pw] [--soak 30m|4h] [--gap seconds]"
+                + " [--report-every seconds] [--seed n]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,86 @@
+package com.smartattendance;
+
+import java.util.Locale;
+
+// Where the client says it is: GPS coordinates, the BSSID of the Wi-Fi access
+// point it is connected to, or both. The geofence engine decides whether the
+// fix is on campus; nothing here is trusted on its own.
+public final class LocationFix {
+    private final double latitude;
+    private final double longitude;
+    private final String bssid;
+
+    private LocationFix(double latitude, double longitude, String bssid) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.bssid = bssid;
+    }
+
+    public static LocationFix gps(double latitude, double longitude) {
+        return new LocationFix(latitude, longitude, null);
+    }
+
+    public static LocationFix wifi(String bssid) {
+        return new LocationFix(Double.NaN, Double.NaN, bssid);
+    }
+
+    // Either part may be missing (NaN coordinates, null BSSID)
+    public static LocationFix of(double latitude, double longitude, String bssid) {
+        return new LocationFix(latitude, longitude, bssid == null || bssid.trim().isEmpty() ? null : bssid.trim());
+    }
+
+    // Parses what a user can type: "lat, lon" or a BSSID such as
+    // "a4:5e:60:12:00:01". Returns null for empty text.
+    public static LocationFix parse(String text) {
+        String value = text == null ? "" : text.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (Geofences.parseBssid(value) >= 0) {
+            return wifi(value);
+        }
+        int comma = value.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Enter \"latitude, longitude\" or a Wi-Fi BSSID");
+        }
+        try {
+            return gps(Double.parseDouble(value.substring(0, comma).trim()),
+                    Double.parseDouble(value.substring(comma + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Enter \"latitude, longitude\" or a Wi-Fi BSSID");
+        }
+    }
+
+    public boolean hasCoordinates() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    public boolean hasBssid() {
+        return bssid != null;
+    }
+
+    public boolean isEmpty() {
+        return !hasCoordinates() && !hasBssid();
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public String getBssid() {
+        return bssid;
+    }
+
+    @Override
+    public String toString() {
+        if (!hasCoordinates()) {
+            return hasBssid() ? "Wi-Fi " + bssid : "no fix";
+        }
+        String point = String.format(Locale.ROOT, "%.6f, %.6f", latitude, longitude);
+        return hasBssid() ? point + " / Wi-Fi " + bssid : point;
+    }
+}
@@ -0,0 +1,119 @@
+package com.smartattendance;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Measures how many password logins per second the machine sustains at each
+// PBKDF2 work factor, with several threads logging in at once, and compares
+// that with authenticating by session token. Used to pick a cost that keeps
+// a lecture-start login burst responsive:
+//
+//   bench-login [threads] [seconds-per-cost] [iterations ...]
+public class LoginBenchmark {
+    private static final int[] DEFAULT_COSTS = {10_000, 50_000, 100_000, UserStore.DEFAULT_ITERATIONS, 600_000};
+
+    public interface Operation {
+        void run();
+    }
+
+    public static final class Measurement {
+        private final long operations;
+        private final long elapsedNanos;
+        private final int threads;
+
+        Measurement(long operations, long elapsedNanos, int threads) {
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+        }
+
+        public double getPerSecond() {
+            return operations * 1e9 / elapsedNanos;
+        }
+
+        // Average time one caller waits for its operation, in milliseconds
+        public double getMeanLatencyMillis() {
+            return operations == 0 ? 0 : (double) elapsedNanos * threads / operations / 1e6;
+        }
+    }
+
+    // Runs the operation on the given number of threads for the given time
+    public static Measurement measure(Operation operation, int threads, long nanos) {
+        LongAdder count = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (running.get()) {
+                    operation.run();
+                    count.increment();
+                }
+            }, "bench-login-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            Thread.sleep(nanos / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.set(false);
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new Measurement(count.sum(), System.nanoTime() - begin, threads);
+    }
+
+    public static void run(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 3;
+        int[] costs = DEFAULT_COSTS;
+        if (args.length > 2) {
+            costs = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                costs[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+        long nanos = (long) (seconds * 1e9);
+
+        System.out.println("Login throughput with " + threads + " threads on "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        System.out.println(String.format("%12s %14s %14s", "iterations", "logins/s", "latency ms"));
+        // Let the JIT compile the HMAC path first so the first cost is not penalized
+        UserStore warmup = new UserStore(null, costs[0]);
+        measure(() -> warmup.verify("nobody", new char[0]), threads, Math.max(nanos / 2, 1_000_000_000L));
+
+        for (int cost : costs) {
+            UserStore users = new UserStore(null, cost);
+            try {
+                users.setPassword("bench", "correct horse".toCharArray());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            Measurement m = measure(() -> users.verify("bench", "correct horse".toCharArray()), threads, nanos);
+            System.out.println(String.format("%12d %14.1f %14.2f", cost, m.getPerSecond(), m.getMeanLatencyMillis()));
+        }
+
+        SessionTable sessions = new SessionTable();
+        String token = sessions.create("bench");
+        Measurement m = measure(() -> sessions.touch(token), threads, nanos);
+        System.out.println(String.format("%12s %14.0f %14.5f", "session", m.getPerSecond(), m.getMeanLatencyMillis()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.smartattendance;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.smartattendance.Login")
+@Label("Login")
+@Category("Smart Attendance")
+@Description("Checking an operator login against the user store")
+final class LoginEvent extends Event {
+    @Label("Username")
+    String username;
+
+    @Label("Status")
+    String status;
+}
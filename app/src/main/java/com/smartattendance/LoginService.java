@@ -0,0 +1,130 @@
+package com.smartattendance;
+
+// Login front door shared by the desktop app and the HTTP server.
+//
+// Attempts are throttled per client address and per username before any
+// password hashing happens, so a flood of guesses cannot burn CPU or grind
+// through one account from many addresses. A successful login opens a
+// session; later requests present the session token and are answered from
+// the session table without touching the password hash again.
+public class LoginService {
+    public enum Status {
+        OK("Login successful"),
+        INVALID("Invalid username or password"),
+        THROTTLED("Too many login attempts, wait a moment and try again");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    public static final class Result {
+        private final Status status;
+        private final String username;
+        private final String sessionToken;
+
+        Result(Status status, String username, String sessionToken) {
+            this.status = status;
+            this.username = username;
+            this.sessionToken = sessionToken;
+        }
+
+        public boolean isSuccess() {
+            return status == Status.OK;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getSessionToken() {
+            return sessionToken;
+        }
+    }
+
+    // Bursts of 10 attempts per address and 5 per account, refilling slowly
+    private static final double CLIENT_BURST = 10;
+    private static final double CLIENT_PER_SECOND = 1;
+    private static final double USER_BURST = 5;
+    private static final double USER_PER_SECOND = 0.2;
+
+    private final UserStore users;
+    private final SessionTable sessions;
+    private final RateLimiter clientLimiter = new RateLimiter(CLIENT_BURST, CLIENT_PER_SECOND);
+    private final RateLimiter userLimiter = new RateLimiter(USER_BURST, USER_PER_SECOND);
+    private volatile AuditTrail audit;
+
+    public LoginService(UserStore users, SessionTable sessions) {
+        this.users = users;
+        this.sessions = sessions;
+    }
+
+    public UserStore getUsers() {
+        return users;
+    }
+
+    public SessionTable getSessions() {
+        return sessions;
+    }
+
+    // Every login attempt is recorded in the trail from now on
+    public void setAuditTrail(AuditTrail audit) {
+        this.audit = audit;
+    }
+
+    // The password array is wiped before returning
+    public Result login(String username, char[] password, String clientAddress) {
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Result result;
+        try {
+            result = attempt(username, password, clientAddress);
+        } finally {
+            UserStore.wipe(password);
+        }
+        Metrics.getInstance().recordLogin(System.nanoTime() - start, result.getStatus());
+        AuditTrail audit = this.audit;
+        if (audit != null) {
+            audit.record(AuditTrail.Type.LOGIN, username, result.getStatus().name(), "from " + clientAddress);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.username = username;
+            event.status = result.getStatus().name();
+            event.commit();
+        }
+        return result;
+    }
+
+    private Result attempt(String username, char[] password, String clientAddress) {
+        if (!clientLimiter.tryAcquire(clientAddress == null ? "" : clientAddress)
+                || !userLimiter.tryAcquire(username == null ? "" : username)) {
+            return new Result(Status.THROTTLED, username, null);
+        }
+        if (!users.verify(username, password)) {
+            return new Result(Status.INVALID, username, null);
+        }
+        return new Result(Status.OK, username, sessions.create(username));
+    }
+
+    // Returns the username behind a live session token, or null
+    public String authenticate(String sessionToken) {
+        SessionTable.Session session = sessions.touch(sessionToken);
+        return session == null ? null : session.getUsername();
+    }
+
+    public void logout(String sessionToken) {
+        sessions.invalidate(sessionToken);
+    }
+}
@@ -0,0 +1,111 @@
+package com.smartattendance;
+
+import java.util.Arrays;
+
+// Set of primitive longs. Open addressing with linear probing and
+// backward-shift deletion, so there are no tombstones to clean up.
+public class LongHashSet {
+    // Keys are stored as key + 1 so that 0 can mark an empty slot (-1 is not a valid key)
+    private long[] slots;
+    private int size;
+    private int mask;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = StringDictionary.tableSizeFor(expectedSize);
+        slots = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long key) {
+        long stored = key + 1;
+        int slot = mix(key) & mask;
+        while (slots[slot] != 0) {
+            if (slots[slot] == stored) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // Returns true if the key was added, false if it was already present
+    public boolean add(long key) {
+        long stored = key + 1;
+        int slot = mix(key) & mask;
+        while (slots[slot] != 0) {
+            if (slots[slot] == stored) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = stored;
+        if (++size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(long key) {
+        long stored = key + 1;
+        int slot = mix(key) & mask;
+        while (slots[slot] != 0) {
+            if (slots[slot] == stored) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    private void shiftBack(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (slots[slot] == 0) {
+                break;
+            }
+            int home = mix(slots[slot] - 1) & mask;
+            // Move the entry into the hole unless its home lies between the hole and its slot
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        mask = capacity - 1;
+        for (long stored : old) {
+            if (stored != 0) {
+                int slot = mix(stored - 1) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = stored;
+            }
+        }
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,26 @@
+package com.smartattendance;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.smartattendance.Mark")
+@Label("Mark Attendance")
+@Category("Smart Attendance")
+@Description("Marking one student, or a batch sharing one commit, including the durable write")
+final class MarkEvent extends Event {
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Marked")
+    int marked;
+
+    @Label("Already Marked")
+    int duplicates;
+
+    @Label("Status")
+    @Description("Outcome of the first mark in the batch")
+    String status;
+}
@@ -0,0 +1,43 @@
+package com.smartattendance;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+// Status text shown to the operator after a mark attempt
+public final class MarkMessages {
+    // Formatters are immutable and thread-safe, so one instance serves every mark
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private MarkMessages() {
+    }
+
+    public static String formatTimestamp(long epochMillis) {
+        return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    public static String describe(MarkResult result) {
+        switch (result.getStatus()) {
+            case MARKED:
+                return "✅ ATTENDANCE MARKED SUCCESSFULLY\n\n" +
+                        "Student ID: " + result.getStudentId() + "\n" +
+                        "Course/Class: " + result.getCourseCode() + "\n" +
+                        "Timestamp: " + formatTimestamp(result.getEpochMillis()) + "\n" +
+                        "Location: " + (result.getLocation() == null ? "On Campus" : result.getLocation()) + "\n" +
+                        "Present today: " + result.getHeadcount();
+            case ALREADY_MARKED:
+                return "⚠ ATTENDANCE ALREADY MARKED\n\n" +
+                        "Student ID: " + result.getStudentId() + "\n" +
+                        "Course/Class: " + result.getCourseCode() + "\n" +
+                        "This student is already marked present for today.";
+            case OUTSIDE_CAMPUS:
+                return "❌ ATTENDANCE MARKING FAILED\n\n" +
+                        "Your location is not inside any campus building.\n" +
+                        "Please make sure you are physically present\n" +
+                        "on campus to mark attendance.";
+            default:
+                return "❌ ATTENDANCE MARKING FAILED\n\n" + result.getMessage();
+        }
+    }
+}
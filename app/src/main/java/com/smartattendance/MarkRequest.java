@@ -0,0 +1,54 @@
+package com.smartattendance;
+
+// Input to AttendanceService: who is marking, for which course, from where.
+// The course comes either from a manually entered code or from a signed
+// session token scanned off the QR display; the location is a GPS or Wi-Fi
+// fix that the service checks against the campus geofences.
+//
+// While session tokens are enabled a student must scan one; only a mark
+// entered by a logged-in operator on the student's behalf (staffEntry) may
+// name the course without a token.
+public final class MarkRequest {
+    private final String studentId;
+    private final String courseCode;
+    private final LocationFix location;
+    private final String sessionToken;
+    private final boolean staffEntry;
+
+    public MarkRequest(String studentId, String courseCode, LocationFix location) {
+        this(studentId, courseCode, location, null);
+    }
+
+    public MarkRequest(String studentId, String courseCode, LocationFix location, String sessionToken) {
+        this(studentId, courseCode, location, sessionToken, false);
+    }
+
+    public MarkRequest(String studentId, String courseCode, LocationFix location, String sessionToken,
+                       boolean staffEntry) {
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+        this.location = location;
+        this.sessionToken = sessionToken;
+        this.staffEntry = staffEntry;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public LocationFix getLocation() {
+        return location;
+    }
+
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    public boolean isStaffEntry() {
+        return staffEntry;
+    }
+}
@@ -0,0 +1,97 @@
+package com.smartattendance;
+
+// Outcome of one attendance mark
+public final class MarkResult {
+    public enum Status {
+        MARKED("Attendance marked"),
+        ALREADY_MARKED("Already marked present for today"),
+        OUTSIDE_CAMPUS("You appear to be outside campus"),
+        MISSING_LOCATION("Please share your GPS position or Wi-Fi network"),
+        MISSING_STUDENT_ID("Please enter your Student ID"),
+        MISSING_COURSE("Please enter or scan a course code"),
+        TOKEN_REQUIRED("Please scan the session QR code"),
+        INVALID_TOKEN("Not a valid session QR code"),
+        EXPIRED_TOKEN("Session QR code has expired, scan the current one"),
+        REPLAYED_TOKEN("This session QR code was already used"),
+        NO_SESSION("No session of this course is running now"),
+        WRONG_ROOM("This session is held in another room"),
+        INVALID_INPUT("Invalid input"),
+        STORAGE_ERROR("The record could not be saved");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final Status status;
+    private final String studentId;
+    private final String courseCode;
+    private final long epochMillis;
+    private final int headcount;
+    private final String detail;
+    private final String location;
+    private final AttendanceRecord record;
+
+    MarkResult(Status status, String studentId, String courseCode, long epochMillis, int headcount, String detail,
+               String location, AttendanceRecord record) {
+        this.status = status;
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+        this.epochMillis = epochMillis;
+        this.headcount = headcount;
+        this.detail = detail;
+        this.location = location;
+        this.record = record;
+    }
+
+    public boolean isMarked() {
+        return status == Status.MARKED;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    // Students present for the course today, after this mark
+    public int getHeadcount() {
+        return headcount;
+    }
+
+    // Name of the geofence the mark was verified in, null if not marked or not verified
+    public String getLocation() {
+        return location;
+    }
+
+    // The record written to the attendance log (location is the fence id),
+    // null unless MARKED
+    public AttendanceRecord getRecord() {
+        return record;
+    }
+
+    // Why the mark was refused (or which rule passed it), null if there is nothing to add
+    public String getDetail() {
+        return detail;
+    }
+
+    public String getMessage() {
+        return detail == null ? status.getDescription() : status.getDescription() + ": " + detail;
+    }
+}
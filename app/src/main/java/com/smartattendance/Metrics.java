@@ -0,0 +1,165 @@
+package com.smartattendance;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide instrumentation for the hot paths: QR encode and decode, login,
+// marking and the upload of queued marks. Stages report their latency and
+// outcome here; the dashboard card and GET /api/metrics read it through
+// snapshot(). Recording never blocks, so it is safe on the EDT, the scanner
+// threads and server threads.
+public final class Metrics {
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final LatencyMetric encode = new LatencyMetric("qr.encode");
+    private final LatencyMetric decode = new LatencyMetric("qr.decode");
+    private final LatencyMetric login = new LatencyMetric("login");
+    private final LatencyMetric mark = new LatencyMetric("mark");
+    // Enqueue to upstream acknowledgement; an outage can last days
+    private final LatencyMetric syncLag = new LatencyMetric("sync.lag", TimeUnit.DAYS.toMicros(7));
+
+    private final LongAdder encodeFailures = new LongAdder();
+    private final LongAdder scanSuccesses = new LongAdder();
+    private final Map<QrScanResult.Failure, LongAdder> scanFailures = counters(QrScanResult.Failure.class);
+    private final Map<QrCodec.Tier, LongAdder> scanTiers = counters(QrCodec.Tier.class);
+    private final LongAdder scanOverBudget = new LongAdder();
+    private final Map<LoginService.Status, LongAdder> logins = counters(LoginService.Status.class);
+    private final Map<MarkResult.Status, LongAdder> marks = counters(MarkResult.Status.class);
+    private final LongAdder taskFailures = new LongAdder();
+    private final LongAdder outboxSent = new LongAdder();
+    private final LongAdder outboxDuplicates = new LongAdder();
+    private final LongAdder outboxRetries = new LongAdder();
+    private final LongAdder outboxRejected = new LongAdder();
+    private volatile long outboxDepth;
+    private volatile long startupFirstFrameMillis = -1;
+    private volatile long startupScanReadyMillis = -1;
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    private static <E extends Enum<E>> Map<E, LongAdder> counters(Class<E> type) {
+        Map<E, LongAdder> map = new EnumMap<>(type);
+        for (E constant : type.getEnumConstants()) {
+            map.put(constant, new LongAdder());
+        }
+        return map;
+    }
+
+    public void recordEncode(long nanos, boolean success) {
+        encode.recordNanos(nanos);
+        if (!success) {
+            encodeFailures.increment();
+        }
+    }
+
+    public void recordDecode(long nanos, QrScanResult result) {
+        decode.recordNanos(nanos);
+        if (result.isSuccess()) {
+            scanSuccesses.increment();
+        } else {
+            scanFailures.get(result.getFailure()).increment();
+        }
+    }
+
+    // A scan that failed before any decoding started, e.g. an unreadable file
+    public void recordScanFailure(QrScanResult.Failure failure) {
+        scanFailures.get(failure).increment();
+    }
+
+    // The tier that found the code in a tiered decode
+    public void recordDecodeTier(QrCodec.Tier tier) {
+        scanTiers.get(tier).increment();
+    }
+
+    // A tier that gave up on its remaining attempts because its budget ran out
+    public void recordDecodeOverBudget() {
+        scanOverBudget.increment();
+    }
+
+    public void recordLogin(long nanos, LoginService.Status status) {
+        login.recordNanos(nanos);
+        logins.get(status).increment();
+    }
+
+    public void recordMark(long nanos, MarkResult.Status status) {
+        mark.recordNanos(nanos);
+        marks.get(status).increment();
+    }
+
+    // Background work that ended in an error dialog
+    public void recordTaskFailure() {
+        taskFailures.increment();
+    }
+
+    // A mark the upstream server acknowledged, lagMillis after it was queued
+    public void recordOutboxSent(long lagMillis) {
+        syncLag.recordNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(0, lagMillis)));
+        outboxSent.increment();
+    }
+
+    // Marks the upstream server had already applied from an earlier attempt
+    public void recordOutboxDuplicates(long count) {
+        outboxDuplicates.add(count);
+    }
+
+    // A mark the upstream server refused; it is kept in outbox-rejected.log
+    public void recordOutboxRejected() {
+        outboxRejected.increment();
+    }
+
+    public void recordOutboxRetry() {
+        outboxRetries.increment();
+    }
+
+    public void recordOutboxDepth(long depth) {
+        outboxDepth = depth;
+    }
+
+    // Milliseconds from JVM launch until the first window paint and until a
+    // scan could be served (log open, services up, codec warm); -1 if not reached
+    public void recordStartup(long firstFrameMillis, long scanReadyMillis) {
+        startupFirstFrameMillis = firstFrameMillis;
+        startupScanReadyMillis = scanReadyMillis;
+    }
+
+    public MetricsSnapshot snapshot() {
+        List<LatencyStats> latencies = new ArrayList<>(5);
+        latencies.add(encode.snapshot());
+        latencies.add(decode.snapshot());
+        latencies.add(login.snapshot());
+        latencies.add(mark.snapshot());
+        latencies.add(syncLag.snapshot());
+
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("qr.encode.failed", encodeFailures.sum());
+        counters.put("scan.ok", scanSuccesses.sum());
+        scanFailures.forEach((failure, count) -> counters.put("scan.failed." + key(failure), count.sum()));
+        scanTiers.forEach((tier, count) -> counters.put("scan.tier." + key(tier), count.sum()));
+        counters.put("scan.over_budget", scanOverBudget.sum());
+        logins.forEach((status, count) -> counters.put("login." + key(status), count.sum()));
+        marks.forEach((status, count) -> counters.put("mark." + key(status), count.sum()));
+        counters.put("task.failed", taskFailures.sum());
+        counters.put("outbox.depth", outboxDepth);
+        counters.put("outbox.sent", outboxSent.sum());
+        counters.put("outbox.duplicate", outboxDuplicates.sum());
+        counters.put("outbox.retry", outboxRetries.sum());
+        counters.put("outbox.rejected", outboxRejected.sum());
+        counters.put("startup.first_frame_ms", startupFirstFrameMillis);
+        counters.put("startup.scan_ready_ms", startupScanReadyMillis);
+        return new MetricsSnapshot(System.currentTimeMillis(), latencies, counters);
+    }
+
+    private static String key(Enum<?> constant) {
+        return constant.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+package com.smartattendance;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Everything Metrics knows at one moment: latency percentiles per stage and
+// counter values, both in a stable order for display
+public final class MetricsSnapshot {
+    private final long epochMillis;
+    private final List<LatencyStats> latencies;
+    private final Map<String, Long> counters;
+
+    MetricsSnapshot(long epochMillis, List<LatencyStats> latencies, Map<String, Long> counters) {
+        this.epochMillis = epochMillis;
+        this.latencies = Collections.unmodifiableList(latencies);
+        this.counters = Collections.unmodifiableMap(counters);
+    }
+
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    public List<LatencyStats> getLatencies() {
+        return latencies;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    public String toJson() {
+        StringBuilder out = new StringBuilder(1024);
+        out.append("{\"timestamp\":").append(epochMillis).append(",\"latencyMicros\":[");
+        for (int i = 0; i < latencies.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            latencies.get(i).appendJson(out);
+        }
+        out.append("],\"counters\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            Json.appendQuoted(out, counter.getKey());
+            out.append(':').append(counter.getValue());
+        }
+        out.append("}}");
+        return out.toString();
+    }
+}
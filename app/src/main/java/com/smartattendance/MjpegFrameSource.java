@@ -0,0 +1,69 @@
+package com.smartattendance;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Reads JPEG frames back to back from an MJPEG file. Anything between frames
+// (multipart boundaries and headers) is skipped by scanning for the JPEG
+// start-of-image and end-of-image markers.
+public class MjpegFrameSource implements FrameSource {
+    private final InputStream in;
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream(64 * 1024);
+
+    public MjpegFrameSource(Path file) throws IOException {
+        this.in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024);
+    }
+
+    @Override
+    public BufferedImage nextFrame() throws IOException {
+        while (true) {
+            if (!readJpeg()) {
+                return null;
+            }
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(frame.toByteArray()));
+            if (image != null) {
+                return image;
+            }
+        }
+    }
+
+    // Copies the next SOI..EOI run into the frame buffer
+    private boolean readJpeg() throws IOException {
+        frame.reset();
+        int previous = -1;
+        int current;
+        while ((current = in.read()) != -1) {
+            if (previous == 0xFF && current == 0xD8) {
+                break;
+            }
+            previous = current;
+        }
+        if (current == -1) {
+            return false;
+        }
+
+        frame.write(0xFF);
+        frame.write(0xD8);
+        previous = -1;
+        while ((current = in.read()) != -1) {
+            frame.write(current);
+            if (previous == 0xFF && current == 0xD9) {
+                return true;
+            }
+            previous = current;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,652 @@
+package com.smartattendance;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+// Durable queue of marks made at this kiosk that still have to reach the
+// central server. The kiosk records every mark in its own attendance log
+// first, so students are answered at local speed whether or not the network
+// is up; the outbox then carries the marks upstream in the background:
+//
+//   - enqueue() appends the mark to outbox.dat and forces it to disk before
+//     returning, so a queued mark survives a crash or power cut;
+//   - a flusher thread sends the queue in order, in gzip-compressed batches
+//     of at most batch.max marks and 1 MB of JSON, as soon as a batch is
+//     full or the oldest queued mark has waited batch.delay.ms;
+//   - failed sends are retried with exponential backoff and jitter, and a
+//     batch is only removed (an ack frame appended) once the server took it.
+//
+// Every mark carries an idempotency key: the stream id (kiosk id plus a
+// random incarnation chosen when outbox.dat is created) and a sequence
+// number. A batch whose ack was lost is sent again with the same keys, and
+// the server skips the ones it has already applied (POST /api/sync).
+//
+// outbox.dat is a sequence of frames (int length, payload, int CRC32 of the
+// payload); replay stops at the first torn or corrupt frame, and the file is
+// rewritten with only the unacknowledged marks at startup and whenever the
+// queue drains.
+//
+// Marks the server refuses (e.g. a course or location it does not know) would
+// be refused again on every resend, so they are acknowledged like the rest of
+// the batch but appended to outbox-rejected.log first, one tab-separated line
+// per mark, for someone to correct and re-enter.
+public final class Outbox implements Closeable {
+    public static final String CONFIG_FILE = "outbox.properties";
+    public static final String STATE_FILE = "outbox.dat";
+    public static final String REJECTED_FILE = "outbox-rejected.log";
+
+    private static final int DEFAULT_MAX_BATCH = 500;
+    private static final long DEFAULT_BATCH_DELAY_MILLIS = 1000;
+    private static final int MAX_BATCH_BYTES = 1024 * 1024;
+    private static final long MIN_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final long COMPACT_BYTES = 1024 * 1024;
+    private static final int MAX_FRAME_BYTES = 64 * 1024;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
+
+    // Frame types
+    private static final byte HEADER = 1;
+    private static final byte ENTRY = 2;
+    private static final byte ACK = 3;
+
+    static final class Entry {
+        final long seq;
+        final long enqueuedMillis;
+        final AttendanceRecord record;
+
+        Entry(long seq, long enqueuedMillis, AttendanceRecord record) {
+            this.seq = seq;
+            this.enqueuedMillis = enqueuedMillis;
+            this.record = record;
+        }
+    }
+
+    private final String kioskId;
+    private final URI upstream;
+    private final String username;
+    private final char[] password;
+    private final int maxBatch;
+    private final long batchDelayMillis;
+    private final Path stateFile;
+    private final Path rejectedFile;
+    private final HttpClient http;
+    private final Thread flusher;
+
+    // Queue state, guarded by "this"
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private long incarnation;
+    private String stream;
+    private long nextSeq = 1;
+    private long ackedSeq;
+    private FileChannel channel;
+    private boolean closed;
+
+    // Flusher state, only touched by the flusher thread
+    private String sessionToken;
+    private long backoffMillis;
+
+    private volatile String lastError;
+
+    private Outbox(Path dataDir, String kioskId, URI upstream, String username, char[] password, int maxBatch,
+                   long batchDelayMillis) {
+        this.kioskId = kioskId;
+        this.upstream = upstream;
+        this.username = username;
+        this.password = password;
+        this.maxBatch = maxBatch;
+        this.batchDelayMillis = batchDelayMillis;
+        this.stateFile = dataDir.resolve(STATE_FILE);
+        this.rejectedFile = dataDir.resolve(REJECTED_FILE);
+        this.http = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+        this.flusher = new Thread(this::runFlusher, "outbox-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    // Recovers the queue from outbox.dat and starts sending it to upstream,
+    // the base URL of an attendance server (e.g. http://10.0.0.2:8080),
+    // logging in there with the given account
+    public static Outbox start(Path dataDir, String kioskId, URI upstream, String username, char[] password,
+                               int maxBatch, long batchDelayMillis) throws IOException {
+        if (kioskId == null || !kioskId.matches("[A-Za-z0-9._-]{1,64}")) {
+            throw new IllegalArgumentException("Kiosk id must be 1-64 letters, digits, '.', '_' or '-'");
+        }
+        if (maxBatch < 1 || batchDelayMillis < 0) {
+            throw new IllegalArgumentException("Batch size must be positive and the delay not negative");
+        }
+        Outbox outbox = new Outbox(dataDir, kioskId, upstream, username, password, maxBatch, batchDelayMillis);
+        synchronized (outbox) {
+            outbox.recover();
+        }
+        outbox.flusher.start();
+        return outbox;
+    }
+
+    // Starts the outbox as configured in outbox.properties in the data
+    // directory, or returns null when the file does not exist:
+    //   kiosk.id=kiosk-1
+    //   upstream.url=http://10.0.0.2:8080
+    //   upstream.username=admin
+    //   upstream.password=...
+    //   batch.max=500
+    //   batch.delay.ms=1000
+    public static Outbox startFromConfig(Path dataDir) throws IOException {
+        Path file = dataDir.resolve(CONFIG_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        String url = properties.getProperty("upstream.url");
+        String username = properties.getProperty("upstream.username");
+        String password = properties.getProperty("upstream.password");
+        if (url == null || username == null || password == null) {
+            throw new IllegalArgumentException(CONFIG_FILE
+                    + " needs upstream.url, upstream.username and upstream.password");
+        }
+        return start(dataDir, properties.getProperty("kiosk.id", "").trim(), URI.create(url.trim()),
+                username.trim(), password.toCharArray(),
+                Integer.parseInt(properties.getProperty("batch.max", "" + DEFAULT_MAX_BATCH).trim()),
+                Long.parseLong(properties.getProperty("batch.delay.ms", "" + DEFAULT_BATCH_DELAY_MILLIS).trim()));
+    }
+
+    // Queues a mark for upload. Returns once it is on disk.
+    public synchronized void enqueue(AttendanceRecord record) throws IOException {
+        if (closed) {
+            throw new IOException("Outbox is closed");
+        }
+        Entry entry = new Entry(nextSeq, System.currentTimeMillis(), record);
+        append(entryFrame(entry), true);
+        nextSeq++;
+        pending.add(entry);
+        Metrics.getInstance().recordOutboxDepth(pending.size());
+        notifyAll();
+    }
+
+    public synchronized int getDepth() {
+        return pending.size();
+    }
+
+    // Age of the oldest queued mark in milliseconds, 0 when the queue is empty
+    public synchronized long getOldestAgeMillis() {
+        Entry oldest = pending.peekFirst();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.enqueuedMillis);
+    }
+
+    public String getStatus() {
+        int depth;
+        long oldest;
+        String id;
+        synchronized (this) {
+            depth = pending.size();
+            oldest = getOldestAgeMillis();
+            id = stream;
+        }
+        String error = lastError;
+        return String.format("outbox %s -> %s: %d queued, oldest %.1f s%s", id, upstream, depth, oldest / 1000.0,
+                error == null ? "" : ", last error: " + error);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        flusher.interrupt();
+        try {
+            flusher.join(REQUEST_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            channel.close();
+        }
+    }
+
+    // Called with "this" held
+    private void recover() throws IOException {
+        if (Files.exists(stateFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+                byte[] frame;
+                while ((frame = readFrame(in)) != null) {
+                    DataInputStream payload = new DataInputStream(new ByteArrayInputStream(frame));
+                    switch (payload.readByte()) {
+                        case HEADER:
+                            incarnation = payload.readLong();
+                            ackedSeq = Math.max(ackedSeq, payload.readLong());
+                            break;
+                        case ENTRY:
+                            Entry entry = readEntry(payload);
+                            if (entry.seq > ackedSeq) {
+                                pending.add(entry);
+                            }
+                            nextSeq = Math.max(nextSeq, entry.seq + 1);
+                            break;
+                        case ACK:
+                            ackedSeq = Math.max(ackedSeq, payload.readLong());
+                            while (!pending.isEmpty() && pending.peekFirst().seq <= ackedSeq) {
+                                pending.removeFirst();
+                            }
+                            break;
+                        default:
+                            throw new IOException(stateFile + ": unknown frame type");
+                    }
+                }
+            }
+        }
+        if (incarnation == 0) {
+            // A new queue (or one wiped by hand) must never reuse keys the server has seen
+            incarnation = new SecureRandom().nextLong() | 1;
+        }
+        nextSeq = Math.max(nextSeq, ackedSeq + 1);
+        stream = kioskId + "/" + Long.toHexString(incarnation);
+        compact();
+        Metrics.getInstance().recordOutboxDepth(pending.size());
+    }
+
+    // Rewrites the file as a header plus the unacknowledged marks. Called
+    // with "this" held.
+    private void compact() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        Files.createDirectories(stateFile.toAbsolutePath().getParent());
+        Path temp = stateFile.resolveSibling(STATE_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream header = new ByteArrayOutputStream(17);
+            DataOutputStream data = new DataOutputStream(header);
+            data.writeByte(HEADER);
+            data.writeLong(incarnation);
+            data.writeLong(ackedSeq);
+            writeFrame(out, header.toByteArray());
+            for (Entry entry : pending) {
+                writeFrame(out, entryFrame(entry));
+            }
+            out.force(true);
+        }
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(stateFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Appends a frame to outbox.dat. enqueue() runs on UI workers that get
+    // cancelled, and an interrupt during a channel write closes the channel
+    // for good (ClosedByInterruptException), so the interrupt is held back
+    // until the frame is written. If one lands mid-write anyway, the file is
+    // rewritten from the queue, dropping the torn frame, and the frame is
+    // written again. Called with "this" held.
+    private void append(byte[] frame, boolean force) throws IOException {
+        boolean interrupted = Thread.interrupted();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    writeFrame(channel, frame);
+                    if (force) {
+                        channel.force(false);
+                    }
+                    return;
+                } catch (ClosedChannelException e) {
+                    interrupted |= Thread.interrupted();
+                    if (attempt == 3) {
+                        throw e;
+                    }
+                    compact();
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static byte[] entryFrame(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ENTRY);
+        out.writeLong(entry.seq);
+        out.writeLong(entry.enqueuedMillis);
+        out.writeLong(entry.record.getEpochMillis());
+        out.writeUTF(entry.record.getStudentId());
+        out.writeUTF(entry.record.getCourseCode());
+        out.writeUTF(entry.record.getLocation() == null ? "" : entry.record.getLocation());
+        return bytes.toByteArray();
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        long seq = in.readLong();
+        long enqueuedMillis = in.readLong();
+        long epochMillis = in.readLong();
+        String studentId = in.readUTF();
+        String courseCode = in.readUTF();
+        String location = in.readUTF();
+        return new Entry(seq, enqueuedMillis, new AttendanceRecord(studentId, courseCode, epochMillis, location));
+    }
+
+    private static void writeFrame(FileChannel out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(payload.length + 8);
+        frame.putInt(payload.length).put(payload).putInt((int) crc.getValue()).flip();
+        while (frame.hasRemaining()) {
+            out.write(frame);
+        }
+    }
+
+    // Next intact frame, or null at the end of the file or a torn tail
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_FRAME_BYTES) {
+                return null;
+            }
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            CRC32 crc = new CRC32();
+            crc.update(frame);
+            return in.readInt() == (int) crc.getValue() ? frame : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<Entry> batch;
+            try {
+                batch = awaitBatch();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == null) {
+                return;
+            }
+
+            try {
+                send(batch);
+                acknowledge(batch);
+                backoffMillis = 0;
+                lastError = null;
+            } catch (IOException e) {
+                lastError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                Metrics.getInstance().recordOutboxRetry();
+                // Full jitter keeps kiosks that lost the same link from retrying in lockstep
+                backoffMillis = backoffMillis == 0 ? MIN_BACKOFF_MILLIS
+                        : Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+                long delay = backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+                synchronized (this) {
+                    try {
+                        long until = System.currentTimeMillis() + delay;
+                        while (!closed && System.currentTimeMillis() < until) {
+                            wait(Math.max(1, until - System.currentTimeMillis()));
+                        }
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Waits until a full batch is queued or the oldest mark has waited the
+    // batch delay, then returns the head of the queue (left in place until
+    // acknowledged). Returns null once closed.
+    private synchronized List<Entry> awaitBatch() throws InterruptedException {
+        while (!closed) {
+            Entry oldest = pending.peekFirst();
+            if (oldest == null) {
+                wait();
+                continue;
+            }
+            long due = oldest.enqueuedMillis + batchDelayMillis;
+            long now = System.currentTimeMillis();
+            if (pending.size() >= maxBatch || now >= due) {
+                List<Entry> batch = new ArrayList<>(Math.min(maxBatch, pending.size()));
+                for (Entry entry : pending) {
+                    if (batch.size() == maxBatch) {
+                        break;
+                    }
+                    batch.add(entry);
+                }
+                return batch;
+            }
+            wait(due - now);
+        }
+        return null;
+    }
+
+    private void send(List<Entry> batch) throws IOException {
+        // Trim the batch to the byte budget; the rest goes in the next one
+        StringBuilder json = new StringBuilder(Math.min(MAX_BATCH_BYTES, batch.size() * 128));
+        json.append("{\"stream\":");
+        Json.appendQuoted(json, stream);
+        json.append(",\"marks\":[");
+        int count = 0;
+        for (Entry entry : batch) {
+            int mark = json.length();
+            json.append(count > 0 ? ",{\"seq\":" : "{\"seq\":").append(entry.seq);
+            json.append(",\"studentId\":");
+            Json.appendQuoted(json, entry.record.getStudentId());
+            json.append(",\"courseCode\":");
+            Json.appendQuoted(json, entry.record.getCourseCode());
+            json.append(",\"timestamp\":").append(entry.record.getEpochMillis());
+            json.append(",\"location\":");
+            Json.appendQuoted(json, entry.record.getLocation());
+            json.append('}');
+            if (count > 0 && json.length() > MAX_BATCH_BYTES) {
+                json.setLength(mark);
+                break;
+            }
+            count++;
+        }
+        json.append("]}");
+        if (count < batch.size()) {
+            batch.subList(count, batch.size()).clear();
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length() / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] body = compressed.toByteArray();
+
+        if (sessionToken == null) {
+            sessionToken = login();
+        }
+        HttpResponse<String> response = post("/api/sync", body, true);
+        if (response.statusCode() == 401) {
+            // The server restarted or the session expired; log in once more
+            sessionToken = login();
+            response = post("/api/sync", body, true);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("upstream answered " + response.statusCode() + " " + errorOf(response));
+        }
+        Object reply = parse(response);
+        if (reply instanceof Map && ((Map<?, ?>) reply).get("duplicates") instanceof Number) {
+            Metrics.getInstance().recordOutboxDuplicates(((Number) ((Map<?, ?>) reply).get("duplicates")).longValue());
+        }
+        if (reply instanceof Map && ((Map<?, ?>) reply).get("rejectedMarks") instanceof List) {
+            keepRejected(batch, (List<?>) ((Map<?, ?>) reply).get("rejectedMarks"));
+        }
+    }
+
+    // Appends the marks the server refused to outbox-rejected.log before the
+    // batch is acknowledged, so they are not lost with it
+    private void keepRejected(List<Entry> batch, List<?> rejected) throws IOException {
+        if (rejected.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder(rejected.size() * 96);
+        for (Object item : rejected) {
+            if (!(item instanceof Map) || !(((Map<?, ?>) item).get("seq") instanceof Number)) {
+                continue;
+            }
+            long seq = ((Number) ((Map<?, ?>) item).get("seq")).longValue();
+            Object error = ((Map<?, ?>) item).get("error");
+            for (Entry entry : batch) {
+                if (entry.seq == seq) {
+                    AttendanceRecord record = entry.record;
+                    lines.append(stream).append('\t').append(seq).append('\t').append(record.getStudentId())
+                            .append('\t').append(record.getCourseCode()).append('\t').append(record.getEpochMillis())
+                            .append('\t').append(record.getLocation()).append('\t').append(error).append('\n');
+                    Metrics.getInstance().recordOutboxRejected();
+                    break;
+                }
+            }
+        }
+        Files.write(rejectedFile, lines.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        System.err.println("Upstream refused " + rejected.size() + " mark(s); kept in " + rejectedFile);
+    }
+
+    private String login() throws IOException {
+        StringBuilder json = new StringBuilder(64);
+        json.append("{\"username\":");
+        Json.appendQuoted(json, username);
+        json.append(",\"password\":");
+        Json.appendQuoted(json, new String(password));
+        json.append('}');
+        HttpResponse<String> response = post("/api/login", json.toString().getBytes(StandardCharsets.UTF_8), false);
+        Object reply = parse(response);
+        if (response.statusCode() != 200 || !(reply instanceof Map) || ((Map<?, ?>) reply).get("token") == null) {
+            throw new IOException("upstream login failed: " + response.statusCode() + " " + errorOf(response));
+        }
+        return ((Map<?, ?>) reply).get("token").toString();
+    }
+
+    private HttpResponse<String> post(String path, byte[] body, boolean gzip) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(upstream.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (gzip) {
+            request.header("Content-Encoding", "gzip");
+        }
+        if (sessionToken != null) {
+            request.header("Authorization", "Bearer " + sessionToken);
+        }
+        try {
+            return http.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending to upstream", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad upstream URL " + upstream, e);
+        }
+    }
+
+    private static Object parse(HttpResponse<String> response) {
+        try {
+            return Json.parse(response.body());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String errorOf(HttpResponse<String> response) {
+        Object reply = parse(response);
+        Object error = reply instanceof Map ? ((Map<?, ?>) reply).get("error") : null;
+        return error == null ? "" : "(" + error + ")";
+    }
+
+    // Drops the sent batch from the queue and records the ack on disk
+    private void acknowledge(List<Entry> batch) throws IOException {
+        long now = System.currentTimeMillis();
+        Metrics metrics = Metrics.getInstance();
+        synchronized (this) {
+            long last = batch.get(batch.size() - 1).seq;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(ACK);
+            out.writeLong(last);
+            append(bytes.toByteArray(), false);
+            // No force: losing the ack in a crash only means resending, which the keys make harmless
+            ackedSeq = last;
+            while (!pending.isEmpty() && pending.peekFirst().seq <= last) {
+                Entry entry = pending.removeFirst();
+                metrics.recordOutboxSent(now - entry.enqueuedMillis);
+            }
+            metrics.recordOutboxDepth(pending.size());
+            if (pending.isEmpty() && channel.size() > COMPACT_BYTES) {
+                compact();
+            }
+        }
+    }
+
+    // Reports the queue left in a data directory without sending anything:
+    // outbox [data-dir]
+    public static void run(String[] args) throws IOException {
+        Path dataDir = Paths.get(args.length > 0 ? args[0] : "attendance-data");
+        Path file = dataDir.resolve(STATE_FILE);
+        if (!Files.exists(file)) {
+            System.out.println("No " + STATE_FILE + " in " + dataDir.toAbsolutePath());
+            return;
+        }
+        long acked = 0;
+        long incarnation = 0;
+        List<Entry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] frame;
+            while ((frame = readFrame(in)) != null) {
+                DataInputStream payload = new DataInputStream(new ByteArrayInputStream(frame));
+                byte type = payload.readByte();
+                if (type == HEADER) {
+                    incarnation = payload.readLong();
+                    acked = Math.max(acked, payload.readLong());
+                } else if (type == ENTRY) {
+                    entries.add(readEntry(payload));
+                } else if (type == ACK) {
+                    acked = Math.max(acked, payload.readLong());
+                }
+            }
+        }
+        long queued = 0;
+        long oldest = Long.MAX_VALUE;
+        for (Entry entry : entries) {
+            if (entry.seq > acked) {
+                queued++;
+                oldest = Math.min(oldest, entry.enqueuedMillis);
+            }
+        }
+        System.out.printf("incarnation %s, acknowledged through #%d, %d queued%s%n", Long.toHexString(incarnation),
+                acked, queued, queued == 0 ? ""
+                        : String.format(", oldest %.1f s", (System.currentTimeMillis() - oldest) / 1000.0));
+    }
+}
@@ -0,0 +1,299 @@
+package com.smartattendance;
+
+import com.google.zxing.common.BitMatrix;
+
+import javax.imageio.ImageIO;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Generates one QR code per roster row and streams the PNGs into a ZIP file.
+//
+// Roster rows are "name,content": name becomes the entry name (name.png) and
+// everything after the first comma is encoded. Blank lines, lines starting
+// with '#' and a "name,content" header are skipped.
+//
+// Rows are read on the calling thread, encoded in parallel on a ForkJoinPool
+// and written by a single writer thread. A semaphore caps the number of
+// encoded-but-unwritten images, so memory stays flat for any roster size.
+public class QrBatchGenerator {
+    public interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    public static final class Progress {
+        private final long completed;
+        private final long failed;
+        private final long total;
+        private final long elapsedNanos;
+
+        Progress(long completed, long failed, long total, long elapsedNanos) {
+            this.completed = completed;
+            this.failed = failed;
+            this.total = total;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getCodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : completed * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d codes (%d failed), %.0f codes/s",
+                    completed, total, failed, getCodesPerSecond());
+        }
+    }
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final Entry END = new Entry(null, null, null);
+
+    private final int size;
+    private final int parallelism;
+
+    public QrBatchGenerator(int size) {
+        this(size, Runtime.getRuntime().availableProcessors());
+    }
+
+    public QrBatchGenerator(int size, int parallelism) {
+        this.size = size;
+        this.parallelism = parallelism;
+    }
+
+    public Progress generate(Path roster, Path zipFile, ProgressListener listener) throws IOException {
+        // Encode PNGs purely in memory rather than through ImageIO's temp-file cache
+        ImageIO.setUseCache(false);
+        long total = countRows(roster);
+        long start = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int window = parallelism * 4;
+        Semaphore inFlight = new Semaphore(window);
+        BlockingQueue<Entry> encoded = new ArrayBlockingQueue<>(window + 1);
+        Writer writer = new Writer(zipFile, encoded, inFlight, total, start, listener);
+        Thread writerThread = new Thread(writer, "qr-batch-writer");
+        writerThread.start();
+
+        try (BufferedReader reader = Files.newBufferedReader(roster, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] row = parseRow(line);
+                if (row == null) {
+                    continue;
+                }
+                inFlight.acquire();
+                if (writer.failure != null) {
+                    break;
+                }
+                pool.execute(() -> encoded.add(encode(row[0], row[1])));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch generation interrupted", e);
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                encoded.put(END);
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (writer.failure != null) {
+            throw writer.failure;
+        }
+        return writer.progress(System.nanoTime());
+    }
+
+    private Entry encode(String name, String content) {
+        try {
+            QrCodec codec = QrCodec.getInstance();
+            BitMatrix matrix = codec.encode(content, size, size);
+            ByteArrayOutputStream png = new ByteArrayOutputStream(512);
+            codec.writePng(matrix, png);
+            return new Entry(name, png.toByteArray(), null);
+        } catch (QrCodecException e) {
+            return new Entry(name, null, e.getMessage());
+        }
+    }
+
+    private static long countRows(Path roster) throws IOException {
+        long rows = 0;
+        try (BufferedReader reader = Files.newBufferedReader(roster, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (parseRow(line) != null) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Returns {name, content} or null for lines that are not roster rows
+    static String[] parseRow(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.equalsIgnoreCase("name,content")) {
+            return null;
+        }
+        int comma = trimmed.indexOf(',');
+        String name = comma < 0 ? trimmed : trimmed.substring(0, comma).trim();
+        String content = comma < 0 ? trimmed : trimmed.substring(comma + 1).trim();
+        if (name.isEmpty() || content.isEmpty()) {
+            return null;
+        }
+        return new String[] {name.replaceAll("[\\\\/:*?\"<>|]", "_"), content};
+    }
+
+    private static final class Entry {
+        final String name;
+        final byte[] png;
+        final String error;
+
+        Entry(String name, byte[] png, String error) {
+            this.name = name;
+            this.png = png;
+            this.error = error;
+        }
+    }
+
+    private static final class Writer implements Runnable {
+        private final Path zipFile;
+        private final BlockingQueue<Entry> encoded;
+        private final Semaphore inFlight;
+        private final long total;
+        private final long start;
+        private final ProgressListener listener;
+        private final Set<String> names = new HashSet<>();
+        private boolean ended;
+
+        private volatile long completed;
+        private volatile long failed;
+        volatile IOException failure;
+
+        Writer(Path zipFile, BlockingQueue<Entry> encoded, Semaphore inFlight,
+               long total, long start, ProgressListener listener) {
+            this.zipFile = zipFile;
+            this.encoded = encoded;
+            this.inFlight = inFlight;
+            this.total = total;
+            this.start = start;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            long lastReport = 0;
+            try (OutputStream out = Files.newOutputStream(zipFile);
+                 ZipOutputStream zip = new ZipOutputStream(out)) {
+                // PNG data is already compressed
+                zip.setLevel(Deflater.NO_COMPRESSION);
+                lastReport = drain(zip, lastReport);
+            } catch (IOException e) {
+                failure = e;
+            }
+            if (!ended) {
+                // Opening the ZIP failed; keep draining so the reader and encoders never block on a dead writer
+                drain(null, lastReport);
+            }
+            if (listener != null) {
+                listener.onProgress(progress(System.nanoTime()));
+            }
+        }
+
+        private long drain(ZipOutputStream zip, long lastReport) {
+            while (true) {
+                Entry entry;
+                try {
+                    entry = encoded.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return lastReport;
+                }
+                if (entry == END) {
+                    ended = true;
+                    return lastReport;
+                }
+                if (zip != null && failure == null) {
+                    try {
+                        write(zip, entry);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                inFlight.release();
+
+                long now = System.nanoTime();
+                if (listener != null && now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                    lastReport = now;
+                    listener.onProgress(progress(now));
+                }
+            }
+        }
+
+        private void write(ZipOutputStream zip, Entry entry) throws IOException {
+            if (entry.png == null || !names.add(entry.name)) {
+                failed++;
+                System.err.println("Batch QR: skipped " + entry.name + ": "
+                        + (entry.png == null ? entry.error : "duplicate name"));
+                return;
+            }
+            zip.putNextEntry(new ZipEntry(entry.name + ".png"));
+            zip.write(entry.png);
+            zip.closeEntry();
+            completed++;
+        }
+
+        Progress progress(long now) {
+            return new Progress(completed, failed, total, now - start);
+        }
+    }
+
+    // Headless entry point: batch <roster.csv> <output.zip> [size]
+    public static void run(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: batch <roster.csv> <output.zip> [size]");
+            System.exit(2);
+        }
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : QrCodec.DEFAULT_SIZE;
+        QrBatchGenerator generator = new QrBatchGenerator(size);
+        Progress result = generator.generate(Paths.get(args[0]), Paths.get(args[1]),
+                progress -> System.out.print("\r" + progress));
+        System.out.println();
+        System.out.println("Wrote " + result.getCompleted() + " QR codes to " + args[1]
+                + String.format(" in %.1f s", result.getElapsedNanos() / 1e9));
+    }
+}
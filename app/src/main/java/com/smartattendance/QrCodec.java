@@ -0,0 +1,679 @@
+package com.smartattendance;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// QR encode/decode service shared by the GUI and the batch tools.
+//
+// The writer is stateless and shared. Readers keep decoder state, so each
+// thread gets its own reader plus a luminance buffer that is reused between
+// calls instead of building a BufferedImageLuminanceSource (and its grayscale
+// copy of the image) every time.
+//
+// decode() is a single fast attempt, right for a stream of camera frames.
+// Photos of projected codes are often skewed, glary or noisy, so
+// decodeTiered() escalates through progressively more expensive tiers until
+// one finds the code, and decodeAll() finds every code in a frame.
+public final class QrCodec {
+    public static final int DEFAULT_SIZE = 200;
+
+    private static final QrCodec INSTANCE = new QrCodec();
+
+    private static final Map<DecodeHintType, Object> QR_ONLY_HINTS;
+    private static final Map<DecodeHintType, Object> TRY_HARDER_HINTS;
+
+    static {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.QR_CODE));
+        QR_ONLY_HINTS = Collections.unmodifiableMap(hints);
+        hints = new EnumMap<>(QR_ONLY_HINTS);
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        TRY_HARDER_HINTS = Collections.unmodifiableMap(hints);
+    }
+
+    // Decoding tiers in the order decodeTiered() tries them. Each tier after
+    // FAST has a time budget: its first attempt always runs (while the whole
+    // decode is within the sum of the budgets), and a further attempt only
+    // starts if the previous one would still fit in what is left.
+    public enum Tier {
+        FAST("QR only, hybrid binarizer", 0),
+        TRY_HARDER("Exhaustive finder pattern search", 150),
+        GLOBAL_HISTOGRAM("Global histogram binarizer, for dim or low-contrast images", 150),
+        DOWNSCALED("Box-filtered to 1/2 and 1/4 size, for noisy or very large photos", 200),
+        ROTATED("Turned 45 degrees each way, for tilted codes and glare", 300);
+
+        private final String description;
+        private final long budgetMillis;
+
+        Tier(String description, long budgetMillis) {
+            this.description = description;
+            this.budgetMillis = budgetMillis;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public long getBudgetMillis() {
+            return budgetMillis;
+        }
+    }
+
+    private static final long TOTAL_BUDGET_NANOS;
+
+    static {
+        long total = 0;
+        for (Tier tier : Tier.values()) {
+            total += tier.budgetMillis;
+        }
+        TOTAL_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(total);
+    }
+
+    // Downscaled views smaller than this are too coarse to hold a code
+    private static final int MIN_SCALED_SIDE = 100;
+    // Rotation works on a copy shrunk to at most this many pixels per side
+    private static final int MAX_ROTATED_SIDE = 1200;
+
+    private final QRCodeWriter writer = new QRCodeWriter();
+    private final ThreadLocal<QRCodeReader> readers = ThreadLocal.withInitial(QRCodeReader::new);
+    private final ThreadLocal<QRCodeMultiReader> multiReaders = ThreadLocal.withInitial(QRCodeMultiReader::new);
+    private final ThreadLocal<LuminanceBuffer> buffers = ThreadLocal.withInitial(LuminanceBuffer::new);
+
+    public static QrCodec getInstance() {
+        return INSTANCE;
+    }
+
+    public BitMatrix encode(String text, int width, int height) throws QrCodecException {
+        QrEncodeEvent event = new QrEncodeEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            BitMatrix matrix = writer.encode(text, BarcodeFormat.QR_CODE, width, height);
+            success = true;
+            return matrix;
+        } catch (WriterException | IllegalArgumentException e) {
+            throw new QrCodecException("Could not encode QR code: " + e.getMessage(), e);
+        } finally {
+            Metrics.getInstance().recordEncode(System.nanoTime() - start, success);
+            event.end();
+            if (event.shouldCommit()) {
+                event.width = width;
+                event.height = height;
+                event.contentLength = text == null ? 0 : text.length();
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    // Encodes and decodes one code through every reader the app uses, without
+    // recording metrics or events, so the first real scan after launch does not
+    // pay for loading and interpreting ZXing. Safe to call from any thread.
+    public void warmUp() {
+        BitMatrix matrix;
+        try {
+            matrix = writer.encode("warm-up", BarcodeFormat.QR_CODE, DEFAULT_SIZE, DEFAULT_SIZE);
+        } catch (WriterException e) {
+            throw new IllegalStateException("Could not encode the warm-up code", e);
+        }
+        BufferedImage image = toImage(matrix);
+        LuminanceSource source = buffers.get().load(image, 0, 0, image.getWidth(), image.getHeight());
+        View whole = View.whole(image.getWidth(), image.getHeight());
+        attempt(source, false, QR_ONLY_HINTS, whole, Tier.FAST);
+        attempt(source, true, TRY_HARDER_HINTS, whole, Tier.GLOBAL_HISTOGRAM);
+        try {
+            multiReaders.get().decodeMultiple(new BinaryBitmap(new HybridBinarizer(source)), QR_ONLY_HINTS);
+        } catch (NotFoundException e) {
+            // Only the classes and code paths matter here
+        } finally {
+            multiReaders.get().reset();
+        }
+    }
+
+    // Scales a bare module grid (encoded with a size of 0) up to size by size
+    // pixels with each module a whole number of pixels, centred in the quiet
+    // zone the way the encoder does it for a requested size
+    public BitMatrix enlarge(BitMatrix modules, int size) {
+        int columns = modules.getWidth();
+        int rows = modules.getHeight();
+        int width = Math.max(size, columns);
+        int height = Math.max(size, rows);
+        int module = Math.max(1, Math.min(width / columns, height / rows));
+        int left = (width - columns * module) / 2;
+        int top = (height - rows * module) / 2;
+        BitMatrix enlarged = new BitMatrix(width, height);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                if (modules.get(x, y)) {
+                    enlarged.setRegion(left + x * module, top + y * module, module, module);
+                }
+            }
+        }
+        return enlarged;
+    }
+
+    // Rasterizes the matrix straight into a grayscale image, one byte per
+    // pixel. The result can be displayed and decoded without any PNG round trip.
+    public BufferedImage toImage(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                pixels[offset + x] = matrix.get(x, y) ? 0 : (byte) 0xFF;
+            }
+        }
+        return image;
+    }
+
+    // Packs the matrix into a 1-bit image (set bits are black), eight pixels per byte
+    public BufferedImage toBinaryImage(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] packed = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int stride = (width + 7) / 8;
+        for (int y = 0; y < height; y++) {
+            int offset = y * stride;
+            for (int x = 0; x < width; x++) {
+                if (!matrix.get(x, y)) {
+                    packed[offset + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+        return image;
+    }
+
+    public void writePng(BitMatrix matrix, Path path) throws QrCodecException {
+        try {
+            MatrixToImageWriter.writeToPath(matrix, "PNG", path);
+        } catch (IOException e) {
+            throw new QrCodecException("Could not write " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Writes a 1-bit PNG, which is several times smaller and faster to encode than grayscale
+    public void writePng(BitMatrix matrix, OutputStream out) throws QrCodecException {
+        try {
+            ImageIO.write(toBinaryImage(matrix), "PNG", out);
+        } catch (IOException e) {
+            throw new QrCodecException("Could not write PNG: " + e.getMessage(), e);
+        }
+    }
+
+    public QrScanResult decode(Path path) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(path.toFile());
+        } catch (IOException e) {
+            Metrics.getInstance().recordScanFailure(QrScanResult.Failure.UNREADABLE_IMAGE);
+            return QrScanResult.failure(QrScanResult.Failure.UNREADABLE_IMAGE, e.getMessage());
+        }
+        if (image == null) {
+            Metrics.getInstance().recordScanFailure(QrScanResult.Failure.UNREADABLE_IMAGE);
+            return QrScanResult.failure(QrScanResult.Failure.UNREADABLE_IMAGE, "unsupported format: " + path);
+        }
+        return decode(image);
+    }
+
+    public QrScanResult decode(BufferedImage image) {
+        return decode(image, null);
+    }
+
+    // Decodes only the given region of the image (the whole image if null).
+    // Result points are reported in full-image coordinates.
+    public QrScanResult decode(BufferedImage image, Rectangle region) {
+        QrDecodeEvent event = new QrDecodeEvent();
+        event.begin();
+        long start = System.nanoTime();
+        QrScanResult result = decodeRegion(image, region);
+        Metrics.getInstance().recordDecode(System.nanoTime() - start, result);
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = region == null ? image.getWidth() : region.width;
+            event.height = region == null ? image.getHeight() : region.height;
+            event.result = result.isSuccess() ? "OK" : result.getFailure().name();
+            event.commit();
+        }
+        return result;
+    }
+
+    private QrScanResult decodeRegion(BufferedImage image, Rectangle region) {
+        Rectangle area = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+        if (region != null) {
+            area = area.intersection(region);
+            if (area.isEmpty()) {
+                return QrScanResult.failure(QrScanResult.Failure.NOT_FOUND, "empty region");
+            }
+        }
+
+        LuminanceSource source = buffers.get().load(image, area.x, area.y, area.width, area.height);
+        QRCodeReader reader = readers.get();
+        try {
+            Result result = reader.decode(new BinaryBitmap(new HybridBinarizer(source)), QR_ONLY_HINTS);
+            return QrScanResult.success(result.getText(), offset(result, area.x, area.y), Tier.FAST);
+        } catch (NotFoundException e) {
+            return QrScanResult.failure(QrScanResult.Failure.NOT_FOUND, null);
+        } catch (ChecksumException e) {
+            return QrScanResult.failure(QrScanResult.Failure.CHECKSUM, null);
+        } catch (FormatException e) {
+            return QrScanResult.failure(QrScanResult.Failure.FORMAT, null);
+        } finally {
+            reader.reset();
+        }
+    }
+
+    // Tries each tier in turn until one decodes the code. A clean image costs
+    // the same as decode(); a hard one costs at most about a second.
+    public QrScanResult decodeTiered(BufferedImage image) {
+        QrDecodeEvent event = new QrDecodeEvent();
+        event.begin();
+        long start = System.nanoTime();
+        QrScanResult result = escalate(image, start);
+        Metrics metrics = Metrics.getInstance();
+        metrics.recordDecode(System.nanoTime() - start, result);
+        if (result.isSuccess()) {
+            metrics.recordDecodeTier(result.getTier());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.result = result.isSuccess() ? "OK" : result.getFailure().name();
+            event.tier = result.isSuccess() ? result.getTier().name() : null;
+            event.commit();
+        }
+        return result;
+    }
+
+    private QrScanResult escalate(BufferedImage image, long start) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        LuminanceSource source = buffers.get().load(image, 0, 0, width, height);
+        QrScanResult failure = attempt(source, false, QR_ONLY_HINTS, View.whole(width, height), Tier.FAST);
+        if (failure.isSuccess()) {
+            return failure;
+        }
+
+        // Later tiers read the same luminance buffer; nothing else touches it on this thread meanwhile
+        View original = new View(source.getMatrix(), width, height, 1, 0, width, height);
+        long deadline = start + TOTAL_BUDGET_NANOS;
+        Tier[] tiers = Tier.values();
+        for (int t = 1; t < tiers.length && System.nanoTime() < deadline; t++) {
+            Tier tier = tiers[t];
+            long tierDeadline = Math.min(deadline, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tier.budgetMillis));
+            long lastAttempt = 0;
+            for (int step = 0; ; step++) {
+                View view = view(tier, original, step);
+                if (view == null) {
+                    break;
+                }
+                long attemptStart = System.nanoTime();
+                if (step > 0 && attemptStart + lastAttempt > tierDeadline) {
+                    Metrics.getInstance().recordDecodeOverBudget();
+                    break;
+                }
+                QrScanResult result = attempt(view.source(), tier == Tier.GLOBAL_HISTOGRAM, TRY_HARDER_HINTS,
+                        view, tier);
+                if (result.isSuccess()) {
+                    return result;
+                }
+                // A code that was found but could not be read says more than "not found"
+                if (failure.getFailure() == QrScanResult.Failure.NOT_FOUND) {
+                    failure = result;
+                }
+                lastAttempt = System.nanoTime() - attemptStart;
+            }
+        }
+        return failure;
+    }
+
+    // The step-th image a tier decodes, or null when the tier has no more
+    private static View view(Tier tier, View original, int step) {
+        switch (tier) {
+            case TRY_HARDER:
+            case GLOBAL_HISTOGRAM:
+                return step == 0 ? original : null;
+            case DOWNSCALED: {
+                int factor = 2 << step;
+                if (step > 1 || Math.min(original.width, original.height) / factor < MIN_SCALED_SIDE) {
+                    return null;
+                }
+                return original.downscale(factor);
+            }
+            case ROTATED: {
+                if (step > 1) {
+                    return null;
+                }
+                int longest = Math.max(original.width, original.height);
+                int factor = (longest + MAX_ROTATED_SIDE - 1) / MAX_ROTATED_SIDE;
+                View base = factor > 1 ? original.downscale(factor) : original;
+                return base.rotate(step == 0 ? 45 : -45);
+            }
+            default:
+                return null;
+        }
+    }
+
+    private QrScanResult attempt(LuminanceSource source, boolean globalHistogram, Map<DecodeHintType, Object> hints,
+                                 View view, Tier tier) {
+        QRCodeReader reader = readers.get();
+        try {
+            BinaryBitmap bitmap = new BinaryBitmap(globalHistogram
+                    ? new GlobalHistogramBinarizer(source) : new HybridBinarizer(source));
+            Result result = reader.decode(bitmap, hints);
+            return QrScanResult.success(result.getText(), view.toImage(result.getResultPoints()), tier);
+        } catch (NotFoundException e) {
+            return QrScanResult.failure(QrScanResult.Failure.NOT_FOUND, null);
+        } catch (ChecksumException e) {
+            return QrScanResult.failure(QrScanResult.Failure.CHECKSUM, null);
+        } catch (FormatException e) {
+            return QrScanResult.failure(QrScanResult.Failure.FORMAT, null);
+        } finally {
+            reader.reset();
+        }
+    }
+
+    // Every QR code in the image, one result per distinct text, in the order
+    // found. Falls back to decodeTiered() when the multi reader finds none,
+    // so a single hard-to-read code is still returned. Empty if nothing decodes.
+    public List<QrScanResult> decodeAll(BufferedImage image) {
+        long start = System.nanoTime();
+        LuminanceSource source = buffers.get().load(image, 0, 0, image.getWidth(), image.getHeight());
+        Map<String, QrScanResult> found = new LinkedHashMap<>();
+        try {
+            Result[] results = multiReaders.get().decodeMultiple(
+                    new BinaryBitmap(new HybridBinarizer(source)), TRY_HARDER_HINTS);
+            for (Result result : results) {
+                found.putIfAbsent(result.getText(), QrScanResult.success(result.getText(), result.getResultPoints()));
+            }
+        } catch (NotFoundException e) {
+            // Nothing the multi reader could see; the tiers below may still find one
+        }
+        if (!found.isEmpty()) {
+            List<QrScanResult> codes = new ArrayList<>(found.values());
+            Metrics.getInstance().recordDecode(System.nanoTime() - start, codes.get(0));
+            return codes;
+        }
+        QrScanResult single = decodeTiered(image);
+        return single.isSuccess() ? Collections.singletonList(single) : Collections.emptyList();
+    }
+
+    private static ResultPoint[] offset(Result result, int dx, int dy) {
+        ResultPoint[] points = result.getResultPoints();
+        if (points == null || (dx == 0 && dy == 0)) {
+            return points;
+        }
+        ResultPoint[] moved = new ResultPoint[points.length];
+        for (int i = 0; i < points.length; i++) {
+            moved[i] = new ResultPoint(points[i].getX() + dx, points[i].getY() + dy);
+        }
+        return moved;
+    }
+
+    // Headless decoding of image files: scan [--all] image...
+    // Prints each code found and the tier that found it.
+    public static void run(String[] args) throws IOException {
+        boolean all = args.length > 0 && args[0].equals("--all");
+        if (args.length == (all ? 1 : 0)) {
+            System.err.println("Usage: scan [--all] image...");
+            System.exit(2);
+        }
+        QrCodec codec = getInstance();
+        for (int i = all ? 1 : 0; i < args.length; i++) {
+            BufferedImage image = ImageIO.read(Paths.get(args[i]).toFile());
+            if (image == null) {
+                System.out.println(args[i] + ": not a readable image");
+                continue;
+            }
+            long start = System.nanoTime();
+            List<QrScanResult> results = all ? codec.decodeAll(image)
+                    : Collections.singletonList(codec.decodeTiered(image));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            if (results.isEmpty() || !results.get(0).isSuccess()) {
+                System.out.println(args[i] + ": " + (results.isEmpty() ? "no QR code found"
+                        : results.get(0).getMessage()) + " (" + millis + " ms)");
+                continue;
+            }
+            for (QrScanResult result : results) {
+                System.out.println(args[i] + ": " + result.getText() + " ["
+                        + (result.getTier() == null ? "multi" : result.getTier().name()) + ", " + millis + " ms]");
+            }
+        }
+    }
+
+    // A luminance image derived from the original by downscaling and/or
+    // rotating it about its center, with the mapping back to image coordinates
+    static final class View {
+        final byte[] luminances;
+        final int width;
+        final int height;
+        // Original pixels per view pixel, and the rotation applied after scaling
+        final int scale;
+        final double degrees;
+        // Size of the (scaled, unrotated) image the rotation was applied to
+        final int baseWidth;
+        final int baseHeight;
+
+        View(byte[] luminances, int width, int height, int scale, double degrees, int baseWidth, int baseHeight) {
+            this.luminances = luminances;
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+            this.degrees = degrees;
+            this.baseWidth = baseWidth;
+            this.baseHeight = baseHeight;
+        }
+
+        // Identity mapping for attempts on the original image
+        static View whole(int width, int height) {
+            return new View(null, width, height, 1, 0, width, height);
+        }
+
+        LuminanceSource source() {
+            return new BufferLuminanceSource(luminances, width, height);
+        }
+
+        // Box filter: averaging factor x factor blocks also averages out sensor noise
+        View downscale(int factor) {
+            int w = width / factor;
+            int h = height / factor;
+            byte[] out = new byte[w * h];
+            int area = factor * factor;
+            int[] sums = new int[w];
+            for (int y = 0; y < h; y++) {
+                Arrays.fill(sums, 0);
+                for (int dy = 0; dy < factor; dy++) {
+                    int row = (y * factor + dy) * width;
+                    for (int x = 0; x < w; x++) {
+                        int base = row + x * factor;
+                        for (int dx = 0; dx < factor; dx++) {
+                            sums[x] += luminances[base + dx] & 0xFF;
+                        }
+                    }
+                }
+                for (int x = 0; x < w; x++) {
+                    out[y * w + x] = (byte) (sums[x] / area);
+                }
+            }
+            return new View(out, w, h, scale * factor, 0, w, h);
+        }
+
+        // Bilinear rotation into a canvas large enough for the whole image; the
+        // uncovered corners are white
+        View rotate(double angle) {
+            double radians = Math.toRadians(angle);
+            double cos = Math.cos(radians);
+            double sin = Math.sin(radians);
+            int w = (int) Math.ceil(Math.abs(width * cos) + Math.abs(height * sin));
+            int h = (int) Math.ceil(Math.abs(height * cos) + Math.abs(width * sin));
+            byte[] out = new byte[w * h];
+            double cx = (width - 1) / 2.0;
+            double cy = (height - 1) / 2.0;
+            double ncx = (w - 1) / 2.0;
+            double ncy = (h - 1) / 2.0;
+            for (int y = 0; y < h; y++) {
+                double dy = y - ncy;
+                for (int x = 0; x < w; x++) {
+                    double dx = x - ncx;
+                    double sx = cos * dx + sin * dy + cx;
+                    double sy = -sin * dx + cos * dy + cy;
+                    int x0 = (int) Math.floor(sx);
+                    int y0 = (int) Math.floor(sy);
+                    if (x0 < 0 || y0 < 0 || x0 >= width - 1 || y0 >= height - 1) {
+                        out[y * w + x] = (byte) 0xFF;
+                        continue;
+                    }
+                    double fx = sx - x0;
+                    double fy = sy - y0;
+                    int i = y0 * width + x0;
+                    double top = (luminances[i] & 0xFF) * (1 - fx) + (luminances[i + 1] & 0xFF) * fx;
+                    double bottom = (luminances[i + width] & 0xFF) * (1 - fx)
+                            + (luminances[i + width + 1] & 0xFF) * fx;
+                    out[y * w + x] = (byte) (int) (top * (1 - fy) + bottom * fy + 0.5);
+                }
+            }
+            return new View(out, w, h, scale, angle, width, height);
+        }
+
+        ResultPoint[] toImage(ResultPoint[] points) {
+            if (points == null || (scale == 1 && degrees == 0)) {
+                return points;
+            }
+            double radians = Math.toRadians(degrees);
+            double cos = Math.cos(radians);
+            double sin = Math.sin(radians);
+            ResultPoint[] mapped = new ResultPoint[points.length];
+            for (int i = 0; i < points.length; i++) {
+                double x = points[i].getX();
+                double y = points[i].getY();
+                if (degrees != 0) {
+                    double dx = x - (width - 1) / 2.0;
+                    double dy = y - (height - 1) / 2.0;
+                    x = cos * dx + sin * dy + (baseWidth - 1) / 2.0;
+                    y = -sin * dx + cos * dy + (baseHeight - 1) / 2.0;
+                }
+                mapped[i] = new ResultPoint((float) ((x + 0.5) * scale - 0.5), (float) ((y + 0.5) * scale - 0.5));
+            }
+            return mapped;
+        }
+    }
+
+    // Per-thread grayscale buffer. It is only reallocated when the frame size
+    // changes, so a steady stream of same-sized images reuses one array.
+    // Uses the same weighting as BufferedImageLuminanceSource.
+    static final class LuminanceBuffer {
+        private byte[] luminances = new byte[0];
+        private int[] rgbRow = new int[0];
+
+        LuminanceSource load(BufferedImage image, int left, int top, int width, int height) {
+            int size = width * height;
+            if (luminances.length != size) {
+                luminances = new byte[size];
+            }
+
+            if (image.getType() == BufferedImage.TYPE_BYTE_GRAY
+                    && image.getRaster().getDataBuffer() instanceof DataBufferByte
+                    && image.getRaster().getParent() == null) {
+                byte[] gray = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                int stride = image.getWidth();
+                for (int y = 0; y < height; y++) {
+                    System.arraycopy(gray, (top + y) * stride + left, luminances, y * width, width);
+                }
+                return new BufferLuminanceSource(luminances, width, height);
+            }
+
+            if (rgbRow.length < width) {
+                rgbRow = new int[width];
+            }
+            for (int y = 0; y < height; y++) {
+                image.getRGB(left, top + y, width, 1, rgbRow, 0, width);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int pixel = rgbRow[x];
+                    int luminance;
+                    if ((pixel >>> 24) == 0) {
+                        // Fully transparent pixels count as white
+                        luminance = 0xFF;
+                    } else {
+                        luminance = (306 * ((pixel >> 16) & 0xFF)
+                                + 601 * ((pixel >> 8) & 0xFF)
+                                + 117 * (pixel & 0xFF)
+                                + 0x200) >> 10;
+                    }
+                    luminances[offset + x] = (byte) luminance;
+                }
+            }
+            return new BufferLuminanceSource(luminances, width, height);
+        }
+    }
+
+    // Read-only view over the first width * height bytes of a luminance buffer
+    static final class BufferLuminanceSource extends LuminanceSource {
+        private final byte[] luminances;
+
+        BufferLuminanceSource(byte[] luminances, int width, int height) {
+            super(width, height);
+            this.luminances = luminances;
+        }
+
+        @Override
+        public byte[] getRow(int y, byte[] row) {
+            if (y < 0 || y >= getHeight()) {
+                throw new IllegalArgumentException("Requested row is outside the image: " + y);
+            }
+            int width = getWidth();
+            if (row == null || row.length < width) {
+                row = new byte[width];
+            }
+            System.arraycopy(luminances, y * width, row, 0, width);
+            return row;
+        }
+
+        @Override
+        public byte[] getMatrix() {
+            int size = getWidth() * getHeight();
+            if (luminances.length == size) {
+                return luminances;
+            }
+            byte[] matrix = new byte[size];
+            System.arraycopy(luminances, 0, matrix, 0, size);
+            return matrix;
+        }
+    }
+}
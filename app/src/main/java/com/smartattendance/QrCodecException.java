@@ -0,0 +1,10 @@
+package com.smartattendance;
+
+// Raised when a QR code cannot be encoded or written out
+public class QrCodecException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public QrCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
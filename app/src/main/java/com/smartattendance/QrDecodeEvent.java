@@ -0,0 +1,27 @@
+package com.smartattendance;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.smartattendance.QrDecode")
+@Label("QR Decode")
+@Category("Smart Attendance")
+@Description("Decoding a QR code from an image or camera frame")
+final class QrDecodeEvent extends Event {
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Result")
+    @Description("OK or the failure cause")
+    String result;
+
+    @Label("Tier")
+    @Description("Decoding tier that found the code, for tiered decodes")
+    String tier;
+}
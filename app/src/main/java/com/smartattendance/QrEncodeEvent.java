@@ -0,0 +1,25 @@
+package com.smartattendance;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.smartattendance.QrEncode")
+@Label("QR Encode")
+@Category("Smart Attendance")
+@Description("Encoding content into a QR matrix")
+final class QrEncodeEvent extends Event {
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Content Length")
+    int contentLength;
+
+    @Label("Success")
+    boolean success;
+}
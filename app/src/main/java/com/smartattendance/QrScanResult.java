@@ -0,0 +1,80 @@
+package com.smartattendance;
+
+import com.google.zxing.ResultPoint;
+
+// Outcome of a QR decode attempt: either the decoded text or the reason it failed
+public final class QrScanResult {
+    public enum Failure {
+        NOT_FOUND("No QR code found in the image"),
+        CHECKSUM("QR code found but it is damaged"),
+        FORMAT("QR code found but it could not be read"),
+        UNREADABLE_IMAGE("The image could not be read");
+
+        private final String description;
+
+        Failure(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static final ResultPoint[] NO_POINTS = new ResultPoint[0];
+
+    private final String text;
+    private final ResultPoint[] points;
+    private final Failure failure;
+    private final String detail;
+    private final QrCodec.Tier tier;
+
+    private QrScanResult(String text, ResultPoint[] points, Failure failure, String detail, QrCodec.Tier tier) {
+        this.text = text;
+        this.points = points;
+        this.failure = failure;
+        this.detail = detail;
+        this.tier = tier;
+    }
+
+    public static QrScanResult success(String text, ResultPoint[] points) {
+        return success(text, points, null);
+    }
+
+    public static QrScanResult success(String text, ResultPoint[] points, QrCodec.Tier tier) {
+        return new QrScanResult(text, points == null ? NO_POINTS : points, null, null, tier);
+    }
+
+    public static QrScanResult failure(Failure failure, String detail) {
+        return new QrScanResult(null, NO_POINTS, failure, detail, null);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // Finder pattern locations in image coordinates (empty on failure)
+    public ResultPoint[] getPoints() {
+        return points;
+    }
+
+    public Failure getFailure() {
+        return failure;
+    }
+
+    // The decoding tier that found the code; null on failure and for multi-code results
+    public QrCodec.Tier getTier() {
+        return tier;
+    }
+
+    public String getMessage() {
+        if (failure == null) {
+            return "OK";
+        }
+        return detail == null ? failure.getDescription() : failure.getDescription() + " (" + detail + ")";
+    }
+}
@@ -0,0 +1,29 @@
+package com.smartattendance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One token bucket per key (client address, username, ...). Buckets that have
+// refilled completely are dropped during periodic sweeps so the map does not
+// grow with every key ever seen.
+public class RateLimiter {
+    private static final int SWEEP_EVERY = 4096;
+
+    private final double capacity;
+    private final double refillPerSecond;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public RateLimiter(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+    }
+
+    public boolean tryAcquire(String key) {
+        if (calls.incrementAndGet() % SWEEP_EVERY == 0) {
+            buckets.values().removeIf(TokenBucket::isFull);
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond)).tryAcquire();
+    }
+}
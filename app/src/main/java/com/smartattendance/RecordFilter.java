@@ -0,0 +1,54 @@
+package com.smartattendance;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Which attendance records a scan should return: optionally one course and a
+// time range. AttendanceLog applies it to the raw record bytes, so records
+// that do not match are never decoded.
+public final class RecordFilter {
+    public static final RecordFilter ALL = new RecordFilter(null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+    private final String courseCode;
+    private final long fromMillis;
+    private final long toMillis;
+
+    // courseCode null for every course; fromMillis inclusive, toMillis exclusive
+    public RecordFilter(String courseCode, long fromMillis, long toMillis) {
+        this.courseCode = courseCode == null || courseCode.isEmpty() ? null : courseCode;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    // Whole days from "from" to "to", both inclusive; null dates leave that end open
+    public static RecordFilter forDates(String courseCode, LocalDate from, LocalDate to, ZoneId zone) {
+        long fromMillis = from == null ? Long.MIN_VALUE : from.atStartOfDay(zone).toInstant().toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new RecordFilter(courseCode, fromMillis, toMillis);
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    public long getToMillis() {
+        return toMillis;
+    }
+
+    public boolean hasTimeRange() {
+        return fromMillis != Long.MIN_VALUE || toMillis != Long.MAX_VALUE;
+    }
+
+    public boolean includesTime(long epochMillis) {
+        return epochMillis >= fromMillis && epochMillis < toMillis;
+    }
+
+    // True if any time in [minMillis, maxMillis] can match
+    public boolean overlaps(long minMillis, long maxMillis) {
+        return maxMillis >= fromMillis && minMillis < toMillis;
+    }
+}
@@ -0,0 +1,223 @@
+package com.smartattendance;
+
+import com.google.zxing.common.BitMatrix;
+
+import javax.swing.Icon;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+// Rendered UI assets (the QR code on screen, the logo, button backgrounds)
+// kept as images in the display's own pixel format, so a repaint is a plain
+// blit instead of antialiased drawing or rasterizing a QR code again.
+//
+// Entries are keyed by what is drawn, its size in user-space pixels and the
+// display scale, so the same asset on a 2x projector is rendered once at full
+// resolution and stays sharp. The least recently used images are evicted once
+// their pixels pass the byte budget. Safe to call from any thread, though
+// painting normally happens on the EDT.
+public final class RenderCache {
+    private static final long DEFAULT_BUDGET_BYTES = 32L << 20;
+    private static final RenderCache INSTANCE = new RenderCache(DEFAULT_BUDGET_BYTES);
+
+    // Draws the asset into a fresh, transparent image. g is already scaled to
+    // the display, so width and height are in user-space pixels.
+    public interface Painter {
+        void paint(Graphics2D g, int width, int height);
+    }
+
+    private static final class Key {
+        private final Object content;
+        private final int width;
+        private final int height;
+        private final double scale;
+
+        Key(Object content, int width, int height, double scale) {
+            this.content = content;
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return width == key.width && height == key.height && scale == key.scale && content.equals(key.content);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(content, width, height, scale);
+        }
+    }
+
+    private final long budgetBytes;
+    private final LinkedHashMap<Key, BufferedImage> images = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    RenderCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    public static RenderCache getInstance() {
+        return INSTANCE;
+    }
+
+    // The asset rendered for a display at the given scale. content identifies
+    // what the painter draws and must have value equality (a String, a List of
+    // parameters, a BitMatrix). gc may be null off screen, e.g. when headless.
+    public BufferedImage image(Object content, int width, int height, double scale, GraphicsConfiguration gc,
+                               Painter painter) {
+        Key key = new Key(content, width, height, scale);
+        synchronized (this) {
+            BufferedImage image = images.get(key);
+            if (image != null) {
+                hits++;
+                return image;
+            }
+            misses++;
+        }
+
+        // Rendered outside the lock; two threads racing on one key both render and the last one is kept
+        BufferedImage image = render(width, height, scale, gc, painter);
+        synchronized (this) {
+            BufferedImage previous = images.put(key, image);
+            bytes += sizeOf(image) - (previous == null ? 0 : sizeOf(previous));
+            Iterator<BufferedImage> eldest = images.values().iterator();
+            while (bytes > budgetBytes && images.size() > 1) {
+                bytes -= sizeOf(eldest.next());
+                eldest.remove();
+                evictions++;
+            }
+        }
+        return image;
+    }
+
+    // Draws the cached asset at (x, y), width by height in user space, rendering
+    // it for g's device and scale first if needed
+    public void draw(Graphics g, Object content, int x, int y, int width, int height, Painter painter) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        Graphics2D g2d = (Graphics2D) g;
+        BufferedImage image = image(content, width, height, scaleOf(g2d), g2d.getDeviceConfiguration(), painter);
+        // The image has the device's pixel size, so this maps it back one to one
+        g2d.drawImage(image, x, y, width, height, null);
+    }
+
+    // A fixed-size icon drawn through the cache
+    public Icon icon(Object content, int width, int height, Painter painter) {
+        return new Icon() {
+            @Override
+            public void paintIcon(Component c, Graphics g, int x, int y) {
+                draw(g, content, x, y, width, height, painter);
+            }
+
+            @Override
+            public int getIconWidth() {
+                return width;
+            }
+
+            @Override
+            public int getIconHeight() {
+                return height;
+            }
+        };
+    }
+
+    // A QR code of size by size user-space pixels. modules should be the bare
+    // module grid (as encoded with a size of 0); it is rasterized at the
+    // display's resolution with every module a whole number of device pixels,
+    // so the code stays sharp however far the display is scaled.
+    public Icon qrIcon(BitMatrix modules, int size) {
+        return icon(modules, size, size, (g, width, height) -> paintModules(g, modules, width, height));
+    }
+
+    static void paintModules(Graphics2D g, BitMatrix modules, int width, int height) {
+        AffineTransform transform = g.getTransform();
+        int deviceWidth = (int) Math.ceil(width * transform.getScaleX());
+        int deviceHeight = (int) Math.ceil(height * transform.getScaleY());
+        g.setTransform(new AffineTransform());
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, deviceWidth, deviceHeight);
+
+        int columns = modules.getWidth();
+        int rows = modules.getHeight();
+        int module = Math.max(1, Math.min(deviceWidth / columns, deviceHeight / rows));
+        int left = (deviceWidth - columns * module) / 2;
+        int top = (deviceHeight - rows * module) / 2;
+        g.setColor(Color.BLACK);
+        for (int y = 0; y < rows; y++) {
+            int x = 0;
+            while (x < columns) {
+                if (!modules.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                // One rectangle per horizontal run of dark modules
+                int start = x;
+                while (x < columns && modules.get(x, y)) {
+                    x++;
+                }
+                g.fillRect(left + start * module, top + y * module, (x - start) * module, module);
+            }
+        }
+        g.setTransform(transform);
+    }
+
+    // Display scale of g (1.0, 1.25, 2.0, ...) from its device transform
+    static double scaleOf(Graphics2D g) {
+        AffineTransform transform = g.getTransform();
+        double scale = Math.max(Math.abs(transform.getScaleX()), Math.abs(transform.getScaleY()));
+        return scale > 0 ? scale : 1;
+    }
+
+    private static BufferedImage render(int width, int height, double scale, GraphicsConfiguration gc,
+                                        Painter painter) {
+        int deviceWidth = Math.max(1, (int) Math.ceil(width * scale));
+        int deviceHeight = Math.max(1, (int) Math.ceil(height * scale));
+        BufferedImage image = gc != null
+                ? gc.createCompatibleImage(deviceWidth, deviceHeight, Transparency.TRANSLUCENT)
+                : new BufferedImage(deviceWidth, deviceHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            // Compatible images may come back with undefined contents
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, deviceWidth, deviceHeight);
+            g.setComposite(AlphaComposite.SrcOver);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.scale(scale, scale);
+            painter.paint(g, width, height);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        int bitsPerPixel = image.getColorModel().getPixelSize();
+        return (long) image.getWidth() * image.getHeight() * Math.max(1, bitsPerPixel / 8);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RenderCache[" + images.size() + " images, " + bytes / 1024 + " KB, " + hits + " hits, " + misses
+                + " misses, " + evictions + " evictions]";
+    }
+}
@@ -0,0 +1,406 @@
+package com.smartattendance;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Conflict-free replicated attendance set for several terminals, keyed by
+// (course, session day, student).
+//
+// It is a grow-only set, as marks are never taken back: an element, once
+// added on any node, is present everywhere for good. Its payload (mark time,
+// location and the node that made it) converges to the earliest add, ties
+// going to the lower node name. Merge is a union that keeps the earlier
+// payload, so replicas can exchange states or deltas in any order, any number
+// of times, and still converge.
+//
+// For anti-entropy the set keeps an additive Merkle summary: each element has
+// a 64-bit hash, a session's digest is the sum of its elements' hashes, 256
+// buckets sum their sessions, and the root hashes the buckets. Sums can be
+// updated in place as elements change, so digests are always current and two
+// replicas find the sessions they disagree on by comparing a root, then 256
+// bucket digests, then the session digests of the buckets that differ.
+public final class ReplicatedMarks {
+    public static final int BUCKETS = 256;
+
+    // Leads every batch, so a peer or replica.dat from before the set was
+    // grow-only is refused instead of misread
+    private static final byte FORMAT = 2;
+
+    // Wire and snapshot form of one element, also used for deltas
+    public static final class ElementState {
+        final String courseCode;
+        final int day;
+        final String studentId;
+        final long epochMillis;
+        final String location;
+        final String origin;
+
+        ElementState(String courseCode, int day, String studentId, long epochMillis, String location,
+                     String origin) {
+            this.courseCode = courseCode;
+            this.day = day;
+            this.studentId = studentId;
+            this.epochMillis = epochMillis;
+            this.location = location;
+            this.origin = origin;
+        }
+
+        public String getCourseCode() {
+            return courseCode;
+        }
+
+        public String getStudentId() {
+            return studentId;
+        }
+
+        public long getEpochMillis() {
+            return epochMillis;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        AttendanceRecord toRecord() {
+            return new AttendanceRecord(studentId, courseCode, epochMillis, location);
+        }
+    }
+
+    // Session digest as exchanged during anti-entropy
+    public static final class SessionDigest {
+        final String courseCode;
+        final int day;
+        final long digest;
+
+        SessionDigest(String courseCode, int day, long digest) {
+            this.courseCode = courseCode;
+            this.day = day;
+            this.digest = digest;
+        }
+    }
+
+    private static final class Element {
+        long epochMillis;
+        String location;
+        int origin;
+        long hash;
+    }
+
+    private static final class Session {
+        final String courseCode;
+        final int day;
+        final long keyHash;
+        final Map<String, Element> elements = new HashMap<>();
+        long digest;
+
+        Session(String courseCode, int day) {
+            this.courseCode = courseCode;
+            this.day = day;
+            this.keyHash = sessionHash(courseCode, day);
+        }
+
+        int bucket() {
+            return (int) (keyHash >>> 56);
+        }
+    }
+
+    private final String nodeId;
+    private final int self;
+    private final StringDictionary nodes = new StringDictionary();
+    private final List<Long> nodeHashes = new ArrayList<>();
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final long[] buckets = new long[BUCKETS];
+    private int size;
+
+    public ReplicatedMarks(String nodeId) {
+        this.nodeId = nodeId;
+        this.self = node(nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean contains(String courseCode, int day, String studentId) {
+        return element(courseCode, day, studentId, false) != null;
+    }
+
+    // Adds the mark and returns the delta to ship, or null if it is already present
+    public synchronized ElementState add(String courseCode, int day, String studentId, long epochMillis,
+                                         String location) {
+        if (element(courseCode, day, studentId, false) != null) {
+            return null;
+        }
+        Element element = element(courseCode, day, studentId, true);
+        Session session = sessions.get(sessionKey(courseCode, day));
+        element.epochMillis = epochMillis;
+        element.location = location;
+        element.origin = self;
+        rehash(session, studentId, element, 0);
+        return state(session, studentId, element);
+    }
+
+    // Joins the states into this replica and returns those that were not
+    // present here before and are now
+    public synchronized List<ElementState> merge(List<ElementState> states) {
+        List<ElementState> appeared = new ArrayList<>();
+        for (ElementState state : states) {
+            boolean fresh = element(state.courseCode, state.day, state.studentId, false) == null;
+            Element element = element(state.courseCode, state.day, state.studentId, true);
+            Session session = sessions.get(sessionKey(state.courseCode, state.day));
+            int origin = node(state.origin);
+            if (fresh || isEarlier(state.epochMillis, origin, element)) {
+                long before = fresh ? 0 : element.hash;
+                element.epochMillis = state.epochMillis;
+                element.location = state.location;
+                element.origin = origin;
+                rehash(session, state.studentId, element, before);
+            }
+            if (fresh) {
+                appeared.add(state(session, state.studentId, element));
+            }
+        }
+        return appeared;
+    }
+
+    public synchronized long rootDigest() {
+        long root = 0x5A5A5A5AL;
+        for (long bucket : buckets) {
+            root = mix(root ^ bucket) + 0x9E3779B97F4A7C15L;
+        }
+        return root;
+    }
+
+    public synchronized long[] bucketDigests() {
+        return buckets.clone();
+    }
+
+    // Session digests in the given buckets
+    public synchronized List<SessionDigest> sessionDigests(boolean[] inBuckets) {
+        List<SessionDigest> digests = new ArrayList<>();
+        for (Session session : sessions.values()) {
+            if (inBuckets[session.bucket()]) {
+                digests.add(new SessionDigest(session.courseCode, session.day, session.digest));
+            }
+        }
+        return digests;
+    }
+
+    public synchronized long sessionDigest(String courseCode, int day) {
+        Session session = sessions.get(sessionKey(courseCode, day));
+        return session == null ? 0 : session.digest;
+    }
+
+    // Full state of the given sessions (those this replica has)
+    public synchronized List<ElementState> sessionStates(List<SessionDigest> wanted) {
+        List<ElementState> states = new ArrayList<>();
+        for (SessionDigest digest : wanted) {
+            Session session = sessions.get(sessionKey(digest.courseCode, digest.day));
+            if (session != null) {
+                for (Map.Entry<String, Element> entry : session.elements.entrySet()) {
+                    states.add(state(session, entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        return states;
+    }
+
+    public synchronized List<ElementState> snapshot() {
+        List<ElementState> states = new ArrayList<>(size);
+        for (Session session : sessions.values()) {
+            for (Map.Entry<String, Element> entry : session.elements.entrySet()) {
+                states.add(state(session, entry.getKey(), entry.getValue()));
+            }
+        }
+        return states;
+    }
+
+    static int bucketOf(String courseCode, int day) {
+        return (int) (sessionHash(courseCode, day) >>> 56);
+    }
+
+    private Element element(String courseCode, int day, String studentId, boolean create) {
+        String key = sessionKey(courseCode, day);
+        Session session = sessions.get(key);
+        if (session == null) {
+            if (!create) {
+                return null;
+            }
+            session = new Session(courseCode, day);
+            sessions.put(key, session);
+            buckets[session.bucket()] += sessionTerm(session);
+        }
+        Element element = session.elements.get(studentId);
+        if (element == null && create) {
+            element = new Element();
+            session.elements.put(studentId, element);
+            size++;
+        }
+        return element;
+    }
+
+    private boolean isEarlier(long epochMillis, int origin, Element element) {
+        if (epochMillis != element.epochMillis) {
+            return epochMillis < element.epochMillis;
+        }
+        return nodes.valueOf(origin).compareTo(nodes.valueOf(element.origin)) < 0;
+    }
+
+    private int node(String name) {
+        int id = nodes.intern(name);
+        if (id == nodeHashes.size()) {
+            nodeHashes.add(hash(name));
+        }
+        return id;
+    }
+
+    // Recomputes the element's hash and folds the change into its session and bucket
+    private void rehash(Session session, String studentId, Element element, long before) {
+        long h = mix(session.keyHash ^ hash(studentId));
+        h += mix(element.epochMillis ^ hash(element.location) ^ nodeHashes.get(element.origin));
+        element.hash = h;
+
+        buckets[session.bucket()] -= sessionTerm(session);
+        session.digest += h - before;
+        buckets[session.bucket()] += sessionTerm(session);
+    }
+
+    private ElementState state(Session session, String studentId, Element element) {
+        return new ElementState(session.courseCode, session.day, studentId, element.epochMillis, element.location,
+                nodes.valueOf(element.origin));
+    }
+
+    private static String sessionKey(String courseCode, int day) {
+        return courseCode + '\u0000' + day;
+    }
+
+    private static long sessionTerm(Session session) {
+        return mix(session.keyHash + session.digest);
+    }
+
+    private static long sessionHash(String courseCode, int day) {
+        return mix(hash(courseCode) + day * 0x9E3779B97F4A7C15L);
+    }
+
+    // 64-bit FNV-1a over the UTF-16 chars, stable across JVMs
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        return h;
+    }
+
+    // SplitMix64 finalizer
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Batches are written with a node name table up front so each element
+    // refers to its origin by a small index
+    public static void write(DataOutputStream out, List<ElementState> states) throws IOException {
+        Map<String, Integer> table = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (ElementState state : states) {
+            table.computeIfAbsent(state.origin, name -> {
+                names.add(name);
+                return names.size() - 1;
+            });
+        }
+        out.writeByte(FORMAT);
+        out.writeShort(names.size());
+        for (String name : names) {
+            writeString(out, name);
+        }
+        out.writeInt(states.size());
+        for (ElementState state : states) {
+            writeString(out, state.courseCode);
+            out.writeInt(state.day);
+            writeString(out, state.studentId);
+            out.writeLong(state.epochMillis);
+            writeString(out, state.location);
+            out.writeShort(table.get(state.origin));
+        }
+    }
+
+    public static List<ElementState> read(DataInputStream in) throws IOException {
+        byte format = in.readByte();
+        if (format != FORMAT) {
+            throw new IOException("Unsupported replica format " + format);
+        }
+        String[] names = new String[in.readUnsignedShort()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readString(in);
+        }
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Bad element count " + count);
+        }
+        List<ElementState> states = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int n = 0; n < count; n++) {
+            String courseCode = readString(in);
+            int day = in.readInt();
+            String studentId = readString(in);
+            long epochMillis = in.readLong();
+            String location = readString(in);
+            int origin = in.readUnsignedShort();
+            if (origin >= names.length) {
+                throw new IOException("Bad origin index " + origin);
+            }
+            states.add(new ElementState(courseCode, day, studentId, epochMillis, location, names[origin]));
+        }
+        return states;
+    }
+
+    static void writeDigests(DataOutputStream out, List<SessionDigest> digests) throws IOException {
+        out.writeInt(digests.size());
+        for (SessionDigest digest : digests) {
+            writeString(out, digest.courseCode);
+            out.writeInt(digest.day);
+            out.writeLong(digest.digest);
+        }
+    }
+
+    static List<SessionDigest> readDigests(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Bad digest count " + count);
+        }
+        List<SessionDigest> digests = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            digests.add(new SessionDigest(readString(in), in.readInt(), in.readLong()));
+        }
+        return digests;
+    }
+
+    // Short length-prefixed UTF-8; record fields are at most a few dozen bytes
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 255) {
+            throw new IOException("Field too long to replicate: " + value);
+        }
+        out.writeByte(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedByte()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
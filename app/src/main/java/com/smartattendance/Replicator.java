@@ -0,0 +1,858 @@
+package com.smartattendance;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Keeps several check-in terminals in agreement without a central database.
+// Each node holds its marks in a ReplicatedMarks set and talks to its peers
+// over plain TCP:
+//
+//   - every new local mark becomes a delta that a per-peer link ships in
+//     batches (whatever has queued up since the last send);
+//   - every few seconds, and straight after (re)connecting, the link runs
+//     anti-entropy: compare Merkle roots, then the 256 bucket digests, then
+//     the session digests of differing buckets, and swap the full state of
+//     just the sessions that differ;
+//   - marks that arrive from a peer are written to the local attendance log
+//     through AttendanceService.importRecords, so headcounts and reports
+//     include every terminal's marks.
+//
+// Deltas are fire-and-forget: a dropped connection or a full queue loses
+// them, and the next anti-entropy round repairs the difference. The replica
+// state is appended to replica.dat and compacted at startup; whatever it
+// lost in a crash is rebuilt from the attendance log, which is durable.
+//
+// Peers must share a secret. A connection opens with HELLO messages that
+// carry each side's random nonce; every later message is followed by a
+// truncated HMAC-SHA256 of a per-direction counter, its type and its body,
+// under a key derived from the secret and both nonces. A message that fails
+// the check, or any connection from a host that is not a listed peer, is
+// dropped before anything reaches the replica or the attendance log.
+public final class Replicator implements Closeable {
+    public static final String CONFIG_FILE = "replication.properties";
+    public static final String STATE_FILE = "replica.dat";
+
+    private static final int MAX_DELTA_BATCH = 1024;
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final int MAX_MESSAGE_BYTES = 64 * 1024 * 1024;
+    private static final long POLL_MILLIS = 100;
+    private static final long SYNC_INTERVAL_MILLIS = 5000;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int READ_TIMEOUT_MILLIS = 30_000;
+    private static final int IMPORT_BATCH = 10_000;
+    private static final int MIN_SECRET_BYTES = 16;
+    private static final int NONCE_BYTES = 16;
+    private static final int TAG_BYTES = 16;
+    // Largest message accepted before the connection is keyed (a HELLO)
+    private static final int MAX_HELLO_BYTES = 1024;
+    private static final byte PROTOCOL_VERSION = 2;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    // Message types; each message is type, payload length, payload, then a tag once keyed (see Connection)
+    private static final byte HELLO = 1;
+    private static final byte DELTA = 2;
+    private static final byte SYNC_ROOT = 3;
+    private static final byte IN_SYNC = 4;
+    private static final byte BUCKET_DIGESTS = 5;
+    private static final byte SESSION_DIGESTS = 6;
+    private static final byte STATE_AND_WANT = 7;
+    private static final byte STATE = 8;
+
+    private final AttendanceService service;
+    private final ReplicatedMarks marks;
+    private final Path stateFile;
+    private final byte[] secret;
+    private final SecureRandom random = new SecureRandom();
+    private final ServerSocket server;
+    private final List<Peer> peers = new ArrayList<>();
+    private final List<Socket> inbound = new CopyOnWriteArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final Object stateLock = new Object();
+    private DataOutputStream stateOut;
+    private volatile boolean closed;
+
+    private Replicator(AttendanceService service, String nodeId, Path dataDir, byte[] secret, InetAddress bind,
+                       int port) throws IOException {
+        this.service = service;
+        this.marks = new ReplicatedMarks(nodeId);
+        this.stateFile = dataDir.resolve(STATE_FILE);
+        this.secret = secret.clone();
+        this.server = new ServerSocket();
+        this.server.setReuseAddress(true);
+        this.server.bind(new InetSocketAddress(bind, port));
+    }
+
+    // Loads the replica, reconciles it with the log, then starts listening
+    // on bind (null for every interface) and connecting to the peers, which
+    // are also the only hosts allowed to connect. The service must not be
+    // taking marks yet.
+    public static Replicator start(AttendanceService service, AttendanceLog log, Path dataDir, String nodeId,
+                                   byte[] secret, InetAddress bind, int port, List<InetSocketAddress> peerAddresses)
+            throws IOException {
+        if (nodeId == null || !nodeId.matches("[A-Za-z0-9._-]{1,64}")) {
+            throw new IllegalArgumentException("Node id must be 1-64 letters, digits, '.', '_' or '-'");
+        }
+        if (secret == null || secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("Replication secret must be at least " + MIN_SECRET_BYTES
+                    + " bytes");
+        }
+        Replicator replicator = new Replicator(service, nodeId, dataDir, secret, bind, port);
+        try {
+            replicator.recover(log);
+        } catch (IOException | RuntimeException e) {
+            replicator.server.close();
+            throw e;
+        }
+        service.addMarkListener(replicator::localMark);
+        for (InetSocketAddress address : peerAddresses) {
+            replicator.peers.add(replicator.new Peer(address));
+        }
+        replicator.startThreads();
+        return replicator;
+    }
+
+    // Starts replication as configured in replication.properties in the data
+    // directory, or returns null when the file does not exist:
+    //   node.id=kiosk-1
+    //   port=7701
+    //   bind=10.0.0.11                      (optional, default every interface)
+    //   peers=10.0.0.12:7701,10.0.0.13:7701
+    //   secret=...                          (the same on every node, 16+ characters)
+    public static Replicator startFromConfig(AttendanceService service, AttendanceLog log, Path dataDir)
+            throws IOException {
+        Path file = dataDir.resolve(CONFIG_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (String peer : properties.getProperty("peers", "").split(",")) {
+            if (!peer.trim().isEmpty()) {
+                peers.add(parseAddress(peer.trim()));
+            }
+        }
+        String secret = properties.getProperty("secret");
+        if (secret == null) {
+            throw new IllegalArgumentException(CONFIG_FILE + " needs a shared secret");
+        }
+        String bind = properties.getProperty("bind", "").trim();
+        return start(service, log, dataDir, properties.getProperty("node.id"), secret.trim().getBytes(
+                StandardCharsets.UTF_8), bind.isEmpty() ? null : InetAddress.getByName(bind),
+                Integer.parseInt(properties.getProperty("port", "7701").trim()), peers);
+    }
+
+    static InetSocketAddress parseAddress(String text) {
+        int colon = text.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Peer must be host:port, got \"" + text + "\"");
+        }
+        return new InetSocketAddress(text.substring(0, colon), Integer.parseInt(text.substring(colon + 1)));
+    }
+
+    public ReplicatedMarks getMarks() {
+        return marks;
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public String getStatus() {
+        int connected = 0;
+        for (Peer peer : peers) {
+            if (peer.socket != null) {
+                connected++;
+            }
+        }
+        return String.format("node %s: %d marks, root %016x, %d/%d peers connected",
+                marks.getNodeId(), marks.size(), marks.rootDigest(), connected, peers.size());
+    }
+
+
+    private void recover(AttendanceLog log) throws IOException {
+        // 1. Replay the replica file, stopping at a torn or corrupt tail
+        if (Files.exists(stateFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+                CRC32 crc = new CRC32();
+                while (true) {
+                    byte[] frame;
+                    try {
+                        int length = in.readInt();
+                        if (length < 0 || length > MAX_MESSAGE_BYTES) {
+                            break;
+                        }
+                        frame = new byte[length];
+                        in.readFully(frame);
+                        crc.reset();
+                        crc.update(frame);
+                        if (in.readInt() != (int) crc.getValue()) {
+                            break;
+                        }
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    List<ReplicatedMarks.ElementState> states;
+                    try {
+                        states = ReplicatedMarks.read(new DataInputStream(new ByteArrayInputStream(frame)));
+                    } catch (IOException e) {
+                        // Written in an older format; the log and the peers rebuild the rest
+                        break;
+                    }
+                    marks.merge(states);
+                }
+            }
+        }
+
+        // 2. Marks in the log the replica never heard of (lost tail, or made
+        //    before replication was turned on) become local adds
+        AttendanceIndex index = service.getIndex();
+        log.forEach(record -> marks.add(record.getCourseCode(), index.dayOf(record.getEpochMillis()),
+                record.getStudentId(), record.getEpochMillis(), record.getLocation()));
+
+        // 3. Replicated marks that never made it into the log are written now
+        List<AttendanceRecord> missing = new ArrayList<>();
+        List<ReplicatedMarks.ElementState> snapshot = marks.snapshot();
+        for (ReplicatedMarks.ElementState state : snapshot) {
+            if (!index.isMarked(state.studentId, state.courseCode, state.epochMillis)) {
+                missing.add(state.toRecord());
+                if (missing.size() == IMPORT_BATCH) {
+                    service.importRecords(missing);
+                    missing.clear();
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            service.importRecords(missing);
+        }
+
+        // 4. Compact: rewrite the file as one snapshot, then append to it
+        Files.createDirectories(stateFile.toAbsolutePath().getParent());
+        Path temp = stateFile.resolveSibling(STATE_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            for (int from = 0; from < snapshot.size(); from += IMPORT_BATCH) {
+                writeFrame(out, snapshot.subList(from, Math.min(snapshot.size(), from + IMPORT_BATCH)));
+            }
+        }
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        stateOut = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(stateFile, StandardOpenOption.APPEND), 1 << 16));
+    }
+
+    private void startThreads() {
+        Thread acceptor = new Thread(this::acceptLoop, "replication-accept");
+        threads.add(acceptor);
+        for (Peer peer : peers) {
+            threads.add(new Thread(peer, "replication-peer-" + peer.address));
+        }
+        // The state file is only flushed periodically; the log is the durable copy
+        threads.add(new Thread(() -> {
+            while (!closed) {
+                try {
+                    Thread.sleep(1000);
+                    synchronized (stateLock) {
+                        stateOut.flush();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    System.err.println("Replication: could not write " + stateFile + ": " + e.getMessage());
+                }
+            }
+        }, "replication-flush"));
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+
+    private void localMark(AttendanceRecord record) {
+        ReplicatedMarks.ElementState delta = marks.add(record.getCourseCode(),
+                service.getIndex().dayOf(record.getEpochMillis()), record.getStudentId(), record.getEpochMillis(),
+                record.getLocation());
+        if (delta == null) {
+            // Already replicated, e.g. the import of a mark that came from a peer
+            return;
+        }
+        persist(Collections.singletonList(delta));
+        for (Peer peer : peers) {
+            peer.offer(delta);
+        }
+    }
+
+    private void apply(List<ReplicatedMarks.ElementState> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+        List<ReplicatedMarks.ElementState> appeared = marks.merge(states);
+        persist(states);
+        if (!appeared.isEmpty()) {
+            List<AttendanceRecord> records = new ArrayList<>(appeared.size());
+            for (ReplicatedMarks.ElementState state : appeared) {
+                records.add(state.toRecord());
+            }
+            service.importRecords(records);
+        }
+    }
+
+    private void persist(List<ReplicatedMarks.ElementState> states) {
+        synchronized (stateLock) {
+            try {
+                writeFrame(stateOut, states);
+            } catch (IOException e) {
+                // Anti-entropy and the attendance log cover anything not written here
+                System.err.println("Replication: could not write " + stateFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void writeFrame(DataOutputStream out, List<ReplicatedMarks.ElementState> states)
+            throws IOException {
+        byte[] frame = encode(states);
+        CRC32 crc = new CRC32();
+        crc.update(frame);
+        out.writeInt(frame.length);
+        out.write(frame);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static byte[] encode(List<ReplicatedMarks.ElementState> states) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + states.size() * 64);
+        ReplicatedMarks.write(new DataOutputStream(bytes), states);
+        return bytes.toByteArray();
+    }
+
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                if (!isPeer(socket.getInetAddress())) {
+                    System.err.println("Replication: refused connection from " + socket.getRemoteSocketAddress()
+                            + ", not a listed peer");
+                    socket.close();
+                    continue;
+                }
+                socket.setTcpNoDelay(true);
+                // Peers sync every few seconds, so a silent connection is dead or never authenticated
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                inbound.add(socket);
+                Thread handler = new Thread(() -> serve(socket), "replication-in-" + socket.getRemoteSocketAddress());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Replication: accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean isPeer(InetAddress address) {
+        for (Peer peer : peers) {
+            if (address.equals(peer.address.getAddress())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            Connection connection = new Connection(socket, false);
+            DataInputStream hello;
+            try {
+                hello = connection.receive();
+            } catch (EOFException e) {
+                return;
+            }
+            if (connection.type != HELLO) {
+                throw new IOException("Expected HELLO, got message type " + connection.type);
+            }
+            byte[] theirNonce = readHello(hello);
+            byte[] nonce = sendHello(connection);
+            connection.key(secret, theirNonce, nonce);
+            while (!closed) {
+                DataInputStream body;
+                try {
+                    body = connection.receive();
+                } catch (EOFException e) {
+                    return;
+                }
+                byte type = connection.type;
+                switch (type) {
+                    case DELTA:
+                    case STATE:
+                        apply(ReplicatedMarks.read(body));
+                        break;
+                    case SYNC_ROOT:
+                        if (body.readLong() == marks.rootDigest()) {
+                            connection.send(IN_SYNC, data -> { });
+                        } else {
+                            long[] buckets = marks.bucketDigests();
+                            connection.send(BUCKET_DIGESTS, data -> {
+                                for (long bucket : buckets) {
+                                    data.writeLong(bucket);
+                                }
+                            });
+                        }
+                        break;
+                    case SESSION_DIGESTS:
+                        answerSessions(body, connection);
+                        break;
+                    default:
+                        throw new IOException("Unexpected message type " + type);
+                }
+            }
+        } catch (IOException e) {
+            if (!closed && !(e instanceof SocketException)) {
+                System.err.println("Replication: peer " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+        }
+    }
+
+    // The initiator sent its session digests for the buckets that differ.
+    // Reply with our state for every session in those buckets that we hold
+    // differently, and the list of sessions we want its state for.
+    private void answerSessions(DataInputStream body, Connection connection) throws IOException {
+        boolean[] inBuckets = readBuckets(body);
+        List<ReplicatedMarks.SessionDigest> theirs = ReplicatedMarks.readDigests(body);
+        Map<String, Long> theirDigests = new HashMap<>();
+        for (ReplicatedMarks.SessionDigest digest : theirs) {
+            theirDigests.put(digest.courseCode + '\u0000' + digest.day, digest.digest);
+        }
+
+        List<ReplicatedMarks.SessionDigest> give = new ArrayList<>();
+        for (ReplicatedMarks.SessionDigest mine : marks.sessionDigests(inBuckets)) {
+            Long other = theirDigests.get(mine.courseCode + '\u0000' + mine.day);
+            if (other == null || other != mine.digest) {
+                give.add(mine);
+            }
+        }
+        List<ReplicatedMarks.SessionDigest> want = new ArrayList<>();
+        for (ReplicatedMarks.SessionDigest other : theirs) {
+            if (marks.sessionDigest(other.courseCode, other.day) != other.digest) {
+                want.add(other);
+            }
+        }
+        List<ReplicatedMarks.ElementState> states = marks.sessionStates(give);
+        connection.send(STATE_AND_WANT, data -> {
+            ReplicatedMarks.write(data, states);
+            ReplicatedMarks.writeDigests(data, want);
+        });
+    }
+
+
+    private final class Peer implements Runnable {
+        private final InetSocketAddress address;
+        private final BlockingQueue<ReplicatedMarks.ElementState> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile boolean overflowed;
+        private volatile Socket socket;
+        private Connection connection;
+
+        Peer(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        void offer(ReplicatedMarks.ElementState delta) {
+            if (!queue.offer(delta)) {
+                // Anti-entropy will carry what the queue could not
+                overflowed = true;
+            }
+        }
+
+        @Override
+        public void run() {
+            long backoff = 250;
+            long nextSync = 0;
+            List<ReplicatedMarks.ElementState> batch = new ArrayList<>(MAX_DELTA_BATCH);
+            while (!closed) {
+                try {
+                    if (socket == null) {
+                        connect();
+                        backoff = 250;
+                        nextSync = 0;
+                    }
+                    ReplicatedMarks.ElementState first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, MAX_DELTA_BATCH - 1);
+                        List<ReplicatedMarks.ElementState> deltas = batch;
+                        connection.send(DELTA, data -> ReplicatedMarks.write(data, deltas));
+                        batch.clear();
+                    }
+                    if (overflowed || System.currentTimeMillis() >= nextSync) {
+                        overflowed = false;
+                        antiEntropy();
+                        nextSync = System.currentTimeMillis() + SYNC_INTERVAL_MILLIS;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    disconnect();
+                    batch.clear();
+                    queue.clear();
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                    backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+                }
+            }
+            disconnect();
+        }
+
+        private void connect() throws IOException {
+            Socket s = new Socket();
+            try {
+                s.connect(address, CONNECT_TIMEOUT_MILLIS);
+                s.setTcpNoDelay(true);
+                s.setSoTimeout(READ_TIMEOUT_MILLIS);
+                Connection c = new Connection(s, true);
+                byte[] nonce = sendHello(c);
+                DataInputStream hello = c.receive();
+                if (c.type != HELLO) {
+                    throw new IOException("Expected HELLO, got message type " + c.type);
+                }
+                c.key(secret, nonce, readHello(hello));
+                connection = c;
+            } catch (IOException e) {
+                s.close();
+                throw e;
+            }
+            socket = s;
+        }
+
+        private void disconnect() {
+            Socket s = socket;
+            socket = null;
+            if (s != null) {
+                try {
+                    s.close();
+                } catch (IOException ignored) {
+                    // Nothing to do; the next connect starts afresh
+                }
+            }
+        }
+
+        // Root, then buckets, then sessions; only differing sessions cross the wire
+        private void antiEntropy() throws IOException {
+            long root = marks.rootDigest();
+            connection.send(SYNC_ROOT, data -> data.writeLong(root));
+            DataInputStream body = connection.receive();
+            byte type = connection.type;
+            if (type == IN_SYNC) {
+                return;
+            }
+            if (type != BUCKET_DIGESTS) {
+                throw new IOException("Unexpected reply " + type + " to sync");
+            }
+            long[] mine = marks.bucketDigests();
+            boolean[] differ = new boolean[ReplicatedMarks.BUCKETS];
+            for (int i = 0; i < differ.length; i++) {
+                differ[i] = body.readLong() != mine[i];
+            }
+            List<ReplicatedMarks.SessionDigest> digests = marks.sessionDigests(differ);
+            connection.send(SESSION_DIGESTS, data -> {
+                writeBuckets(data, differ);
+                ReplicatedMarks.writeDigests(data, digests);
+            });
+
+            body = connection.receive();
+            type = connection.type;
+            if (type != STATE_AND_WANT) {
+                throw new IOException("Unexpected reply " + type + " to session digests");
+            }
+            List<ReplicatedMarks.ElementState> theirs = ReplicatedMarks.read(body);
+            List<ReplicatedMarks.SessionDigest> wanted = ReplicatedMarks.readDigests(body);
+            // Answer with our state as it was before merging theirs, so the
+            // peer gets exactly what it asked for
+            List<ReplicatedMarks.ElementState> ours = marks.sessionStates(wanted);
+            apply(theirs);
+            if (!ours.isEmpty()) {
+                connection.send(STATE, data -> ReplicatedMarks.write(data, ours));
+            }
+        }
+    }
+
+
+    private interface Body {
+        void write(DataOutputStream data) throws IOException;
+    }
+
+    // Sends HELLO (protocol version, node id, a fresh nonce) and returns the nonce
+    private byte[] sendHello(Connection connection) throws IOException {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        connection.send(HELLO, data -> {
+            data.writeByte(PROTOCOL_VERSION);
+            data.writeUTF(marks.getNodeId());
+            data.write(nonce);
+        });
+        return nonce;
+    }
+
+    // Returns the nonce of the peer's HELLO
+    private static byte[] readHello(DataInputStream body) throws IOException {
+        byte version = body.readByte();
+        if (version != PROTOCOL_VERSION) {
+            throw new IOException("Peer speaks replication protocol " + version + ", not " + PROTOCOL_VERSION);
+        }
+        body.readUTF();
+        byte[] nonce = new byte[NONCE_BYTES];
+        body.readFully(nonce);
+        return nonce;
+    }
+
+    // One end of a peer connection: messages are type, payload length,
+    // payload and, once key() has run, an authentication tag. Used by one
+    // thread at a time.
+    private static final class Connection {
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final byte outgoing;
+        private final byte incoming;
+        private Mac mac;
+        private long sent;
+        private long received;
+        // Type of the message last returned by receive()
+        byte type;
+
+        Connection(Socket socket, boolean initiator) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            // Tags name their direction, so a message cannot be reflected back to its sender
+            this.outgoing = (byte) (initiator ? 1 : 2);
+            this.incoming = (byte) (initiator ? 2 : 1);
+        }
+
+        // Keys the connection from the shared secret and both HELLO nonces
+        void key(byte[] secret, byte[] initiatorNonce, byte[] responderNonce) throws IOException {
+            try {
+                Mac derive = Mac.getInstance(MAC_ALGORITHM);
+                derive.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+                derive.update("smart-attendance replication".getBytes(StandardCharsets.UTF_8));
+                derive.update(initiatorNonce);
+                derive.update(responderNonce);
+                Mac keyed = Mac.getInstance(MAC_ALGORITHM);
+                keyed.init(new SecretKeySpec(derive.doFinal(), MAC_ALGORITHM));
+                mac = keyed;
+            } catch (GeneralSecurityException e) {
+                throw new IOException(MAC_ALGORITHM + " is not available", e);
+            }
+        }
+
+        void send(byte type, Body body) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            body.write(new DataOutputStream(bytes));
+            out.writeByte(type);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+            if (mac != null) {
+                out.write(tag(outgoing, sent++, type, bytes.toByteArray()));
+            }
+            out.flush();
+        }
+
+        // Reads the next message, leaving its type in type, and returns its
+        // body once the tag checks out
+        DataInputStream receive() throws IOException {
+            byte messageType = in.readByte();
+            int length = in.readInt();
+            if (length < 0 || length > (mac == null ? MAX_HELLO_BYTES : MAX_MESSAGE_BYTES)) {
+                throw new IOException("Bad message length " + length);
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            if (mac != null) {
+                byte[] tag = new byte[TAG_BYTES];
+                in.readFully(tag);
+                if (!MessageDigest.isEqual(tag, tag(incoming, received++, messageType, body))) {
+                    throw new IOException("Message failed authentication; is the shared secret the same?");
+                }
+            }
+            type = messageType;
+            return new DataInputStream(new ByteArrayInputStream(body));
+        }
+
+        private byte[] tag(byte direction, long counter, byte messageType, byte[] body) {
+            mac.update(direction);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                mac.update((byte) (counter >>> shift));
+            }
+            mac.update(messageType);
+            mac.update(body);
+            return Arrays.copyOf(mac.doFinal(), TAG_BYTES);
+        }
+    }
+
+    private static void writeBuckets(DataOutputStream out, boolean[] buckets) throws IOException {
+        byte[] bits = new byte[buckets.length / 8];
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i]) {
+                bits[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        out.write(bits);
+    }
+
+    private static boolean[] readBuckets(DataInputStream in) throws IOException {
+        byte[] bits = new byte[ReplicatedMarks.BUCKETS / 8];
+        in.readFully(bits);
+        boolean[] buckets = new boolean[ReplicatedMarks.BUCKETS];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+        }
+        return buckets;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Socket socket : inbound) {
+            socket.close();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        synchronized (stateLock) {
+            if (stateOut != null) {
+                stateOut.close();
+            }
+        }
+    }
+
+    // Headless node: replicate <node-id> <port> --secret-file file [--bind address] [--http port]
+    // [--data-dir dir] [--peer host:port ...]
+    public static void run(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: replicate <node-id> <port> --secret-file file [--bind address] [--http port]"
+                    + " [--data-dir dir] [--peer host:port ...]");
+            System.exit(2);
+        }
+        String nodeId = args[0];
+        int port = Integer.parseInt(args[1]);
+        int httpPort = -1;
+        Path dataDir = Paths.get("attendance-data");
+        Path secretFile = null;
+        InetAddress bind = null;
+        List<InetSocketAddress> peerAddresses = new ArrayList<>();
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--http":
+                    httpPort = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--data-dir":
+                    dataDir = Paths.get(args[i + 1]);
+                    break;
+                case "--peer":
+                    peerAddresses.add(parseAddress(args[i + 1]));
+                    break;
+                case "--secret-file":
+                    secretFile = Paths.get(args[i + 1]);
+                    break;
+                case "--bind":
+                    bind = InetAddress.getByName(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        if (secretFile == null) {
+            System.err.println("Peers authenticate with a shared secret: pass --secret-file");
+            System.exit(2);
+        }
+        byte[] secret = Files.readString(secretFile, StandardCharsets.UTF_8).trim().getBytes(StandardCharsets.UTF_8);
+
+        AttendanceLog log = AttendanceLog.open(dataDir);
+        SessionTokens tokens = SessionTokens.load(dataDir.resolve(SessionTokens.DEFAULT_KEY_FILE),
+                SessionTokens.DEFAULT_ROTATION_SECONDS);
+        AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+        service.setSessionTokens(tokens);
+        service.setReports(ReportStore.rebuild(log));
+        service.setGeofences(Geofences.loadDefault(dataDir));
+        service.setTimetable(Timetable.startFromConfig(dataDir));
+        AuditTrail audit = AuditTrail.open(dataDir.resolve(AuditTrail.DEFAULT_DIRECTORY));
+        service.setAuditTrail(audit);
+        Replicator replicator = start(service, log, dataDir, nodeId, secret, bind, port, peerAddresses);
+        AttendanceHttpServer server = null;
+        if (httpPort >= 0) {
+            LoginService logins = new LoginService(UserStore.load(dataDir.resolve(UserStore.DEFAULT_FILE)),
+                    new SessionTable());
+            logins.setAuditTrail(audit);
+            server = new AttendanceHttpServer(service, logins, httpPort);
+            server.start();
+        }
+
+        AttendanceHttpServer http = server;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (http != null) {
+                http.stop();
+            }
+            try {
+                replicator.close();
+                audit.close();
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Replication: failed to close cleanly: " + e.getMessage());
+            }
+        }, "replication-shutdown"));
+
+        System.out.println("Replicating on port " + replicator.getPort() + " with " + peerAddresses.size()
+                + " peer(s)" + (http == null ? "" : ", HTTP on port " + http.getPort()));
+        while (true) {
+            System.out.println(replicator.getStatus());
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.smartattendance;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+// Reporting view of the attendance history, kept up to date as marks are
+// recorded so reports never rescan the log.
+//
+// Student ids, course codes and locations are dictionary-encoded to dense
+// ints. Every mark is appended to int columns (student, course, day, time of
+// day, location) for
+// scans such as a student's history. Per course, each session day keeps a
+// RoaringBitmap of the students present, and a running counter per
+// (course, student) holds the number of sessions attended, so percentages,
+// headcounts and absentee lists come straight from those aggregates.
+//
+// A session is a day on which the course had at least one mark, and a
+// course's students are those who attended it at least once; there is no
+// separate roster.
+public class ReportStore {
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int NO_LOCATION = -1;
+
+    private static final Comparator<StudentAttendance> BY_PERCENT =
+            Comparator.comparingDouble(StudentAttendance::getPercent)
+                    .thenComparing(StudentAttendance::getCourseCode)
+                    .thenComparing(StudentAttendance::getStudentId);
+
+    private static final class CourseStats {
+        final TreeMap<Integer, RoaringBitmap> sessions = new TreeMap<>();
+        final RoaringBitmap students = new RoaringBitmap();
+        // Most marks land in today's session, so it is kept at hand
+        int lastDay = Integer.MIN_VALUE;
+        RoaringBitmap lastSession;
+
+        RoaringBitmap session(int day) {
+            if (day != lastDay) {
+                lastSession = sessions.computeIfAbsent(day, d -> new RoaringBitmap());
+                lastDay = day;
+            }
+            return lastSession;
+        }
+    }
+
+    private final TimeZone zone;
+    private final StringDictionary students = new StringDictionary(1024);
+    private final StringDictionary courses = new StringDictionary(64);
+    private final StringDictionary locations = new StringDictionary(64);
+    private final List<CourseStats> courseStats = new ArrayList<>();
+    // Sessions attended per (course, student)
+    private final LongIntHashMap attended = new LongIntHashMap(1024);
+
+    private final IntColumn studentColumn = new IntColumn();
+    private final IntColumn courseColumn = new IntColumn();
+    private final IntColumn dayColumn = new IntColumn();
+    private final IntColumn timeColumn = new IntColumn();
+    // NO_LOCATION for a mark recorded without one
+    private final IntColumn locationColumn = new IntColumn();
+
+    public ReportStore() {
+        this(TimeZone.getDefault());
+    }
+
+    public ReportStore(TimeZone zone) {
+        this.zone = zone;
+    }
+
+    public static ReportStore rebuild(AttendanceLog log) throws IOException {
+        ReportStore reports = new ReportStore();
+        log.forEach(record -> reports.record(record.getStudentId(), record.getCourseCode(), record.getEpochMillis(),
+                record.getLocation()));
+        return reports;
+    }
+
+    // Adds a durable mark. Returns false (and changes nothing) if the student
+    // was already counted for this course on that day.
+    public synchronized boolean record(String studentId, String courseCode, long epochMillis, String location) {
+        int student = students.intern(studentId);
+        int course = courses.intern(courseCode);
+        long local = epochMillis + zone.getOffset(epochMillis);
+        int day = (int) Math.floorDiv(local, MILLIS_PER_DAY);
+
+        if (course == courseStats.size()) {
+            courseStats.add(new CourseStats());
+        }
+        CourseStats stats = courseStats.get(course);
+        if (!stats.session(day).checkedAdd(student)) {
+            return false;
+        }
+        stats.students.add(student);
+        attended.addTo(attendedKey(course, student), 1);
+
+        studentColumn.add(student);
+        courseColumn.add(course);
+        dayColumn.add(day);
+        timeColumn.add((int) Math.floorMod(local, MILLIS_PER_DAY));
+        locationColumn.add(location == null ? NO_LOCATION : locations.intern(location));
+        return true;
+    }
+
+    public synchronized int size() {
+        return studentColumn.size();
+    }
+
+    public synchronized List<String> courseCodes() {
+        List<String> codes = new ArrayList<>(courses.size());
+        for (int course = 0; course < courses.size(); course++) {
+            codes.add(courses.valueOf(course));
+        }
+        codes.sort(null);
+        return codes;
+    }
+
+    // Every student of the course, lowest attendance first
+    public synchronized List<StudentAttendance> courseAttendance(String courseCode) {
+        int course = courses.lookup(courseCode);
+        List<StudentAttendance> rows = new ArrayList<>();
+        if (course < 0) {
+            return rows;
+        }
+        CourseStats stats = courseStats.get(course);
+        int sessions = stats.sessions.size();
+        IntIterator it = stats.students.getIntIterator();
+        while (it.hasNext()) {
+            int student = it.next();
+            rows.add(new StudentAttendance(students.valueOf(student), courseCode,
+                    attended.get(attendedKey(course, student)), sessions));
+        }
+        rows.sort(BY_PERCENT);
+        return rows;
+    }
+
+    public synchronized List<SessionHeadcount> sessionHeadcounts(String courseCode) {
+        int course = courses.lookup(courseCode);
+        List<SessionHeadcount> rows = new ArrayList<>();
+        if (course < 0) {
+            return rows;
+        }
+        for (Map.Entry<Integer, RoaringBitmap> session : courseStats.get(course).sessions.entrySet()) {
+            rows.add(new SessionHeadcount(courseCode, LocalDate.ofEpochDay(session.getKey()),
+                    session.getValue().getCardinality()));
+        }
+        return rows;
+    }
+
+    // The student's attendance in every course they have attended
+    public synchronized List<StudentAttendance> studentAttendance(String studentId) {
+        int student = students.lookup(studentId);
+        List<StudentAttendance> rows = new ArrayList<>();
+        if (student < 0) {
+            return rows;
+        }
+        for (int course = 0; course < courseStats.size(); course++) {
+            CourseStats stats = courseStats.get(course);
+            if (stats.students.contains(student)) {
+                rows.add(new StudentAttendance(studentId, courses.valueOf(course),
+                        attended.get(attendedKey(course, student)), stats.sessions.size()));
+            }
+        }
+        rows.sort(Comparator.comparing(StudentAttendance::getCourseCode));
+        return rows;
+    }
+
+    // Students below the threshold percentage in any course that has held at
+    // least minSessions sessions, lowest attendance first
+    public synchronized List<StudentAttendance> chronicAbsentees(double thresholdPercent, int minSessions) {
+        List<StudentAttendance> rows = new ArrayList<>();
+        for (int course = 0; course < courseStats.size(); course++) {
+            CourseStats stats = courseStats.get(course);
+            int sessions = stats.sessions.size();
+            if (sessions == 0 || sessions < minSessions) {
+                continue;
+            }
+            // attended * 100 < threshold * sessions, without dividing per student
+            double limit = thresholdPercent * sessions / 100.0;
+            IntIterator it = stats.students.getIntIterator();
+            while (it.hasNext()) {
+                int student = it.next();
+                int count = attended.get(attendedKey(course, student));
+                if (count < limit) {
+                    rows.add(new StudentAttendance(students.valueOf(student), courses.valueOf(course),
+                            count, sessions));
+                }
+            }
+        }
+        rows.sort(BY_PERCENT);
+        return rows;
+    }
+
+    // All marks of one student in time order, from a scan of the student column
+    public synchronized List<AttendanceRecord> studentHistory(String studentId) {
+        int student = students.lookup(studentId);
+        List<AttendanceRecord> rows = new ArrayList<>();
+        if (student < 0) {
+            return rows;
+        }
+        for (int row : studentColumn.rowsEqualTo(student)) {
+            long local = dayColumn.get(row) * MILLIS_PER_DAY + timeColumn.get(row);
+            // Back from local wall time to UTC; ambiguous only in the hour a DST change repeats
+            long epochMillis = local - zone.getOffset(local - zone.getOffset(local));
+            int location = locationColumn.get(row);
+            rows.add(new AttendanceRecord(studentId, courses.valueOf(courseColumn.get(row)), epochMillis,
+                    location == NO_LOCATION ? null : locations.valueOf(location)));
+        }
+        rows.sort(Comparator.comparingLong(AttendanceRecord::getEpochMillis));
+        return rows;
+    }
+
+    private static long attendedKey(int course, int student) {
+        return ((long) course << 32) | student;
+    }
+}
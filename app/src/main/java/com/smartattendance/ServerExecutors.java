@@ -0,0 +1,40 @@
+package com.smartattendance;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thread-per-request executors for the headless servers. Uses virtual threads
+// when the runtime has them (Java 21+) and falls back to a bounded pool of
+// platform threads on older runtimes.
+public final class ServerExecutors {
+    private static final int FALLBACK_THREADS_PER_CORE = 16;
+
+    private ServerExecutors() {
+    }
+
+    public static ExecutorService newRequestExecutor(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Runtime.getRuntime().availableProcessors() * FALLBACK_THREADS_PER_CORE;
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public static boolean usesVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.smartattendance;
+
+import java.time.LocalDate;
+
+// Number of students marked present for one course on one day
+public final class SessionHeadcount {
+    private final String courseCode;
+    private final LocalDate date;
+    private final int headcount;
+
+    public SessionHeadcount(String courseCode, LocalDate date, int headcount) {
+        this.courseCode = courseCode;
+        this.date = date;
+        this.headcount = headcount;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getHeadcount() {
+        return headcount;
+    }
+}
@@ -0,0 +1,98 @@
+package com.smartattendance;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Logged-in sessions keyed by an opaque random token. Authenticated requests
+// look the token up here instead of re-hashing the password. Sessions idle
+// for longer than the timeout are evicted.
+public class SessionTable {
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    public static final class Session {
+        private final String username;
+        private final long createdMillis;
+        private volatile long lastAccessMillis;
+
+        Session(String username, long now) {
+            this.username = username;
+            this.createdMillis = now;
+            this.lastAccessMillis = now;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public long getCreatedMillis() {
+            return createdMillis;
+        }
+    }
+
+    private final long idleTimeoutMillis;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private volatile long nextSweepMillis;
+
+    public SessionTable() {
+        this(DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    public SessionTable(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public String create(String username) {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(username, System.currentTimeMillis()));
+        return token;
+    }
+
+    // Returns the live session for the token and refreshes its idle timer, or null
+    public Session touch(String token) {
+        if (token == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        sweepIfDue(now);
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (now - session.lastAccessMillis > idleTimeoutMillis) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastAccessMillis = now;
+        return session;
+    }
+
+    public void invalidate(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void sweepIfDue(long now) {
+        if (now < nextSweepMillis) {
+            return;
+        }
+        nextSweepMillis = now + SWEEP_INTERVAL_MILLIS;
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().lastAccessMillis > idleTimeoutMillis) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.smartattendance;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Signed, time-rotating session tokens for the QR display.
+//
+// A token reads SAS1:<course>:<session>:<window>:<signature>, where window is
+// the current rotation period (epoch seconds / rotation seconds) and the
+// signature is a truncated HMAC-SHA256 under a key derived per session from
+// the master key. A token is accepted during its own window and the one after
+// it, so a screenshot stops working within two rotation periods.
+//
+// Verification is built for bursts: per-session keys are derived once (and
+// only kept once a genuine token or issue() has used them, so forged tokens
+// cannot fill the key cache) and each key keeps a few initialized Macs to
+// hand out, recently verified
+// tokens are answered from a small LRU cache, and a two-generation replay
+// filter rejects the same token presented twice by the same student.
+public class SessionTokens {
+    public static final String PREFIX = "SAS1:";
+    public static final int DEFAULT_ROTATION_SECONDS = 30;
+    public static final String DEFAULT_KEY_FILE = "session.key";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 16;
+    private static final int CACHE_SIZE = 4096;
+    private static final int KEY_CACHE_SIZE = 1024;
+    private static final int MACS_PER_KEY = 8;
+
+    public enum Status {
+        VALID("Valid session token"),
+        MALFORMED("Not a session QR code"),
+        BAD_SIGNATURE("Session QR code is not genuine"),
+        EXPIRED("Session QR code has expired, scan the current one"),
+        REPLAYED("This session QR code was already used by this student");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    public static final class Verification {
+        private final Status status;
+        private final String courseCode;
+        private final String sessionId;
+        private final long window;
+
+        Verification(Status status, String courseCode, String sessionId, long window) {
+            this.status = status;
+            this.courseCode = courseCode;
+            this.sessionId = sessionId;
+            this.window = window;
+        }
+
+        public boolean isValid() {
+            return status == Status.VALID;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getCourseCode() {
+            return courseCode;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+    }
+
+    // An HMAC key with a small pool of initialized Macs. Requests run on
+    // short-lived virtual threads, so a Mac per thread was set up again for
+    // nearly every request; a pooled Mac is reused, and a new one is cloned
+    // from an initialized prototype, which skips the provider lookup and init.
+    private static final class SessionKey {
+        private final SecretKeySpec spec;
+        private final Mac prototype;
+        private final BlockingQueue<Mac> idle = new ArrayBlockingQueue<>(MACS_PER_KEY);
+
+        SessionKey(byte[] key) {
+            this.spec = new SecretKeySpec(key, ALGORITHM);
+            this.prototype = newMac(spec);
+        }
+
+        byte[] mac(byte[] data) {
+            Mac mac = idle.poll();
+            if (mac == null) {
+                mac = copy();
+            }
+            byte[] result = mac.doFinal(data);
+            // doFinal leaves the Mac reset for the next user; drop it when the pool is full
+            idle.offer(mac);
+            return result;
+        }
+
+        byte[] sign(String payload) {
+            byte[] full = mac(payload.getBytes(StandardCharsets.UTF_8));
+            byte[] truncated = new byte[SIGNATURE_BYTES];
+            System.arraycopy(full, 0, truncated, 0, SIGNATURE_BYTES);
+            return truncated;
+        }
+
+        private Mac copy() {
+            synchronized (prototype) {
+                try {
+                    return (Mac) prototype.clone();
+                } catch (CloneNotSupportedException e) {
+                    return newMac(spec);
+                }
+            }
+        }
+    }
+
+    private final SessionKey masterKey;
+    private final long rotationSeconds;
+    private final Map<String, SessionKey> sessionKeys = new LinkedHashMap<String, SessionKey>(KEY_CACHE_SIZE, 0.75f,
+            true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SessionKey> eldest) {
+            return size() > KEY_CACHE_SIZE;
+        }
+    };
+    private final Map<String, Verification> verified = new LinkedHashMap<String, Verification>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verification> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // Replay filter: keyed hashes of (token, student) seen in the current and previous window
+    private final SessionKey replayKey;
+    private final Object replayLock = new Object();
+    private LongHashSet replayCurrent = new LongHashSet(1024);
+    private LongHashSet replayPrevious = new LongHashSet(1024);
+    private long replayWindow = Long.MIN_VALUE;
+
+    public SessionTokens(byte[] masterKey, int rotationSeconds) {
+        this.masterKey = new SessionKey(masterKey.clone());
+        this.rotationSeconds = rotationSeconds;
+        // The filter lives in memory only, so its key need not survive a restart
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.replayKey = new SessionKey(key);
+    }
+
+    // Loads the master key from the file, creating a random one on first use
+    public static SessionTokens load(Path keyFile, int rotationSeconds) throws IOException {
+        byte[] key;
+        if (Files.exists(keyFile)) {
+            key = Base64.getDecoder().decode(Files.readString(keyFile, StandardCharsets.US_ASCII).trim());
+        } else {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            Files.createDirectories(keyFile.toAbsolutePath().getParent());
+            Files.writeString(keyFile, Base64.getEncoder().encodeToString(key), StandardCharsets.US_ASCII,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+        return new SessionTokens(key, rotationSeconds);
+    }
+
+    public static boolean isToken(String text) {
+        return text != null && text.startsWith(PREFIX);
+    }
+
+    public long getRotationSeconds() {
+        return rotationSeconds;
+    }
+
+    public long windowAt(long epochMillis) {
+        return Math.floorDiv(epochMillis / 1000, rotationSeconds);
+    }
+
+    // Milliseconds until the token issued now stops being the current one
+    public long millisUntilRotation(long epochMillis) {
+        long periodMillis = rotationSeconds * 1000;
+        return periodMillis - Math.floorMod(epochMillis, periodMillis);
+    }
+
+    public String issue(String courseCode, String sessionId, long epochMillis) {
+        checkPart(courseCode, "Course code");
+        checkPart(sessionId, "Session id");
+        String payload = courseCode + ":" + sessionId + ":" + windowAt(epochMillis);
+        SessionKey key = keyFor(courseCode, sessionId);
+        remember(courseCode, sessionId, key);
+        byte[] signature = key.sign(payload);
+        return PREFIX + payload + ":" + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    // Verifies the token and records its use by the student. studentId may be
+    // null to skip the replay filter.
+    public Verification verify(String token, String studentId, long epochMillis) {
+        Verification verification = check(token, epochMillis);
+        if (verification.isValid() && studentId != null && !recordUse(token, studentId, epochMillis)) {
+            return new Verification(Status.REPLAYED, verification.courseCode, verification.sessionId, verification.window);
+        }
+        return verification;
+    }
+
+    // Checks the signature and window only, without using the token up, so a
+    // mark that is then turned away for another reason can scan it again
+    public Verification check(String token, long epochMillis) {
+        Verification verification = verifySignature(token);
+        if (!verification.isValid()) {
+            return verification;
+        }
+        long now = windowAt(epochMillis);
+        if (verification.window != now && verification.window != now - 1) {
+            return new Verification(Status.EXPIRED, verification.courseCode, verification.sessionId, verification.window);
+        }
+        return verification;
+    }
+
+    // Records the student's use of a token that passed check(). Returns false
+    // if the student already used it.
+    public boolean recordUse(String token, String studentId, long epochMillis) {
+        return firstUse(token, studentId, windowAt(epochMillis));
+    }
+
+    private Verification verifySignature(String token) {
+        synchronized (verified) {
+            Verification cached = verified.get(token);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        if (!isToken(token)) {
+            return new Verification(Status.MALFORMED, null, null, 0);
+        }
+        String[] parts = token.substring(PREFIX.length()).split(":", -1);
+        if (parts.length != 4 || parts[0].isEmpty() || parts[1].isEmpty()) {
+            return new Verification(Status.MALFORMED, null, null, 0);
+        }
+        long window;
+        byte[] signature;
+        try {
+            window = Long.parseLong(parts[2]);
+            signature = Base64.getUrlDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            return new Verification(Status.MALFORMED, null, null, 0);
+        }
+
+        String payload = parts[0] + ":" + parts[1] + ":" + parts[2];
+        SessionKey key = keyFor(parts[0], parts[1]);
+        if (!MessageDigest.isEqual(key.sign(payload), signature)) {
+            return new Verification(Status.BAD_SIGNATURE, parts[0], parts[1], window);
+        }
+        remember(parts[0], parts[1], key);
+
+        Verification valid = new Verification(Status.VALID, parts[0], parts[1], window);
+        synchronized (verified) {
+            verified.put(token, valid);
+        }
+        return valid;
+    }
+
+    private boolean firstUse(String token, String studentId, long window) {
+        // Keyed, so nobody can craft a (token, student) pair that collides with another student's use
+        long hash = ByteBuffer.wrap(replayKey.sign(token + ":" + studentId)).getLong();
+        // -1 is reserved by LongHashSet
+        if (hash == -1) {
+            hash = 0;
+        }
+
+        synchronized (replayLock) {
+            if (window > replayWindow + 1) {
+                // Nothing seen in the last two windows is still acceptable
+                replayPrevious.clear();
+                replayCurrent.clear();
+                replayWindow = window;
+            } else if (window == replayWindow + 1) {
+                LongHashSet recycled = replayPrevious;
+                replayPrevious = replayCurrent;
+                replayCurrent = recycled;
+                replayCurrent.clear();
+                replayWindow = window;
+            }
+            // A request timed just before the latest rotation goes in the previous generation; the
+            // filter never moves back, so it cannot forget what the current window has seen
+            if (window == replayWindow) {
+                return !replayPrevious.contains(hash) && replayCurrent.add(hash);
+            }
+            if (window == replayWindow - 1) {
+                return !replayCurrent.contains(hash) && replayPrevious.add(hash);
+            }
+            // Older than both generations; refuse rather than admit a use that can no longer be checked
+            return false;
+        }
+    }
+
+    // The session's key, from the cache or derived afresh. Course and session
+    // come from the token before its signature is checked, so a key is only
+    // cached through remember().
+    private SessionKey keyFor(String courseCode, String sessionId) {
+        String id = courseCode + ":" + sessionId;
+        synchronized (sessionKeys) {
+            SessionKey key = sessionKeys.get(id);
+            if (key != null) {
+                return key;
+            }
+        }
+        return new SessionKey(masterKey.mac(id.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void remember(String courseCode, String sessionId, SessionKey key) {
+        synchronized (sessionKeys) {
+            sessionKeys.putIfAbsent(courseCode + ":" + sessionId, key);
+        }
+    }
+
+    int cachedKeys() {
+        synchronized (sessionKeys) {
+            return sessionKeys.size();
+        }
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static void checkPart(String value, String name) {
+        if (value == null || value.isEmpty() || value.indexOf(':') >= 0) {
+            throw new IllegalArgumentException(name + " must be non-empty and must not contain ':'");
+        }
+    }
+}
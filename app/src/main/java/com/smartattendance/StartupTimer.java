@@ -0,0 +1,77 @@
+package com.smartattendance;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Milestones of one GUI launch, in milliseconds since the JVM process started,
+// so JVM boot and class loading before main() are counted too.
+//
+// Two numbers matter to someone standing at the kiosk: time to first frame
+// (the login window has painted) and time to first scan ready (the attendance
+// log is open, the services are up and the QR codec is warm, so a scan is
+// answered at full speed). Once both are reached a one-line report goes to
+// stderr and into the metrics. With -Dattendance.startup.exit=true the
+// process then exits, which makes launches easy to time from a script.
+public final class StartupTimer {
+    public static final String EXIT_PROPERTY = "attendance.startup.exit";
+
+    public static final String MAIN = "main";
+    public static final String FIRST_FRAME = "first frame";
+    public static final String SERVICES_READY = "services ready";
+    public static final String CODEC_WARM = "codec warm";
+    public static final String SCAN_READY = "scan ready";
+
+    private static final long LAUNCH_MILLIS = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElseGet(System::currentTimeMillis);
+
+    private static final Map<String, Long> milestones = new LinkedHashMap<>();
+    private static boolean reported;
+
+    private StartupTimer() {
+    }
+
+    // Records the milestone the first time it is reached; later calls are ignored
+    public static void mark(String milestone) {
+        String report;
+        synchronized (StartupTimer.class) {
+            milestones.putIfAbsent(milestone, System.currentTimeMillis() - LAUNCH_MILLIS);
+            // A scan is served at full speed once both the services and the codec are ready
+            if (milestones.containsKey(SERVICES_READY) && milestones.containsKey(CODEC_WARM)) {
+                milestones.putIfAbsent(SCAN_READY, Math.max(milestones.get(SERVICES_READY),
+                        milestones.get(CODEC_WARM)));
+            }
+            if (reported || !milestones.containsKey(FIRST_FRAME) || !milestones.containsKey(SCAN_READY)) {
+                return;
+            }
+            reported = true;
+            Metrics.getInstance().recordStartup(milestones.get(FIRST_FRAME), milestones.get(SCAN_READY));
+            report = report();
+        }
+        System.err.println(report);
+        if (Boolean.getBoolean(EXIT_PROPERTY)) {
+            System.exit(0);
+        }
+    }
+
+    // Milliseconds since launch at which the milestone was reached, or -1
+    public static synchronized long elapsed(String milestone) {
+        return milestones.getOrDefault(milestone, -1L);
+    }
+
+    private static String report() {
+        StringBuilder text = new StringBuilder(128);
+        text.append("Startup: first frame ").append(milestones.get(FIRST_FRAME))
+                .append(" ms, scan ready ").append(milestones.get(SCAN_READY)).append(" ms (");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : milestones.entrySet()) {
+            if (!entry.getKey().equals(FIRST_FRAME) && !entry.getKey().equals(SCAN_READY)) {
+                text.append(separator).append(entry.getKey()).append(' ').append(entry.getValue());
+                separator = ", ";
+            }
+        }
+        // The JVM reports "sharing" when classes come from a CDS archive
+        return text.append("; ").append(System.getProperty("java.vm.info", "")).append(')').toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.smartattendance;
+
+import java.util.Arrays;
+
+// Maps strings to dense int ids (0, 1, 2, ...) so hot paths can work on
+// primitive keys. Open addressing with linear probing; lookups never allocate.
+public class StringDictionary {
+    private static final int EMPTY = -1;
+
+    private String[] keys;
+    private int[] ids;
+    private String[] values = new String[16];
+    private int size;
+    private int mask;
+
+    public StringDictionary() {
+        this(16);
+    }
+
+    public StringDictionary(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        keys = new String[capacity];
+        ids = new int[capacity];
+        Arrays.fill(ids, EMPTY);
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns the id for the string, or -1 if it has never been interned
+    public int lookup(String key) {
+        int slot = mix(key.hashCode()) & mask;
+        while (ids[slot] != EMPTY) {
+            if (keys[slot].equals(key)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    public int intern(String key) {
+        int slot = mix(key.hashCode()) & mask;
+        while (ids[slot] != EMPTY) {
+            if (keys[slot].equals(key)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size++;
+        keys[slot] = key;
+        ids[slot] = id;
+        if (id == values.length) {
+            values = Arrays.copyOf(values, id * 2);
+        }
+        values[id] = key;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return id;
+    }
+
+    public String valueOf(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown id " + id);
+        }
+        return values[id];
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new String[capacity];
+        ids = new int[capacity];
+        Arrays.fill(ids, EMPTY);
+        mask = capacity - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                int slot = mix(oldKeys[i].hashCode()) & mask;
+                while (ids[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+    }
+
+    static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 8)) << 1;
+        return Math.max(capacity, 16);
+    }
+}
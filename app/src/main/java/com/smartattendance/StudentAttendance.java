@@ -0,0 +1,37 @@
+package com.smartattendance;
+
+// One student's attendance in one course: sessions attended out of the
+// sessions held so far
+public final class StudentAttendance {
+    private final String studentId;
+    private final String courseCode;
+    private final int attended;
+    private final int sessions;
+
+    public StudentAttendance(String studentId, String courseCode, int attended, int sessions) {
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+        this.attended = attended;
+        this.sessions = sessions;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public int getAttended() {
+        return attended;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public double getPercent() {
+        return sessions == 0 ? 0 : attended * 100.0 / sessions;
+    }
+}
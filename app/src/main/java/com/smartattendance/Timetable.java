@@ -0,0 +1,684 @@
+package com.smartattendance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Course timetable: which course meets in which room, on which weekdays and
+// from when to when. When the data directory holds timetable.csv, a mark is
+// accepted only while a session of its course is open, and only in that
+// session's room when the mark's location resolved to a room on the timetable.
+//
+// The file is CSV; the first line names the columns:
+//   course  course code as marked (required)
+//   room    geofence id of the room, as recorded with each mark (required)
+//   days    weekdays, e.g. "MON WED FRI" or "MON-FRI" (required)
+//   start   hh:mm local time (required)
+//   end     hh:mm, later the same day (required)
+//   grace   minutes before start and after end that marks are still accepted (default 10)
+//   from    first date the session runs, yyyy-mm-dd (optional)
+//   to      last date the session runs (optional)
+// Blank lines and lines starting with # are ignored.
+//
+// Lookups are constant time. For the current day every course and every room
+// has a table with one byte per minute naming the session open in that
+// minute, so "which session is open for this course now" is a map lookup and
+// an array read however many courses there are. Tables are built when a day
+// is first asked for. When the timetable changes, only the tables of courses
+// and rooms whose sessions changed are rebuilt; the rest carry over.
+public final class Timetable {
+    public static final String DEFAULT_FILE = "timetable.csv";
+    public static final int DEFAULT_GRACE_MINUTES = 10;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // Day tables store session positions in a byte
+    private static final int MAX_SESSIONS_PER_DAY = 255;
+    private static final long WATCH_INTERVAL_SECONDS = 5;
+
+    public enum Status {
+        OPEN("Session in progress"),
+        WRONG_ROOM("This course meets in another room now"),
+        NOT_RUNNING("No session of this course is running now"),
+        UNKNOWN_COURSE("Course is not on the timetable");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    // One timetable line: a course meeting in a room on some weekdays
+    public static final class Session {
+        private final String course;
+        private final String room;
+        // Bit (DayOfWeek.getValue() - 1) set for each day the session meets
+        private final int days;
+        private final int startMinute;
+        private final int endMinute;
+        private final int graceMinutes;
+        private final LocalDate from;
+        private final LocalDate to;
+
+        public Session(String course, String room, int days, int startMinute, int endMinute, int graceMinutes,
+                       LocalDate from, LocalDate to) {
+            if (course == null || course.isBlank() || room == null || room.isBlank()) {
+                throw new IllegalArgumentException("course and room are required");
+            }
+            if (days == 0 || (days & ~0x7F) != 0) {
+                throw new IllegalArgumentException("no weekdays given");
+            }
+            if (startMinute < 0 || endMinute > MINUTES_PER_DAY || startMinute >= endMinute) {
+                throw new IllegalArgumentException("end must be after start on the same day");
+            }
+            if (graceMinutes < 0 || graceMinutes > 240) {
+                throw new IllegalArgumentException("grace must be 0 to 240 minutes");
+            }
+            if (from != null && to != null && to.isBefore(from)) {
+                throw new IllegalArgumentException("to is before from");
+            }
+            this.course = course.trim();
+            this.room = room.trim();
+            this.days = days;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+            this.graceMinutes = graceMinutes;
+            this.from = from;
+            this.to = to;
+        }
+
+        public String getCourse() {
+            return course;
+        }
+
+        public String getRoom() {
+            return room;
+        }
+
+        public int getStartMinute() {
+            return startMinute;
+        }
+
+        public int getEndMinute() {
+            return endMinute;
+        }
+
+        public int getGraceMinutes() {
+            return graceMinutes;
+        }
+
+        public boolean runsOn(LocalDate date) {
+            return (days & (1 << (date.getDayOfWeek().getValue() - 1))) != 0
+                    && (from == null || !date.isBefore(from))
+                    && (to == null || !date.isAfter(to));
+        }
+
+        // First minute marks are accepted, and the minute after the last
+        int opens() {
+            return Math.max(0, startMinute - graceMinutes);
+        }
+
+        int closes() {
+            return Math.min(MINUTES_PER_DAY, endMinute + graceMinutes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Session)) {
+                return false;
+            }
+            Session session = (Session) other;
+            return course.equals(session.course) && room.equals(session.room) && days == session.days
+                    && startMinute == session.startMinute && endMinute == session.endMinute
+                    && graceMinutes == session.graceMinutes && Objects.equals(from, session.from)
+                    && Objects.equals(to, session.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(course, room, days, startMinute, endMinute, graceMinutes, from, to);
+        }
+
+        @Override
+        public String toString() {
+            return course + " in " + room + " " + formatMinute(startMinute) + "-" + formatMinute(endMinute);
+        }
+    }
+
+    public static final class Check {
+        private final Status status;
+        private final Session session;
+
+        Check(Status status, Session session) {
+            this.status = status;
+            this.session = session;
+        }
+
+        public boolean isOpen() {
+            return status == Status.OPEN;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        // The open session (OPEN, or WRONG_ROOM: the one in another room), the
+        // course's next session today (NOT_RUNNING), or null
+        public Session getSession() {
+            return session;
+        }
+    }
+
+    private static final Check UNKNOWN_COURSE = new Check(Status.UNKNOWN_COURSE, null);
+
+    // The sessions of one course or room on one day and, for every minute of
+    // the day, which of them is open (0 for none, else position + 1)
+    private static final class DayTable {
+        final Session[] sessions;
+        final byte[] minutes = new byte[MINUTES_PER_DAY];
+
+        DayTable(List<Session> running) {
+            sessions = running.toArray(new Session[0]);
+            Arrays.sort(sessions, Comparator.comparingInt((Session s) -> s.startMinute)
+                    .thenComparingInt(s -> s.endMinute));
+            // Class time first, then the grace periods around it, so when one
+            // session's late grace meets the next one's early grace in the same
+            // room, the session actually scheduled in that minute wins
+            for (int i = 0; i < sessions.length; i++) {
+                fill(sessions[i].startMinute, sessions[i].endMinute, i + 1);
+            }
+            for (int i = 0; i < sessions.length; i++) {
+                fill(sessions[i].opens(), sessions[i].closes(), i + 1);
+            }
+        }
+
+        private void fill(int from, int to, int slot) {
+            for (int minute = from; minute < to; minute++) {
+                if (minutes[minute] == 0) {
+                    minutes[minute] = (byte) slot;
+                }
+            }
+        }
+
+        Session at(int minute) {
+            int slot = minutes[minute] & 0xFF;
+            return slot == 0 ? null : sessions[slot - 1];
+        }
+
+        Session nextAfter(int minute) {
+            for (Session session : sessions) {
+                if (session.opens() > minute) {
+                    return session;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Tables for one day; keys without a session that day are absent
+    private static final class Day {
+        final int epochDay;
+        final Map<String, DayTable> byCourse;
+        final Map<String, DayTable> byRoom;
+
+        Day(int epochDay, Map<String, DayTable> byCourse, Map<String, DayTable> byRoom) {
+            this.epochDay = epochDay;
+            this.byCourse = byCourse;
+            this.byRoom = byRoom;
+        }
+    }
+
+    private final TimeZone zone;
+    // Sessions grouped by course and by room, replaced together on every update
+    private volatile Map<String, List<Session>> courses;
+    private volatile Map<String, List<Session>> rooms;
+    private volatile Day today;
+
+    private Path file;
+    private FileTime loadedModified;
+    private long loadedSize;
+    private ScheduledExecutorService watcher;
+
+    public Timetable(List<Session> sessions) {
+        this(sessions, TimeZone.getDefault());
+    }
+
+    public Timetable(List<Session> sessions, TimeZone zone) {
+        this.zone = zone;
+        this.courses = group(sessions, Session::getCourse);
+        this.rooms = group(sessions, Session::getRoom);
+    }
+
+    // The timetable in the data directory, or null when there is none (no
+    // timetable checks, every course is accepted at any time)
+    public static Timetable loadDefault(Path dataDir) throws IOException {
+        Path file = dataDir.resolve(DEFAULT_FILE);
+        return Files.exists(file) ? load(file) : null;
+    }
+
+    // loadDefault() plus startWatching(), for the app and the servers
+    public static Timetable startFromConfig(Path dataDir) throws IOException {
+        Timetable timetable = loadDefault(dataDir);
+        if (timetable != null) {
+            timetable.startWatching();
+            System.err.println("Timetable: " + timetable.getCourseCount() + " courses in "
+                    + timetable.getRoomCount() + " rooms; marks are accepted only during sessions");
+        }
+        return timetable;
+    }
+
+    public static Timetable load(Path file) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        long size = Files.size(file);
+        Timetable timetable = new Timetable(read(file));
+        synchronized (timetable) {
+            timetable.file = file;
+            timetable.loadedModified = modified;
+            timetable.loadedSize = size;
+        }
+        return timetable;
+    }
+
+    private static List<Session> read(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(in);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static List<Session> parse(String csv) {
+        try {
+            return parse(new StringReader(csv));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Session> parse(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        Map<String, Integer> columns = null;
+        List<Session> sessions = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.trim().startsWith("#")) {
+                continue;
+            }
+            List<String> fields = AttendanceImporter.splitCsv(line);
+            if (columns == null) {
+                columns = new HashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    columns.putIfAbsent(fields.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+                for (String required : new String[]{"course", "room", "days", "start", "end"}) {
+                    if (!columns.containsKey(required)) {
+                        throw new IllegalArgumentException("header must name course, room, days, start and end");
+                    }
+                }
+                continue;
+            }
+            try {
+                String grace = field(fields, columns.get("grace"));
+                String from = field(fields, columns.get("from"));
+                String to = field(fields, columns.get("to"));
+                sessions.add(new Session(field(fields, columns.get("course")), field(fields, columns.get("room")),
+                        parseDays(field(fields, columns.get("days"))),
+                        parseMinute(field(fields, columns.get("start"))),
+                        parseMinute(field(fields, columns.get("end"))),
+                        grace.isEmpty() ? DEFAULT_GRACE_MINUTES : Integer.parseInt(grace),
+                        from.isEmpty() ? null : LocalDate.parse(from), to.isEmpty() ? null : LocalDate.parse(to)));
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        checkSessionsPerDay(sessions);
+        return sessions;
+    }
+
+    private static String field(List<String> fields, Integer index) {
+        return index == null || index >= fields.size() ? "" : fields.get(index).trim();
+    }
+
+    // "MON WED FRI", "Mon,Tue" (quoted) or ranges such as "MON-FRI"
+    static int parseDays(String text) {
+        int days = 0;
+        for (String part : text.toUpperCase(Locale.ROOT).split("[\\s,;/]+")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            int dash = part.indexOf('-');
+            if (dash < 0) {
+                days |= 1 << (day(part).getValue() - 1);
+                continue;
+            }
+            int first = day(part.substring(0, dash)).getValue();
+            int last = day(part.substring(dash + 1)).getValue();
+            for (int d = first; ; d = d % 7 + 1) {
+                days |= 1 << (d - 1);
+                if (d == last) {
+                    break;
+                }
+            }
+        }
+        if (days == 0) {
+            throw new IllegalArgumentException("no weekdays given");
+        }
+        return days;
+    }
+
+    private static DayOfWeek day(String text) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (text.length() >= 2 && day.name().startsWith(text)) {
+                return day;
+            }
+        }
+        throw new IllegalArgumentException("unknown weekday \"" + text + "\"");
+    }
+
+    // "9:05" or "09:05"; "24:00" is the end of the day
+    static int parseMinute(String text) {
+        int colon = text.indexOf(':');
+        if (colon < 1) {
+            throw new IllegalArgumentException("time must be hh:mm, not \"" + text + "\"");
+        }
+        int hours = Integer.parseInt(text.substring(0, colon));
+        int minutes = Integer.parseInt(text.substring(colon + 1));
+        if (hours < 0 || minutes < 0 || minutes > 59 || hours * 60 + minutes > MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("time out of range: " + text);
+        }
+        return hours * 60 + minutes;
+    }
+
+    static String formatMinute(int minute) {
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+
+    private static void checkSessionsPerDay(List<Session> sessions) {
+        Map<String, int[]> perWeekday = new HashMap<>();
+        for (Session session : sessions) {
+            for (String key : new String[]{"course " + session.course, "room " + session.room}) {
+                int[] counts = perWeekday.computeIfAbsent(key, k -> new int[7]);
+                for (int d = 0; d < 7; d++) {
+                    if ((session.days & (1 << d)) != 0 && ++counts[d] > MAX_SESSIONS_PER_DAY) {
+                        throw new IllegalArgumentException(key + " has more than " + MAX_SESSIONS_PER_DAY
+                                + " sessions on " + DayOfWeek.of(d + 1));
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, List<Session>> group(List<Session> sessions, Function<Session, String> key) {
+        Map<String, List<Session>> groups = new HashMap<>();
+        for (Session session : sessions) {
+            groups.computeIfAbsent(key.apply(session), k -> new ArrayList<>(4)).add(session);
+        }
+        groups.replaceAll((k, list) -> Collections.unmodifiableList(list));
+        return Collections.unmodifiableMap(groups);
+    }
+
+    // Is a session of the course open at the given time, and (when room is
+    // not null and on the timetable) is it held there? room is the geofence
+    // id the mark's location resolved to.
+    public Check check(String course, String room, long epochMillis) {
+        if (!courses.containsKey(course)) {
+            return UNKNOWN_COURSE;
+        }
+        long local = epochMillis + zone.getOffset(epochMillis);
+        Day day = day((int) Math.floorDiv(local, MILLIS_PER_DAY));
+        int minute = (int) (Math.floorMod(local, MILLIS_PER_DAY) / 60_000);
+
+        DayTable courseTable = day.byCourse.get(course);
+        Session session = courseTable == null ? null : courseTable.at(minute);
+        if (session == null) {
+            return new Check(Status.NOT_RUNNING, courseTable == null ? null : courseTable.nextAfter(minute));
+        }
+        if (room != null && !room.equals(session.room) && rooms.containsKey(room)) {
+            // A course can meet in several rooms at once (sections, overflow rooms)
+            DayTable roomTable = day.byRoom.get(room);
+            Session here = roomTable == null ? null : roomTable.at(minute);
+            if (here != null && here.course.equals(course)) {
+                return new Check(Status.OPEN, here);
+            }
+            return new Check(Status.WRONG_ROOM, session);
+        }
+        return new Check(Status.OPEN, session);
+    }
+
+    // The session open in the room at the given time, or null
+    public Session sessionInRoom(String room, long epochMillis) {
+        long local = epochMillis + zone.getOffset(epochMillis);
+        DayTable table = day((int) Math.floorDiv(local, MILLIS_PER_DAY)).byRoom.get(room);
+        return table == null ? null : table.at((int) (Math.floorMod(local, MILLIS_PER_DAY) / 60_000));
+    }
+
+    // Every session on the date, by start time
+    public List<Session> sessionsOn(LocalDate date) {
+        List<Session> running = new ArrayList<>();
+        for (List<Session> sessions : courses.values()) {
+            for (Session session : sessions) {
+                if (session.runsOn(date)) {
+                    running.add(session);
+                }
+            }
+        }
+        running.sort(Comparator.comparingInt((Session s) -> s.startMinute).thenComparing(s -> s.course));
+        return running;
+    }
+
+    public int getCourseCount() {
+        return courses.size();
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public boolean hasCourse(String course) {
+        return courses.containsKey(course);
+    }
+
+    public boolean hasRoom(String room) {
+        return rooms.containsKey(room);
+    }
+
+    // The tables for a day, built on first use. Only the latest day is kept;
+    // a lookup for an earlier one (a clock stepped back) builds throwaway tables.
+    private Day day(int epochDay) {
+        Day day = today;
+        if (day != null && day.epochDay == epochDay) {
+            return day;
+        }
+        synchronized (this) {
+            day = today;
+            if (day != null && day.epochDay == epochDay) {
+                return day;
+            }
+            Day built = build(epochDay, courses, rooms, null, null, null);
+            if (day == null || epochDay > day.epochDay) {
+                today = built;
+            }
+            return built;
+        }
+    }
+
+    // Tables for the day from the grouped sessions. With a previous day's
+    // tables for the same date, keys whose sessions are unchanged reuse them.
+    private static Day build(int epochDay, Map<String, List<Session>> courses, Map<String, List<Session>> rooms,
+                             Day previous, Map<String, List<Session>> oldCourses, Map<String, List<Session>> oldRooms) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return new Day(epochDay,
+                tables(date, courses, previous == null ? null : previous.byCourse, oldCourses),
+                tables(date, rooms, previous == null ? null : previous.byRoom, oldRooms));
+    }
+
+    private static Map<String, DayTable> tables(LocalDate date, Map<String, List<Session>> groups,
+                                                Map<String, DayTable> previous, Map<String, List<Session>> old) {
+        Map<String, DayTable> tables = new HashMap<>();
+        List<Session> running = new ArrayList<>();
+        for (Map.Entry<String, List<Session>> group : groups.entrySet()) {
+            String key = group.getKey();
+            if (previous != null && group.getValue().equals(old.get(key))) {
+                DayTable table = previous.get(key);
+                if (table != null) {
+                    tables.put(key, table);
+                }
+                continue;
+            }
+            running.clear();
+            for (Session session : group.getValue()) {
+                if (session.runsOn(date)) {
+                    running.add(session);
+                }
+            }
+            if (!running.isEmpty()) {
+                tables.put(key, new DayTable(running));
+            }
+        }
+        return tables;
+    }
+
+    // Replaces the timetable. Today's tables are updated at once, rebuilding
+    // only those of courses and rooms whose sessions changed. Returns the
+    // number of tables rebuilt.
+    public int update(List<Session> sessions) {
+        checkSessionsPerDay(sessions);
+        Map<String, List<Session>> newCourses = group(sessions, Session::getCourse);
+        Map<String, List<Session>> newRooms = group(sessions, Session::getRoom);
+        synchronized (this) {
+            Day previous = today;
+            Map<String, List<Session>> oldCourses = courses;
+            Map<String, List<Session>> oldRooms = rooms;
+            if (previous != null) {
+                today = build(previous.epochDay, newCourses, newRooms, previous, oldCourses, oldRooms);
+            }
+            courses = newCourses;
+            rooms = newRooms;
+            return changed(newCourses, oldCourses) + changed(newRooms, oldRooms);
+        }
+    }
+
+    private static int changed(Map<String, List<Session>> groups, Map<String, List<Session>> old) {
+        int changed = 0;
+        for (Map.Entry<String, List<Session>> group : groups.entrySet()) {
+            if (!group.getValue().equals(old.get(group.getKey()))) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // Re-reads the file on a daemon thread when it changes, and builds each
+    // new day's tables just after midnight, so marks never wait for either.
+    // A file that fails to parse is reported and the previous timetable kept.
+    public synchronized void startWatching() {
+        if (watcher != null || file == null) {
+            return;
+        }
+        watcher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "timetable-watch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(this::poll, WATCH_INTERVAL_SECONDS, WATCH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void poll() {
+        try {
+            reloadIfChanged();
+            long now = System.currentTimeMillis();
+            day((int) Math.floorDiv(now + zone.getOffset(now), MILLIS_PER_DAY));
+        } catch (RuntimeException e) {
+            System.err.println("Timetable: " + e);
+        }
+    }
+
+    // Returns true if the file had changed and was loaded
+    public boolean reloadIfChanged() {
+        Path path;
+        synchronized (this) {
+            path = file;
+        }
+        if (path == null) {
+            return false;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            long size = Files.size(path);
+            synchronized (this) {
+                if (modified.equals(loadedModified) && size == loadedSize) {
+                    return false;
+                }
+                loadedModified = modified;
+                loadedSize = size;
+            }
+            int rebuilt = update(read(path));
+            System.err.println("Timetable: reloaded " + path + ", " + courses.size() + " courses in "
+                    + rooms.size() + " rooms (" + rebuilt + " changed)");
+            return true;
+        } catch (IOException e) {
+            System.err.println("Timetable: keeping the previous timetable: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Headless entry point: timetable [data-dir] [yyyy-mm-dd]
+    // Checks the timetable file and prints the day's sessions room by room
+    public static void run(String[] args) throws IOException {
+        Path dataDir = Paths.get(args.length > 0 ? args[0] : "attendance-data");
+        LocalDate date = args.length > 1 ? LocalDate.parse(args[1]) : LocalDate.now();
+        Timetable timetable = loadDefault(dataDir);
+        if (timetable == null) {
+            System.out.println("No " + dataDir.resolve(DEFAULT_FILE) + "; marks are not checked against a timetable");
+            return;
+        }
+        System.out.println(timetable.getCourseCount() + " courses in " + timetable.getRoomCount() + " rooms");
+        List<Session> sessions = timetable.sessionsOn(date);
+        System.out.println(date + " (" + date.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ROOT) + "): "
+                + sessions.size() + " sessions");
+        Map<String, List<Session>> byRoom = new TreeMap<>();
+        for (Session session : sessions) {
+            byRoom.computeIfAbsent(session.room, k -> new ArrayList<>()).add(session);
+        }
+        for (Map.Entry<String, List<Session>> room : byRoom.entrySet()) {
+            StringBuilder line = new StringBuilder(room.getKey()).append(':');
+            for (Session session : room.getValue()) {
+                line.append("  ").append(formatMinute(session.startMinute)).append('-')
+                        .append(formatMinute(session.endMinute)).append(' ').append(session.course);
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.smartattendance;
+
+import javax.swing.SwingUtilities;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Runs slow UI actions (QR work, file I/O, marking) off the Event Dispatch
+// Thread on a small bounded pool, SwingWorker style: the work runs in the
+// background and its result or error is delivered back on the EDT.
+//
+// Every task has a key. A second submit with the same key while the first is
+// still running is coalesced according to the policy instead of being queued
+// behind it. All methods must be called on the EDT.
+public class UiTaskRunner {
+    public enum Policy {
+        // Drop the new request; the running one will finish (double clicks)
+        IGNORE_WHILE_RUNNING,
+        // Cancel the running task and start the new one (latest input wins)
+        REPLACE_RUNNING
+    }
+
+    public interface Task<T> {
+        T run(Progress progress) throws Exception;
+    }
+
+    // Lets a task report progress. Safe to call from the worker thread.
+    public interface Progress {
+        // percent is 0-100, or -1 when the amount of work is unknown
+        void update(String message, int percent);
+
+        boolean isCancelled();
+    }
+
+    // Where task state is shown (the status bar). Always called on the EDT.
+    public interface StatusView {
+        void taskStarted(String title, Runnable cancel);
+
+        void taskProgress(String title, String message, int percent);
+
+        void taskFinished(String title, String message);
+    }
+
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final ThreadPoolExecutor executor;
+    private final StatusView view;
+    private final Map<String, Handle<?>> running = new HashMap<>();
+
+    public UiTaskRunner(StatusView view) {
+        this(view, Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public UiTaskRunner(StatusView view, int threads) {
+        this.view = view;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "ui-task-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public boolean isRunning(String key) {
+        return running.containsKey(key);
+    }
+
+    public void cancel(String key) {
+        Handle<?> handle = running.get(key);
+        if (handle != null) {
+            handle.cancel();
+        }
+    }
+
+    // Returns false if the request was coalesced into an already running task
+    public <T> boolean submit(String key, String title, Policy policy, Task<T> task,
+                              Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Handle<?> current = running.get(key);
+        if (current != null) {
+            if (policy == Policy.IGNORE_WHILE_RUNNING) {
+                return false;
+            }
+            current.cancel();
+        }
+
+        Handle<T> handle = new Handle<>(key, title, task, onSuccess, onFailure);
+        running.put(key, handle);
+        view.taskStarted(title, handle::cancel);
+        try {
+            handle.future = executor.submit(handle::execute);
+        } catch (RejectedExecutionException e) {
+            running.remove(key);
+            view.taskFinished(title, "Busy, please try again");
+            onFailure.accept(new IllegalStateException("Too many tasks are already running", e));
+        }
+        return true;
+    }
+
+    private final class Handle<T> implements Progress {
+        private final String key;
+        private final String title;
+        private final Task<T> task;
+        private final Consumer<T> onSuccess;
+        private final Consumer<Throwable> onFailure;
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        Handle(String key, String title, Task<T> task, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+            this.key = key;
+            this.title = title;
+            this.task = task;
+            this.onSuccess = onSuccess;
+            this.onFailure = onFailure;
+        }
+
+        void execute() {
+            T result = null;
+            Throwable failure = null;
+            try {
+                result = task.run(this);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            T value = result;
+            Throwable error = failure;
+            SwingUtilities.invokeLater(() -> complete(value, error));
+        }
+
+        private void complete(T result, Throwable failure) {
+            if (running.get(key) == this) {
+                running.remove(key);
+            }
+            if (cancelled) {
+                // cancel() already updated the view
+                return;
+            }
+            if (failure == null) {
+                view.taskFinished(title, "Ready");
+                onSuccess.accept(result);
+            } else {
+                view.taskFinished(title, title + " failed");
+                onFailure.accept(failure instanceof InterruptedException
+                        ? new CancellationException(title + " interrupted") : failure);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+            if (running.get(key) == this) {
+                running.remove(key);
+                view.taskFinished(title, title + " cancelled");
+            }
+        }
+
+        @Override
+        public void update(String message, int percent) {
+            if (!cancelled) {
+                SwingUtilities.invokeLater(() -> {
+                    if (!cancelled) {
+                        view.taskProgress(title, message, percent);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled || Thread.currentThread().isInterrupted();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.smartattendance;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Operator credentials, stored as salted PBKDF2-HMAC-SHA256 hashes in a
+// properties file:
+//
+//   admin=pbkdf2-sha256:<iterations>:<base64 salt>:<base64 hash>
+//
+// The work factor is tunable. Hashes made with a different iteration count
+// still verify, and are re-hashed at the current cost on the next successful
+// login. When the file does not exist yet it is created with the default
+// admin/1234 account so a fresh install can still log in.
+public class UserStore {
+    public static final String DEFAULT_FILE = "users.properties";
+    public static final int DEFAULT_ITERATIONS = 210_000;
+    public static final String ITERATIONS_PROPERTY = "attendance.pbkdf2.iterations";
+
+    private static final String SCHEME = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final class Credential {
+        final int iterations;
+        final byte[] salt;
+        final byte[] hash;
+
+        Credential(int iterations, byte[] salt, byte[] hash) {
+            this.iterations = iterations;
+            this.salt = salt;
+            this.hash = hash;
+        }
+
+        String encode() {
+            Base64.Encoder base64 = Base64.getEncoder();
+            return SCHEME + ":" + iterations + ":" + base64.encodeToString(salt) + ":" + base64.encodeToString(hash);
+        }
+
+        static Credential decode(String value) {
+            String[] parts = value.trim().split(":");
+            if (parts.length != 4 || !SCHEME.equals(parts[0])) {
+                throw new IllegalArgumentException("Unsupported credential format");
+            }
+            Base64.Decoder base64 = Base64.getDecoder();
+            return new Credential(Integer.parseInt(parts[1]), base64.decode(parts[2]), base64.decode(parts[3]));
+        }
+    }
+
+    private final Path file;
+    private final int iterations;
+    private final Map<String, Credential> users = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    // Hashed against for unknown users so they take as long as a wrong password.
+    // Only the salt is needed: the result is never compared, so nothing is
+    // hashed up front and opening the store stays off the startup path
+    private final byte[] decoySalt = new byte[SALT_BYTES];
+
+    // A null file keeps the store in memory only
+    public UserStore(Path file, int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        this.file = file;
+        this.iterations = iterations;
+        random.nextBytes(decoySalt);
+    }
+
+    public static UserStore load(Path file) throws IOException {
+        return load(file, Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS));
+    }
+
+    public static UserStore load(Path file, int iterations) throws IOException {
+        UserStore store = new UserStore(file, iterations);
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(in);
+            }
+            for (String username : properties.stringPropertyNames()) {
+                try {
+                    store.users.put(username, Credential.decode(properties.getProperty(username)));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("User store: ignoring unreadable entry for " + username);
+                }
+            }
+        } else {
+            store.setPassword("admin", "1234".toCharArray());
+            System.err.println("User store: created " + file.toAbsolutePath()
+                    + " with the default admin account, change its password");
+        }
+        return store;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public boolean hasUser(String username) {
+        return users.containsKey(username);
+    }
+
+    public boolean verify(String username, char[] password) {
+        Credential stored = username == null ? null : users.get(username);
+        if (stored == null) {
+            hash(password, decoySalt, iterations);
+            return false;
+        }
+        boolean matches = MessageDigest.isEqual(stored.hash, hash(password, stored.salt, stored.iterations));
+        if (matches && stored.iterations != iterations) {
+            try {
+                setPassword(username, password);
+            } catch (IOException e) {
+                System.err.println("User store: failed to upgrade hash for " + username + ": " + e.getMessage());
+            }
+        }
+        return matches;
+    }
+
+    public void setPassword(String username, char[] password) throws IOException {
+        if (username == null || username.isEmpty() || username.indexOf(':') >= 0) {
+            throw new IllegalArgumentException("Invalid username");
+        }
+        users.put(username, newCredential(password));
+        save();
+    }
+
+    private Credential newCredential(char[] password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return new Credential(iterations, salt, hash(password, salt, iterations));
+    }
+
+    // Written to a temporary file and moved into place so a crash never leaves a half-written store
+    private synchronized void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Map<String, String> sorted = new TreeMap<>();
+        users.forEach((username, credential) -> sorted.put(username, credential.encode()));
+        Properties properties = new Properties();
+        properties.putAll(sorted);
+
+        Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(out, "Smart Attendance operators (PBKDF2-HMAC-SHA256)");
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] hash(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    static void wipe(char[] password) {
+        if (password != null) {
+            Arrays.fill(password, '\0');
+        }
+    }
+}
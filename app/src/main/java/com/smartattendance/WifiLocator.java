@@ -0,0 +1,81 @@
+package com.smartattendance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Finds the BSSID of the Wi-Fi access point this machine is connected to,
+// using the platform's own tool (netsh, nmcli or airport), so the desktop
+// form can verify its location without GPS. Blocking; call off the EDT.
+public final class WifiLocator {
+    private static final long TIMEOUT_SECONDS = 5;
+    private static final String AIRPORT = "/System/Library/PrivateFrameworks/Apple80211.framework"
+            + "/Versions/Current/Resources/airport";
+
+    private WifiLocator() {
+    }
+
+    // Returns the connected access point's BSSID, or null if there is none or
+    // it cannot be determined on this platform
+    public static String detectBssid() {
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        try {
+            if (os.contains("win")) {
+                return valueAfter(run("netsh", "wlan", "show", "interfaces"), "BSSID");
+            }
+            if (os.contains("mac")) {
+                return valueAfter(run(AIRPORT, "-I"), "BSSID");
+            }
+            // nmcli terse output escapes the colons inside the MAC: yes:A4\:5E\:...
+            for (String line : run("nmcli", "-t", "-f", "ACTIVE,BSSID", "dev", "wifi")) {
+                if (line.startsWith("yes:")) {
+                    return check(line.substring(4).replace("\\:", ":"));
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Value of the first "name : value" line, as printed by netsh and airport
+    private static String valueAfter(List<String> lines, String name) {
+        for (String line : lines) {
+            String trimmed = line.trim();
+            int colon = trimmed.indexOf(':');
+            if (colon > 0 && trimmed.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                return check(trimmed.substring(colon + 1).trim());
+            }
+        }
+        return null;
+    }
+
+    private static String check(String bssid) {
+        return Geofences.parseBssid(bssid) >= 0 ? bssid.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static List<String> run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            return new ArrayList<>();
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,115 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceHttpServerTest {
+    private static final long NOW = 1_760_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private AttendanceLog log;
+    private AttendanceHttpServer server;
+    private String token;
+
+    @BeforeEach
+    void start() throws Exception {
+        log = AttendanceLog.open(directory);
+        AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+        LoginService login = new LoginService(UserStore.load(directory.resolve(UserStore.DEFAULT_FILE), 1),
+                new SessionTable());
+        server = new AttendanceHttpServer(service, login, 0);
+        server.start();
+        Map<?, ?> reply = (Map<?, ?>) Json.parse(post("/api/login", "{\"username\":\"admin\",\"password\":\"1234\"}")
+                .body());
+        token = reply.get("token").toString();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.stop();
+        log.close();
+    }
+
+    @Test
+    void resentSyncBatchIsCountedOnce() throws Exception {
+        Map<?, ?> first = sync(mark(1, "S1"), mark(2, "S2"), mark(3, "S3"));
+        assertEquals(3L, first.get("applied"));
+        assertEquals(0L, first.get("duplicates"));
+
+        // The kiosk never saw the ack and sends the batch again
+        Map<?, ?> again = sync(mark(1, "S1"), mark(2, "S2"), mark(3, "S3"));
+        assertEquals(0L, again.get("applied"));
+        assertEquals(3L, again.get("duplicates"));
+
+        Map<?, ?> next = sync(mark(3, "S3"), mark(4, "S4"));
+        assertEquals(1L, next.get("applied"));
+        assertEquals(1L, next.get("duplicates"));
+        assertEquals(4, log.size());
+    }
+
+    @Test
+    void rejectedMarkIsCheckedAgainWhenResent() throws Exception {
+        Map<?, ?> first = sync(mark(1, "S1"), mark(2, ""), mark(3, "S3"));
+        assertEquals(2L, first.get("applied"));
+        List<?> rejected = (List<?>) first.get("rejectedMarks");
+        assertEquals(1, rejected.size());
+        assertEquals(2L, ((Map<?, ?>) rejected.get(0)).get("seq"));
+
+        // Not skipped as a replay: seq 2 is refused again, seq 3 is a duplicate of the stored mark
+        Map<?, ?> again = sync(mark(2, ""), mark(3, "S3"));
+        assertEquals(1, ((List<?>) again.get("rejectedMarks")).size());
+        assertEquals(1L, again.get("duplicates"));
+    }
+
+    @Test
+    void headcountIsReadOnly() throws Exception {
+        assertEquals(405, post("/api/headcount?course=CS101", "{}").statusCode());
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri("/api/headcount?course=CS101")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals(0L, ((Map<?, ?>) Json.parse(response.body())).get("headcount"));
+    }
+
+    private Map<?, ?> sync(String... marks) throws Exception {
+        HttpResponse<String> response = post("/api/sync",
+                "{\"stream\":\"kiosk-1/1\",\"marks\":[" + String.join(",", marks) + "]}");
+        assertEquals(200, response.statusCode(), response.body());
+        return (Map<?, ?>) Json.parse(response.body());
+    }
+
+    private static String mark(long seq, String studentId) {
+        return "{\"seq\":" + seq + ",\"studentId\":" + Json.quote(studentId) + ",\"courseCode\":\"CS101\""
+                + ",\"timestamp\":" + (NOW + seq) + ",\"location\":\"LIB\"}";
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+}
@@ -0,0 +1,76 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceImporterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void exportedFileImportsBackUnchanged() throws IOException {
+        Path csv = directory.resolve("marks.csv");
+        try (AttendanceLog log = AttendanceLog.open(directory.resolve("source"))) {
+            AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+            service.importRecords(List.of(
+                    new AttendanceRecord("S1", "CS101", 1_760_000_000_000L, "B1-R0"),
+                    new AttendanceRecord("S2", "CS101", 1_760_000_001_000L, "Hall, \"North\" wing"),
+                    new AttendanceRecord("S,3", "CS102", 1_760_000_002_000L, "LIB")));
+            assertEquals(3, new AttendanceExporter(log).export(RecordFilter.ALL, csv, (scanned, total, written) -> {
+            }));
+        }
+
+        try (AttendanceLog log = AttendanceLog.open(directory.resolve("copy"))) {
+            AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+            AttendanceImporter.Summary summary = new AttendanceImporter(service).importCsv(csv, (s, read, total) -> {
+            });
+            assertEquals(3, summary.getImported());
+            assertEquals(0, summary.getRejected());
+
+            List<AttendanceRecord> records = records(log);
+            assertEquals("Hall, \"North\" wing", records.get(1).getLocation());
+            assertEquals("S,3", records.get(2).getStudentId());
+            assertEquals(1_760_000_002_000L, records.get(2).getEpochMillis());
+        }
+    }
+
+    @Test
+    void badRowsAreCountedAndTheRestImported() throws IOException {
+        Path csv = directory.resolve("roster.csv");
+        Files.write(csv, List.of(
+                "Student ID,Course Code,epochMillis,timestamp,location",
+                "S1,CS101,1760000000000,,B1-R0",
+                "S2,CS101,-86400001,,B1-R0",
+                "S3,CS101,99999999999999999,,B1-R0",
+                "S4,CS101,soon,,B1-R0",
+                "S5,CS101,,+1000000000-01-01 09:00:00,B1-R0",
+                ",CS101,1760000000000,,B1-R0",
+                "S6,CS101,,2026-10-19 09:00:00,",
+                "S1,CS101,1760000000500,,B1-R0"), StandardCharsets.UTF_8);
+
+        try (AttendanceLog log = AttendanceLog.open(directory.resolve("data"))) {
+            AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+            AttendanceImporter.Summary summary = new AttendanceImporter(service).importCsv(csv, (s, read, total) -> {
+            });
+            assertEquals(2, summary.getImported());
+            assertEquals(1, summary.getDuplicates());
+            assertEquals(5, summary.getRejected());
+            assertEquals(AttendanceService.LOCATION_CAMPUS, records(log).get(1).getLocation());
+        }
+    }
+
+    private static List<AttendanceRecord> records(AttendanceLog log) throws IOException {
+        List<AttendanceRecord> records = new ArrayList<>();
+        log.forEach(records::add);
+        return records;
+    }
+}
@@ -0,0 +1,64 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttendanceIndexTest {
+    private static final long DAY = 86_400_000L;
+    private static final long NOON = 20_000 * DAY + DAY / 2;
+
+    private final AttendanceIndex index = new AttendanceIndex(16, TimeZone.getTimeZone("UTC"));
+
+    @Test
+    void secondMarkOnTheSameDayIsADuplicate() {
+        assertEquals(AttendanceIndex.Outcome.MARKED, index.markIfAbsent("S1", "CS101", NOON));
+        assertEquals(AttendanceIndex.Outcome.ALREADY_MARKED, index.markIfAbsent("S1", "CS101", NOON + 3_600_000));
+        assertEquals(AttendanceIndex.Outcome.MARKED, index.markIfAbsent("S1", "CS101", NOON + DAY));
+        assertEquals(AttendanceIndex.Outcome.MARKED, index.markIfAbsent("S1", "CS102", NOON));
+        assertEquals(AttendanceIndex.Outcome.MARKED, index.markIfAbsent("S2", "CS101", NOON));
+
+        assertTrue(index.isMarked("S1", "CS101", NOON - 3_600_000));
+        assertFalse(index.isMarked("S2", "CS102", NOON));
+        assertEquals(2, index.headcount("CS101", NOON));
+        assertEquals(1, index.headcount("CS101", NOON + DAY));
+        assertEquals(0, index.headcount("CS999", NOON));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void unmarkUndoesTheMarkAndItsHeadcount() {
+        index.markIfAbsent("S1", "CS101", NOON);
+        index.unmark("S1", "CS101", NOON);
+        assertFalse(index.isMarked("S1", "CS101", NOON));
+        assertEquals(0, index.headcount("CS101", NOON));
+        assertEquals(AttendanceIndex.Outcome.MARKED, index.markIfAbsent("S1", "CS101", NOON));
+        // Unknown ids are ignored
+        index.unmark("S9", "CS101", NOON);
+        assertEquals(1, index.headcount("CS101", NOON));
+    }
+
+    @Test
+    void daysOutsideThePackedRangeAreRefusedNotThrown() {
+        assertEquals(AttendanceIndex.Outcome.OUT_OF_RANGE, index.markIfAbsent("S1", "CS101", -DAY - 1));
+        assertEquals(AttendanceIndex.Outcome.OUT_OF_RANGE, index.markIfAbsent("S1", "CS101", (1L << 24) * DAY));
+        assertEquals(AttendanceIndex.Outcome.MARKED, index.markIfAbsent("S1", "CS101", 0));
+        assertFalse(index.isMarked("S1", "CS101", -DAY - 1));
+        assertEquals(0, index.headcount("CS101", -DAY - 1));
+        index.unmark("S1", "CS101", -DAY - 1);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void dayFollowsTheLocalTimeZone() {
+        AttendanceIndex india = new AttendanceIndex(16, TimeZone.getTimeZone("Asia/Kolkata"));
+        // 20:00 UTC is already the next day at UTC+5:30
+        long evening = 20_000 * DAY + 20 * 3_600_000L;
+        assertEquals(20_001, india.dayOf(evening));
+        assertEquals(20_000, index.dayOf(evening));
+    }
+}
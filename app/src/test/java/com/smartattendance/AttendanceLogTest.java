@@ -0,0 +1,131 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttendanceLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenedLogReplaysEveryDurableRecord() throws IOException {
+        write(10);
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            assertEquals(10, log.size());
+            assertEquals(0, log.getRecoveredTornRecords());
+            List<AttendanceRecord> records = records(log);
+            assertEquals("S3", records.get(3).getStudentId());
+            assertEquals("CS101", records.get(3).getCourseCode());
+            assertEquals(1_000_003L, records.get(3).getEpochMillis());
+            assertEquals("B1-R0", records.get(3).getLocation());
+        }
+    }
+
+    @Test
+    void recoveryStopsAtTheFirstBadChecksum() throws IOException {
+        write(10);
+        // Flip one bit inside record 7; it and everything after it are discarded
+        corrupt(7 * AttendanceLog.RECORD_SIZE + 20);
+
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            assertEquals(7, log.size());
+            assertEquals(3, log.getRecoveredTornRecords());
+            // Appending resumes in the freed slot
+            log.appendDurably(new AttendanceRecord("S-new", "CS101", 2_000_000L, null));
+        }
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            assertEquals(8, log.size());
+            assertEquals(0, log.getRecoveredTornRecords());
+            assertEquals("S-new", records(log).get(7).getStudentId());
+        }
+    }
+
+    @Test
+    void tornTailRecordIsDiscarded() throws IOException {
+        write(5);
+        // Half a record written after the last one, as if power failed mid-copy
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}), 5L * AttendanceLog.RECORD_SIZE);
+        }
+
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            assertEquals(5, log.size());
+            assertEquals(1, log.getRecoveredTornRecords());
+        }
+    }
+
+    @Test
+    void recordsContinueInTheNextSegment() throws IOException {
+        write(AttendanceLog.RECORDS_PER_SEGMENT + 3);
+        assertTrue(Files.exists(directory.resolve("segment-0000000001.log")));
+
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            assertEquals(AttendanceLog.RECORDS_PER_SEGMENT + 3, log.size());
+            assertEquals(0, log.getRecoveredTornRecords());
+            List<AttendanceRecord> records = records(log);
+            assertEquals("S" + AttendanceLog.RECORDS_PER_SEGMENT, records.get(AttendanceLog.RECORDS_PER_SEGMENT)
+                    .getStudentId());
+            assertEquals("S" + (AttendanceLog.RECORDS_PER_SEGMENT + 2), records.get(records.size() - 1)
+                    .getStudentId());
+        }
+    }
+
+    @Test
+    void oversizedFieldsAreRefusedWithoutTakingASlot() throws IOException {
+        write(2);
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            String longId = "S".repeat(40);
+            assertThrows(IllegalArgumentException.class,
+                    () -> log.append(new AttendanceRecord(longId, "CS101", 3_000_000L, null)));
+            log.appendDurably(new AttendanceRecord("S2", "CS101", 3_000_000L, null));
+            assertEquals(3, log.size());
+        }
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            assertEquals(3, log.size());
+            assertEquals(0, log.getRecoveredTornRecords());
+        }
+    }
+
+    private void write(int count) throws IOException {
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                last = log.append(new AttendanceRecord("S" + i, "CS101", 1_000_000L + i, "B1-R0"));
+            }
+            log.awaitDurable(last);
+        }
+    }
+
+    private void corrupt(long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, offset);
+            one.put(0, (byte) (one.get(0) ^ 0x01));
+            one.rewind();
+            channel.write(one, offset);
+        }
+    }
+
+    private Path segment() {
+        return directory.resolve("segment-0000000000.log");
+    }
+
+    private static List<AttendanceRecord> records(AttendanceLog log) throws IOException {
+        List<AttendanceRecord> records = new ArrayList<>();
+        log.forEach(records::add);
+        return records;
+    }
+}
@@ -0,0 +1,45 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceServiceTest {
+    private static final LocationFix ON_CAMPUS = LocationFix.gps(12.9716, 77.5935);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void studentsMustScanWhileTokensAreEnabled() throws IOException {
+        SessionTokens tokens = new SessionTokens("test master key".getBytes(StandardCharsets.UTF_8), 30);
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            AttendanceService service = new AttendanceService(log, new AttendanceIndex());
+            service.setSessionTokens(tokens);
+            assertEquals(MarkResult.Status.TOKEN_REQUIRED,
+                    service.mark(new MarkRequest("S1", "CS101", ON_CAMPUS)).getStatus());
+
+            String token = tokens.issue("CS101", "S", System.currentTimeMillis());
+            assertEquals(MarkResult.Status.MARKED,
+                    service.mark(new MarkRequest("S1", "", ON_CAMPUS, token)).getStatus());
+            assertEquals(MarkResult.Status.MARKED,
+                    service.mark(new MarkRequest("S2", "CS101", ON_CAMPUS, null, true)).getStatus());
+        }
+    }
+
+    @Test
+    void courseCodesAreEnoughWithoutTokens() throws IOException {
+        try (AttendanceLog log = AttendanceLog.open(directory)) {
+            AttendanceService service = new AttendanceService(log, new AttendanceIndex());
+            assertEquals(MarkResult.Status.MARKED,
+                    service.mark(new MarkRequest("S1", "CS101", ON_CAMPUS)).getStatus());
+            assertEquals(MarkResult.Status.INVALID_TOKEN,
+                    service.mark(new MarkRequest("S2", "", ON_CAMPUS, "SAS1:CS101:S:1:x")).getStatus());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditTrailTest {
+    private static final int RECORDS = 3 * AuditTrail.CHECKPOINT_INTERVAL + 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void untouchedTrailVerifies() throws IOException {
+        write(RECORDS);
+        AuditTrail.Verification verification = AuditTrail.verify(directory, 0, 2);
+        assertTrue(verification.isIntact(), verification.getProblems().toString());
+        assertEquals(RECORDS, verification.getRecords());
+        assertEquals(3, verification.getCheckpoints());
+    }
+
+    @Test
+    void reopenedTrailContinuesTheChain() throws IOException {
+        write(RECORDS);
+        write(RECORDS);
+        AuditTrail.Verification verification = AuditTrail.verify(directory, 0, 1);
+        assertTrue(verification.isIntact(), verification.getProblems().toString());
+        assertEquals(2 * RECORDS, verification.getRecords());
+    }
+
+    @Test
+    void changedRecordIsDetected() throws IOException {
+        write(RECORDS);
+        List<String> lines = Files.readAllLines(segment(), StandardCharsets.UTF_8);
+        int line = lineOf(lines, 1500);
+        lines.set(line, lines.get(line).replace("\tMARKED\t", "\tREJECTED\t"));
+        Files.write(segment(), lines, StandardCharsets.UTF_8);
+
+        AuditTrail.Verification verification = AuditTrail.verify(directory, 0, 2);
+        assertFalse(verification.isIntact());
+    }
+
+    @Test
+    void deletedRecordIsDetected() throws IOException {
+        write(RECORDS);
+        List<String> lines = Files.readAllLines(segment(), StandardCharsets.UTF_8);
+        lines.remove(lineOf(lines, 200));
+        Files.write(segment(), lines, StandardCharsets.UTF_8);
+
+        assertFalse(AuditTrail.verify(directory, 0, 2).isIntact());
+    }
+
+    @Test
+    void truncatedTailCoveredByACheckpointIsDetected() throws IOException {
+        write(RECORDS);
+        List<String> lines = Files.readAllLines(segment(), StandardCharsets.UTF_8);
+        Files.write(segment(), lines.subList(0, lineOf(lines, 2000)), StandardCharsets.UTF_8);
+
+        assertFalse(AuditTrail.verify(directory, 0, 2).isIntact());
+    }
+
+    @Test
+    void verificationFromALaterRecordStillChecksTheCheckpoints() throws IOException {
+        write(RECORDS);
+        AuditTrail.Verification verification = AuditTrail.verify(directory, 2 * AuditTrail.CHECKPOINT_INTERVAL, 2);
+        assertTrue(verification.isIntact(), verification.getProblems().toString());
+        assertEquals(2 * AuditTrail.CHECKPOINT_INTERVAL, verification.getFirstSeq());
+        assertEquals(RECORDS - 2 * AuditTrail.CHECKPOINT_INTERVAL, verification.getRecords());
+
+        List<String> checkpoints = Files.readAllLines(directory.resolve("checkpoints.log"), StandardCharsets.UTF_8);
+        checkpoints.remove(0);
+        Files.write(directory.resolve("checkpoints.log"), checkpoints, StandardCharsets.UTF_8);
+        assertFalse(AuditTrail.verify(directory, 2 * AuditTrail.CHECKPOINT_INTERVAL, 2).isIntact());
+    }
+
+    @Test
+    void lineStillBeingWrittenIsNotReported() throws IOException {
+        write(RECORDS);
+        // What a reader sees while the writer is halfway through a line
+        Files.write(segment(), (RECORDS + "\t2026-10-19T09:00:00Z\tMARK\tS").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        Files.write(directory.resolve("checkpoints.log"), "4095\t2026".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        AuditTrail.Verification verification = AuditTrail.verify(directory, 0, 2);
+        assertTrue(verification.isIntact(), verification.getProblems().toString());
+        assertEquals(RECORDS, verification.getRecords());
+    }
+
+    @Test
+    void chainCarriesAcrossSegments() throws IOException {
+        write(AuditTrail.RECORDS_PER_SEGMENT + 10);
+        AuditTrail.Verification verification = AuditTrail.verify(directory, 0, 2);
+        assertTrue(verification.isIntact(), verification.getProblems().toString());
+        assertEquals(2, verification.getSegments());
+        assertEquals(AuditTrail.RECORDS_PER_SEGMENT + 10, verification.getRecords());
+
+        // The second segment's header must name the first segment's last hash
+        Path second = directory.resolve("audit-0000000001.log");
+        List<String> lines = Files.readAllLines(second, StandardCharsets.UTF_8);
+        lines.set(0, "# prev " + "0".repeat(64));
+        Files.write(second, lines, StandardCharsets.UTF_8);
+        assertFalse(AuditTrail.verify(directory, 0, 2).isIntact());
+    }
+
+    @Test
+    void fieldsCannotForgeFieldsOrRecords() throws IOException {
+        try (AuditTrail trail = AuditTrail.open(directory)) {
+            trail.record(AuditTrail.Type.LOGIN, "admin\tMARKED", "REJECTED", "from\n1\tforged");
+            trail.record(AuditTrail.Type.LOGIN, null, "OK", null);
+            trail.flush();
+        }
+        List<String> lines = Files.readAllLines(segment(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).contains("\tadmin MARKED\tREJECTED\tfrom 1 forged\t"), lines.get(1));
+        AuditTrail.Verification verification = AuditTrail.verify(directory, 0, 1);
+        assertTrue(verification.isIntact(), verification.getProblems().toString());
+        assertEquals(2, verification.getRecords());
+    }
+
+    private void write(int count) throws IOException {
+        try (AuditTrail trail = AuditTrail.open(directory)) {
+            for (int i = 0; i < count; i++) {
+                trail.record(AuditTrail.Type.MARK, "S" + i, "MARKED", "CS101 at B1-R0");
+            }
+            trail.flush();
+        }
+    }
+
+    private Path segment() {
+        return directory.resolve("audit-0000000000.log");
+    }
+
+    private static int lineOf(List<String> lines, long seq) {
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).startsWith(seq + "\t")) {
+                return i;
+            }
+        }
+        throw new AssertionError("no record " + seq);
+    }
+}
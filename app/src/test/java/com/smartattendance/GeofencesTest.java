@@ -0,0 +1,113 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeofencesTest {
+    // A square campus around a courtyard that is not part of it, a building
+    // in two parts, and a room inside the first part with its access point
+    private static final String CAMPUS = "{\"type\":\"FeatureCollection\",\"features\":["
+            + feature("CAMPUS", "Main campus", "campus", "Polygon",
+                    "[" + ring(0, 0, 10, 10) + "," + ring(4, 4, 6, 6) + "]", "")
+            + "," + feature("B1", "Building 1", "building", "MultiPolygon",
+                    "[[" + ring(1, 1, 3, 3) + "],[" + ring(7, 7, 9, 9) + "]]", "")
+            + "," + feature("B1-R0", "Room 0", "room", "Polygon",
+                    "[" + ring(1, 1, 2, 2) + "]", "\"bssids\":[\"a4:5e:60:12:00:01\"]")
+            + "]}";
+
+    private final Geofences fences = Geofences.parse(CAMPUS);
+
+    @Test
+    void pointsInAHoleOrBetweenPartsAreOutside() {
+        Geofence campus = fence("CAMPUS");
+        assertTrue(campus.contains(0.5, 0.5));
+        assertTrue(campus.contains(5, 3.9));
+        assertFalse(campus.contains(5, 5));
+        assertFalse(campus.contains(4.5, 5.5));
+        assertFalse(campus.contains(10.5, 5));
+
+        Geofence building = fence("B1");
+        assertTrue(building.contains(2.5, 2.5));
+        assertTrue(building.contains(8, 8));
+        assertFalse(building.contains(5, 2));
+    }
+
+    @Test
+    void theMostSpecificFenceWins() {
+        assertEquals("B1-R0", verify(LocationFix.gps(1.5, 1.5)).getFence().getId());
+        assertEquals("B1", verify(LocationFix.gps(8, 8)).getFence().getId());
+        assertEquals("CAMPUS", verify(LocationFix.gps(3.5, 3.5)).getFence().getId());
+        assertEquals(Geofences.Status.OUTSIDE, verify(LocationFix.gps(5, 5)).getStatus());
+        assertEquals(Geofences.Status.INVALID, verify(LocationFix.gps(91, 0)).getStatus());
+        assertEquals(Geofences.Status.NO_FIX, verify(null).getStatus());
+    }
+
+    @Test
+    void accessPointsMatchInAnyNotation() {
+        for (String bssid : List.of("a4:5e:60:12:00:01", "A4-5E-60-12-00-01", "a45e60120001", "a4:5e:60:12:0:1")) {
+            Geofences.Verification verification = verify(LocationFix.wifi(bssid));
+            assertEquals("B1-R0", verification.getFence().getId(), bssid);
+            assertTrue(verification.isViaWifi());
+        }
+        // The access point is more specific than a GPS point that says campus
+        assertEquals("B1-R0", verify(LocationFix.of(3.5, 3.5, "a4:5e:60:12:00:01")).getFence().getId());
+        assertEquals(Geofences.Status.OUTSIDE, verify(LocationFix.wifi("a4:5e:60:12:00:02")).getStatus());
+    }
+
+    @Test
+    void bssidsParseStrictly() {
+        assertEquals(0xa45e60120001L, Geofences.parseBssid("a4:5e:60:12:00:01"));
+        assertEquals(0xa45e60120001L, Geofences.parseBssid("a4-5e-60-12-0-1"));
+        assertEquals(0xffffffffffffL, Geofences.parseBssid("FFFFFFFFFFFF"));
+        for (String bad : List.of("", "a4:5e:60:12:00", "a4:5e:60:12:00:01:02", "a4:5e:60:12:00:01:",
+                "a4::5e:60:12:00:01", "a4:5e-60:12:00:01", "a45e:60:12:00:01", "a4:5e:60:12:00:0g",
+                "a4:5e:60:12:000:1", "a45e6012000", "51.5, -0.1")) {
+            assertEquals(-1, Geofences.parseBssid(bad), bad);
+        }
+    }
+
+    @Test
+    void badFeaturesAreRefused() {
+        String hole = "[" + ring(0, 0, 1, 1) + "]";
+        assertThrows(IllegalArgumentException.class, () -> Geofences.parse("{\"type\":\"FeatureCollection\","
+                + "\"features\":[" + feature("R", "Room", "room", "Polygon", hole, "\"bssids\":[\"a4:5e\"]") + "]}"));
+        assertThrows(IllegalArgumentException.class, () -> Geofences.parse("{\"type\":\"FeatureCollection\","
+                + "\"features\":[" + feature("R", "Room", "room", "Polygon", "[[[0,0],[1,1],[0,0]]]", "") + "]}"));
+        assertThrows(IllegalArgumentException.class, () -> Geofences.parse("{\"type\":\"FeatureCollection\","
+                + "\"features\":[" + feature("R1", "Room 1", "room", "Polygon", hole,
+                        "\"bssids\":[\"a4:5e:60:12:00:01\"]")
+                + "," + feature("R2", "Room 2", "room", "Polygon", hole, "\"bssids\":[\"A45E60120001\"]") + "]}"));
+    }
+
+    private Geofences.Verification verify(LocationFix fix) {
+        return fences.verify(fix);
+    }
+
+    private Geofence fence(String id) {
+        for (Geofence fence : fences.getFences()) {
+            if (fence.getId().equals(id)) {
+                return fence;
+            }
+        }
+        throw new AssertionError("no fence " + id);
+    }
+
+    private static String feature(String id, String name, String kind, String type, String coordinates,
+                                  String extra) {
+        return "{\"type\":\"Feature\",\"id\":\"" + id + "\",\"properties\":{\"name\":\"" + name + "\",\"kind\":\""
+                + kind + "\"" + (extra.isEmpty() ? "" : "," + extra) + "},\"geometry\":{\"type\":\"" + type
+                + "\",\"coordinates\":" + coordinates + "}}";
+    }
+
+    // Closed GeoJSON ring of an axis-aligned rectangle, as lon, lat
+    private static String ring(double minLon, double minLat, double maxLon, double maxLat) {
+        return "[[" + minLon + "," + minLat + "],[" + maxLon + "," + minLat + "],[" + maxLon + "," + maxLat + "],["
+                + minLon + "," + maxLat + "],[" + minLon + "," + minLat + "]]";
+    }
+}
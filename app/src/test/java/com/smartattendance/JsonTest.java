@@ -0,0 +1,51 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+    @Test
+    void parsesEveryValueType() {
+        Map<?, ?> object = (Map<?, ?>) Json.parse(
+                " {\"s\": \"a\\\"b\\u00e9\\n\", \"i\": -12, \"d\": 1.5e2, \"t\": true, \"f\": false, \"n\": null,"
+                        + " \"a\": [1, [], {}]} ");
+        assertEquals("a\"b\u00e9\n", object.get("s"));
+        assertEquals(-12L, object.get("i"));
+        assertEquals(150.0, object.get("d"));
+        assertEquals(Boolean.TRUE, object.get("t"));
+        assertEquals(Boolean.FALSE, object.get("f"));
+        assertNull(object.get("n"));
+        assertEquals(Arrays.asList(1L, List.of(), Map.of()), object.get("a"));
+        // Keys keep their order
+        assertEquals(List.of("s", "i", "d", "t", "f", "n", "a"), List.copyOf(object.keySet()));
+    }
+
+    @Test
+    void quotedStringsParseBack() {
+        String text = "tab\t quote\" backslash\\ bell\u0007 line\r\n \u20ac";
+        assertEquals(text, Json.parse(Json.quote(text)));
+        assertEquals("null", Json.quote(null));
+    }
+
+    @Test
+    void malformedInputIsRefused() {
+        for (String bad : new String[] {"", "{", "[1,]", "{\"a\" 1}", "{\"a\":1,}", "\"open", "tru", "1 2",
+                "\"\\x\"", "\"\\u12\"", "\"\\u+123\"", "--1", "{a:1}"}) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(bad), bad);
+        }
+    }
+
+    @Test
+    void deepNestingIsRefusedWithoutOverflowingTheStack() {
+        assertEquals(1, ((List<?>) Json.parse("[".repeat(64) + "1" + "]".repeat(64))).size());
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(65) + "]".repeat(65)));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(100_000)));
+    }
+}
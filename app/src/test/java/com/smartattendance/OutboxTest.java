@@ -0,0 +1,140 @@
+package com.smartattendance;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxTest {
+    // Nothing listens here, so sends fail and the queue stays put
+    private static final URI NOWHERE = URI.create("http://127.0.0.1:1");
+
+    @TempDir
+    Path directory;
+
+    private HttpServer upstream;
+
+    @AfterEach
+    void stopUpstream() {
+        if (upstream != null) {
+            upstream.stop(0);
+        }
+    }
+
+    @Test
+    void queueSurvivesARestartAndATornTail() throws IOException {
+        try (Outbox outbox = start(NOWHERE)) {
+            for (int i = 0; i < 3; i++) {
+                outbox.enqueue(new AttendanceRecord("S" + i, "CS101", 1_000L + i, "B1-R0"));
+            }
+        }
+        // Half a frame, as if power failed mid-append
+        Files.write(directory.resolve(Outbox.STATE_FILE), new byte[] {0, 0, 0, 40, 2, 0},
+                StandardOpenOption.APPEND);
+
+        try (Outbox outbox = start(NOWHERE)) {
+            assertEquals(3, outbox.getDepth());
+            outbox.enqueue(new AttendanceRecord("S3", "CS101", 1_003L, "B1-R0"));
+        }
+        try (Outbox outbox = start(NOWHERE)) {
+            assertEquals(4, outbox.getDepth());
+        }
+    }
+
+    @Test
+    void acknowledgedMarksAreNotResentAfterARestart() throws Exception {
+        List<Map<?, ?>> batches = startUpstream();
+        try (Outbox outbox = start(URI.create("http://127.0.0.1:" + upstream.getAddress().getPort()))) {
+            outbox.enqueue(new AttendanceRecord("S1", "CS101", 1_000L, "B1-R0"));
+            outbox.enqueue(new AttendanceRecord("S2", "CS101", 2_000L, "B1-R0"));
+            awaitEmpty(outbox);
+        }
+        assertEquals(1, batches.size());
+        assertEquals(2, ((List<?>) batches.get(0).get("marks")).size());
+
+        try (Outbox outbox = start(NOWHERE)) {
+            assertEquals(0, outbox.getDepth());
+            outbox.enqueue(new AttendanceRecord("S3", "CS101", 3_000L, "B1-R0"));
+        }
+        try (Outbox outbox = start(URI.create("http://127.0.0.1:" + upstream.getAddress().getPort()))) {
+            awaitEmpty(outbox);
+        }
+        // Same stream, and numbering carries on after the acknowledged marks
+        assertEquals(2, batches.size());
+        assertEquals(batches.get(0).get("stream"), batches.get(1).get("stream"));
+        Map<?, ?> mark = (Map<?, ?>) ((List<?>) batches.get(1).get("marks")).get(0);
+        assertEquals("S3", mark.get("studentId"));
+        assertEquals(3, ((Number) mark.get("seq")).intValue());
+    }
+
+    @Test
+    void interruptedCallerStillQueuesTheMark() throws IOException {
+        try (Outbox outbox = start(NOWHERE)) {
+            Thread.currentThread().interrupt();
+            try {
+                outbox.enqueue(new AttendanceRecord("S1", "CS101", 1_000L, "B1-R0"));
+                assertTrue(Thread.currentThread().isInterrupted());
+            } finally {
+                Thread.interrupted();
+            }
+            // The file is still open for the next mark
+            outbox.enqueue(new AttendanceRecord("S2", "CS101", 2_000L, "B1-R0"));
+        }
+        try (Outbox outbox = start(NOWHERE)) {
+            assertEquals(2, outbox.getDepth());
+        }
+    }
+
+    private Outbox start(URI to) throws IOException {
+        return Outbox.start(directory, "kiosk-1", to, "admin", "1234".toCharArray(), 500, 200);
+    }
+
+    // A stand-in central server that takes every batch
+    private List<Map<?, ?>> startUpstream() throws IOException {
+        List<Map<?, ?>> batches = new CopyOnWriteArrayList<>();
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.createContext("/api/login", exchange -> reply(exchange, "{\"token\":\"t\"}"));
+        upstream.createContext("/api/sync", exchange -> {
+            try (InputStream in = new GZIPInputStream(exchange.getRequestBody())) {
+                batches.add((Map<?, ?>) Json.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+            reply(exchange, "{\"duplicates\":0,\"rejectedMarks\":[]}");
+        });
+        upstream.start();
+        return batches;
+    }
+
+    private static void reply(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void awaitEmpty(Outbox outbox) throws InterruptedException {
+        long until = System.currentTimeMillis() + 10_000;
+        while (outbox.getDepth() > 0 && System.currentTimeMillis() < until) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, outbox.getDepth(), outbox.getStatus());
+    }
+}
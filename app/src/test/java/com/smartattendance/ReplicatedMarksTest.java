@@ -0,0 +1,179 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicatedMarksTest {
+    private static final int DAY = 20_000;
+
+    @Test
+    void replicasConvergeWhateverTheMergeOrder() {
+        ReplicatedMarks a = new ReplicatedMarks("a");
+        ReplicatedMarks b = new ReplicatedMarks("b");
+        List<ReplicatedMarks.ElementState> deltas = new ArrayList<>();
+        deltas.add(a.add("CS101", DAY, "S1", 1_000, "B1-R0"));
+        deltas.add(a.add("CS101", DAY, "S2", 2_000, "B1-R0"));
+        deltas.add(b.add("CS101", DAY, "S3", 3_000, "LIB"));
+        // Both terminals marked S1; the earlier mark's payload must win everywhere
+        deltas.add(b.add("CS101", DAY, "S1", 500, "LIB"));
+
+        ReplicatedMarks forward = new ReplicatedMarks("c");
+        forward.merge(deltas);
+        ReplicatedMarks backward = new ReplicatedMarks("d");
+        List<ReplicatedMarks.ElementState> reversed = new ArrayList<>(deltas);
+        Collections.reverse(reversed);
+        backward.merge(reversed);
+        backward.merge(reversed);
+
+        a.merge(b.snapshot());
+        b.merge(a.snapshot());
+
+        assertEquals(a.rootDigest(), b.rootDigest());
+        assertEquals(a.rootDigest(), forward.rootDigest());
+        assertEquals(a.rootDigest(), backward.rootDigest());
+        assertEquals(3, backward.size());
+        for (ReplicatedMarks replica : List.of(a, b, forward, backward)) {
+            ReplicatedMarks.ElementState s1 = find(replica.snapshot(), "S1");
+            assertEquals(500, s1.getEpochMillis());
+            assertEquals("LIB", s1.getLocation());
+            assertEquals("b", s1.origin);
+        }
+    }
+
+    @Test
+    void addAndMergeReportOnlyNewMarks() {
+        ReplicatedMarks a = new ReplicatedMarks("a");
+        assertTrue(a.add("CS101", DAY, "S1", 1_000, null) != null);
+        assertNull(a.add("CS101", DAY, "S1", 2_000, null));
+
+        ReplicatedMarks b = new ReplicatedMarks("b");
+        assertEquals(1, b.merge(a.snapshot()).size());
+        assertTrue(b.merge(a.snapshot()).isEmpty());
+        assertTrue(b.contains("CS101", DAY, "S1"));
+        assertFalse(b.contains("CS101", DAY + 1, "S1"));
+    }
+
+    @Test
+    void antiEntropyRepairsOnlyTheSessionsThatDiffer() {
+        ReplicatedMarks a = new ReplicatedMarks("a");
+        ReplicatedMarks b = new ReplicatedMarks("b");
+        for (int day = DAY; day < DAY + 50; day++) {
+            for (int student = 0; student < 20; student++) {
+                ReplicatedMarks.ElementState delta = a.add("CS101", day, "S" + student, day * 1000L, "B1-R0");
+                b.merge(List.of(delta));
+            }
+        }
+        assertEquals(a.rootDigest(), b.rootDigest());
+
+        // Deltas lost on the way: a few marks each side never heard of
+        a.add("CS102", DAY + 3, "S1", 10, "LIB");
+        a.add("CS101", DAY + 7, "S99", 20, "LIB");
+        b.add("CS103", DAY + 9, "S2", 30, "B1-R0");
+        assertNotEquals(a.rootDigest(), b.rootDigest());
+
+        int exchanged = antiEntropy(a, b);
+
+        assertEquals(a.rootDigest(), b.rootDigest());
+        assertEquals(a.size(), b.size());
+        assertTrue(b.contains("CS102", DAY + 3, "S1"));
+        assertTrue(a.contains("CS103", DAY + 9, "S2"));
+        // Only the three differing sessions are shipped, not the whole set
+        assertTrue(exchanged <= 3 * 21, "exchanged " + exchanged + " elements");
+    }
+
+    @Test
+    void batchesRoundTripAndOldFormatsAreRefused() throws IOException {
+        ReplicatedMarks a = new ReplicatedMarks("a");
+        a.add("CS101", DAY, "S1", 1_000, "B1-R0");
+        a.add("CS102", DAY, "S2", 2_000, null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReplicatedMarks.write(new DataOutputStream(bytes), a.snapshot());
+
+        ReplicatedMarks b = new ReplicatedMarks("b");
+        b.merge(ReplicatedMarks.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        assertEquals(a.rootDigest(), b.rootDigest());
+
+        byte[] old = bytes.toByteArray();
+        old[0] = 1;
+        assertThrows(IOException.class,
+                () -> ReplicatedMarks.read(new DataInputStream(new ByteArrayInputStream(old))));
+    }
+
+    @Test
+    void badOriginIndexIsAnIOException() throws IOException {
+        ReplicatedMarks a = new ReplicatedMarks("a");
+        a.add("CS101", DAY, "S1", 1_000, "B1-R0");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReplicatedMarks.write(new DataOutputStream(bytes), a.snapshot());
+        byte[] batch = bytes.toByteArray();
+        // The last two bytes index the one-entry origin table
+        batch[batch.length - 1] = 1;
+        assertThrows(IOException.class,
+                () -> ReplicatedMarks.read(new DataInputStream(new ByteArrayInputStream(batch))));
+    }
+
+    // One round of the Replicator's protocol between two in-memory replicas:
+    // roots, then bucket digests, then session digests, then session states.
+    // Returns how many elements changed hands.
+    private static int antiEntropy(ReplicatedMarks initiator, ReplicatedMarks responder) {
+        if (initiator.rootDigest() == responder.rootDigest()) {
+            return 0;
+        }
+        long[] mine = initiator.bucketDigests();
+        long[] theirs = responder.bucketDigests();
+        boolean[] differ = new boolean[ReplicatedMarks.BUCKETS];
+        for (int i = 0; i < differ.length; i++) {
+            differ[i] = mine[i] != theirs[i];
+        }
+
+        Map<String, Long> offered = new HashMap<>();
+        for (ReplicatedMarks.SessionDigest digest : initiator.sessionDigests(differ)) {
+            offered.put(digest.courseCode + '\u0000' + digest.day, digest.digest);
+        }
+        List<ReplicatedMarks.SessionDigest> give = new ArrayList<>();
+        for (ReplicatedMarks.SessionDigest digest : responder.sessionDigests(differ)) {
+            Long other = offered.get(digest.courseCode + '\u0000' + digest.day);
+            if (other == null || other != digest.digest) {
+                give.add(digest);
+            }
+        }
+        List<ReplicatedMarks.SessionDigest> want = new ArrayList<>();
+        for (ReplicatedMarks.SessionDigest digest : initiator.sessionDigests(differ)) {
+            if (responder.sessionDigest(digest.courseCode, digest.day) != digest.digest) {
+                want.add(digest);
+            }
+        }
+
+        List<ReplicatedMarks.ElementState> toInitiator = responder.sessionStates(give);
+        List<ReplicatedMarks.ElementState> toResponder = initiator.sessionStates(want);
+        initiator.merge(toInitiator);
+        responder.merge(toResponder);
+        return toInitiator.size() + toResponder.size();
+    }
+
+    private static ReplicatedMarks.ElementState find(List<ReplicatedMarks.ElementState> states, String studentId) {
+        for (ReplicatedMarks.ElementState state : states) {
+            if (state.getStudentId().equals(studentId)) {
+                return state;
+            }
+        }
+        throw new AssertionError("no mark for " + studentId);
+    }
+}
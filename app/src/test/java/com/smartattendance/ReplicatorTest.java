@@ -0,0 +1,99 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReplicatorTest {
+    private static final byte[] SECRET = "correct horse battery staple".getBytes(StandardCharsets.UTF_8);
+    private static final long NOON = 1_760_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private final List<AutoCloseable> open = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() throws Exception {
+        for (int i = open.size() - 1; i >= 0; i--) {
+            open.get(i).close();
+        }
+    }
+
+    @Test
+    void nodesWithTheSameSecretConverge() throws Exception {
+        int[] ports = freePorts(2);
+        AttendanceService a = node("a", SECRET, ports[0], ports[1]);
+        AttendanceService b = node("b", SECRET, ports[1], ports[0]);
+        a.importRecords(List.of(new AttendanceRecord("S1", "CS101", NOON, "LIB")));
+        b.importRecords(List.of(new AttendanceRecord("S2", "CS101", NOON, "LIB")));
+
+        awaitHeadcount(a, 2);
+        awaitHeadcount(b, 2);
+    }
+
+    @Test
+    void nodeWithAnotherSecretIsIgnored() throws Exception {
+        int[] ports = freePorts(2);
+        AttendanceService a = node("a", SECRET, ports[0], ports[1]);
+        AttendanceService b = node("b", "not the shared secret".getBytes(StandardCharsets.UTF_8), ports[1], ports[0]);
+        b.importRecords(List.of(new AttendanceRecord("S2", "CS101", NOON, "LIB")));
+        a.importRecords(List.of(new AttendanceRecord("S1", "CS101", NOON, "LIB")));
+
+        Thread.sleep(1_500);
+        assertEquals(1, a.getIndex().headcount("CS101", NOON));
+        assertEquals(1, b.getIndex().headcount("CS101", NOON));
+    }
+
+    @Test
+    void shortSecretIsRefused() throws IOException {
+        AttendanceLog log = AttendanceLog.open(directory);
+        open.add(log);
+        AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+        assertThrows(IllegalArgumentException.class, () -> Replicator.start(service, log, directory, "a",
+                "short".getBytes(StandardCharsets.UTF_8), null, 0, List.of()));
+    }
+
+    private AttendanceService node(String id, byte[] secret, int port, int peerPort) throws IOException {
+        Path dir = directory.resolve(id);
+        AttendanceLog log = AttendanceLog.open(dir);
+        open.add(log);
+        AttendanceService service = new AttendanceService(log, AttendanceIndex.rebuild(log));
+        open.add(Replicator.start(service, log, dir, id, secret, InetAddress.getLoopbackAddress(), port,
+                List.of(new InetSocketAddress(InetAddress.getLoopbackAddress(), peerPort))));
+        return service;
+    }
+
+    private static int[] freePorts(int count) throws IOException {
+        int[] ports = new int[count];
+        ServerSocket[] sockets = new ServerSocket[count];
+        for (int i = 0; i < count; i++) {
+            sockets[i] = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            ports[i] = sockets[i].getLocalPort();
+        }
+        for (ServerSocket socket : sockets) {
+            socket.close();
+        }
+        return ports;
+    }
+
+    private static void awaitHeadcount(AttendanceService service, int expected) throws InterruptedException {
+        long until = System.currentTimeMillis() + 10_000;
+        while (service.getIndex().headcount("CS101", NOON) < expected && System.currentTimeMillis() < until) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, service.getIndex().headcount("CS101", NOON));
+    }
+}
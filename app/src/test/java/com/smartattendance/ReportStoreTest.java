@@ -0,0 +1,111 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportStoreTest {
+    private final ReportStore reports = new ReportStore(TimeZone.getTimeZone("UTC"));
+
+    @Test
+    void aggregatesCountSessionsAndAttendance() {
+        // CS101 meets on three days; S1 attends all of them, S2 one, S3 two
+        for (int day = 19; day <= 21; day++) {
+            assertTrue(reports.record("S1", "CS101", at(day, 9, 5), "B1-R0"));
+        }
+        reports.record("S2", "CS101", at(19, 9, 6), "B1-R0");
+        reports.record("S3", "CS101", at(20, 9, 7), "B1-R0");
+        reports.record("S3", "CS101", at(21, 9, 7), "B1-R0");
+        reports.record("S2", "CS102", at(19, 11, 0), "LIB");
+        // A second mark on the same day is not a second session attended
+        assertFalse(reports.record("S1", "CS101", at(19, 9, 50), "B1-R0"));
+
+        assertEquals(7, reports.size());
+        assertEquals(List.of("CS101", "CS102"), reports.courseCodes());
+
+        List<StudentAttendance> course = reports.courseAttendance("CS101");
+        assertEquals(List.of("S2", "S3", "S1"), course.stream().map(StudentAttendance::getStudentId).toList());
+        assertEquals(1, course.get(0).getAttended());
+        assertEquals(3, course.get(0).getSessions());
+        assertEquals(100.0, course.get(2).getPercent(), 1e-9);
+
+        List<SessionHeadcount> headcounts = reports.sessionHeadcounts("CS101");
+        assertEquals(3, headcounts.size());
+        assertEquals(LocalDate.of(2026, 10, 19), headcounts.get(0).getDate());
+        assertEquals(2, headcounts.get(0).getHeadcount());
+
+        List<StudentAttendance> student = reports.studentAttendance("S2");
+        assertEquals(List.of("CS101", "CS102"), student.stream().map(StudentAttendance::getCourseCode).toList());
+        assertEquals(100.0, student.get(1).getPercent(), 1e-9);
+
+        assertTrue(reports.courseAttendance("CS999").isEmpty());
+        assertTrue(reports.studentAttendance("S999").isEmpty());
+    }
+
+    @Test
+    void chronicAbsenteesHonourThresholdAndMinimumSessions() {
+        for (int day = 19; day <= 22; day++) {
+            reports.record("S1", "CS101", at(day, 9, 0), null);
+        }
+        reports.record("S2", "CS101", at(19, 9, 0), null);
+        reports.record("S3", "CS101", at(19, 9, 0), null);
+        reports.record("S3", "CS101", at(20, 9, 0), null);
+        // Too few sessions to judge anyone
+        reports.record("S4", "CS102", at(19, 11, 0), null);
+        reports.record("S5", "CS102", at(20, 11, 0), null);
+
+        List<StudentAttendance> absentees = reports.chronicAbsentees(75.0, 3);
+        assertEquals(List.of("S2", "S3"), absentees.stream().map(StudentAttendance::getStudentId).toList());
+        // 2 of 4 is exactly 50% and so not below it
+        assertEquals(List.of("S2"), reports.chronicAbsentees(50.0, 3).stream()
+                .map(StudentAttendance::getStudentId).toList());
+        assertEquals(4, reports.chronicAbsentees(75.0, 2).size());
+    }
+
+    @Test
+    void historyKeepsTimeAndLocationOfEachMark() {
+        reports.record("S1", "CS102", at(20, 11, 2), "LIB");
+        reports.record("S1", "CS101", at(19, 9, 5), "B1-R0");
+        reports.record("S1", "CS101", at(20, 9, 5), null);
+        reports.record("S2", "CS101", at(19, 9, 6), "B1-R0");
+
+        List<AttendanceRecord> history = reports.studentHistory("S1");
+        assertEquals(3, history.size());
+        assertEquals(at(19, 9, 5), history.get(0).getEpochMillis());
+        assertEquals("CS101", history.get(0).getCourseCode());
+        assertEquals("B1-R0", history.get(0).getLocation());
+        assertNull(history.get(1).getLocation());
+        assertEquals("CS102", history.get(2).getCourseCode());
+        assertEquals("LIB", history.get(2).getLocation());
+        assertTrue(reports.studentHistory("S999").isEmpty());
+    }
+
+    @Test
+    void historyRoundTripsLocalTimeAcrossADaylightSavingChange() {
+        // Europe/London moves from BST to GMT on 2026-10-25
+        ReportStore london = new ReportStore(TimeZone.getTimeZone("Europe/London"));
+        long before = LocalDateTime.of(2026, 10, 24, 23, 30).toInstant(ZoneOffset.UTC).toEpochMilli();
+        long after = LocalDateTime.of(2026, 10, 26, 9, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        london.record("S1", "CS101", before, "B1-R0");
+        london.record("S1", "CS101", after, "B1-R0");
+
+        List<AttendanceRecord> history = london.studentHistory("S1");
+        assertEquals(before, history.get(0).getEpochMillis());
+        assertEquals(after, history.get(1).getEpochMillis());
+        // 23:30 UTC is already the next day in London
+        assertEquals(LocalDate.of(2026, 10, 25), london.sessionHeadcounts("CS101").get(0).getDate());
+    }
+
+    private static long at(int dayOfMonth, int hour, int minute) {
+        return LocalDateTime.of(2026, 10, dayOfMonth, hour, minute).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokensTest {
+    private static final int ROTATION_SECONDS = 30;
+    private static final long PERIOD = ROTATION_SECONDS * 1000L;
+    // Start of a rotation window
+    private static final long T0 = 56_666_667L * PERIOD;
+
+    private final SessionTokens tokens =
+            new SessionTokens("test master key".getBytes(StandardCharsets.UTF_8), ROTATION_SECONDS);
+
+    @Test
+    void tokenIsAcceptedInItsWindowAndTheNextOnly() {
+        String token = tokens.issue("CS101", "20261019", T0 + 1_000);
+        SessionTokens.Verification valid = tokens.check(token, T0 + PERIOD + 1_000);
+        assertEquals(SessionTokens.Status.VALID, valid.getStatus());
+        assertEquals("CS101", valid.getCourseCode());
+        assertEquals("20261019", valid.getSessionId());
+        assertEquals(SessionTokens.Status.EXPIRED, tokens.check(token, T0 + 2 * PERIOD).getStatus());
+    }
+
+    @Test
+    void forgedOrGarbledTokensAreRejected() {
+        String token = tokens.issue("CS101", "S", T0);
+        String forged = token.replace("CS101", "CS102");
+        assertEquals(SessionTokens.Status.BAD_SIGNATURE, tokens.check(forged, T0).getStatus());
+        assertEquals(SessionTokens.Status.MALFORMED, tokens.check("SAS1:CS101:S", T0).getStatus());
+        assertEquals(SessionTokens.Status.MALFORMED, tokens.check("not a token", T0).getStatus());
+    }
+
+    @Test
+    void tokensFromAnotherMasterKeyOrAFutureWindowAreRejected() {
+        SessionTokens other = new SessionTokens("another master key".getBytes(StandardCharsets.UTF_8), ROTATION_SECONDS);
+        assertEquals(SessionTokens.Status.BAD_SIGNATURE,
+                tokens.check(other.issue("CS101", "S", T0), T0).getStatus());
+        // A kiosk with its clock ahead must not hand out codes that stay valid longer
+        assertEquals(SessionTokens.Status.EXPIRED,
+                tokens.check(tokens.issue("CS101", "S", T0 + PERIOD), T0).getStatus());
+    }
+
+    @Test
+    void onlyGenuineTokensAddSessionKeys() {
+        String genuine = tokens.issue("CS101", "S", T0);
+        for (int i = 0; i < 5_000; i++) {
+            String forged = SessionTokens.PREFIX + "CS101:forged" + i + ":" + tokens.windowAt(T0)
+                    + ":AAAAAAAAAAAAAAAAAAAAAA";
+            assertEquals(SessionTokens.Status.BAD_SIGNATURE, tokens.check(forged, T0).getStatus());
+        }
+        assertEquals(1, tokens.cachedKeys());
+        // Keys evicted from the bounded cache are derived again
+        for (int i = 0; i < 2_000; i++) {
+            tokens.issue("CS102", "S" + i, T0);
+        }
+        assertTrue(tokens.cachedKeys() < 2_000);
+        assertTrue(tokens.check(genuine, T0).isValid());
+        assertTrue(tokens.check(tokens.issue("CS102", "S0", T0 + PERIOD), T0 + PERIOD).isValid());
+    }
+
+    @Test
+    void eachStudentMayUseATokenOnce() {
+        String token = tokens.issue("CS101", "S", T0);
+        assertEquals(SessionTokens.Status.VALID, tokens.verify(token, "S1", T0 + 1_000).getStatus());
+        assertEquals(SessionTokens.Status.REPLAYED, tokens.verify(token, "S1", T0 + 2_000).getStatus());
+        assertEquals(SessionTokens.Status.VALID, tokens.verify(token, "S2", T0 + 2_000).getStatus());
+        // Still remembered in the next window, while the token is still accepted
+        assertEquals(SessionTokens.Status.REPLAYED, tokens.verify(token, "S1", T0 + PERIOD).getStatus());
+    }
+
+    @Test
+    void checkDoesNotUseTheTokenUp() {
+        String token = tokens.issue("CS101", "S", T0);
+        assertTrue(tokens.check(token, T0).isValid());
+        assertTrue(tokens.check(token, T0).isValid());
+        assertTrue(tokens.recordUse(token, "S1", T0));
+        assertFalse(tokens.recordUse(token, "S1", T0));
+    }
+
+    @Test
+    void lateRequestDoesNotResetTheFilter() {
+        String token = tokens.issue("CS101", "S", T0);
+        // S1 marks just after the rotation...
+        assertTrue(tokens.recordUse(token, "S1", T0 + PERIOD + 10));
+        // ...then a request timed just before it is processed
+        assertTrue(tokens.recordUse(token, "S2", T0 + PERIOD - 10));
+        assertFalse(tokens.recordUse(token, "S1", T0 + PERIOD + 20));
+        // The late use is remembered too, in either window
+        assertFalse(tokens.recordUse(token, "S2", T0 + PERIOD - 5));
+        assertFalse(tokens.recordUse(token, "S2", T0 + PERIOD + 30));
+        // A use already seen in the newer window is caught when repeated late
+        assertFalse(tokens.recordUse(token, "S1", T0 + PERIOD - 5));
+    }
+
+    @Test
+    void filterForgetsOnlyOnceTokensHaveExpired() {
+        String token = tokens.issue("CS101", "S", T0);
+        assertTrue(tokens.recordUse(token, "S1", T0));
+        assertFalse(tokens.recordUse(token, "S1", T0 + PERIOD));
+        // Two windows on the token itself is expired, so forgetting it is safe
+        assertTrue(tokens.recordUse(token, "S1", T0 + 3 * PERIOD));
+        assertEquals(SessionTokens.Status.EXPIRED, tokens.check(token, T0 + 3 * PERIOD).getStatus());
+    }
+}
@@ -0,0 +1,106 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimetableTest {
+    // 2026-10-19 is a Monday
+    private static final String CSV = String.join("\n",
+            "course,room,days,start,end,grace,from,to",
+            "CS101,B1-R0,MON WED,09:00,10:00,10,,",
+            "CS101,B1-R1,MON,09:00,10:00,10,,",
+            "CS102,B1-R0,MON,10:00,11:00,10,,",
+            "CS103,B2-R0,TUE,09:00,10:00,0,,",
+            "CS104,B2-R0,MON,14:00,15:00,0,2026-10-20,");
+
+    private final Timetable timetable = new Timetable(Timetable.parse(CSV), TimeZone.getTimeZone("UTC"));
+
+    @Test
+    void graceOpensAndClosesOnTheMinute() {
+        assertEquals(Timetable.Status.NOT_RUNNING, check("CS101", null, 8, 49).getStatus());
+        assertEquals("B1-R0", check("CS101", null, 8, 49).getSession().getRoom());
+        assertEquals(Timetable.Status.OPEN, check("CS101", null, 8, 50).getStatus());
+        assertEquals(Timetable.Status.OPEN, check("CS101", null, 10, 9).getStatus());
+        Timetable.Check closed = check("CS101", null, 10, 10);
+        assertEquals(Timetable.Status.NOT_RUNNING, closed.getStatus());
+        assertNull(closed.getSession());
+    }
+
+    @Test
+    void classTimeWinsOverTheNeighboursGrace() {
+        // 10:05 in B1-R0 is CS101's late grace and CS102's class time
+        assertEquals(Timetable.Status.OPEN, check("CS102", "B1-R0", 10, 5).getStatus());
+        assertEquals("CS102", timetable.sessionInRoom("B1-R0", at(10, 5)).getCourse());
+        assertEquals("CS101", timetable.sessionInRoom("B1-R0", at(9, 55)).getCourse());
+        // The 09:50 early grace of CS102 overlaps CS101's class time
+        assertEquals("CS101", timetable.sessionInRoom("B1-R0", at(9, 50)).getCourse());
+    }
+
+    @Test
+    void roomIsCheckedOnlyWhenItIsOnTheTimetable() {
+        Timetable.Check wrong = check("CS101", "B2-R0", 9, 30);
+        assertEquals(Timetable.Status.WRONG_ROOM, wrong.getStatus());
+        assertEquals("B1-R0", wrong.getSession().getRoom());
+        // A second section of the course meets next door
+        Timetable.Check section = check("CS101", "B1-R1", 9, 30);
+        assertEquals(Timetable.Status.OPEN, section.getStatus());
+        assertEquals("B1-R1", section.getSession().getRoom());
+        // Places that are not rooms (a library, campus-wide) are not second-guessed
+        assertEquals(Timetable.Status.OPEN, check("CS101", "LIB", 9, 30).getStatus());
+        assertEquals(Timetable.Status.OPEN, check("CS101", null, 9, 30).getStatus());
+    }
+
+    @Test
+    void weekdaysAndDateRangesAreHonoured() {
+        assertEquals(Timetable.Status.NOT_RUNNING, check("CS103", null, 9, 30).getStatus());
+        assertEquals(Timetable.Status.OPEN, timetable.check("CS103", null, at(20, 9, 30)).getStatus());
+        // CS104 starts running the day after
+        assertEquals(Timetable.Status.NOT_RUNNING, check("CS104", null, 14, 30).getStatus());
+        assertEquals(Timetable.Status.OPEN, timetable.check("CS104", null, at(26, 14, 30)).getStatus());
+        assertEquals(Timetable.Status.UNKNOWN_COURSE, check("CS999", null, 9, 30).getStatus());
+    }
+
+    @Test
+    void midnightAndLastMinuteAreInRange() {
+        Timetable late = new Timetable(
+                Timetable.parse("course,room,days,start,end,grace\nNIGHT,LAB,MON,23:00,24:00,30"),
+                TimeZone.getTimeZone("UTC"));
+        assertEquals(Timetable.Status.OPEN, late.check("NIGHT", null, at(19, 23, 59)).getStatus());
+        assertEquals(Timetable.Status.NOT_RUNNING, late.check("NIGHT", null, at(20, 0, 0)).getStatus());
+    }
+
+    @Test
+    void badRowsAreReportedWithTheirLineNumber() {
+        String header = "course,room,days,start,end,grace\n";
+        assertBadLine(header + "CS101,B1-R0,MON,10:00,09:00,10", "line 2: end must be after start");
+        assertBadLine(header + "# comment\n\nCS101,B1-R0,FUNDAY,09:00,10:00,10", "line 4: unknown weekday");
+        assertBadLine(header + "CS101,B1-R0,MON,9am,10:00,10", "line 2: time must be hh:mm");
+        assertBadLine(header + "CS101,B1-R0,MON,09:00,10:00,300", "line 2: grace must be 0 to 240");
+        assertBadLine("course,room,start,end\nCS101,B1-R0,09:00,10:00", "header must name");
+    }
+
+    private static void assertBadLine(String csv, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Timetable.parse(csv));
+        assertTrue(e.getMessage().startsWith(message), e.getMessage());
+    }
+
+    private Timetable.Check check(String course, String room, int hour, int minute) {
+        return timetable.check(course, room, at(hour, minute));
+    }
+
+    private static long at(int hour, int minute) {
+        return at(19, hour, minute);
+    }
+
+    private static long at(int dayOfMonth, int hour, int minute) {
+        return LocalDateTime.of(2026, 10, dayOfMonth, hour, minute).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
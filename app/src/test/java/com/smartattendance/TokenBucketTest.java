@@ -0,0 +1,40 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+    @Test
+    void burstIsAllowedThenTheRateHolds() {
+        TokenBucket bucket = new TokenBucket(3, 0.001);
+        assertTrue(bucket.isFull());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+        assertFalse(bucket.isFull());
+    }
+
+    @Test
+    void tokensComeBackOverTimeUpToTheCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(2, 20);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        Thread.sleep(200);
+        // 200 ms at 20 per second would be 4 tokens, but only 2 fit
+        assertTrue(bucket.isFull());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void limiterKeepsOneBucketPerKey() {
+        RateLimiter limiter = new RateLimiter(1, 0.001);
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.2"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.smartattendance;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserStoreTest {
+    // Far below the real work factor so the tests stay fast
+    private static final int ITERATIONS = 1_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void newStoreHasTheDefaultAdminAndPasswordsSurviveAReload() throws IOException {
+        Path file = directory.resolve(UserStore.DEFAULT_FILE);
+        UserStore store = UserStore.load(file, ITERATIONS);
+        assertTrue(store.verify("admin", "1234".toCharArray()));
+        store.setPassword("admin", "new password".toCharArray());
+        store.setPassword("teacher", "secret".toCharArray());
+
+        UserStore reloaded = UserStore.load(file, ITERATIONS);
+        assertFalse(reloaded.verify("admin", "1234".toCharArray()));
+        assertTrue(reloaded.verify("admin", "new password".toCharArray()));
+        assertTrue(reloaded.verify("teacher", "secret".toCharArray()));
+        assertFalse(reloaded.verify("nobody", "secret".toCharArray()));
+        assertFalse(reloaded.verify(null, "secret".toCharArray()));
+        // Only hashes are stored
+        assertFalse(Files.readString(file, StandardCharsets.UTF_8).contains("secret"));
+    }
+
+    @Test
+    void hashesAtAnotherCostAreUpgradedOnLogin() throws IOException {
+        Path file = directory.resolve(UserStore.DEFAULT_FILE);
+        UserStore.load(file, ITERATIONS).setPassword("teacher", "secret".toCharArray());
+
+        UserStore stronger = UserStore.load(file, 2 * ITERATIONS);
+        assertFalse(stronger.verify("teacher", "wrong".toCharArray()));
+        assertTrue(entry(file, "teacher").contains(":" + ITERATIONS + ":"));
+        assertTrue(stronger.verify("teacher", "secret".toCharArray()));
+        assertTrue(entry(file, "teacher").contains(":" + 2 * ITERATIONS + ":"));
+        assertTrue(UserStore.load(file, 2 * ITERATIONS).verify("teacher", "secret".toCharArray()));
+    }
+
+    @Test
+    void badUsernamesAndUnreadableEntriesAreRefused() throws IOException {
+        Path file = directory.resolve(UserStore.DEFAULT_FILE);
+        Files.write(file, List.of("broken=md5:abc", "teacher=pbkdf2-sha256:x:y:z"), StandardCharsets.UTF_8);
+        UserStore store = UserStore.load(file, ITERATIONS);
+        assertFalse(store.hasUser("broken"));
+        assertFalse(store.hasUser("teacher"));
+        assertFalse(store.hasUser("admin"));
+
+        UserStore memory = new UserStore(null, ITERATIONS);
+        assertThrows(IllegalArgumentException.class, () -> memory.setPassword("a:b", "x".toCharArray()));
+        assertThrows(IllegalArgumentException.class, () -> memory.setPassword("", "x".toCharArray()));
+        assertThrows(IllegalArgumentException.class, () -> new UserStore(null, 0));
+    }
+
+    private static String entry(Path file, String username) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        return properties.getProperty(username);
+    }
+}
@@ -0,0 +1,119 @@
+package com.smartattendance.benchmarks;
+
+import com.smartattendance.Geofences;
+import com.smartattendance.LocationFix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Location verifications per second against a synthetic campus: one boundary
+// plus the given number of octagonal buildings, each holding two rooms with
+// their own access points. "grid" is the index the app builds; "scan" puts
+// every fence in a single cell, i.e. a point-in-polygon test per fence.
+// Fixes cycle through a fixed set of points and BSSIDs, about a third of
+// which miss every fence.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofenceBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int buildings;
+
+    @Param({"grid", "scan"})
+    public String index;
+
+    private static final int FIXES = 4096;
+    private static final double SPACING = 0.001;
+
+    private Geofences geofences;
+    private LocationFix[] gpsFixes;
+    private LocationFix[] wifiFixes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int side = (int) Math.ceil(Math.sqrt(buildings));
+        geofences = Geofences.parse(campus(side), "scan".equals(index) ? 1 : 0);
+
+        Random random = new Random(7);
+        gpsFixes = new LocationFix[FIXES];
+        wifiFixes = new LocationFix[FIXES];
+        for (int i = 0; i < FIXES; i++) {
+            gpsFixes[i] = LocationFix.gps(random.nextDouble() * side * SPACING,
+                    random.nextDouble() * side * SPACING);
+            // Rooms have 2 * buildings access points; a third of the lookups miss
+            int ap = random.nextInt(buildings * 3);
+            wifiFixes[i] = LocationFix.wifi(mac(ap));
+        }
+    }
+
+    @Benchmark
+    public Geofences.Verification verifyGps() {
+        return geofences.verify(gpsFixes[next++ & (FIXES - 1)]);
+    }
+
+    @Benchmark
+    public Geofences.Verification verifyWifi() {
+        return geofences.verify(wifiFixes[next++ & (FIXES - 1)]);
+    }
+
+    private String campus(int side) {
+        StringBuilder json = new StringBuilder(buildings * 1024);
+        json.append("{\"type\":\"FeatureCollection\",\"features\":[");
+        double extent = side * SPACING;
+        feature(json, "CAMPUS", "campus", new double[]{0, 0, extent, 0, extent, extent, 0, extent});
+        for (int b = 0; b < buildings; b++) {
+            double cx = (b % side + 0.5) * SPACING;
+            double cy = (b / side + 0.5) * SPACING;
+            double r = SPACING * 0.35;
+            double[] octagon = new double[16];
+            for (int k = 0; k < 8; k++) {
+                octagon[k * 2] = cx + r * Math.cos(Math.PI * k / 4);
+                octagon[k * 2 + 1] = cy + r * Math.sin(Math.PI * k / 4);
+            }
+            json.append(',');
+            feature(json, "B" + b, "building", octagon);
+            for (int room = 0; room < 2; room++) {
+                double x0 = cx - r * 0.6 + room * r * 0.6;
+                double y0 = cy - r * 0.3;
+                json.append(',');
+                feature(json, "B" + b + "-R" + room, "room",
+                        new double[]{x0, y0, x0 + r * 0.55, y0, x0 + r * 0.55, y0 + r * 0.6, x0, y0 + r * 0.6},
+                        mac(b * 2 + room));
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void feature(StringBuilder json, String id, String kind, double[] ring, String... bssids) {
+        json.append("{\"type\":\"Feature\",\"id\":\"").append(id).append("\",\"properties\":{\"name\":\"")
+                .append(id).append("\",\"kind\":\"").append(kind).append("\",\"bssids\":[");
+        for (int i = 0; i < bssids.length; i++) {
+            json.append(i > 0 ? ",\"" : "\"").append(bssids[i]).append('"');
+        }
+        json.append("]},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[");
+        for (int i = 0; i < ring.length; i += 2) {
+            json.append(i > 0 ? ",[" : "[").append(ring[i]).append(',').append(ring[i + 1]).append(']');
+        }
+        json.append("]]}}");
+    }
+
+    private static String mac(int n) {
+        return String.format(Locale.ROOT, "02:00:00:%02x:%02x:%02x", (n >> 16) & 0xFF, (n >> 8) & 0xFF, n & 0xFF);
+    }
+}
@@ -0,0 +1,112 @@
+package com.smartattendance.benchmarks;
+
+import com.smartattendance.AttendanceIndex;
+import com.smartattendance.AttendanceLog;
+import com.smartattendance.AttendanceService;
+import com.smartattendance.Geofences;
+import com.smartattendance.LocationFix;
+import com.smartattendance.MarkMessages;
+import com.smartattendance.MarkRequest;
+import com.smartattendance.MarkResult;
+import com.smartattendance.SessionTokens;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// The whole mark path behind the "Mark Attendance" button: validation,
+// geofence check against the sample campus, session token verification, duplicate check, durable append to the log and
+// formatting of the status text shown to the operator. Every invocation marks
+// a new student, so the duplicate shortcut never hides the write.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkBenchmark {
+    private static final int BATCH = 100;
+    // GPS fix inside the sample campus library
+    private static final LocationFix LIBRARY = LocationFix.gps(12.9716, 77.5935);
+
+    private Path directory;
+    private AttendanceLog log;
+    private AttendanceService service;
+    private String token;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mark-benchmark");
+        log = AttendanceLog.open(directory);
+        SessionTokens tokens = new SessionTokens(new byte[32], SessionTokens.DEFAULT_ROTATION_SECONDS);
+        service = new AttendanceService(log, new AttendanceIndex());
+        service.setSessionTokens(tokens);
+        service.setGeofences(Geofences.loadDefault(directory));
+    }
+
+    // Tokens expire after two rotation periods, so each iteration gets a fresh one
+    @Setup(Level.Iteration)
+    public void issueToken() {
+        token = service.getSessionTokens().issue("CS101", "bench", System.currentTimeMillis());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    // A course code entered by an operator; students have to scan a token
+    @Benchmark
+    public String markManual() {
+        MarkResult result = service.mark(new MarkRequest(nextStudent(), "CS101", LIBRARY, null, true));
+        return MarkMessages.describe(result);
+    }
+
+    @Benchmark
+    public String markScanned() {
+        MarkResult result = service.mark(new MarkRequest(nextStudent(), "", LIBRARY, token));
+        return MarkMessages.describe(result);
+    }
+
+    // A kiosk or the HTTP server submitting marks together shares one fsync
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<MarkResult> markBatch() {
+        List<MarkRequest> requests = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            requests.add(new MarkRequest(nextStudent(), "CS101", LIBRARY, null, true));
+        }
+        return service.markBatch(requests);
+    }
+
+    @Benchmark
+    public String formatTimestamp() {
+        return MarkMessages.formatTimestamp(System.currentTimeMillis());
+    }
+
+    private String nextStudent() {
+        return "S" + next++;
+    }
+}
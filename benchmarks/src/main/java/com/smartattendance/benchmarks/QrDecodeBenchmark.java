@@ -0,0 +1,172 @@
+package com.smartattendance.benchmarks;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.smartattendance.QrCodec;
+import com.smartattendance.QrCodecException;
+import com.smartattendance.QrScanResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// QR scanning on a clean render, a camera-like noisy capture and a rotated
+// one, with both of ZXing's binarizers. "codec" is the fast path the app uses
+// (QrCodec with the hybrid binarizer) and "tiered" its escalating fallback
+// (the same cost as "codec" whenever the fast tier succeeds); "hybrid" and
+// "globalHistogram" run ZXing directly so the two binarizers can be compared
+// on equal terms.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QrDecodeBenchmark {
+    @Param({"clean", "noisy", "rotated"})
+    public String image;
+
+    private static final Map<DecodeHintType, Object> HINTS;
+
+    static {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.QR_CODE));
+        HINTS = Collections.unmodifiableMap(hints);
+    }
+
+    private final QRCodeReader reader = new QRCodeReader();
+    private BufferedImage frame;
+
+    @Setup
+    public void setUp() throws QrCodecException {
+        BufferedImage clean = QrCodec.getInstance().toImage(
+                QrCodec.getInstance().encode("SAS1:CS101:20250616:58000000:0123456789abcdefghijkl", 400, 400));
+        switch (image) {
+            case "noisy":
+                frame = addNoise(blur(clean), 25, 42);
+                break;
+            case "rotated":
+                frame = rotate(clean, 17);
+                break;
+            default:
+                frame = clean;
+                break;
+        }
+    }
+
+    @Benchmark
+    public QrScanResult codec() {
+        return QrCodec.getInstance().decode(frame);
+    }
+
+    @Benchmark
+    public QrScanResult tiered() {
+        return QrCodec.getInstance().decodeTiered(frame);
+    }
+
+    @Benchmark
+    public Result hybrid() {
+        return decode(new HybridBinarizer(new BufferedImageLuminanceSource(frame)));
+    }
+
+    @Benchmark
+    public Result globalHistogram() {
+        return decode(new GlobalHistogramBinarizer(new BufferedImageLuminanceSource(frame)));
+    }
+
+    private Result decode(Binarizer binarizer) {
+        try {
+            return reader.decode(new BinaryBitmap(binarizer), HINTS);
+        } catch (ReaderException e) {
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    // Box blur: camera frames are never perfectly sharp
+    static BufferedImage blur(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                int count = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int sx = x + dx;
+                        int sy = y + dy;
+                        if (sx >= 0 && sy >= 0 && sx < width && sy < height) {
+                            sum += source.getRaster().getSample(sx, sy, 0);
+                            count++;
+                        }
+                    }
+                }
+                out.getRaster().setSample(x, y, 0, sum / count);
+            }
+        }
+        return out;
+    }
+
+    // Gaussian sensor noise plus an uneven lighting gradient
+    static BufferedImage addNoise(BufferedImage source, double sigma, long seed) {
+        Random random = new Random(seed);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double lighting = 0.75 + 0.25 * x / width;
+                double value = source.getRaster().getSample(x, y, 0) * lighting + random.nextGaussian() * sigma;
+                out.getRaster().setSample(x, y, 0, (int) Math.max(0, Math.min(255, value)));
+            }
+        }
+        return out;
+    }
+
+    static BufferedImage rotate(BufferedImage source, double degrees) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.rotate(Math.toRadians(degrees), width / 2.0, height / 2.0);
+            // Shrink slightly so the rotated corners stay inside the frame
+            g.translate(width * 0.1, height * 0.1);
+            g.scale(0.8, 0.8);
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,68 @@
+package com.smartattendance.benchmarks;
+
+import com.google.zxing.common.BitMatrix;
+import com.smartattendance.QrCodec;
+import com.smartattendance.QrCodecException;
+import com.smartattendance.SessionTokens;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// QR generation as the QR screen does it: encode the content, then rasterize
+// the matrix for display. The app uses 200x200 today; larger sizes show how
+// the cost grows for projector-sized codes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QrEncodeBenchmark {
+    @Param({"100", "200", "400", "800"})
+    public int size;
+
+    // A plain course code and a full signed session token, the two kinds of content shown
+    @Param({"course", "token"})
+    public String content;
+
+    private final QrCodec codec = QrCodec.getInstance();
+    private String text;
+    private BitMatrix matrix;
+
+    @Setup
+    public void setUp() throws QrCodecException {
+        if (content.equals("token")) {
+            SessionTokens tokens = new SessionTokens(new byte[32], SessionTokens.DEFAULT_ROTATION_SECONDS);
+            text = tokens.issue("CS101", "20250616", System.currentTimeMillis());
+        } else {
+            text = "CS101";
+        }
+        matrix = codec.encode(text, size, size);
+    }
+
+    @Benchmark
+    public BitMatrix encode() throws QrCodecException {
+        return codec.encode(text, size, size);
+    }
+
+    @Benchmark
+    public BufferedImage encodeAndRender() throws QrCodecException {
+        return codec.toImage(codec.encode(text, size, size));
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return codec.toImage(matrix);
+    }
+}
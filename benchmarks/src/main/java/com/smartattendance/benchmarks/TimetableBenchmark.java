@@ -0,0 +1,87 @@
+package com.smartattendance.benchmarks;
+
+import com.smartattendance.Timetable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Timetable checks per second for a synthetic timetable: every course meets
+// for 90 minutes three times a week in one of courses / 6 rooms, starting on
+// the hour between 08:00 and 17:00. Lookups cycle through a fixed set of
+// course, room and time triples over one day, a mix of open sessions, wrong
+// rooms and courses not running. "update" replaces the timetable with one
+// course moved to another room, which rebuilds that course's and both rooms'
+// day tables only.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimetableBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int courses;
+
+    private static final int LOOKUPS = 4096;
+    private static final String[] DAYS = {"MON WED FRI", "TUE THU", "MON-FRI"};
+
+    private Timetable timetable;
+    private List<Timetable.Session> sessions;
+    private List<Timetable.Session> moved;
+    private String[] lookupCourses;
+    private String[] lookupRooms;
+    private long[] lookupTimes;
+    private int next;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        int rooms = Math.max(1, courses / 6);
+        Random random = new Random(7);
+        StringBuilder csv = new StringBuilder(courses * 32).append("course,room,days,start,end\n");
+        for (int c = 0; c < courses; c++) {
+            int start = 8 + random.nextInt(10);
+            csv.append('C').append(c).append(",R").append(random.nextInt(rooms)).append(',')
+                    .append(DAYS[c % DAYS.length]).append(',').append(start).append(":00,")
+                    .append(start + 1).append(":30\n");
+        }
+        sessions = Timetable.parse(csv.toString());
+        moved = Timetable.parse(csv.toString().replaceFirst("\nC0,R\\d+,", "\nC0,R" + rooms + ","));
+        timetable = new Timetable(sessions);
+
+        long midnight = System.currentTimeMillis() / 86_400_000L * 86_400_000L;
+        lookupCourses = new String[LOOKUPS];
+        lookupRooms = new String[LOOKUPS];
+        lookupTimes = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupCourses[i] = "C" + random.nextInt(courses);
+            lookupRooms[i] = "R" + random.nextInt(rooms);
+            lookupTimes[i] = midnight + TimeUnit.MINUTES.toMillis(7 * 60 + random.nextInt(12 * 60));
+        }
+        timetable.check(lookupCourses[0], null, lookupTimes[0]);
+    }
+
+    @Benchmark
+    public Timetable.Status check() {
+        int i = next++ & (LOOKUPS - 1);
+        return timetable.check(lookupCourses[i], lookupRooms[i], lookupTimes[i]).getStatus();
+    }
+
+    @Benchmark
+    public int update() {
+        flip = !flip;
+        return timetable.update(flip ? moved : sessions);
+    }
+}